@@ -16,8 +16,11 @@
 
 package com.firefly.rails.adapter.ports;
 
+import com.firefly.rails.dtos.CursorPage;
 import com.firefly.rails.dtos.mandate.*;
+import com.firefly.rails.util.KeysetCursor;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -36,4 +39,28 @@ public interface MandatePort {
     Mono<ResponseEntity<MandateResponse>> cancelMandate(String mandateId);
 
     Mono<ResponseEntity<List<MandateResponse>>> listMandates(ListMandatesRequest request);
+
+    /**
+     * Stream mandates ordered by creation time, then mandate ID, starting after {@code request.cursor}
+     * and ending after {@code request.limit} mandates if given.
+     * Adapters should override this with a keyset query; the default sorts the full result of
+     * {@link #listMandates(ListMandatesRequest)}.
+     */
+    default Flux<MandateResponse> streamMandates(ListMandatesRequest request) {
+        Flux<MandateResponse> all = listMandates(request.toBuilder().limit(null).cursor(null).build())
+                .flatMapIterable(response -> response.getBody() == null ? List.of() : response.getBody());
+        Flux<MandateResponse> ordered = KeysetCursor.after(all, request.getCursor(), KeysetCursor::of);
+        return request.getLimit() == null ? ordered : ordered.take(Math.max(request.getLimit(), 0), true);
+    }
+
+    /**
+     * List one page of mandates after {@code request.cursor}; 400 if the cursor is invalid.
+     */
+    default Mono<ResponseEntity<CursorPage<MandateResponse>>> listMandatesPage(ListMandatesRequest request) {
+        int pageSize = KeysetCursor.pageSize(request.getLimit());
+        return KeysetCursor.page(Flux.defer(() -> streamMandates(request.toBuilder().limit(pageSize + 1).build())),
+                        pageSize, KeysetCursor::of)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
 }
@@ -16,10 +16,16 @@
 
 package com.firefly.rails.adapter.ports;
 
+import com.firefly.rails.dtos.CursorPage;
 import com.firefly.rails.dtos.payments.*;
+import com.firefly.rails.exceptions.PaymentNotFoundException;
+import com.firefly.rails.util.KeysetCursor;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -30,6 +36,11 @@ import java.util.List;
  */
 public interface PaymentRailPort {
 
+    /**
+     * Most payments one batch lookup may retrieve.
+     */
+    int MAX_LOOKUP_PAYMENTS = 1_000;
+
     // ==================== VALIDATION & SIMULATION ====================
 
     /**
@@ -113,6 +124,29 @@ public interface PaymentRailPort {
      */
     Mono<ResponseEntity<PaymentResponse>> getPayment(String paymentId);
 
+    /**
+     * Retrieve several payments in one call, streamed in the order of their identifiers.
+     * Adapters of rails with batch lookups should override this; the default calls
+     * {@link #getPayment(String)} for each payment, eight at a time. Payments that are not found
+     * are left out of the result.
+     *
+     * @param paymentIds rail-specific payment identifiers, at most {@link #MAX_LOOKUP_PAYMENTS}
+     * @return reactive stream of the payments found; an {@link IllegalArgumentException} if too
+     *         many payments are requested
+     */
+    default Flux<PaymentResponse> getPayments(Collection<String> paymentIds) {
+        Collection<String> ids = new LinkedHashSet<>(paymentIds);
+        if (ids.size() > MAX_LOOKUP_PAYMENTS) {
+            return Flux.error(new IllegalArgumentException("Cannot look up more than "
+                    + MAX_LOOKUP_PAYMENTS + " payments at once"));
+        }
+        return Flux.fromIterable(ids)
+                .flatMapSequential(id -> getPayment(id)
+                        .filter(response -> response.getStatusCode().is2xxSuccessful())
+                        .mapNotNull(ResponseEntity::getBody)
+                        .onErrorResume(PaymentNotFoundException.class, e -> Mono.empty()), 8);
+    }
+
     /**
      * Get payment status by reference.
      *
@@ -129,6 +163,37 @@ public interface PaymentRailPort {
      */
     Mono<ResponseEntity<List<PaymentResponse>>> listPayments(ListPaymentsRequest request);
 
+    /**
+     * Stream payments ordered by creation time, then payment ID, starting after {@code request.cursor}
+     * and ending after {@code request.limit} payments if given.
+     * Adapters should override this with a keyset query so that reading stays constant-memory and
+     * every page costs the same; the default sorts the full result of {@link #listPayments(ListPaymentsRequest)}.
+     *
+     * @param request list request with filters and optional cursor
+     * @return reactive stream of payments
+     * @see KeysetCursor
+     */
+    default Flux<PaymentResponse> streamPayments(ListPaymentsRequest request) {
+        Flux<PaymentResponse> all = listPayments(request.toBuilder().limit(null).offset(null).cursor(null).build())
+                .flatMapIterable(response -> response.getBody() == null ? List.of() : response.getBody());
+        Flux<PaymentResponse> ordered = KeysetCursor.after(all, request.getCursor(), KeysetCursor::of);
+        return request.getLimit() == null ? ordered : ordered.take(Math.max(request.getLimit(), 0), true);
+    }
+
+    /**
+     * List one page of payments after {@code request.cursor}, in the order of {@link #streamPayments(ListPaymentsRequest)}.
+     *
+     * @param request list request with filters, page size and optional cursor
+     * @return reactive publisher with the page and the cursor of the next one; 400 if the cursor is invalid
+     */
+    default Mono<ResponseEntity<CursorPage<PaymentResponse>>> listPaymentsPage(ListPaymentsRequest request) {
+        int pageSize = KeysetCursor.pageSize(request.getLimit());
+        return KeysetCursor.page(Flux.defer(() -> streamPayments(request.toBuilder().limit(pageSize + 1).offset(null).build())),
+                        pageSize, KeysetCursor::of)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
     // ==================== CANCELLATION & RETURNS ====================
 
     /**
@@ -18,6 +18,7 @@ package com.firefly.rails.adapter.ports;
 
 import com.firefly.rails.dtos.reconciliation.*;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
@@ -32,5 +33,15 @@ public interface ReconciliationPort {
 
     Mono<ResponseEntity<List<DiscrepancyResponse>>> findDiscrepancies(ReconciliationRequest request);
 
+    /**
+     * Stream discrepancies as they are found instead of collecting them into one list.
+     * Adapters backed by a streaming engine should override this; the default flattens
+     * {@link #findDiscrepancies(ReconciliationRequest)}.
+     */
+    default Flux<DiscrepancyResponse> streamDiscrepancies(ReconciliationRequest request) {
+        return findDiscrepancies(request)
+                .flatMapIterable(response -> response.getBody() == null ? List.of() : response.getBody());
+    }
+
     Mono<ResponseEntity<ReconciliationSummary>> getReconciliationSummary(LocalDate startDate, LocalDate endDate);
 }
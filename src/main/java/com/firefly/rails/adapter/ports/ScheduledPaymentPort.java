@@ -4,10 +4,15 @@
 
 package com.firefly.rails.adapter.ports;
 
+import com.firefly.rails.dtos.CursorPage;
 import com.firefly.rails.dtos.scheduled.*;
+import com.firefly.rails.util.KeysetCursor;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,6 +46,39 @@ public interface ScheduledPaymentPort {
      */
     Mono<ResponseEntity<List<ScheduledPaymentResponse>>> listScheduledPayments(ListScheduledPaymentsRequest request);
 
+    /**
+     * Stream scheduled payments ordered by execution date, then scheduled payment ID, starting after
+     * {@code request.cursor} and ending after {@code request.limit} payments if given.
+     * Adapters should override this with a keyset query; the default sorts the full result of
+     * {@link #listScheduledPayments(ListScheduledPaymentsRequest)}.
+     *
+     * @param request list request with filters and optional cursor
+     * @return reactive stream of scheduled payments
+     */
+    default Flux<ScheduledPaymentResponse> streamScheduledPayments(ListScheduledPaymentsRequest request) {
+        Flux<ScheduledPaymentResponse> all = listScheduledPayments(
+                request.toBuilder().limit(null).offset(null).cursor(null).build())
+                .flatMapIterable(response -> response.getBody() == null ? List.of() : response.getBody());
+        Flux<ScheduledPaymentResponse> ordered = KeysetCursor.after(all, request.getCursor(), KeysetCursor::of);
+        return request.getLimit() == null ? ordered : ordered.take(Math.max(request.getLimit(), 0), true);
+    }
+
+    /**
+     * List one page of scheduled payments after {@code request.cursor}.
+     *
+     * @param request list request with filters, page size and optional cursor
+     * @return reactive publisher with the page and the cursor of the next one; 400 if the cursor is invalid
+     */
+    default Mono<ResponseEntity<CursorPage<ScheduledPaymentResponse>>> listScheduledPaymentsPage(
+            ListScheduledPaymentsRequest request) {
+        int pageSize = KeysetCursor.pageSize(request.getLimit());
+        return KeysetCursor.page(Flux.defer(() -> streamScheduledPayments(
+                                request.toBuilder().limit(pageSize + 1).offset(null).build())),
+                        pageSize, KeysetCursor::of)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
     /**
      * Cancel a scheduled payment before execution.
      *
@@ -88,4 +126,39 @@ public interface ScheduledPaymentPort {
      * @return reactive publisher with execution history
      */
     Mono<ResponseEntity<List<PaymentExecutionHistory>>> getRecurringPaymentHistory(String recurringPaymentId);
+
+    /**
+     * Stream the execution history of a recurring payment, oldest first.
+     * Adapters that keep their history in a store that can be read incrementally should override
+     * this; the default flattens {@link #getRecurringPaymentHistory(String)}.
+     *
+     * @param recurringPaymentId recurring payment identifier
+     * @return reactive stream of executions
+     */
+    default Flux<PaymentExecutionHistory> streamRecurringPaymentHistory(String recurringPaymentId) {
+        return getRecurringPaymentHistory(recurringPaymentId)
+                .flatMapIterable(response -> response.getBody() == null ? List.of() : response.getBody());
+    }
+
+    /**
+     * Get the most recent executions of a recurring payment, newest first.
+     * The default reads the whole history through {@link #getRecurringPaymentHistory(String)}.
+     *
+     * @param recurringPaymentId recurring payment identifier
+     * @param limit maximum number of executions
+     * @return reactive publisher with the latest executions
+     */
+    default Mono<ResponseEntity<List<PaymentExecutionHistory>>> getLatestRecurringPaymentExecutions(
+            String recurringPaymentId, int limit) {
+        return getRecurringPaymentHistory(recurringPaymentId)
+                .map(response -> {
+                    if (response.getBody() == null) {
+                        return response;
+                    }
+                    List<PaymentExecutionHistory> latest = new ArrayList<>(response.getBody());
+                    Collections.reverse(latest);
+                    return ResponseEntity.status(response.getStatusCode())
+                            .body(latest.subList(0, Math.min(Math.max(limit, 0), latest.size())));
+                });
+    }
 }
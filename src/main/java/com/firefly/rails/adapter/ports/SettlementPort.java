@@ -18,6 +18,7 @@ package com.firefly.rails.adapter.ports;
 
 import com.firefly.rails.dtos.settlement.*;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
@@ -46,6 +47,21 @@ public interface SettlementPort {
      */
     Mono<ResponseEntity<List<SettlementReport>>> getSettlementReports(SettlementReportRequest request);
 
+    /**
+     * Stream settlement reports for a date range, one report at a time.
+     *
+     * Adapters should override this to emit reports as they are produced, e.g. with
+     * {@link com.firefly.rails.settlement.SettlementReportAggregator}; the default
+     * flattens {@link #getSettlementReports(SettlementReportRequest)}.
+     *
+     * @param request settlement report request with date range
+     * @return reactive stream of settlement reports
+     */
+    default Flux<SettlementReport> streamSettlementReports(SettlementReportRequest request) {
+        return getSettlementReports(request)
+                .flatMapIterable(response -> response.getBody() == null ? List.of() : response.getBody());
+    }
+
     /**
      * Get detailed settlement transactions.
      *
@@ -54,6 +70,20 @@ public interface SettlementPort {
      */
     Mono<ResponseEntity<SettlementDetails>> getSettlementDetails(String settlementId);
 
+    /**
+     * Stream the transactions of a settlement, one transaction at a time.
+     *
+     * The default flattens {@link #getSettlementDetails(String)}.
+     *
+     * @param settlementId settlement identifier
+     * @return reactive stream of settled transactions
+     */
+    default Flux<SettlementTransaction> streamSettlementTransactions(String settlementId) {
+        return getSettlementDetails(settlementId)
+                .flatMapIterable(response -> response.getBody() == null || response.getBody().getTransactions() == null
+                        ? List.of() : response.getBody().getTransactions());
+    }
+
     /**
      * Query expected settlement date for a payment.
      *
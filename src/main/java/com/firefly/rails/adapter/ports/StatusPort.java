@@ -17,14 +17,24 @@
 package com.firefly.rails.adapter.ports;
 
 import com.firefly.rails.dtos.status.*;
+import com.firefly.rails.exceptions.PaymentNotFoundException;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.*;
+
 /**
  * Port interface for payment status inquiry operations.
  */
 public interface StatusPort {
 
+    /**
+     * Most transactions one status subscription may watch.
+     */
+    int MAX_SUBSCRIBED_TRANSACTIONS = 1_000;
+
     /**
      * Query payment status by transaction ID.
      */
@@ -39,4 +49,60 @@ public interface StatusPort {
      * Get full payment tracking history.
      */
     Mono<ResponseEntity<PaymentTrackingResponse>> getPaymentTracking(String paymentId);
+
+    /**
+     * Query the status of several transactions in one call.
+     * Adapters of rails with bulk status lookups should override this; the default queries
+     * {@link #queryTransactionStatus(String)} for each transaction, eight at a time. Transactions
+     * without a status, answered with a non-2xx status or a {@link PaymentNotFoundException}, are
+     * left out of the result.
+     *
+     * @param transactionIds transactions to look up
+     * @return reactive publisher with the statuses found
+     */
+    default Mono<ResponseEntity<List<TransactionStatusResponse>>> queryTransactionStatuses(Collection<String> transactionIds) {
+        return Flux.fromIterable(new LinkedHashSet<>(transactionIds))
+                .flatMapSequential(id -> queryTransactionStatus(id)
+                        .filter(response -> response.getStatusCode().is2xxSuccessful())
+                        .mapNotNull(ResponseEntity::getBody)
+                        .onErrorResume(PaymentNotFoundException.class, e -> Mono.empty()), 8)
+                .collectList()
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Subscribe to status changes of a set of transactions.
+     * Adapters that learn of status changes from the rail should override this with a
+     * {@link com.firefly.rails.status.PaymentStatusHub}; the default polls all transactions with
+     * one {@link #queryTransactionStatuses(Collection)} call every five seconds on the server side
+     * and emits each transaction's current status and every change.
+     *
+     * @param transactionIds transactions to watch, at most {@link #MAX_SUBSCRIBED_TRANSACTIONS}
+     * @return reactive stream of status changes, open until the subscriber cancels; an
+     *         {@link IllegalArgumentException} if too many transactions are watched
+     */
+    default Flux<TransactionStatusResponse> subscribeToStatus(Collection<String> transactionIds) {
+        Collection<String> ids = new LinkedHashSet<>(transactionIds);
+        if (ids.size() > MAX_SUBSCRIBED_TRANSACTIONS) {
+            return Flux.error(new IllegalArgumentException("Cannot watch more than "
+                    + MAX_SUBSCRIBED_TRANSACTIONS + " transactions in one subscription"));
+        }
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            Map<String, String> seen = new HashMap<>();
+            return Flux.interval(Duration.ZERO, Duration.ofSeconds(5))
+                    .onBackpressureDrop()
+                    .concatMap(tick -> queryTransactionStatuses(ids).onErrorResume(error -> Mono.empty()), 1)
+                    .flatMapIterable(response -> response.getBody() == null
+                            ? List.<TransactionStatusResponse>of() : response.getBody())
+                    .filter(status -> {
+                        boolean changed = !seen.containsKey(status.getId())
+                                || !Objects.equals(seen.get(status.getId()), status.getStatus());
+                        seen.put(status.getId(), status.getStatus());
+                        return changed;
+                    });
+        });
+    }
 }
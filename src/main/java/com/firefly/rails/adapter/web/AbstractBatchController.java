@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.adapter.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.batch.BatchOperationExecutor;
+import com.firefly.rails.dtos.batch.BatchRequest;
+import com.firefly.rails.dtos.batch.BatchResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Abstract REST controller executing several payment, compliance and status operations in one request.
+ *
+ * @see BatchOperationExecutor
+ */
+@Slf4j
+public abstract class AbstractBatchController {
+
+    protected final RailAdapter railAdapter;
+    protected final BatchOperationExecutor batchExecutor;
+
+    protected AbstractBatchController(RailAdapter railAdapter) {
+        this(railAdapter, new BatchOperationExecutor(railAdapter));
+    }
+
+    /**
+     * @param objectMapper mapper converting operation bodies, typically the application's own
+     */
+    protected AbstractBatchController(RailAdapter railAdapter, ObjectMapper objectMapper) {
+        this(railAdapter, new BatchOperationExecutor(railAdapter, objectMapper));
+    }
+
+    protected AbstractBatchController(RailAdapter railAdapter, BatchOperationExecutor batchExecutor) {
+        this.railAdapter = railAdapter;
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * Execute a batch of operations.
+     * POST /batch
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BatchResponse>> executeBatch(@RequestBody BatchRequest request) {
+        log.debug("Executing batch of {} operations", request.getOperations() == null ? 0 : request.getOperations().size());
+        return batchExecutor.execute(request);
+    }
+}
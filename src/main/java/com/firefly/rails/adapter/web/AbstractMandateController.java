@@ -5,11 +5,14 @@
 package com.firefly.rails.adapter.web;
 
 import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.dtos.CursorPage;
 import com.firefly.rails.dtos.mandate.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -77,4 +80,24 @@ public abstract class AbstractMandateController {
         log.debug("Listing mandates");
         return railAdapter.mandates().listMandates(request);
     }
+
+    /**
+     * List one page of mandates after a cursor.
+     * POST /mandates/list/page
+     */
+    @PostMapping("/mandates/list/page")
+    public Mono<ResponseEntity<CursorPage<MandateResponse>>> listMandatesPage(@RequestBody ListMandatesRequest request) {
+        log.debug("Listing mandates page");
+        return railAdapter.mandates().listMandatesPage(request);
+    }
+
+    /**
+     * Stream mandates as NDJSON.
+     * POST /mandates/list/stream
+     */
+    @PostMapping(value = "/mandates/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MandateResponse> streamMandates(@RequestBody ListMandatesRequest request) {
+        log.debug("Streaming mandates");
+        return railAdapter.mandates().streamMandates(request);
+    }
 }
@@ -17,13 +17,20 @@
 package com.firefly.rails.adapter.web;
 
 import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.dtos.CursorPage;
 import com.firefly.rails.dtos.payments.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -135,6 +142,21 @@ public abstract class AbstractPaymentRailController {
         return railAdapter.payments().getPayment(paymentId);
     }
 
+    /**
+     * Get several payments by ID, streamed as NDJSON.
+     * POST /payments/lookup
+     * Answers 400 for more than {@link PaymentRailPort#MAX_LOOKUP_PAYMENTS} payments.
+     */
+    @PostMapping(value = "/payments/lookup", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PaymentResponse> getPayments(@RequestBody List<String> paymentIds) {
+        log.debug("Retrieving {} payments", paymentIds.size());
+        if (new HashSet<>(paymentIds).size() > PaymentRailPort.MAX_LOOKUP_PAYMENTS) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot look up more than "
+                    + PaymentRailPort.MAX_LOOKUP_PAYMENTS + " payments at once"));
+        }
+        return railAdapter.payments().getPayments(paymentIds);
+    }
+
     /**
      * Get payment status by reference.
      * GET /payments/status/{reference}
@@ -155,6 +177,26 @@ public abstract class AbstractPaymentRailController {
         return railAdapter.payments().listPayments(request);
     }
 
+    /**
+     * List one page of payments after a cursor.
+     * GET /payments/page
+     */
+    @GetMapping("/payments/page")
+    public Mono<ResponseEntity<CursorPage<PaymentResponse>>> listPaymentsPage(ListPaymentsRequest request) {
+        log.debug("Listing payments page");
+        return railAdapter.payments().listPaymentsPage(request);
+    }
+
+    /**
+     * Stream payments as NDJSON.
+     * GET /payments/stream
+     */
+    @GetMapping(value = "/payments/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PaymentResponse> streamPayments(ListPaymentsRequest request) {
+        log.debug("Streaming payments");
+        return railAdapter.payments().streamPayments(request);
+    }
+
     // ==================== CANCELLATION & RETURNS ====================
 
     /**
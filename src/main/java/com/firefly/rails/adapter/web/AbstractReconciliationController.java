@@ -9,8 +9,10 @@ import com.firefly.rails.dtos.reconciliation.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
@@ -35,6 +37,12 @@ public abstract class AbstractReconciliationController {
         return railAdapter.reconciliation().findDiscrepancies(request);
     }
 
+    @PostMapping(value = "/reconciliation/discrepancies/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DiscrepancyResponse> streamDiscrepancies(@RequestBody ReconciliationRequest request) {
+        log.debug("Streaming discrepancies");
+        return railAdapter.reconciliation().streamDiscrepancies(request);
+    }
+
     @GetMapping("/reconciliation/summary")
     public Mono<ResponseEntity<ReconciliationSummary>> getReconciliationSummary(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
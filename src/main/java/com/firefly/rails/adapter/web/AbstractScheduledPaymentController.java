@@ -5,11 +5,14 @@
 package com.firefly.rails.adapter.web;
 
 import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.dtos.CursorPage;
 import com.firefly.rails.dtos.scheduled.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -38,6 +41,19 @@ public abstract class AbstractScheduledPaymentController {
         return railAdapter.scheduledPayments().listScheduledPayments(request);
     }
 
+    @PostMapping("/scheduled/list/page")
+    public Mono<ResponseEntity<CursorPage<ScheduledPaymentResponse>>> listScheduledPaymentsPage(
+            @RequestBody ListScheduledPaymentsRequest request) {
+        log.debug("Listing scheduled payments page");
+        return railAdapter.scheduledPayments().listScheduledPaymentsPage(request);
+    }
+
+    @PostMapping(value = "/scheduled/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ScheduledPaymentResponse> streamScheduledPayments(@RequestBody ListScheduledPaymentsRequest request) {
+        log.debug("Streaming scheduled payments");
+        return railAdapter.scheduledPayments().streamScheduledPayments(request);
+    }
+
     @DeleteMapping("/scheduled/{scheduledPaymentId}")
     public Mono<ResponseEntity<CancellationResponse>> cancelScheduledPayment(@PathVariable String scheduledPaymentId) {
         log.info("Cancelling scheduled payment: {}", scheduledPaymentId);
@@ -73,4 +89,17 @@ public abstract class AbstractScheduledPaymentController {
         log.debug("Getting recurring payment history: {}", recurringPaymentId);
         return railAdapter.scheduledPayments().getRecurringPaymentHistory(recurringPaymentId);
     }
+
+    @GetMapping(value = "/recurring/{recurringPaymentId}/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PaymentExecutionHistory> streamRecurringPaymentHistory(@PathVariable String recurringPaymentId) {
+        log.debug("Streaming recurring payment history: {}", recurringPaymentId);
+        return railAdapter.scheduledPayments().streamRecurringPaymentHistory(recurringPaymentId);
+    }
+
+    @GetMapping("/recurring/{recurringPaymentId}/history/latest")
+    public Mono<ResponseEntity<List<PaymentExecutionHistory>>> getLatestRecurringPaymentExecutions(
+            @PathVariable String recurringPaymentId, @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Getting latest {} executions of recurring payment: {}", limit, recurringPaymentId);
+        return railAdapter.scheduledPayments().getLatestRecurringPaymentExecutions(recurringPaymentId, limit);
+    }
 }
@@ -9,8 +9,10 @@ import com.firefly.rails.dtos.settlement.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
@@ -20,7 +22,7 @@ import java.util.List;
  * Abstract REST controller for settlement operations.
  * 
  * Provides endpoints for:
- * - Settlement reports
+ * - Settlement reports (also streamed as NDJSON)
  * - Settlement details
  * - Expected settlement dates
  */
@@ -52,6 +54,16 @@ public abstract class AbstractSettlementController {
         return railAdapter.settlement().getSettlementReports(request);
     }
 
+    /**
+     * Stream settlement reports for a date range as newline-delimited JSON.
+     * POST /settlement/reports/stream
+     */
+    @PostMapping(value = "/settlement/reports/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SettlementReport> streamSettlementReports(@RequestBody SettlementReportRequest request) {
+        log.debug("Streaming settlement reports for date range");
+        return railAdapter.settlement().streamSettlementReports(request);
+    }
+
     /**
      * Get detailed settlement transactions.
      * GET /settlement/{settlementId}
@@ -62,6 +74,16 @@ public abstract class AbstractSettlementController {
         return railAdapter.settlement().getSettlementDetails(settlementId);
     }
 
+    /**
+     * Stream the transactions of a settlement as newline-delimited JSON.
+     * GET /settlement/{settlementId}/transactions
+     */
+    @GetMapping(value = "/settlement/{settlementId}/transactions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SettlementTransaction> streamSettlementTransactions(@PathVariable String settlementId) {
+        log.debug("Streaming settlement transactions: {}", settlementId);
+        return railAdapter.settlement().streamSettlementTransactions(settlementId);
+    }
+
     /**
      * Get expected settlement date for a payment.
      * GET /settlement/expected/{paymentId}
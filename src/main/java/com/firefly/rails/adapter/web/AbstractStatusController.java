@@ -5,13 +5,22 @@
 package com.firefly.rails.adapter.web;
 
 import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.adapter.ports.StatusPort;
 import com.firefly.rails.dtos.status.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashSet;
+import java.util.List;
+
 /**
  * Abstract REST controller for payment status operations.
  * 
@@ -19,6 +28,7 @@ import reactor.core.publisher.Mono;
  * - Transaction status queries
  * - Payment tracking
  * - Status by reference
+ * - Status change streams (Server-Sent Events)
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -55,4 +65,22 @@ public abstract class AbstractStatusController {
         log.debug("Getting payment tracking: {}", paymentId);
         return railAdapter.status().getPaymentTracking(paymentId);
     }
+
+    /**
+     * Stream status changes of a set of transactions as Server-Sent Events.
+     * GET /status/stream?transactionIds=...
+     * Answers 400 for more than {@link StatusPort#MAX_SUBSCRIBED_TRANSACTIONS} transactions.
+     */
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TransactionStatusResponse>> streamTransactionStatus(@RequestParam List<String> transactionIds) {
+        log.debug("Streaming status of {} transactions", transactionIds.size());
+        if (new HashSet<>(transactionIds).size() > StatusPort.MAX_SUBSCRIBED_TRANSACTIONS) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot watch more than "
+                    + StatusPort.MAX_SUBSCRIBED_TRANSACTIONS + " transactions in one subscription"));
+        }
+        return railAdapter.status().subscribeToStatus(transactionIds)
+                .map(status -> ServerSentEvent.builder(status)
+                        .event("status")
+                        .build());
+    }
 }
@@ -6,7 +6,7 @@
 /**
  * Abstract REST controllers providing zero-boilerplate API endpoints.
  * 
- * <p>This package contains 9 abstract controller classes that automatically
+ * <p>This package contains 10 abstract controller classes that automatically
  * expose REST APIs for all banking rail operations. Rail implementations
  * simply extend these controllers to inherit complete REST endpoint functionality.
  * 
@@ -21,6 +21,7 @@
  *   <li>{@link com.firefly.rails.adapter.web.AbstractScheduledPaymentController} - 9 scheduled payment endpoints</li>
  *   <li>{@link com.firefly.rails.adapter.web.AbstractComplianceController} - 6 compliance endpoints</li>
  *   <li>{@link com.firefly.rails.adapter.web.AbstractRailSpecificController} - 2 custom operation endpoints</li>
+ *   <li>{@link com.firefly.rails.adapter.web.AbstractBatchController} - 1 batch endpoint multiplexing payment, compliance and status operations</li>
  * </ul>
  * 
  * <h2>Zero Boilerplate Principle</h2>
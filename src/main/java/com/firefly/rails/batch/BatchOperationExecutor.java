@@ -0,0 +1,336 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.dtos.batch.BatchOperation;
+import com.firefly.rails.dtos.batch.BatchOperationResult;
+import com.firefly.rails.dtos.batch.BatchRequest;
+import com.firefly.rails.dtos.batch.BatchResponse;
+import com.firefly.rails.dtos.compliance.*;
+import com.firefly.rails.dtos.payments.*;
+import com.firefly.rails.exceptions.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Executes a batch of heterogeneous payment, compliance and status operations in one call.
+ *
+ * <p>Operations run concurrently unless they name earlier operations in {@code dependsOn}; an
+ * operation then waits for those to finish and runs only if all of them succeeded, so a client
+ * can send validate, simulate and initiate as one chain next to independent compliance checks.
+ * An operation whose dependency failed is answered with 424 Failed Dependency and never reaches
+ * the rail. An operation succeeds when it answers 2xx and, for the operations that decide
+ * something, its body agrees: a valid payment for {@code payments.validate} and
+ * {@code payments.simulate}, no match for {@code compliance.sanctions}, an approval for
+ * {@code compliance.check} and a verified customer for {@code compliance.kyc}. Otherwise the
+ * operation is declined: it keeps its status and body and says why in {@code error}. At most {@code concurrency} operations of a batch call the rail at once, whether they
+ * start right away or once their dependencies finished. Each operation gets the status its own
+ * endpoint would have answered with; a failure of one operation never fails the batch.
+ *
+ * <p>Dependencies must point backwards in the batch, which rules out cycles. A batch with an
+ * unknown or forward dependency, a duplicate id or more than {@code maxOperations} operations is
+ * rejected as a whole with 400.
+ *
+ * <p>Supported operations, with the type their {@code body} is converted to:
+ * <ul>
+ *   <li>{@code payments.validate}, {@code payments.simulate}, {@code payments.authorize},
+ *       {@code payments.authenticate}, {@code payments.initiate}, {@code payments.return} - the request DTO</li>
+ *   <li>{@code payments.confirm}, {@code payments.cancelAuthorization} - the authorization ID</li>
+ *   <li>{@code payments.get}, {@code payments.cancel} - the payment ID</li>
+ *   <li>{@code payments.status} - the payment reference</li>
+ *   <li>{@code compliance.check}, {@code compliance.sanctions}, {@code compliance.kyc},
+ *       {@code compliance.dueDiligence}, {@code compliance.sar} - the request DTO</li>
+ *   <li>{@code compliance.riskProfile} - the customer ID</li>
+ *   <li>{@code status.transaction} - the transaction ID</li>
+ *   <li>{@code status.reference} - the end-to-end reference</li>
+ *   <li>{@code status.tracking} - the payment ID</li>
+ * </ul>
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * BatchRequest request = BatchRequest.builder()
+ *     .operations(List.of(
+ *         BatchOperation.builder().id("validate").operation("payments.validate").body(validateRequest).build(),
+ *         BatchOperation.builder().id("sanctions").operation("compliance.sanctions").body(screeningRequest).build(),
+ *         BatchOperation.builder().id("initiate").operation("payments.initiate").body(initiateRequest)
+ *             .dependsOn(List.of("validate", "sanctions")).build()))
+ *     .build();
+ * BatchResponse response = executor.execute(request).block().getBody();
+ * }</pre>
+ */
+@Slf4j
+public class BatchOperationExecutor {
+
+    public static final int DEFAULT_MAX_OPERATIONS = 100;
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    private final RailAdapter railAdapter;
+    private final ObjectMapper objectMapper;
+    private final int maxOperations;
+    private final int concurrency;
+    private final Map<String, Operation<?>> operations = new LinkedHashMap<>();
+
+    /**
+     * @param decline reason a 2xx response body declines the operation, or {@code null} if it does not
+     */
+    private record Operation<T>(Class<T> bodyType,
+                                BiFunction<RailAdapter, T, Mono<? extends ResponseEntity<?>>> invoker,
+                                Function<Object, String> decline) {
+
+        Mono<? extends ResponseEntity<?>> invoke(RailAdapter railAdapter, ObjectMapper objectMapper, Object body) {
+            return invoker.apply(railAdapter, objectMapper.convertValue(body, bodyType));
+        }
+    }
+
+    /**
+     * Executor converting operation bodies with a default JSON mapper.
+     */
+    public BatchOperationExecutor(RailAdapter railAdapter) {
+        this(railAdapter, JsonMapper.builder().findAndAddModules().build());
+    }
+
+    public BatchOperationExecutor(RailAdapter railAdapter, ObjectMapper objectMapper) {
+        this(railAdapter, objectMapper, DEFAULT_MAX_OPERATIONS, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param objectMapper mapper converting operation bodies into request DTOs
+     * @param maxOperations most operations accepted in one batch
+     * @param concurrency most operations executing at once
+     */
+    public BatchOperationExecutor(RailAdapter railAdapter, ObjectMapper objectMapper, int maxOperations, int concurrency) {
+        if (maxOperations <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("maxOperations and concurrency must be positive");
+        }
+        this.railAdapter = railAdapter;
+        this.objectMapper = objectMapper;
+        this.maxOperations = maxOperations;
+        this.concurrency = concurrency;
+
+        register("payments.validate", ValidatePaymentRequest.class, (rail, body) -> rail.payments().validatePayment(body),
+                ValidationResponse.class, response -> response.isValid() ? null : "Payment is not valid");
+        register("payments.simulate", SimulatePaymentRequest.class, (rail, body) -> rail.payments().simulatePayment(body),
+                SimulationResponse.class, response -> response.isValid() ? null : "Simulated payment is not valid");
+        register("payments.authorize", AuthorizePaymentRequest.class, (rail, body) -> rail.payments().authorizePayment(body));
+        register("payments.authenticate", CompleteAuthenticationRequest.class, (rail, body) -> rail.payments().completeAuthentication(body));
+        register("payments.confirm", String.class, (rail, body) -> rail.payments().confirmPayment(body));
+        register("payments.cancelAuthorization", String.class, (rail, body) -> rail.payments().cancelAuthorization(body));
+        register("payments.initiate", InitiatePaymentRequest.class, (rail, body) -> rail.payments().initiatePayment(body));
+        register("payments.get", String.class, (rail, body) -> rail.payments().getPayment(body));
+        register("payments.status", String.class, (rail, body) -> rail.payments().getPaymentStatus(body));
+        register("payments.cancel", String.class, (rail, body) -> rail.payments().cancelPayment(body));
+        register("payments.return", ReturnRequest.class, (rail, body) -> rail.payments().requestReturn(body));
+
+        register("compliance.check", ComplianceCheckRequest.class, (rail, body) -> rail.compliance().performComplianceCheck(body),
+                ComplianceCheckResponse.class, response -> response.isApproved() ? null : "Compliance check not approved");
+        register("compliance.sanctions", SanctionsScreeningRequest.class, (rail, body) -> rail.compliance().screenSanctions(body),
+                SanctionsScreeningResponse.class, response -> response.isMatch() ? "Sanctions screening matched" : null);
+        register("compliance.kyc", KYCVerificationRequest.class, (rail, body) -> rail.compliance().verifyKYC(body),
+                KYCVerificationResponse.class, response -> response.isVerified() ? null : "Customer not verified");
+        register("compliance.dueDiligence", DueDiligenceRequest.class, (rail, body) -> rail.compliance().checkDueDiligence(body));
+        register("compliance.sar", SARRequest.class, (rail, body) -> rail.compliance().reportSuspiciousActivity(body));
+        register("compliance.riskProfile", String.class, (rail, body) -> rail.compliance().getCustomerRiskProfile(body));
+
+        register("status.transaction", String.class, (rail, body) -> rail.status().queryTransactionStatus(body));
+        register("status.reference", String.class, (rail, body) -> rail.status().queryStatusByReference(body));
+        register("status.tracking", String.class, (rail, body) -> rail.status().getPaymentTracking(body));
+    }
+
+    private <T> void register(String name, Class<T> bodyType,
+                              BiFunction<RailAdapter, T, Mono<? extends ResponseEntity<?>>> invoker) {
+        operations.put(name, new Operation<>(bodyType, invoker, response -> null));
+    }
+
+    private <T, R> void register(String name, Class<T> bodyType,
+                                 BiFunction<RailAdapter, T, Mono<? extends ResponseEntity<?>>> invoker,
+                                 Class<R> responseType, Function<R, String> decline) {
+        operations.put(name, new Operation<>(bodyType, invoker,
+                response -> responseType.isInstance(response) ? decline.apply(responseType.cast(response)) : null));
+    }
+
+    /**
+     * Names of the operations a batch may contain.
+     */
+    public Set<String> supportedOperations() {
+        return Collections.unmodifiableSet(operations.keySet());
+    }
+
+    /**
+     * Execute a batch.
+     *
+     * @param request operations to execute
+     * @return reactive publisher with one result per operation, in request order;
+     *         400 if the batch itself is malformed
+     */
+    public Mono<ResponseEntity<BatchResponse>> execute(BatchRequest request) {
+        List<BatchOperation> batch = request == null || request.getOperations() == null ? List.of() : request.getOperations();
+        if (batch.size() > maxOperations) {
+            log.warn("Rejecting batch of {} operations, at most {} allowed", batch.size(), maxOperations);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        Permits permits = new Permits(concurrency);
+        Map<String, Mono<BatchOperationResult>> results = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            BatchOperation operation = batch.get(i);
+            if (operation == null) {
+                log.warn("Rejecting batch with an empty operation at position {}", i);
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+            String id = operation.getId() != null ? operation.getId() : String.valueOf(i);
+            List<Mono<BatchOperationResult>> dependencies = new ArrayList<>();
+            for (String dependency : Objects.requireNonNullElse(operation.getDependsOn(), List.<String>of())) {
+                Mono<BatchOperationResult> result = results.get(dependency);
+                if (result == null) {
+                    log.warn("Rejecting batch: operation {} depends on {}, which is not an earlier operation", id, dependency);
+                    return Mono.just(ResponseEntity.badRequest().build());
+                }
+                dependencies.add(result);
+            }
+            if (results.containsKey(id)) {
+                log.warn("Rejecting batch with duplicate operation id {}", id);
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+            results.put(id, Flux.merge(dependencies)
+                    .filter(result -> !result.isSuccessful())
+                    .next()
+                    .map(failed -> failure(id, operation.getOperation(), HttpStatus.FAILED_DEPENDENCY,
+                            "Dependency " + failed.getId() + " failed"))
+                    .switchIfEmpty(Mono.defer(() -> invoke(id, operation, permits)))
+                    .cache());
+        }
+
+        // every operation is subscribed at once, so that one waiting for its dependencies never holds
+        // back the others; the permits bound the calls to the rail
+        return Flux.fromIterable(results.values())
+                .flatMapSequential(result -> result, Math.max(results.size(), 1))
+                .collectList()
+                .map(list -> ResponseEntity.ok(BatchResponse.builder().results(list).build()));
+    }
+
+    private Mono<BatchOperationResult> invoke(String id, BatchOperation operation, Permits permits) {
+        Operation<?> handler = operation.getOperation() == null ? null : operations.get(operation.getOperation());
+        if (handler == null) {
+            return Mono.just(failure(id, operation.getOperation(), HttpStatus.BAD_REQUEST,
+                    "Unsupported operation: " + operation.getOperation()));
+        }
+        if (operation.getBody() == null) {
+            return Mono.just(failure(id, operation.getOperation(), HttpStatus.BAD_REQUEST,
+                    "Operation " + operation.getOperation() + " requires a body"));
+        }
+        return Mono.usingWhen(permits.acquire(),
+                        permit -> Mono.defer(() -> handler.invoke(railAdapter, objectMapper, operation.getBody())),
+                        Permits::release)
+                .<BatchOperationResult>map(response -> BatchOperationResult.builder()
+                        .id(id)
+                        .operation(operation.getOperation())
+                        .status(response.getStatusCode().value())
+                        .body(response.getBody())
+                        .error(response.getStatusCode().is2xxSuccessful() ? handler.decline().apply(response.getBody()) : null)
+                        .build())
+                .defaultIfEmpty(BatchOperationResult.builder()
+                        .id(id)
+                        .operation(operation.getOperation())
+                        .status(HttpStatus.OK.value())
+                        .build())
+                .onErrorResume(e -> {
+                    log.debug("Batch operation {} ({}) failed: {}", id, operation.getOperation(), e.getMessage());
+                    return Mono.just(failure(id, operation.getOperation(), statusOf(e), e.getMessage()));
+                });
+    }
+
+    private static HttpStatus statusOf(Throwable error) {
+        if (error instanceof IllegalArgumentException || error instanceof InvalidAccountException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (error instanceof PaymentNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (error instanceof PaymentRejectedException || error instanceof InsufficientFundsException) {
+            return HttpStatus.UNPROCESSABLE_ENTITY;
+        }
+        if (error instanceof RailException) {
+            return HttpStatus.BAD_GATEWAY;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private static BatchOperationResult failure(String id, String operation, HttpStatus status, String error) {
+        return BatchOperationResult.builder()
+                .id(id)
+                .operation(operation)
+                .status(status.value())
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Non-blocking permits of one batch; waiting operations get a permit in the order they asked.
+     */
+    private static final class Permits {
+
+        private final Deque<MonoSink<Permits>> waiting = new ArrayDeque<>();
+        private int available;
+
+        private Permits(int available) {
+            this.available = available;
+        }
+
+        private Mono<Permits> acquire() {
+            return Mono.create(sink -> {
+                synchronized (this) {
+                    if (available == 0) {
+                        waiting.add(sink);
+                        sink.onCancel(() -> {
+                            synchronized (this) {
+                                waiting.remove(sink);
+                            }
+                        });
+                        return;
+                    }
+                    available--;
+                }
+                sink.success(this);
+            });
+        }
+
+        private Mono<Void> release() {
+            return Mono.fromRunnable(() -> {
+                MonoSink<Permits> next;
+                synchronized (this) {
+                    next = waiting.poll();
+                    if (next == null) {
+                        available++;
+                        return;
+                    }
+                }
+                next.success(this);
+            });
+        }
+    }
+}
@@ -0,0 +1,17 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Multiplexed execution of rail operations for chatty clients.
+ *
+ * <p>This package contains building blocks for cutting round trips to the rails REST API:
+ * <ul>
+ *   <li>{@link com.firefly.rails.batch.BatchOperationExecutor} - Runs a batch of payment, compliance and status operations, honouring dependencies</li>
+ * </ul>
+ *
+ * @see com.firefly.rails.adapter.web.AbstractBatchController
+ * @since 1.0.0
+ */
+package com.firefly.rails.batch;
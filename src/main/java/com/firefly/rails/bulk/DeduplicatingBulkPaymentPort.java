@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk;
+
+import com.firefly.rails.adapter.ports.BulkPaymentPort;
+import com.firefly.rails.dtos.bulk.*;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link BulkPaymentPort} decorator that rejects bulks containing duplicate end-to-end references
+ * before they reach the rail.
+ *
+ * <p>References are reserved in a {@link DuplicateReferenceDetector} before the bulk is submitted
+ * and released again unless the delegate answers with a 2xx status - on errors, non-2xx answers,
+ * empty answers and cancellation alike - so a corrected bulk can be resubmitted. A rejected bulk is answered with {@code 422 Unprocessable Entity} listing
+ * every duplicate item.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public BulkPaymentPort bulkPayments() {
+ *     return new DeduplicatingBulkPaymentPort(achBulkPort, detector);
+ * }
+ * }</pre>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DeduplicatingBulkPaymentPort implements BulkPaymentPort {
+
+    private final BulkPaymentPort delegate;
+    private final DuplicateReferenceDetector detector;
+
+    @Override
+    public Mono<ResponseEntity<BulkPaymentResponse>> submitBulkPayment(BulkPaymentRequest request) {
+        return Mono.defer(() -> {
+            List<String> references = references(request);
+            List<DuplicateReference> duplicates = detector.reserve(references);
+            if (!duplicates.isEmpty()) {
+                log.warn("Rejecting bulk {}: {} duplicate end-to-end references", request.getId(), duplicates.size());
+                return Mono.just(ResponseEntity.unprocessableEntity().body(BulkPaymentResponse.builder()
+                        .id(request.getId())
+                        .status("REJECTED")
+                        .acceptedCount(0)
+                        .rejectedCount(duplicates.size())
+                        .duplicates(duplicates)
+                        .submittedAt(Instant.now())
+                        .build()));
+            }
+            AtomicBoolean accepted = new AtomicBoolean();
+            return delegate.submitBulkPayment(request)
+                    .doOnNext(response -> accepted.set(response.getStatusCode().is2xxSuccessful()))
+                    .doFinally(signal -> {
+                        if (!accepted.get()) {
+                            detector.release(references);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<BulkPaymentStatusResponse>> getBulkPaymentStatus(String bulkPaymentId) {
+        return delegate.getBulkPaymentStatus(bulkPaymentId);
+    }
+
+    @Override
+    public Mono<ResponseEntity<BulkPaymentResponse>> cancelBulkPayment(String bulkPaymentId) {
+        return delegate.cancelBulkPayment(bulkPaymentId);
+    }
+
+    private static List<String> references(BulkPaymentRequest request) {
+        List<InitiatePaymentRequest> payments = request.getPayments();
+        if (payments == null) {
+            return List.of();
+        }
+        List<String> references = new ArrayList<>(payments.size());
+        for (InitiatePaymentRequest payment : payments) {
+            references.add(payment.getEndToEndReference());
+        }
+        return references;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk;
+
+import com.firefly.rails.dtos.bulk.DuplicateReference;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects duplicate end-to-end references within a bulk and across bulks accepted during a
+ * rolling time window.
+ *
+ * <p>Accepted references are kept as 64-bit hashes in an {@link OffHeapReferenceIndex}, optionally
+ * fronted by a Bloom filter, so tens of millions of references cost a few hundred megabytes of
+ * direct memory instead of gigabytes of heap. References older than the window expire and are
+ * purged when the index is next rebuilt.
+ *
+ * <p>{@link #reserve(List)} is atomic: either every reference of the bulk is registered or none
+ * is and the duplicates are returned. Callers {@link #release(List)} the references again if the
+ * bulk is not accepted by the rail.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * DuplicateReferenceDetector detector =
+ *     new DuplicateReferenceDetector(10_000_000, Duration.ofDays(30), true);
+ *
+ * List<DuplicateReference> duplicates = detector.reserve(references);
+ * if (!duplicates.isEmpty()) {
+ *     // reject the bulk
+ * }
+ * }</pre>
+ */
+public class DuplicateReferenceDetector implements AutoCloseable {
+
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+
+    private final int expectedReferences;
+    private final long windowMillis;
+    private final boolean bloomEnabled;
+    private final Clock clock;
+    private final OffHeapReferenceIndex index;
+    private OffHeapBloomFilter bloom;
+
+    /**
+     * @param expectedReferences number of live references to size the index for
+     * @param window how long an accepted reference blocks reuse
+     * @param bloomFilter whether to front the index with a Bloom filter
+     */
+    public DuplicateReferenceDetector(int expectedReferences, Duration window, boolean bloomFilter) {
+        this(expectedReferences, window, bloomFilter, Clock.systemUTC());
+    }
+
+    public DuplicateReferenceDetector(int expectedReferences, Duration window, boolean bloomFilter, Clock clock) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Duplicate detection window must be positive");
+        }
+        this.expectedReferences = expectedReferences;
+        this.windowMillis = window.toMillis();
+        this.bloomEnabled = bloomFilter;
+        this.clock = clock;
+        this.index = new OffHeapReferenceIndex(expectedReferences);
+        this.bloom = bloomFilter ? new OffHeapBloomFilter(expectedReferences, BLOOM_BITS_PER_ENTRY) : null;
+    }
+
+    /**
+     * Report duplicates without registering anything.
+     *
+     * @param references end-to-end references in item order; {@code null} entries are skipped
+     * @return one entry per duplicate item, in item order
+     */
+    public synchronized List<DuplicateReference> findDuplicates(List<String> references) {
+        return scan(references, clock.millis() - windowMillis);
+    }
+
+    /**
+     * Register all references of a bulk if none of them is a duplicate.
+     *
+     * @param references end-to-end references in item order; {@code null} entries are skipped
+     * @return the duplicates found; empty if the references were registered
+     */
+    public synchronized List<DuplicateReference> reserve(List<String> references) {
+        long now = clock.millis();
+        long notBefore = now - windowMillis;
+        List<DuplicateReference> duplicates = scan(references, notBefore);
+        if (!duplicates.isEmpty()) {
+            return duplicates;
+        }
+        if (index.ensureCapacity(references.size(), notBefore) && bloomEnabled) {
+            rebuildBloom(notBefore);
+        }
+        for (String reference : references) {
+            if (reference != null) {
+                long hash = OffHeapReferenceIndex.hash(reference);
+                index.put(hash, now, notBefore);
+                if (bloom != null) {
+                    bloom.add(hash);
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Forget references registered by {@link #reserve(List)}, e.g. after the rail rejected the bulk.
+     */
+    public synchronized void release(List<String> references) {
+        for (String reference : references) {
+            if (reference != null) {
+                index.remove(OffHeapReferenceIndex.hash(reference));
+            }
+        }
+    }
+
+    /**
+     * @return off-heap bytes held by the index
+     */
+    public synchronized long getOffHeapBytes() {
+        return index.getOffHeapBytes();
+    }
+
+    @Override
+    public synchronized void close() {
+        index.close();
+        bloom = null;
+    }
+
+    private List<DuplicateReference> scan(List<String> references, long notBefore) {
+        List<DuplicateReference> duplicates = new ArrayList<>();
+
+        // Small transient table for duplicates inside the bulk itself
+        int capacity = Integer.highestOneBit(Math.max(16, references.size() * 2) - 1) << 1;
+        int mask = capacity - 1;
+        long[] seenHashes = new long[capacity];
+        int[] firstIndex = new int[capacity];
+
+        for (int i = 0; i < references.size(); i++) {
+            String reference = references.get(i);
+            if (reference == null) {
+                continue;
+            }
+            long hash = OffHeapReferenceIndex.hash(reference);
+
+            int slot = (int) hash & mask;
+            while (seenHashes[slot] != 0 && seenHashes[slot] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            if (seenHashes[slot] == hash) {
+                duplicates.add(DuplicateReference.builder()
+                        .itemIndex(i)
+                        .endToEndReference(reference)
+                        .duplicateOfIndex(firstIndex[slot])
+                        .build());
+                continue;
+            }
+            seenHashes[slot] = hash;
+            firstIndex[slot] = i;
+
+            if (bloom == null || bloom.mightContain(hash)) {
+                long seenAt = index.get(hash, notBefore);
+                if (seenAt >= 0) {
+                    duplicates.add(DuplicateReference.builder()
+                            .itemIndex(i)
+                            .endToEndReference(reference)
+                            .firstSeenAt(Instant.ofEpochMilli(seenAt))
+                            .build());
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    private void rebuildBloom(long notBefore) {
+        OffHeapBloomFilter rebuilt = new OffHeapBloomFilter(
+                Math.max(expectedReferences, index.getCapacity() / 2), BLOOM_BITS_PER_ENTRY);
+        index.forEachLive(notBefore, rebuilt::add);
+        bloom = rebuilt;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Bloom filter over 64-bit hashes, with its bit array in a direct buffer.
+ *
+ * <p>Used in front of {@link OffHeapReferenceIndex} so that references never seen before -
+ * the common case - are answered without probing the larger table. Probe positions are derived
+ * from the already well-mixed 64-bit hash by double hashing, so no further hashing is done.
+ *
+ * <p>Entries cannot be removed; the owner rebuilds the filter when the index drops expired
+ * entries. Not thread-safe.
+ */
+final class OffHeapBloomFilter {
+
+    private final LongBuffer words;
+    private final long bitMask;
+    private final int hashCount;
+
+    /**
+     * @param expectedEntries number of entries to size for
+     * @param bitsPerEntry bits per entry; 10 gives roughly a 1% false positive rate
+     */
+    OffHeapBloomFilter(int expectedEntries, int bitsPerEntry) {
+        long bits = Math.max(64L, (long) expectedEntries * bitsPerEntry);
+        bits = Long.highestOneBit(bits - 1) << 1;
+        if (bits / 8 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large for " + expectedEntries + " entries");
+        }
+        this.words = ByteBuffer.allocateDirect((int) (bits / 8)).asLongBuffer();
+        this.bitMask = bits - 1;
+        this.hashCount = Math.max(1, (int) Math.round(bitsPerEntry * Math.log(2)));
+    }
+
+    void add(long hash) {
+        long h1 = hash;
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            int word = (int) (bit >>> 6);
+            words.put(word, words.get(word) | (1L << bit));
+        }
+    }
+
+    boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        for (int i = 0; i < words.capacity(); i++) {
+            words.put(i, 0L);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash table of 64-bit reference hashes stored in a direct (off-heap) buffer.
+ *
+ * <p>Each slot holds the reference hash and the epoch-millisecond timestamp it was last seen,
+ * 16 bytes in total, with linear probing. A hash of {@code 0} marks an empty slot. Entries whose
+ * timestamp is older than the caller's {@code notBefore} are treated as expired: they still take
+ * part in probe chains (so lookups stay correct) and are reused on insert, and they are dropped
+ * when the table is rebuilt by {@link #ensureCapacity(int, long)}.
+ *
+ * <p>Storing hashes instead of strings keeps the footprint between 21 and 32 bytes per live
+ * reference depending on load, outside the Java heap. Two distinct references collide
+ * with probability about {@code n^2 / 2^65}, which is negligible at tens of millions of entries.
+ *
+ * <p>Not thread-safe; callers synchronize externally.
+ */
+public final class OffHeapReferenceIndex implements AutoCloseable {
+
+    /** Largest supported number of slots (1 GiB of off-heap memory) */
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int SLOT_BYTES = 16;
+    private static final double MAX_LOAD = 0.75;
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private ByteBuffer slots;
+    private int capacity;
+    private int mask;
+    private int occupied;
+
+    /**
+     * @param expectedEntries number of live entries to size the table for
+     */
+    public OffHeapReferenceIndex(int expectedEntries) {
+        allocate(capacityFor(Math.max(expectedEntries, 16)));
+    }
+
+    /**
+     * 64-bit hash of a reference (FNV-1a followed by a murmur3 finalizer). Never returns 0.
+     */
+    public static long hash(CharSequence reference) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < reference.length(); i++) {
+            h ^= reference.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Look up a hash.
+     *
+     * @param hash reference hash from {@link #hash(CharSequence)}
+     * @param notBefore entries last seen before this epoch-millisecond are ignored
+     * @return the timestamp the hash was last seen, or {@code -1} if absent or expired
+     */
+    public long get(long hash, long notBefore) {
+        int slot = (int) hash & mask;
+        while (true) {
+            long stored = slots.getLong(slot * SLOT_BYTES);
+            if (stored == 0) {
+                return -1;
+            }
+            if (stored == hash) {
+                long seenAt = slots.getLong(slot * SLOT_BYTES + 8);
+                return seenAt >= notBefore ? seenAt : -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Insert a hash or refresh its timestamp. Callers must have reserved room with
+     * {@link #ensureCapacity(int, long)}.
+     *
+     * @return the previous live timestamp, or {@code -1} if the hash was absent or expired
+     */
+    public long put(long hash, long seenAt, long notBefore) {
+        int slot = (int) hash & mask;
+        int reusable = -1;
+        while (true) {
+            int offset = slot * SLOT_BYTES;
+            long stored = slots.getLong(offset);
+            if (stored == 0) {
+                break;
+            }
+            long storedSeenAt = slots.getLong(offset + 8);
+            if (stored == hash) {
+                slots.putLong(offset + 8, seenAt);
+                return storedSeenAt >= notBefore ? storedSeenAt : -1;
+            }
+            if (reusable < 0 && storedSeenAt < notBefore) {
+                reusable = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (reusable >= 0) {
+            slot = reusable;
+        } else {
+            if (occupied + 1 > capacity * MAX_LOAD) {
+                throw new IllegalStateException("Reference index is full; call ensureCapacity first");
+            }
+            occupied++;
+        }
+        slots.putLong(slot * SLOT_BYTES, hash);
+        slots.putLong(slot * SLOT_BYTES + 8, seenAt);
+        return -1;
+    }
+
+    /**
+     * Expire a hash so it no longer counts as seen. The slot stays in its probe chain.
+     *
+     * @return whether the hash was present
+     */
+    public boolean remove(long hash) {
+        int slot = (int) hash & mask;
+        while (true) {
+            long stored = slots.getLong(slot * SLOT_BYTES);
+            if (stored == 0) {
+                return false;
+            }
+            if (stored == hash) {
+                slots.putLong(slot * SLOT_BYTES + 8, REMOVED);
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Make room for {@code additional} inserts, rebuilding the table without expired entries
+     * (and growing it if needed) when the load factor would be exceeded.
+     *
+     * @return whether the table was rebuilt
+     */
+    public boolean ensureCapacity(int additional, long notBefore) {
+        if (occupied + (long) additional <= capacity * MAX_LOAD) {
+            return false;
+        }
+        ByteBuffer old = slots;
+        int oldCapacity = capacity;
+        int live = countLive(old, oldCapacity, notBefore);
+
+        allocate(capacityFor(live + additional));
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long hash = old.getLong(slot * SLOT_BYTES);
+            long seenAt = old.getLong(slot * SLOT_BYTES + 8);
+            if (hash != 0 && seenAt >= notBefore) {
+                put(hash, seenAt, notBefore);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visit every live hash.
+     */
+    public void forEachLive(long notBefore, LongConsumer consumer) {
+        for (int slot = 0; slot < capacity; slot++) {
+            long hash = slots.getLong(slot * SLOT_BYTES);
+            if (hash != 0 && slots.getLong(slot * SLOT_BYTES + 8) >= notBefore) {
+                consumer.accept(hash);
+            }
+        }
+    }
+
+    /**
+     * @return number of slots in use, expired entries included
+     */
+    public int getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @return number of slots in the table
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return off-heap bytes held by the table
+     */
+    public long getOffHeapBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Drop the buffer reference so the off-heap memory can be reclaimed.
+     */
+    @Override
+    public void close() {
+        slots = null;
+        capacity = 0;
+        mask = 0;
+        occupied = 0;
+    }
+
+    private void allocate(int newCapacity) {
+        slots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        occupied = 0;
+    }
+
+    private static int countLive(ByteBuffer buffer, int bufferCapacity, long notBefore) {
+        int live = 0;
+        for (int slot = 0; slot < bufferCapacity; slot++) {
+            if (buffer.getLong(slot * SLOT_BYTES) != 0 && buffer.getLong(slot * SLOT_BYTES + 8) >= notBefore) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /** Smallest power of two keeping {@code entries} at or below half the capacity */
+    private static int capacityFor(long entries) {
+        long needed = Math.max(16, entries * 2);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Reference index cannot hold " + entries + " entries");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
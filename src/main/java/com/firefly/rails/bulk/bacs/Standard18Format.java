@@ -0,0 +1,164 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk.bacs;
+
+import com.firefly.rails.exceptions.RailFileFormatException;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Fixed-width field layout shared by {@link Standard18Writer} and {@link Standard18Reader}.
+ *
+ * <p>Label records (VOL1, HDR1, HDR2, UHL1, EOF1, EOF2, UTL1) are 80 characters wide,
+ * detail and contra records are 100 characters wide. All positions below are 0-based
+ * offsets into the record.
+ */
+final class Standard18Format {
+
+    static final int LABEL_LENGTH = 80;
+    static final int DETAIL_LENGTH = 100;
+    static final String RECORD_SEPARATOR = "\r\n";
+
+    static final String VOL1 = "VOL1";
+    static final String HDR1 = "HDR1";
+    static final String HDR2 = "HDR2";
+    static final String UHL1 = "UHL1";
+    static final String EOF1 = "EOF1";
+    static final String EOF2 = "EOF2";
+    static final String UTL1 = "UTL1";
+
+    /** Reference written in contra records */
+    static final String CONTRA_REFERENCE = "CONTRA";
+
+    /** Transaction code of a contra that debits the originator (balances credits) */
+    static final String CONTRA_DEBIT_CODE = "17";
+
+    /** Transaction code of a contra that credits the originator (balances debits) */
+    static final String CONTRA_CREDIT_CODE = "99";
+
+    // Detail record field offsets
+    static final int DEST_SORT_CODE = 0;
+    static final int DEST_ACCOUNT = 6;
+    static final int DEST_ACCOUNT_TYPE = 14;
+    static final int TRANSACTION_CODE = 15;
+    static final int ORIG_SORT_CODE = 17;
+    static final int ORIG_ACCOUNT = 23;
+    static final int FREE_FORMAT = 31;
+    static final int AMOUNT = 35;
+    static final int SERVICE_USER_NAME = 46;
+    static final int REFERENCE = 64;
+    static final int DEST_ACCOUNT_NAME = 82;
+
+    static final int AMOUNT_WIDTH = 11;
+    static final int NAME_WIDTH = 18;
+
+    // HDR1 / UHL1 field offsets used when reading
+    static final int HDR1_SERVICE_USER_NUMBER = 5;
+    static final int UHL1_PROCESSING_DATE = 4;
+
+    // UTL1 field offsets
+    static final int UTL1_DEBIT_TOTAL = 4;
+    static final int UTL1_CREDIT_TOTAL = 17;
+    static final int UTL1_DEBIT_COUNT = 30;
+    static final int UTL1_CREDIT_COUNT = 37;
+    static final int TOTAL_WIDTH = 13;
+    static final int COUNT_WIDTH = 7;
+
+    private Standard18Format() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Left-align an alphanumeric value, upper-cased and truncated or space-padded to width.
+     */
+    static String alpha(String value, int width) {
+        String text = value == null ? "" : value.toUpperCase(Locale.ROOT);
+        if (text.length() >= width) {
+            return text.substring(0, width);
+        }
+        return text + " ".repeat(width - text.length());
+    }
+
+    /**
+     * Right-align a non-negative number, zero-padded to width.
+     *
+     * @throws RailFileFormatException if the value does not fit
+     */
+    static String numeric(long value, int width) {
+        String text = Long.toString(value);
+        if (value < 0 || text.length() > width) {
+            throw new RailFileFormatException(
+                    String.format("Value %d does not fit a %d digit Standard 18 field", value, width));
+        }
+        return "0".repeat(width - text.length()) + text;
+    }
+
+    /**
+     * Validate a digits-only field of exact width (sort codes, account numbers).
+     */
+    static String digits(String value, int width, String fieldName) {
+        String text = value == null ? "" : value.replace("-", "").replace(" ", "");
+        if (text.length() != width || !text.chars().allMatch(Character::isDigit)) {
+            throw new RailFileFormatException(
+                    String.format("%s must be %d digits but was '%s'", fieldName, width, value));
+        }
+        return text;
+    }
+
+    /**
+     * Julian date as used in Standard 18 labels: a space followed by yyddd.
+     */
+    static String julian(LocalDate date) {
+        return String.format(" %02d%03d", date.getYear() % 100, date.getDayOfYear());
+    }
+
+    /**
+     * Parse a " yyddd" Julian date, assuming the 21st century.
+     */
+    static LocalDate parseJulian(String value) {
+        String text = value.trim();
+        if (text.length() != 5 || !text.chars().allMatch(Character::isDigit)) {
+            throw new RailFileFormatException("Invalid Standard 18 Julian date: '" + value + "'");
+        }
+        int year = 2000 + Integer.parseInt(text.substring(0, 2));
+        return LocalDate.ofYearDay(year, Integer.parseInt(text.substring(2)));
+    }
+
+    static String field(String record, int offset, int width) {
+        return record.substring(offset, offset + width);
+    }
+
+    static long numericField(String record, int offset, int width) {
+        String text = field(record, offset, width);
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            throw new RailFileFormatException("Invalid numeric Standard 18 field: '" + text + "'", e);
+        }
+    }
+
+    static String pad(StringBuilder record, int width) {
+        if (record.length() > width) {
+            throw new IllegalStateException("Standard 18 record overflow: " + record.length() + " > " + width);
+        }
+        while (record.length() < width) {
+            record.append(' ');
+        }
+        return record.toString();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk.bacs;
+
+import com.firefly.rails.domain.railspecific.BACSSpecific;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import reactor.core.publisher.Flux;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+
+import static com.firefly.rails.bulk.bacs.Standard18Format.*;
+
+/**
+ * Streaming reader for BACS Standard 18 files.
+ *
+ * <p>Returns detail and contra records one at a time, each tagged with the service user
+ * number and processing date of its section. Debit/credit totals and counts are accumulated
+ * per section and checked against the UTL1 trailer as soon as it is read, so a corrupt
+ * section fails with a {@link RailFileFormatException} without buffering the file.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * Standard18Reader.read(() -> Files.newBufferedReader(path, StandardCharsets.US_ASCII))
+ *     .filter(record -> !record.isContra())
+ *     .map(Standard18Record::toPayment)
+ *     .subscribe(...);
+ * }</pre>
+ */
+public class Standard18Reader implements Iterator<Standard18Record>, Closeable {
+
+    private final BufferedReader in;
+    private long lineNumber;
+    private Standard18Record next;
+
+    private String sectionServiceUserNumber;
+    private LocalDate sectionProcessingDate;
+    private long sectionDebitPence;
+    private long sectionCreditPence;
+    private long sectionDebitCount;
+    private long sectionCreditCount;
+
+    public Standard18Reader(Reader in) {
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+    }
+
+    /**
+     * Stream the records of a Standard 18 file. The reader is opened on subscription and
+     * closed on completion, error or cancellation.
+     *
+     * @param source opens the underlying reader
+     * @return flux of detail and contra records
+     */
+    public static Flux<Standard18Record> read(Callable<? extends Reader> source) {
+        return Flux.using(
+                () -> new Standard18Reader(source.call()),
+                reader -> Flux.fromIterable(() -> reader),
+                reader -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Standard18Record next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Standard18Record record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Standard18Record advance() {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String label = line.length() >= 4 ? line.substring(0, 4) : line;
+            switch (label) {
+                case VOL1, HDR2, EOF1, EOF2 -> {
+                    // Volume and file labels carry nothing the reader needs
+                }
+                case HDR1 -> {
+                    requireLength(line, LABEL_LENGTH);
+                    sectionServiceUserNumber = field(line, HDR1_SERVICE_USER_NUMBER, 6);
+                    resetTotals();
+                }
+                case UHL1 -> {
+                    requireLength(line, LABEL_LENGTH);
+                    sectionProcessingDate = parseJulian(field(line, UHL1_PROCESSING_DATE, 6));
+                }
+                case UTL1 -> verifyTrailer(line);
+                default -> {
+                    return parseDetail(line);
+                }
+            }
+        }
+        if (sectionServiceUserNumber != null) {
+            throw new RailFileFormatException("Standard 18 file ended before the UTL1 trailer of service user "
+                    + sectionServiceUserNumber);
+        }
+        return null;
+    }
+
+    private Standard18Record parseDetail(String line) {
+        requireLength(line, DETAIL_LENGTH);
+        if (sectionServiceUserNumber == null || sectionProcessingDate == null) {
+            throw new RailFileFormatException("Detail record outside of a HDR1/UHL1 section at line " + lineNumber);
+        }
+        String transactionCode = field(line, TRANSACTION_CODE, 2);
+        long pence = numericField(line, AMOUNT, AMOUNT_WIDTH);
+        String reference = field(line, REFERENCE, NAME_WIDTH).trim();
+
+        if (isCredit(transactionCode)) {
+            sectionCreditPence = Math.addExact(sectionCreditPence, pence);
+            sectionCreditCount++;
+        } else {
+            sectionDebitPence = Math.addExact(sectionDebitPence, pence);
+            sectionDebitCount++;
+        }
+
+        return Standard18Record.builder()
+                .serviceUserNumber(sectionServiceUserNumber)
+                .processingDate(sectionProcessingDate)
+                .destinationSortCode(field(line, DEST_SORT_CODE, 6))
+                .destinationAccountNumber(field(line, DEST_ACCOUNT, 8))
+                .transactionCode(transactionCode)
+                .originatingSortCode(field(line, ORIG_SORT_CODE, 6))
+                .originatingAccountNumber(field(line, ORIG_ACCOUNT, 8))
+                .amountPence(pence)
+                .serviceUserName(field(line, SERVICE_USER_NAME, NAME_WIDTH).trim())
+                .reference(reference)
+                .destinationAccountName(field(line, DEST_ACCOUNT_NAME, NAME_WIDTH).trim())
+                .contra(CONTRA_REFERENCE.equals(reference))
+                .build();
+    }
+
+    private void verifyTrailer(String line) {
+        requireLength(line, LABEL_LENGTH);
+        long debitPence = numericField(line, UTL1_DEBIT_TOTAL, TOTAL_WIDTH);
+        long creditPence = numericField(line, UTL1_CREDIT_TOTAL, TOTAL_WIDTH);
+        long debitCount = numericField(line, UTL1_DEBIT_COUNT, COUNT_WIDTH);
+        long creditCount = numericField(line, UTL1_CREDIT_COUNT, COUNT_WIDTH);
+        if (debitPence != sectionDebitPence || creditPence != sectionCreditPence
+                || debitCount != sectionDebitCount || creditCount != sectionCreditCount) {
+            throw new RailFileFormatException(String.format(
+                    "UTL1 totals mismatch for service user %s at line %d: expected debits %d/%d credits %d/%d, "
+                            + "trailer has debits %d/%d credits %d/%d",
+                    sectionServiceUserNumber, lineNumber,
+                    sectionDebitPence, sectionDebitCount, sectionCreditPence, sectionCreditCount,
+                    debitPence, debitCount, creditPence, creditCount));
+        }
+        sectionServiceUserNumber = null;
+        sectionProcessingDate = null;
+        resetTotals();
+    }
+
+    private boolean isCredit(String transactionCode) {
+        try {
+            return BACSSpecific.TransactionCode.fromCode(transactionCode).isCredit();
+        } catch (IllegalArgumentException e) {
+            throw new RailFileFormatException("Unknown transaction code '" + transactionCode
+                    + "' at line " + lineNumber, e);
+        }
+    }
+
+    private void resetTotals() {
+        sectionDebitPence = 0;
+        sectionCreditPence = 0;
+        sectionDebitCount = 0;
+        sectionCreditCount = 0;
+    }
+
+    private void requireLength(String line, int length) {
+        if (line.length() < length) {
+            throw new RailFileFormatException(String.format(
+                    "Standard 18 record at line %d is %d characters, expected %d", lineNumber, line.length(), length));
+        }
+    }
+
+    private String readLine() {
+        try {
+            String line = in.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
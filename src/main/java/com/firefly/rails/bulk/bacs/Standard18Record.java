@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk.bacs;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.railspecific.BACSSpecific;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * A detail or contra record read from a Standard 18 file.
+ */
+@Data
+@Builder
+public class Standard18Record {
+
+    /** Service User Number from the enclosing HDR1 label */
+    private String serviceUserNumber;
+
+    /** Processing date from the enclosing UHL1 label */
+    private LocalDate processingDate;
+
+    private String destinationSortCode;
+    private String destinationAccountNumber;
+
+    /** Two-character transaction code as written in the file */
+    private String transactionCode;
+
+    private String originatingSortCode;
+    private String originatingAccountNumber;
+
+    /** Amount in pence */
+    private long amountPence;
+
+    private String serviceUserName;
+    private String reference;
+    private String destinationAccountName;
+
+    /** Whether this is a contra record balancing the detail records of its group */
+    private boolean contra;
+
+    /**
+     * Map this record back to a {@link BACSSpecific.BACSPayment}.
+     *
+     * @throws IllegalStateException for contra records, which have no payment counterpart
+     */
+    public BACSSpecific.BACSPayment toPayment() {
+        if (contra) {
+            throw new IllegalStateException("Contra records do not map to a BACS payment");
+        }
+        return BACSSpecific.BACSPayment.builder()
+                .serviceUserNumber(serviceUserNumber)
+                .transactionCode(BACSSpecific.TransactionCode.fromCode(transactionCode))
+                .sortCode(destinationSortCode)
+                .accountNumber(destinationAccountNumber)
+                .destinationAccountName(destinationAccountName)
+                .originatingSortCode(originatingSortCode)
+                .originatingAccountNumber(originatingAccountNumber)
+                .originatingAccountName(serviceUserName)
+                .reference(reference)
+                .processingDate(processingDate.toString())
+                .amount(Money.fromCents(amountPence, Currency.GBP))
+                .build();
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.bulk.bacs;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.railspecific.BACSSpecific;
+import com.firefly.rails.exceptions.RailFileFormatException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+import static com.firefly.rails.bulk.bacs.Standard18Format.*;
+
+/**
+ * Streaming writer for BACS Standard 18 submission files.
+ *
+ * <p>Payments are grouped into one file section (HDR1..UTL1) per service user number,
+ * processing day and originating account, since a section's contras balance it against a
+ * single originating account. A section is opened when the first payment of a new group arrives and
+ * closed - contra records and totals written - when the group changes or the writer is
+ * finished. Only the running totals of the open section are kept, so memory use does not
+ * depend on the number of payments written.
+ *
+ * <p>Sections are delimited by consecutive input; callers should feed payments ordered by
+ * service user number, processing date and originating account to get exactly one section per group. Unordered
+ * input still produces a valid file, with one section per run of equal keys.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * try (Standard18Writer writer = new Standard18Writer(out, "000001", "123456", LocalDate.now())) {
+ *     payments.forEach(writer::write);
+ * }
+ * }</pre>
+ */
+public class Standard18Writer implements Closeable {
+
+    private final Writer out;
+    private final String volumeOwner;
+    private final LocalDate creationDate;
+
+    private boolean finished;
+    private int fileNumber;
+    private long totalRecords;
+
+    // Open section state
+    private String sectionServiceUserNumber;
+    private LocalDate sectionProcessingDate;
+    private String sectionOriginatingSortCode;
+    private String sectionOriginatingAccount;
+    private String sectionOriginatorName;
+    private long sectionDebitPence;
+    private long sectionCreditPence;
+    private int sectionDebitCount;
+    private int sectionCreditCount;
+
+    /**
+     * Creates a writer and emits the VOL1 label.
+     *
+     * @param out destination; closed by {@link #close()}
+     * @param volumeSerialNumber six-character volume serial number
+     * @param volumeOwner service user number (or bureau number) owning the submission
+     * @param creationDate creation date written to the header labels
+     */
+    public Standard18Writer(Writer out, String volumeSerialNumber, String volumeOwner, LocalDate creationDate) {
+        this.out = Objects.requireNonNull(out, "out");
+        this.volumeOwner = digits(volumeOwner, 6, "Volume owner");
+        this.creationDate = Objects.requireNonNull(creationDate, "creationDate");
+
+        StringBuilder vol1 = new StringBuilder(LABEL_LENGTH)
+                .append(VOL1)
+                .append(alpha(volumeSerialNumber, 6))
+                .append('0')
+                .append(" ".repeat(30))
+                .append(alpha(this.volumeOwner, 10))
+                .append(" ".repeat(28))
+                .append('1');
+        emit(pad(vol1, LABEL_LENGTH));
+    }
+
+    /**
+     * Write one payment, opening a new file section if its service user number, processing
+     * date or originating account differs from the previous payment.
+     *
+     * @param payment BACS payment with amount, destination and originating account details
+     */
+    public void write(BACSSpecific.BACSPayment payment) {
+        if (finished) {
+            throw new IllegalStateException("Standard 18 writer is already finished");
+        }
+        String serviceUserNumber = digits(payment.getServiceUserNumber(), 6, "Service user number");
+        LocalDate processingDate = parseProcessingDate(payment.getProcessingDate());
+        String originatingSortCode = digits(payment.getOriginatingSortCode(), 6, "Originating sort code");
+        String originatingAccount = digits(payment.getOriginatingAccountNumber(), 8, "Originating account number");
+
+        if (payment.getAmount() == null || payment.getAmount().getCurrency() != Currency.GBP) {
+            throw new RailFileFormatException("BACS payments must carry a GBP amount");
+        }
+        if (payment.getTransactionCode() == null) {
+            throw new RailFileFormatException("BACS payment is missing a transaction code");
+        }
+
+        if (!serviceUserNumber.equals(sectionServiceUserNumber) || !processingDate.equals(sectionProcessingDate)
+                || !originatingSortCode.equals(sectionOriginatingSortCode) || !originatingAccount.equals(sectionOriginatingAccount)) {
+            closeSection();
+            openSection(serviceUserNumber, processingDate, originatingSortCode, originatingAccount,
+                    payment.getOriginatingAccountName());
+        }
+
+        long pence = payment.getAmount().toCents();
+        BACSSpecific.TransactionCode code = payment.getTransactionCode();
+
+        emit(detail(
+                digits(payment.getSortCode(), 6, "Destination sort code"),
+                digits(payment.getAccountNumber(), 8, "Destination account number"),
+                code.getCode(),
+                pence,
+                payment.getReference(),
+                payment.getDestinationAccountName()));
+
+        if (code.isCredit()) {
+            sectionCreditPence = Math.addExact(sectionCreditPence, pence);
+            sectionCreditCount++;
+        } else {
+            sectionDebitPence = Math.addExact(sectionDebitPence, pence);
+            sectionDebitCount++;
+        }
+    }
+
+    /**
+     * Close the open section and flush. No further payments may be written.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        closeSection();
+        finished = true;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return number of file sections (service user / processing day / originating account groups) written so far
+     */
+    public int getSectionCount() {
+        return fileNumber;
+    }
+
+    /**
+     * @return number of physical records written so far, labels included
+     */
+    public long getRecordCount() {
+        return totalRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    // ==================== SECTION HANDLING ====================
+
+    private void openSection(String serviceUserNumber, LocalDate processingDate, String originatingSortCode,
+                             String originatingAccount, String originatorName) {
+        fileNumber++;
+        sectionServiceUserNumber = serviceUserNumber;
+        sectionProcessingDate = processingDate;
+        sectionOriginatingSortCode = originatingSortCode;
+        sectionOriginatingAccount = originatingAccount;
+        sectionOriginatorName = originatorName;
+        sectionDebitPence = 0;
+        sectionCreditPence = 0;
+        sectionDebitCount = 0;
+        sectionCreditCount = 0;
+
+        emit(headerLabel(HDR1));
+        emit(headerLabel2(HDR2));
+
+        StringBuilder uhl1 = new StringBuilder(LABEL_LENGTH)
+                .append(UHL1)
+                .append(julian(processingDate))
+                .append("999999")
+                .append("    ")
+                .append("00")
+                .append("000000")
+                .append("1 DAILY  ")
+                .append(numeric(fileNumber % 1000, 3));
+        emit(pad(uhl1, LABEL_LENGTH));
+    }
+
+    private void closeSection() {
+        if (sectionServiceUserNumber == null) {
+            return;
+        }
+        // Contras balance the section against the service user's own account
+        long debitPence = sectionDebitPence;
+        long creditPence = sectionCreditPence;
+        int debitCount = sectionDebitCount;
+        int creditCount = sectionCreditCount;
+        if (sectionCreditCount > 0) {
+            emit(detail(sectionOriginatingSortCode, sectionOriginatingAccount, CONTRA_DEBIT_CODE,
+                    sectionCreditPence, CONTRA_REFERENCE, sectionOriginatorName));
+            debitPence = Math.addExact(debitPence, sectionCreditPence);
+            debitCount++;
+        }
+        if (sectionDebitCount > 0) {
+            emit(detail(sectionOriginatingSortCode, sectionOriginatingAccount, CONTRA_CREDIT_CODE,
+                    sectionDebitPence, CONTRA_REFERENCE, sectionOriginatorName));
+            creditPence = Math.addExact(creditPence, sectionDebitPence);
+            creditCount++;
+        }
+
+        emit(headerLabel(EOF1));
+        emit(headerLabel2(EOF2));
+
+        StringBuilder utl1 = new StringBuilder(LABEL_LENGTH)
+                .append(UTL1)
+                .append(numeric(debitPence, TOTAL_WIDTH))
+                .append(numeric(creditPence, TOTAL_WIDTH))
+                .append(numeric(debitCount, COUNT_WIDTH))
+                .append(numeric(creditCount, COUNT_WIDTH));
+        emit(pad(utl1, LABEL_LENGTH));
+
+        sectionServiceUserNumber = null;
+        sectionProcessingDate = null;
+        sectionOriginatingSortCode = null;
+        sectionOriginatingAccount = null;
+    }
+
+    // ==================== RECORD LAYOUT ====================
+
+    private String detail(String destSortCode, String destAccount, String transactionCode, long pence,
+                          String reference, String destinationName) {
+        StringBuilder record = new StringBuilder(DETAIL_LENGTH)
+                .append(destSortCode)
+                .append(destAccount)
+                .append('0')
+                .append(transactionCode)
+                .append(sectionOriginatingSortCode)
+                .append(sectionOriginatingAccount)
+                .append("    ")
+                .append(numeric(pence, AMOUNT_WIDTH))
+                .append(alpha(sectionOriginatorName, NAME_WIDTH))
+                .append(alpha(reference, NAME_WIDTH))
+                .append(alpha(destinationName, NAME_WIDTH));
+        return pad(record, DETAIL_LENGTH);
+    }
+
+    private String headerLabel(String label) {
+        StringBuilder record = new StringBuilder(LABEL_LENGTH)
+                .append(label)
+                .append('A')
+                .append(sectionServiceUserNumber)
+                .append('S')
+                .append("  ")
+                .append(alpha(volumeOwner, 7))
+                .append(" ".repeat(6))
+                .append("0001")
+                .append(numeric(fileNumber % 10000, 4))
+                .append(" ".repeat(6))
+                .append(julian(creationDate))
+                .append(julian(creationDate.plusDays(1)))
+                .append(' ')
+                .append("000000");
+        return pad(record, LABEL_LENGTH);
+    }
+
+    private String headerLabel2(String label) {
+        StringBuilder record = new StringBuilder(LABEL_LENGTH)
+                .append(label)
+                .append('F')
+                .append(numeric(2000, 5))
+                .append(numeric(DETAIL_LENGTH, 5))
+                .append(" ".repeat(35))
+                .append("00");
+        return pad(record, LABEL_LENGTH);
+    }
+
+    private void emit(String record) {
+        try {
+            out.write(record);
+            out.write(RECORD_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        totalRecords++;
+    }
+
+    private static LocalDate parseProcessingDate(String processingDate) {
+        if (processingDate == null) {
+            throw new RailFileFormatException("BACS payment is missing a processing date");
+        }
+        try {
+            return LocalDate.parse(processingDate);
+        } catch (DateTimeParseException e) {
+            throw new RailFileFormatException("Invalid BACS processing date: " + processingDate, e);
+        }
+    }
+}
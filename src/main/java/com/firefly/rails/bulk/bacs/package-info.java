@@ -0,0 +1,21 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * BACS Standard 18 file support.
+ * 
+ * <p>Streaming writer and reader for the fixed-width Standard 18 format used to submit
+ * {@link com.firefly.rails.domain.railspecific.BACSSpecific.BACSPayment}s to BACS:
+ * <ul>
+ *   <li>{@link com.firefly.rails.bulk.bacs.Standard18Writer} - Groups payments by service user number and processing day, writes contras and totals</li>
+ *   <li>{@link com.firefly.rails.bulk.bacs.Standard18Reader} - Reads detail/contra records and verifies UTL1 totals</li>
+ * </ul>
+ * 
+ * <p>Both work record by record and keep only per-section running totals in memory.
+ * 
+ * @see com.firefly.rails.domain.railspecific.BACSSpecific
+ * @since 1.0.0
+ */
+package com.firefly.rails.bulk.bacs;
@@ -0,0 +1,20 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Bulk payment processing shared by rail implementations.
+ * 
+ * <p>This package contains stages that sit in front of
+ * {@link com.firefly.rails.adapter.ports.BulkPaymentPort}:
+ * <ul>
+ *   <li>{@link com.firefly.rails.bulk.DuplicateReferenceDetector} - Off-heap duplicate end-to-end reference detection</li>
+ *   <li>{@link com.firefly.rails.bulk.DeduplicatingBulkPaymentPort} - Port decorator rejecting bulks with duplicates</li>
+ *   <li>{@link com.firefly.rails.bulk.OffHeapReferenceIndex} - Open-addressing hash table in direct memory</li>
+ * </ul>
+ * 
+ * @see com.firefly.rails.bulk.bacs
+ * @since 1.0.0
+ */
+package com.firefly.rails.bulk;
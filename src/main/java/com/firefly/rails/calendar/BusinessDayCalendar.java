@@ -0,0 +1,260 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.calendar;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Immutable business-day calendar of one rail or currency over a fixed range of years.
+ *
+ * <p>Business days are precomputed into a bitmap with one bit per day, a running count of
+ * business days per 64-day word and the list of business days itself. Every query - is a day a
+ * business day, add or subtract N business days, count business days between two dates, next
+ * cut-off - is answered in constant time without iterating over dates.
+ *
+ * <p>Cut-offs are the local times on a business day until which submissions are processed that
+ * day, e.g. the three ACH same-day windows. A submission after the last cut-off is processed on
+ * the next business day; settlement follows {@code settlementLagBusinessDays} later, e.g. two for
+ * the BACS three-day cycle.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * BusinessDayCalendar bacs = BusinessDayCalendar.builder()
+ *         .id("BACS")
+ *         .zone(ZoneId.of("Europe/London"))
+ *         .startDate(LocalDate.of(2025, 1, 1))
+ *         .endDate(LocalDate.of(2035, 1, 1))
+ *         .holidays(HolidayRules.englandAndWales(2025, 2034))
+ *         .cutOff(LocalTime.of(22, 30))
+ *         .settlementLagBusinessDays(2)
+ *         .build();
+ *
+ * LocalDate settles = bacs.expectedSettlementDate(Instant.now());
+ * }</pre>
+ */
+public final class BusinessDayCalendar {
+
+    private static final Set<DayOfWeek> DEFAULT_WEEKEND = EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
+
+    @Getter
+    private final String id;
+
+    @Getter
+    private final ZoneId zone;
+
+    @Getter
+    private final LocalDate startDate;
+
+    @Getter
+    private final LocalDate endDate;
+
+    @Getter
+    private final List<LocalTime> cutOffs;
+
+    @Getter
+    private final int settlementLagBusinessDays;
+
+    private final long startEpochDay;
+    private final int dayCount;
+
+    /** One bit per day; set for business days */
+    private final long[] businessBits;
+
+    /** Business days before each 64-day word */
+    private final int[] rankBeforeWord;
+
+    /** Day offsets of all business days, ascending */
+    private final int[] businessDays;
+
+    /**
+     * @param id calendar name, e.g. {@code TARGET2}
+     * @param zone zone the cut-offs are expressed in; UTC if {@code null}
+     * @param startDate first day covered
+     * @param endDate first day no longer covered
+     * @param weekendDays days never open; Saturday and Sunday if {@code null}, none if empty
+     * @param holidays closed days in addition to the weekend
+     * @param cutOffs processing cut-offs of a business day; end of day if none
+     * @param settlementLagBusinessDays business days between processing and settlement
+     */
+    @Builder
+    private BusinessDayCalendar(String id, ZoneId zone, LocalDate startDate, LocalDate endDate,
+                                Set<DayOfWeek> weekendDays, @Singular Collection<LocalDate> holidays,
+                                @Singular List<LocalTime> cutOffs, int settlementLagBusinessDays) {
+        if (startDate == null || endDate == null || !endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("Calendar " + id + " needs a start date before its end date");
+        }
+        this.id = id;
+        this.zone = zone == null ? ZoneOffset.UTC : zone;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.settlementLagBusinessDays = settlementLagBusinessDays;
+        List<LocalTime> sortedCutOffs = new ArrayList<>(cutOffs);
+        if (sortedCutOffs.isEmpty()) {
+            sortedCutOffs.add(LocalTime.MAX);
+        }
+        Collections.sort(sortedCutOffs);
+        this.cutOffs = List.copyOf(sortedCutOffs);
+
+        this.startEpochDay = startDate.toEpochDay();
+        this.dayCount = Math.toIntExact(endDate.toEpochDay() - startEpochDay);
+        Set<DayOfWeek> weekend = weekendDays == null ? DEFAULT_WEEKEND : weekendDays;
+
+        this.businessBits = new long[(dayCount + 63) >>> 6];
+        DayOfWeek dayOfWeek = startDate.getDayOfWeek();
+        for (int day = 0; day < dayCount; day++) {
+            if (!weekend.contains(dayOfWeek)) {
+                businessBits[day >>> 6] |= 1L << day;
+            }
+            dayOfWeek = dayOfWeek.plus(1);
+        }
+        for (LocalDate holiday : holidays) {
+            long day = holiday.toEpochDay() - startEpochDay;
+            if (day >= 0 && day < dayCount) {
+                businessBits[(int) (day >>> 6)] &= ~(1L << day);
+            }
+        }
+
+        this.rankBeforeWord = new int[businessBits.length + 1];
+        for (int word = 0; word < businessBits.length; word++) {
+            rankBeforeWord[word + 1] = rankBeforeWord[word] + Long.bitCount(businessBits[word]);
+        }
+        this.businessDays = new int[rankBeforeWord[businessBits.length]];
+        int next = 0;
+        for (int word = 0; word < businessBits.length; word++) {
+            long bits = businessBits[word];
+            while (bits != 0) {
+                businessDays[next++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Whether the rail is open on a date.
+     */
+    public boolean isBusinessDay(LocalDate date) {
+        return isBusinessDay(offset(date));
+    }
+
+    /**
+     * Move a date by a number of business days.
+     *
+     * <p>With {@code n > 0} the result is the n-th business day after {@code date}; with
+     * {@code n < 0} the n-th business day before it; with {@code n == 0} the date itself if it is a
+     * business day, otherwise the next business day.
+     *
+     * @throws IllegalArgumentException if the date or the result falls outside the calendar
+     */
+    public LocalDate addBusinessDays(LocalDate date, int n) {
+        int offset = offset(date);
+        int rank = rank(offset);
+        int index;
+        if (n > 0) {
+            index = isBusinessDay(offset) ? rank + n : rank + n - 1;
+        } else {
+            index = rank + n;
+        }
+        if (index < 0 || index >= businessDays.length) {
+            throw new IllegalArgumentException(date + " plus " + n + " business days is outside calendar " + id
+                    + " [" + startDate + ", " + endDate + ")");
+        }
+        return LocalDate.ofEpochDay(startEpochDay + businessDays[index]);
+    }
+
+    /**
+     * First business day after a date.
+     */
+    public LocalDate nextBusinessDay(LocalDate date) {
+        return addBusinessDays(date, 1);
+    }
+
+    /**
+     * Last business day before a date.
+     */
+    public LocalDate previousBusinessDay(LocalDate date) {
+        return addBusinessDays(date, -1);
+    }
+
+    /**
+     * Number of business days in {@code [from, to)}; negative if {@code to} is before {@code from}.
+     */
+    public int businessDaysBetween(LocalDate from, LocalDate to) {
+        return rank(offset(to)) - rank(offset(from));
+    }
+
+    /**
+     * Next processing cut-off strictly after an instant.
+     */
+    public Instant nextCutOff(Instant now) {
+        ZonedDateTime local = now.atZone(zone);
+        LocalDate date = local.toLocalDate();
+        if (isBusinessDay(date)) {
+            LocalTime time = local.toLocalTime();
+            for (LocalTime cutOff : cutOffs) {
+                if (time.isBefore(cutOff)) {
+                    return ZonedDateTime.of(date, cutOff, zone).toInstant();
+                }
+            }
+        }
+        return ZonedDateTime.of(nextBusinessDay(date), cutOffs.get(0), zone).toInstant();
+    }
+
+    /**
+     * Business day on which a submission made at an instant is processed.
+     */
+    public LocalDate processingDate(Instant submittedAt) {
+        ZonedDateTime local = submittedAt.atZone(zone);
+        LocalDate date = local.toLocalDate();
+        if (isBusinessDay(date) && local.toLocalTime().isBefore(cutOffs.get(cutOffs.size() - 1))) {
+            return date;
+        }
+        return nextBusinessDay(date);
+    }
+
+    /**
+     * Expected settlement date of a submission made at an instant.
+     */
+    public LocalDate expectedSettlementDate(Instant submittedAt) {
+        return addBusinessDays(processingDate(submittedAt), settlementLagBusinessDays);
+    }
+
+    private boolean isBusinessDay(int offset) {
+        return (businessBits[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    /**
+     * Business days strictly before a day offset.
+     */
+    private int rank(int offset) {
+        int word = offset >>> 6;
+        return rankBeforeWord[word] + Long.bitCount(businessBits[word] & ((1L << offset) - 1));
+    }
+
+    private int offset(LocalDate date) {
+        long offset = date.toEpochDay() - startEpochDay;
+        if (offset < 0 || offset >= dayCount) {
+            throw new IllegalArgumentException(date + " is outside calendar " + id
+                    + " [" + startDate + ", " + endDate + ")");
+        }
+        return (int) offset;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.calendar;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.RailType;
+import com.firefly.rails.exceptions.RailConfigurationException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Business-day calendars shared by all settlement date computations, looked up by
+ * {@link RailType} or by {@link Currency}.
+ *
+ * <p>A single registry is exposed as a bean by the auto-configuration, preloaded with
+ * {@link #withDefaults(LocalDate, int)}. Adapters replace or add calendars with
+ * {@link #register(RailType, BusinessDayCalendar)}, e.g. to load one-off closures from a file.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public Mono<ResponseEntity<SettlementDateResponse>> getExpectedSettlementDate(String paymentId) {
+ *     BusinessDayCalendar calendar = calendars.forRail(RailType.BACS);
+ *     return payments.acceptedAt(paymentId).map(acceptedAt -> ResponseEntity.ok(
+ *             SettlementDateResponse.builder()
+ *                     .paymentId(paymentId)
+ *                     .expectedSettlementDate(calendar.expectedSettlementDate(acceptedAt))
+ *                     .build()));
+ * }
+ * }</pre>
+ */
+public class BusinessDayCalendarRegistry {
+
+    private final Map<RailType, BusinessDayCalendar> byRail = new ConcurrentHashMap<>();
+    private final Map<Currency, BusinessDayCalendar> byCurrency = new ConcurrentHashMap<>();
+
+    /**
+     * Registry with calendars for the main euro, US dollar and sterling rails.
+     *
+     * <ul>
+     *   <li>SEPA, TARGET2 and EUR - TARGET2 closing days, 17:00 CET cut-off</li>
+     *   <li>ACH and USD - Federal Reserve holidays, same-day windows at 10:30, 14:45 and 16:45 ET,
+     *       next-day settlement</li>
+     *   <li>FEDWIRE - Federal Reserve holidays, 18:00 ET customer transfer cut-off</li>
+     *   <li>CHIPS - Federal Reserve holidays, 17:00 ET cut-off</li>
+     *   <li>BACS and GBP - England and Wales bank holidays, 22:30 input cut-off, three-day cycle</li>
+     *   <li>FPS - open every day</li>
+     * </ul>
+     *
+     * @param from first day covered
+     * @param years number of years covered
+     */
+    public static BusinessDayCalendarRegistry withDefaults(LocalDate from, int years) {
+        LocalDate to = from.plusYears(years);
+        int fromYear = from.getYear();
+        int toYear = to.getYear();
+        ZoneId newYork = ZoneId.of("America/New_York");
+
+        BusinessDayCalendar target2 = BusinessDayCalendar.builder()
+                .id("TARGET2").zone(ZoneId.of("Europe/Berlin")).startDate(from).endDate(to)
+                .holidays(HolidayRules.target2(fromYear, toYear))
+                .cutOff(LocalTime.of(17, 0))
+                .build();
+        BusinessDayCalendar ach = BusinessDayCalendar.builder()
+                .id("ACH").zone(newYork).startDate(from).endDate(to)
+                .holidays(HolidayRules.federalReserve(fromYear, toYear))
+                .cutOff(LocalTime.of(10, 30)).cutOff(LocalTime.of(14, 45)).cutOff(LocalTime.of(16, 45))
+                .settlementLagBusinessDays(1)
+                .build();
+        BusinessDayCalendar fedwire = BusinessDayCalendar.builder()
+                .id("FEDWIRE").zone(newYork).startDate(from).endDate(to)
+                .holidays(HolidayRules.federalReserve(fromYear, toYear))
+                .cutOff(LocalTime.of(18, 0))
+                .build();
+        BusinessDayCalendar chips = BusinessDayCalendar.builder()
+                .id("CHIPS").zone(newYork).startDate(from).endDate(to)
+                .holidays(HolidayRules.federalReserve(fromYear, toYear))
+                .cutOff(LocalTime.of(17, 0))
+                .build();
+        BusinessDayCalendar bacs = BusinessDayCalendar.builder()
+                .id("BACS").zone(ZoneId.of("Europe/London")).startDate(from).endDate(to)
+                .holidays(HolidayRules.englandAndWales(fromYear, toYear))
+                .cutOff(LocalTime.of(22, 30))
+                .settlementLagBusinessDays(2)
+                .build();
+        BusinessDayCalendar fps = BusinessDayCalendar.builder()
+                .id("FPS").zone(ZoneId.of("Europe/London")).startDate(from).endDate(to)
+                .weekendDays(EnumSet.noneOf(DayOfWeek.class))
+                .build();
+
+        BusinessDayCalendarRegistry registry = new BusinessDayCalendarRegistry();
+        registry.register(RailType.SEPA, target2);
+        registry.register(RailType.TARGET2, target2);
+        registry.register(RailType.ACH, ach);
+        registry.register(RailType.FEDWIRE, fedwire);
+        registry.register(RailType.CHIPS, chips);
+        registry.register(RailType.BACS, bacs);
+        registry.register(RailType.FPS, fps);
+        registry.register(Currency.EUR, target2);
+        registry.register(Currency.USD, fedwire);
+        registry.register(Currency.GBP, bacs);
+        return registry;
+    }
+
+    public void register(RailType railType, BusinessDayCalendar calendar) {
+        byRail.put(railType, calendar);
+    }
+
+    public void register(Currency currency, BusinessDayCalendar calendar) {
+        byCurrency.put(currency, calendar);
+    }
+
+    /**
+     * @throws RailConfigurationException if no calendar is registered for the rail
+     */
+    public BusinessDayCalendar forRail(RailType railType) {
+        BusinessDayCalendar calendar = byRail.get(railType);
+        if (calendar == null) {
+            throw new RailConfigurationException("No business-day calendar registered for rail " + railType);
+        }
+        return calendar;
+    }
+
+    /**
+     * @throws RailConfigurationException if no calendar is registered for the currency
+     */
+    public BusinessDayCalendar forCurrency(Currency currency) {
+        BusinessDayCalendar calendar = byCurrency.get(currency);
+        if (calendar == null) {
+            throw new RailConfigurationException("No business-day calendar registered for currency " + currency);
+        }
+        return calendar;
+    }
+
+    public Map<RailType, BusinessDayCalendar> getRailCalendars() {
+        return Collections.unmodifiableMap(byRail);
+    }
+}
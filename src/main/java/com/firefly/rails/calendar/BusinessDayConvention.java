@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.calendar;
+
+import java.time.LocalDate;
+
+/**
+ * How a date that is not a business day is moved onto one.
+ */
+public enum BusinessDayConvention {
+
+    /** Keep the date as it is */
+    NONE,
+
+    /** Next business day */
+    FOLLOWING,
+
+    /** Next business day, unless that is in the next month; then the previous business day */
+    MODIFIED_FOLLOWING,
+
+    /** Previous business day */
+    PRECEDING,
+
+    /** Previous business day, unless that is in the previous month; then the next business day */
+    MODIFIED_PRECEDING;
+
+    /**
+     * Move a date onto a business day of a calendar.
+     */
+    public LocalDate adjust(LocalDate date, BusinessDayCalendar calendar) {
+        if (this == NONE || calendar.isBusinessDay(date)) {
+            return date;
+        }
+        return switch (this) {
+            case FOLLOWING -> calendar.nextBusinessDay(date);
+            case PRECEDING -> calendar.previousBusinessDay(date);
+            case MODIFIED_FOLLOWING -> {
+                LocalDate following = calendar.nextBusinessDay(date);
+                yield following.getMonth() == date.getMonth() ? following : calendar.previousBusinessDay(date);
+            }
+            case MODIFIED_PRECEDING -> {
+                LocalDate preceding = calendar.previousBusinessDay(date);
+                yield preceding.getMonth() == date.getMonth() ? preceding : calendar.nextBusinessDay(date);
+            }
+            case NONE -> date;
+        };
+    }
+}
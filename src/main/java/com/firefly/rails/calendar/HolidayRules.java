@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.calendar;
+
+import com.firefly.rails.exceptions.RailConfigurationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule-based holiday calendars of the main settlement systems, and a loader for explicit lists.
+ *
+ * <p>Rules cover the recurring holidays only. One-off closures (e.g. an extra bank holiday) are
+ * added from a holiday file with {@link #parse(Reader)}.
+ */
+public final class HolidayRules {
+
+    private HolidayRules() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * TARGET2 closing days: New Year's Day, Good Friday, Easter Monday, Labour Day, Christmas and
+     * 26 December. Used by SEPA and euro settlement.
+     */
+    public static List<LocalDate> target2(int fromYear, int toYear) {
+        List<LocalDate> holidays = new ArrayList<>();
+        for (int year = fromYear; year <= toYear; year++) {
+            LocalDate easter = easterSunday(year);
+            holidays.add(LocalDate.of(year, 1, 1));
+            holidays.add(easter.minusDays(2));
+            holidays.add(easter.plusDays(1));
+            holidays.add(LocalDate.of(year, 5, 1));
+            holidays.add(LocalDate.of(year, 12, 25));
+            holidays.add(LocalDate.of(year, 12, 26));
+        }
+        return holidays;
+    }
+
+    /**
+     * Federal Reserve holidays, observed by Fedwire, FedACH and CHIPS. Holidays falling on a Sunday
+     * are observed the following Monday; holidays falling on a Saturday are not moved.
+     */
+    public static List<LocalDate> federalReserve(int fromYear, int toYear) {
+        List<LocalDate> holidays = new ArrayList<>();
+        for (int year = fromYear; year <= toYear; year++) {
+            holidays.add(sundayToMonday(LocalDate.of(year, 1, 1)));
+            holidays.add(nthWeekday(year, Month.JANUARY, DayOfWeek.MONDAY, 3));
+            holidays.add(nthWeekday(year, Month.FEBRUARY, DayOfWeek.MONDAY, 3));
+            holidays.add(LocalDate.of(year, 5, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            if (year >= 2022) {
+                holidays.add(sundayToMonday(LocalDate.of(year, 6, 19)));
+            }
+            holidays.add(sundayToMonday(LocalDate.of(year, 7, 4)));
+            holidays.add(nthWeekday(year, Month.SEPTEMBER, DayOfWeek.MONDAY, 1));
+            holidays.add(nthWeekday(year, Month.OCTOBER, DayOfWeek.MONDAY, 2));
+            holidays.add(sundayToMonday(LocalDate.of(year, 11, 11)));
+            holidays.add(nthWeekday(year, Month.NOVEMBER, DayOfWeek.THURSDAY, 4));
+            holidays.add(sundayToMonday(LocalDate.of(year, 12, 25)));
+        }
+        return holidays;
+    }
+
+    /**
+     * Bank holidays of England and Wales, observed by BACS and CHAPS. Holidays falling on a weekend
+     * are substituted by the next weekday that is not already a holiday.
+     */
+    public static List<LocalDate> englandAndWales(int fromYear, int toYear) {
+        List<LocalDate> holidays = new ArrayList<>();
+        for (int year = fromYear; year <= toYear; year++) {
+            LocalDate easter = easterSunday(year);
+            substituted(holidays, LocalDate.of(year, 1, 1));
+            holidays.add(easter.minusDays(2));
+            holidays.add(easter.plusDays(1));
+            holidays.add(nthWeekday(year, Month.MAY, DayOfWeek.MONDAY, 1));
+            holidays.add(LocalDate.of(year, 5, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            holidays.add(LocalDate.of(year, 8, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            substituted(holidays, LocalDate.of(year, 12, 25), LocalDate.of(year, 12, 26));
+        }
+        return holidays;
+    }
+
+    /**
+     * Read one ISO date per line; blank lines and lines starting with {@code #} are ignored.
+     *
+     * @throws RailConfigurationException if the file cannot be read or holds an invalid date
+     */
+    public static List<LocalDate> parse(Reader reader) {
+        List<LocalDate> holidays = new ArrayList<>();
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    holidays.add(LocalDate.parse(trimmed));
+                } catch (DateTimeParseException e) {
+                    throw new RailConfigurationException("Invalid holiday '" + trimmed + "' at line " + lineNumber, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new RailConfigurationException("Could not read holiday calendar", e);
+        }
+        return holidays;
+    }
+
+    /**
+     * Easter Sunday of the Gregorian calendar (anonymous Gregorian algorithm).
+     */
+    static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+
+    private static LocalDate nthWeekday(int year, Month month, DayOfWeek dayOfWeek, int n) {
+        return LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(n, dayOfWeek));
+    }
+
+    private static LocalDate sundayToMonday(LocalDate date) {
+        return date.getDayOfWeek() == DayOfWeek.SUNDAY ? date.plusDays(1) : date;
+    }
+
+    private static void substituted(List<LocalDate> holidays, LocalDate... dates) {
+        List<LocalDate> taken = new ArrayList<>();
+        for (LocalDate date : dates) {
+            if (!isWeekend(date)) {
+                taken.add(date);
+            }
+        }
+        for (LocalDate date : dates) {
+            if (isWeekend(date)) {
+                LocalDate substitute = date.plusDays(1);
+                while (isWeekend(substitute) || taken.contains(substitute)) {
+                    substitute = substitute.plusDays(1);
+                }
+                taken.add(substitute);
+            }
+        }
+        holidays.addAll(taken);
+    }
+
+    private static boolean isWeekend(LocalDate date) {
+        return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+}
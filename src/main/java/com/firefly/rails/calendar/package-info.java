@@ -0,0 +1,18 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Business-day calendars for settlement date computations.
+ * 
+ * <ul>
+ *   <li>{@link com.firefly.rails.calendar.BusinessDayCalendar} - Precomputed bitmap calendar with O(1) date math</li>
+ *   <li>{@link com.firefly.rails.calendar.BusinessDayCalendarRegistry} - Calendars per rail and currency</li>
+ *   <li>{@link com.firefly.rails.calendar.BusinessDayConvention} - Rolling dates onto business days</li>
+ *   <li>{@link com.firefly.rails.calendar.HolidayRules} - TARGET2, Federal Reserve and UK holiday rules</li>
+ * </ul>
+ * 
+ * @since 1.0.0
+ */
+package com.firefly.rails.calendar;
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.callback;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Delivers payment status notifications to callback endpoints, such as
+ * {@link com.firefly.rails.domain.AuthenticationContext#getCallbackUrl()}, from a durable spool.
+ *
+ * <p>{@link #dispatch(String, CallbackNotification)} completes once the notification is in the
+ * {@link CallbackSpool}; delivery happens in the background. Each endpoint has its own queue with
+ * at most one delivery in flight, so an endpoint receives its notifications - and thus the
+ * notifications of each payment - in dispatch order, and a slow or failing endpoint never delays
+ * the others. The queue of an endpoint is dropped once it runs empty. Endpoints registered with {@link #batching(String, int)} receive up to that many
+ * queued notifications as one JSON array per request; all others receive one JSON object per
+ * request.
+ *
+ * <p>A failed delivery is retried with exponential backoff and jitter, honouring
+ * {@code Retry-After}, while the rest of the endpoint's queue waits. Client errors other than
+ * {@code 408} and {@code 429}, and deliveries still failing after {@code maxAttempts}, are
+ * abandoned and passed to the dead letter listeners. Notifications left in the spool by a restart
+ * are delivered again on {@link #start()}, so delivery is at least once.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * CallbackDispatcher dispatcher = CallbackDispatcher.builder()
+ *         .webClient(WebClient.create())
+ *         .spool(CallbackSpool.open(Path.of("/var/lib/rails/callbacks")))
+ *         .build();
+ * dispatcher.batching("https://ledger.internal/payment-events", 100);
+ * dispatcher.start();
+ *
+ * dispatcher.dispatch(context.getCallbackUrl(), CallbackNotification.builder()
+ *         .paymentId(paymentId)
+ *         .status(PaymentStatus.SETTLED)
+ *         .occurredAt(Instant.now())
+ *         .build()).subscribe();
+ * }</pre>
+ */
+@Slf4j
+public class CallbackDispatcher implements AutoCloseable {
+
+    private final WebClient webClient;
+    private final CallbackSpool spool;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration requestTimeout;
+    private final Scheduler scheduler;
+
+    private final Map<String, Integer> batchSizes = new ConcurrentHashMap<>();
+    private final Map<String, EndpointQueue> queues = new ConcurrentHashMap<>();
+    private final List<Consumer<List<CallbackSpool.Entry>>> deadLetterListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    /**
+     * @param webClient client the notifications are posted with
+     * @param spool spool the notifications are kept in until delivered, owned by this dispatcher
+     * @param maxAttempts deliveries of a notification before it is abandoned; 10 if not positive
+     * @param initialBackoff delay before the first retry; 1 second if {@code null}
+     * @param maxBackoff longest delay between retries; 5 minutes if {@code null}
+     * @param requestTimeout longest wait for a response; 30 seconds if {@code null}
+     * @param scheduler scheduler of the retries; the parallel scheduler if {@code null}
+     */
+    @Builder
+    private CallbackDispatcher(WebClient webClient, CallbackSpool spool, int maxAttempts, Duration initialBackoff,
+                               Duration maxBackoff, Duration requestTimeout, Scheduler scheduler) {
+        if (webClient == null || spool == null) {
+            throw new IllegalArgumentException("Web client and spool must not be null");
+        }
+        this.webClient = webClient;
+        this.spool = spool;
+        this.maxAttempts = maxAttempts > 0 ? maxAttempts : 10;
+        this.initialBackoff = initialBackoff == null ? Duration.ofSeconds(1) : initialBackoff;
+        this.maxBackoff = maxBackoff == null ? Duration.ofMinutes(5) : maxBackoff;
+        this.requestTimeout = requestTimeout == null ? Duration.ofSeconds(30) : requestTimeout;
+        this.scheduler = scheduler == null ? Schedulers.parallel() : scheduler;
+        for (CallbackSpool.Entry entry : spool.pending()) {
+            queue(entry.endpoint()).offer(entry);
+        }
+    }
+
+    /**
+     * Deliver notifications to an endpoint in batches of up to {@code maxBatchSize}, as JSON arrays.
+     */
+    public void batching(String endpoint, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        batchSizes.put(endpoint, maxBatchSize);
+    }
+
+    public void addDeadLetterListener(Consumer<List<CallbackSpool.Entry>> listener) {
+        deadLetterListeners.add(listener);
+    }
+
+    /**
+     * Start delivering, beginning with the notifications left in the spool.
+     */
+    public void start() {
+        if (started) {
+            throw new IllegalStateException("Callback dispatcher already started");
+        }
+        started = true;
+        queues.values().forEach(this::drain);
+    }
+
+    /**
+     * Spool a notification for delivery to an endpoint; a notification without an id gets one.
+     */
+    public Mono<Void> dispatch(String endpoint, CallbackNotification notification) {
+        return dispatch(endpoint, List.of(notification));
+    }
+
+    /**
+     * Spool notifications for delivery to an endpoint, in order, with one write to disk.
+     */
+    public Mono<Void> dispatch(String endpoint, List<CallbackNotification> notifications) {
+        if (endpoint == null || endpoint.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Callback endpoint must not be blank"));
+        }
+        return Mono.fromCallable(() -> {
+                    if (closed) {
+                        throw new IllegalStateException("Callback dispatcher is closed");
+                    }
+                    List<CallbackNotification> identified = notifications.stream()
+                            .map(notification -> notification.getNotificationId() != null ? notification
+                                    : notification.toBuilder().notificationId(UUID.randomUUID().toString()).build())
+                            .toList();
+                    while (true) {
+                        EndpointQueue queue = queue(endpoint);
+                        synchronized (queue) {
+                            // a queue dropped as idle in the meantime is replaced by a new one
+                            if (!queue.removed) {
+                                // spooled and queued under the queue's lock so that concurrent dispatches keep one order
+                                spool.append(endpoint, identified).forEach(queue::offer);
+                                return queue;
+                            }
+                        }
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(queue -> {
+                    if (started) {
+                        drain(queue);
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Notifications spooled and not yet delivered or abandoned.
+     */
+    public int pendingCount() {
+        return spool.size();
+    }
+
+    /**
+     * Endpoints with notifications queued or being delivered.
+     */
+    public int endpointCount() {
+        return queues.size();
+    }
+
+    /**
+     * Stop delivering, cancel deliveries in flight and close the spool; undelivered notifications
+     * stay in the spool.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EndpointQueue queue : queues.values()) {
+            synchronized (queue) {
+                if (queue.retry != null) {
+                    queue.retry.dispose();
+                }
+                if (queue.delivery != null) {
+                    queue.delivery.dispose();
+                }
+            }
+        }
+        spool.close();
+    }
+
+    private EndpointQueue queue(String endpoint) {
+        return queues.computeIfAbsent(endpoint, EndpointQueue::new);
+    }
+
+    private void drain(EndpointQueue queue) {
+        List<CallbackSpool.Entry> batch;
+        synchronized (queue) {
+            if (closed || queue.inFlight) {
+                return;
+            }
+            if (queue.entries.isEmpty()) {
+                queue.removed = true;
+                queues.remove(queue.endpoint, queue);
+                return;
+            }
+            queue.inFlight = true;
+            int size = Math.min(queue.entries.size(), batchSizes.getOrDefault(queue.endpoint, 1));
+            batch = new ArrayList<>(size);
+            Iterator<CallbackSpool.Entry> head = queue.entries.iterator();
+            for (int i = 0; i < size; i++) {
+                batch.add(head.next());
+            }
+        }
+        // outcomes are handled off the event loop: settling acknowledges, and may compact, the spool
+        Disposable delivery = deliver(queue.endpoint, batch)
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(
+                        ignored -> { },
+                        error -> failed(queue, batch, error),
+                        () -> delivered(queue, batch));
+        synchronized (queue) {
+            queue.delivery = delivery;
+        }
+    }
+
+    private Mono<Void> deliver(String endpoint, List<CallbackSpool.Entry> batch) {
+        Object body = batchSizes.containsKey(endpoint)
+                ? batch.stream().map(CallbackSpool.Entry::notification).toList()
+                : batch.get(0).notification();
+        return webClient.post()
+                .uri(endpoint)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(requestTimeout)
+                .then();
+    }
+
+    private void delivered(EndpointQueue queue, List<CallbackSpool.Entry> batch) {
+        settle(queue, batch);
+        drain(queue);
+    }
+
+    private void failed(EndpointQueue queue, List<CallbackSpool.Entry> batch, Throwable error) {
+        int attempt;
+        synchronized (queue) {
+            attempt = ++queue.attempts;
+        }
+        if (isPermanent(error) || attempt >= maxAttempts) {
+            log.error("Abandoning {} callback notifications to {} after {} attempts: {}",
+                    batch.size(), queue.endpoint, attempt, error.getMessage());
+            settle(queue, batch);
+            for (Consumer<List<CallbackSpool.Entry>> listener : deadLetterListeners) {
+                try {
+                    listener.accept(batch);
+                } catch (RuntimeException e) {
+                    log.warn("Dead letter listener failed: {}", e.getMessage());
+                }
+            }
+            drain(queue);
+            return;
+        }
+        Duration delay = backoff(attempt, error);
+        log.debug("Callback delivery to {} failed (attempt {}), retrying in {}: {}",
+                queue.endpoint, attempt, delay, error.getMessage());
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            queue.retry = scheduler.schedule(() -> {
+                synchronized (queue) {
+                    queue.inFlight = false;
+                    queue.retry = null;
+                }
+                drain(queue);
+            }, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void settle(EndpointQueue queue, List<CallbackSpool.Entry> batch) {
+        try {
+            spool.acknowledge(batch.stream().map(CallbackSpool.Entry::id).toList());
+        } catch (RuntimeException e) {
+            log.warn("Could not acknowledge callback notifications to {}, they will be redelivered: {}",
+                    queue.endpoint, e.getMessage());
+        }
+        synchronized (queue) {
+            for (int i = 0; i < batch.size(); i++) {
+                queue.entries.poll();
+            }
+            queue.attempts = 0;
+            queue.inFlight = false;
+        }
+    }
+
+    private Duration backoff(int attempt, Throwable error) {
+        long exponential = initialBackoff.toMillis() << Math.min(attempt - 1, 30);
+        long capped = Math.min(Math.max(exponential, 0), maxBackoff.toMillis());
+        long delay = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        if (error instanceof WebClientResponseException response) {
+            String retryAfter = response.getHeaders().getFirst("Retry-After");
+            if (retryAfter != null && retryAfter.chars().allMatch(Character::isDigit) && !retryAfter.isEmpty()) {
+                delay = Math.max(delay, Math.min(Long.parseLong(retryAfter) * 1_000, maxBackoff.toMillis()));
+            }
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    private static boolean isPermanent(Throwable error) {
+        if (error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            int status = response.getStatusCode().value();
+            return status != HttpStatus.REQUEST_TIMEOUT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return false;
+    }
+
+    private static final class EndpointQueue {
+        private final String endpoint;
+        private final Deque<CallbackSpool.Entry> entries = new ArrayDeque<>();
+        private boolean inFlight;
+        private boolean removed;
+        private int attempts;
+        private Disposable retry;
+        private Disposable delivery;
+
+        private EndpointQueue(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private void offer(CallbackSpool.Entry entry) {
+            entries.offer(entry);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.callback;
+
+import com.firefly.rails.domain.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Payment status notification delivered to a callback endpoint.
+ *
+ * <p>Notifications are delivered at least once; receivers deduplicate on {@code notificationId}.
+ */
+@Data
+@Builder(toBuilder = true)
+public class CallbackNotification {
+
+    /** Unique id of the notification, stable across redeliveries */
+    private String notificationId;
+
+    private String paymentId;
+    private PaymentStatus status;
+    private String statusReason;
+    private Instant occurredAt;
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.callback;
+
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.exceptions.RailException;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Durable local spool of callback notifications awaiting delivery.
+ *
+ * <p>Enqueued notifications are appended to a log file as length-prefixed, CRC32-checked records
+ * and forced to disk before {@link #append(String, List)} returns. Acknowledgements of delivered
+ * or abandoned notifications are appended without forcing: losing one in a crash only causes a
+ * redelivery. Once the log holds {@code compactEvery} records and mostly acknowledged ones, it is
+ * rewritten with only the pending notifications and atomically replaces the old log. A failed
+ * write is cut off the log again, so it never hides later records behind a torn one; if it cannot
+ * be cut off, the spool refuses further writes.
+ *
+ * <p>Opening a spool replays its log; a torn record at the end is discarded.
+ */
+@Slf4j
+public class CallbackSpool implements AutoCloseable {
+
+    private static final int DEFAULT_COMPACT_EVERY = 10_000;
+    private static final String LOG_FILE = "callbacks.spool";
+
+    private static final byte ENQUEUED = 1;
+    private static final byte ACKNOWLEDGED = 2;
+
+    /**
+     * A notification spooled for an endpoint.
+     *
+     * @param id position of the notification in the spool, increasing in enqueue order
+     */
+    public record Entry(long id, String endpoint, CallbackNotification notification) {
+    }
+
+    private final Path logFile;
+    private final int compactEvery;
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long nextId = 1;
+    private long records;
+    private boolean closed;
+    private IOException broken;
+
+    private CallbackSpool(Path directory, int compactEvery) throws IOException {
+        Files.createDirectories(directory);
+        this.logFile = directory.resolve(LOG_FILE);
+        this.compactEvery = compactEvery;
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        replay();
+    }
+
+    /**
+     * Open a spool in a directory, replaying its log.
+     *
+     * @throws RailException if the log cannot be read
+     */
+    public static CallbackSpool open(Path directory) {
+        return open(directory, DEFAULT_COMPACT_EVERY);
+    }
+
+    public static CallbackSpool open(Path directory, int compactEvery) {
+        try {
+            return new CallbackSpool(directory, Math.max(1, compactEvery));
+        } catch (IOException e) {
+            throw new RailException("Could not open callback spool in " + directory, e);
+        }
+    }
+
+    /**
+     * Durably spool notifications for an endpoint.
+     *
+     * @return the spooled entries, in order
+     */
+    public synchronized List<Entry> append(String endpoint, List<CallbackNotification> notifications) {
+        checkOpen();
+        List<Entry> entries = new ArrayList<>(notifications.size());
+        List<byte[]> payloads = new ArrayList<>(notifications.size());
+        long firstId = nextId;
+        long committed = -1;
+        try {
+            for (CallbackNotification notification : notifications) {
+                Entry entry = new Entry(nextId++, endpoint, notification);
+                entries.add(entry);
+                payloads.add(encode(entry));
+            }
+            committed = channel.position();
+            write(channel, payloads);
+            channel.force(false);
+        } catch (IOException e) {
+            nextId = firstId;
+            rollBack(committed, e);
+            throw new RailException("Could not write callback spool " + logFile, e);
+        }
+        entries.forEach(entry -> pending.put(entry.id(), entry));
+        return entries;
+    }
+
+    /**
+     * Remove delivered or abandoned notifications from the spool.
+     */
+    public synchronized void acknowledge(Collection<Long> ids) {
+        checkOpen();
+        if (ids.isEmpty()) {
+            return;
+        }
+        long committed = -1;
+        try {
+            committed = channel.position();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + ids.size() * 8);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ACKNOWLEDGED);
+            out.writeInt(ids.size());
+            for (long id : ids) {
+                out.writeLong(id);
+            }
+            write(channel, List.of(bytes.toByteArray()));
+        } catch (IOException e) {
+            rollBack(committed, e);
+            throw new RailException("Could not write callback spool " + logFile, e);
+        }
+        ids.forEach(pending::remove);
+        if (records >= compactEvery && records > 2L * pending.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Notifications not yet acknowledged, in enqueue order.
+     */
+    public synchronized List<Entry> pending() {
+        return List.copyOf(pending.values());
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new RailException("Could not close callback spool " + logFile, e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Callback spool is closed");
+        }
+        if (broken != null) {
+            throw new RailException("Callback spool " + logFile + " could not be repaired after a failed write", broken);
+        }
+    }
+
+    private void rollBack(long committed, IOException cause) {
+        if (committed < 0) {
+            return;
+        }
+        try {
+            channel.truncate(committed);
+            channel.position(committed);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            broken = e;
+            log.error("Could not truncate {} to {} bytes after a failed write, refusing further writes",
+                    logFile, committed, e);
+        }
+    }
+
+    private void write(FileChannel target, List<byte[]> payloads) throws IOException {
+        int size = 0;
+        for (byte[] payload : payloads) {
+            size += 8 + payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        records += payloads.size();
+    }
+
+    private void compact() {
+        Path temp = logFile.resolveSibling(LOG_FILE + ".tmp");
+        try {
+            try (FileChannel compacted = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                List<byte[]> payloads = new ArrayList<>(pending.size());
+                for (Entry entry : pending.values()) {
+                    payloads.add(encode(entry));
+                }
+                write(compacted, payloads);
+                compacted.force(true);
+            }
+            Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            records = pending.size();
+            log.debug("Compacted callback spool {} to {} pending notifications", logFile, pending.size());
+        } catch (IOException e) {
+            log.warn("Could not compact callback spool {}, keeping the full log: {}", logFile, e.getMessage());
+        }
+    }
+
+    private void replay() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        CRC32 crc = new CRC32();
+        long position = 0;
+        while (position + 8 <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + 8);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(payload.array());
+            position += 8 + length;
+            records++;
+        }
+        if (position < size) {
+            log.warn("Discarding {} bytes of torn records at the end of {}", size - position, logFile);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        log.info("Recovered {} pending callback notifications from {}", pending.size(), logFile);
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ENQUEUED -> {
+                long id = in.readLong();
+                Entry entry = new Entry(id, in.readUTF(), CallbackNotification.builder()
+                        .notificationId(readString(in))
+                        .paymentId(readString(in))
+                        .status(readStatus(in))
+                        .statusReason(readString(in))
+                        .occurredAt(in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null)
+                        .build());
+                pending.put(id, entry);
+                nextId = Math.max(nextId, id + 1);
+            }
+            case ACKNOWLEDGED -> {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    pending.remove(in.readLong());
+                }
+            }
+            default -> throw new RailFileFormatException("Unknown callback spool record type " + type);
+        }
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        CallbackNotification notification = entry.notification();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ENQUEUED);
+        out.writeLong(entry.id());
+        out.writeUTF(entry.endpoint());
+        writeString(out, notification.getNotificationId());
+        writeString(out, notification.getPaymentId());
+        writeString(out, notification.getStatus() == null ? null : notification.getStatus().name());
+        writeString(out, notification.getStatusReason());
+        out.writeBoolean(notification.getOccurredAt() != null);
+        if (notification.getOccurredAt() != null) {
+            out.writeLong(notification.getOccurredAt().getEpochSecond());
+            out.writeInt(notification.getOccurredAt().getNano());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static PaymentStatus readStatus(DataInputStream in) throws IOException {
+        String status = readString(in);
+        return status == null ? null : PaymentStatus.valueOf(status);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Delivery of payment status notifications to callback endpoints.
+ *
+ * <p>This package contains the building blocks rail implementations use to notify
+ * downstream subscribers of payment status changes:
+ * <ul>
+ *   <li>{@link com.firefly.rails.callback.CallbackDispatcher} - Ordered, batched, retried delivery per endpoint</li>
+ *   <li>{@link com.firefly.rails.callback.CallbackSpool} - Durable local spool of undelivered notifications</li>
+ *   <li>{@link com.firefly.rails.callback.CallbackNotification} - Status notification sent to an endpoint</li>
+ * </ul>
+ *
+ * @since 1.0.0
+ */
+package com.firefly.rails.callback;
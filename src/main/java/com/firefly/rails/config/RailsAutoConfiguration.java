@@ -16,6 +16,7 @@
 
 package com.firefly.rails.config;
 
+import com.firefly.rails.calendar.BusinessDayCalendarRegistry;
 import com.firefly.rails.health.RailHealthIndicator;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
@@ -28,6 +29,8 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 
+import java.time.LocalDate;
+
 /**
  * Auto-configuration for the Firefly Banking Rails Library.
  * 
@@ -39,6 +42,7 @@ import org.springframework.context.annotation.Import;
  *   <li>Rail properties binding</li>
  *   <li>Resilience4j patterns (circuit breaker, retry, rate limiting, etc.)</li>
  *   <li>Health indicators for monitoring</li>
+ *   <li>Shared business-day calendars for settlement date computations</li>
  *   <li>Metrics and observability</li>
  *   <li>Web controllers (if enabled)</li>
  * </ul>
@@ -104,6 +108,19 @@ public class RailsAutoConfiguration {
         return new RailHealthIndicator(railProperties);
     }
     
+    /**
+     * Creates the business-day calendar registry shared by all settlement date computations,
+     * covering the previous year and the next ten.
+     *
+     * @return BusinessDayCalendarRegistry bean
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public BusinessDayCalendarRegistry businessDayCalendarRegistry() {
+        LocalDate from = LocalDate.now().minusYears(1).withDayOfYear(1);
+        return BusinessDayCalendarRegistry.withDefaults(from, 12);
+    }
+    
     /**
      * Configuration callback that logs the active configuration on startup.
      */
@@ -16,6 +16,7 @@
 
 package com.firefly.rails.domain.railspecific;
 
+import com.firefly.rails.domain.Money;
 import lombok.Builder;
 import lombok.Data;
 
@@ -40,13 +41,25 @@ public class BACSSpecific {
         /** Account number */
         private String accountNumber;
         
+        /** Destination account name (up to 18 characters) */
+        private String destinationAccountName;
+        
+        /** Originating sort code (the service user's account, used for contra records) */
+        private String originatingSortCode;
+        
+        /** Originating account number (the service user's account, used for contra records) */
+        private String originatingAccountNumber;
+        
         /** Originating account name */
         private String originatingAccountName;
         
+        /** Amount (GBP) */
+        private Money amount;
+        
         /** Reference (up to 18 characters) */
         private String reference;
         
-        /** Processing date */
+        /** Processing date (ISO-8601, yyyy-MM-dd) */
         private String processingDate;
         
         /** Direct Debit specific information */
@@ -68,19 +81,53 @@ public class BACSSpecific {
 
     public enum TransactionCode {
         /** Standard direct credit (99) */
-        DIRECT_CREDIT_99,
+        DIRECT_CREDIT_99("99", true),
         
         /** Standard direct debit (17) */
-        DIRECT_DEBIT_17,
+        DIRECT_DEBIT_17("17", false),
         
         /** Direct debit first payment (18) */
-        DIRECT_DEBIT_FIRST_18,
+        DIRECT_DEBIT_FIRST_18("18", false),
         
         /** Direct debit re-presented (19) */
-        DIRECT_DEBIT_REPRESENTED_19,
+        DIRECT_DEBIT_REPRESENTED_19("19", false),
         
         /** Dividend payment (01) */
-        DIVIDEND_01
+        DIVIDEND_01("01", true);
+
+        private final String code;
+        private final boolean credit;
+
+        TransactionCode(String code, boolean credit) {
+            this.code = code;
+            this.credit = credit;
+        }
+
+        /** Two-character code as written in Standard 18 records */
+        public String getCode() {
+            return code;
+        }
+
+        /** Whether the transaction credits the destination account */
+        public boolean isCredit() {
+            return credit;
+        }
+
+        /**
+         * Resolve a transaction code from its Standard 18 representation.
+         *
+         * @param code two-character code
+         * @return matching transaction code
+         * @throws IllegalArgumentException if the code is unknown
+         */
+        public static TransactionCode fromCode(String code) {
+            for (TransactionCode value : values()) {
+                if (value.code.equals(code)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unknown BACS transaction code: " + code);
+        }
     }
 
     public enum IndemnityClaimPeriod {
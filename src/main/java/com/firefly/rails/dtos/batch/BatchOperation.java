@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.dtos.batch;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One operation of a {@link BatchRequest}.
+ */
+@Data
+@Builder
+public class BatchOperation {
+
+    /** Caller-chosen identifier, unique within the batch; defaults to the operation's position */
+    private String id;
+
+    /** Operation name, e.g. {@code payments.validate}; see {@link com.firefly.rails.batch.BatchOperationExecutor} */
+    private String operation;
+
+    /** Request body of the operation, or the identifier for lookups such as {@code payments.get} */
+    private Object body;
+
+    /** Identifiers of earlier operations that must succeed before this one runs */
+    private List<String> dependsOn;
+}
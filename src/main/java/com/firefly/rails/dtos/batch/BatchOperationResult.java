@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.dtos.batch;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Result of one operation of a batch.
+ */
+@Data
+@Builder
+public class BatchOperationResult {
+
+    /** Identifier of the operation */
+    private String id;
+
+    /** Operation name */
+    private String operation;
+
+    /** HTTP status the operation's own endpoint would have answered with */
+    private int status;
+
+    /** Response body of the operation */
+    private Object body;
+
+    /** Reason the operation failed, was skipped or, despite a 2xx status, was declined by its body */
+    private String error;
+
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300 && error == null;
+    }
+}
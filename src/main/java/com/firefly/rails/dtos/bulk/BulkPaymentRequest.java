@@ -1,4 +1,32 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ */
 package com.firefly.rails.dtos.bulk;
-import lombok.Builder; import lombok.Data;
-@Data @Builder
-public class BulkPaymentRequest { private String id; }
+
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Request DTO for submitting a bulk/batch of payments.
+ */
+@Data
+@Builder
+public class BulkPaymentRequest {
+
+    /** Client-assigned bulk identifier */
+    private String id;
+
+    /** Debtor account shared by all items (optional if items carry their own) */
+    private BankAccount debtorAccount;
+
+    /** Requested execution date for the whole bulk */
+    private LocalDate requestedExecutionDate;
+
+    /** Individual payments in submission order */
+    private List<InitiatePaymentRequest> payments;
+}
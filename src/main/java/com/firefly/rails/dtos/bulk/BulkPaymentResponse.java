@@ -1,4 +1,35 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ */
 package com.firefly.rails.dtos.bulk;
-import lombok.Builder; import lombok.Data;
-@Data @Builder
-public class BulkPaymentResponse { private String id; }
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Response DTO for bulk payment submission and cancellation.
+ */
+@Data
+@Builder
+public class BulkPaymentResponse {
+
+    /** Bulk identifier */
+    private String id;
+
+    /** Rail-specific bulk status */
+    private String status;
+
+    /** Number of items accepted for submission */
+    private int acceptedCount;
+
+    /** Number of items rejected before submission */
+    private int rejectedCount;
+
+    /** Items rejected because their end-to-end reference was already used */
+    private List<DuplicateReference> duplicates;
+
+    private Instant submittedAt;
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ */
+package com.firefly.rails.dtos.bulk;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A bulk item whose end-to-end reference duplicates an earlier one.
+ */
+@Data
+@Builder
+public class DuplicateReference {
+
+    /** Index of the duplicate item within the bulk */
+    private int itemIndex;
+
+    private String endToEndReference;
+
+    /** Index of the first occurrence in the same bulk, or null if it was seen in an earlier bulk */
+    private Integer duplicateOfIndex;
+
+    /** When the reference was first accepted, if it was seen in an earlier bulk */
+    private Instant firstSeenAt;
+}
@@ -1,4 +1,4 @@
 package com.firefly.rails.dtos.mandate;
 import lombok.Builder; import lombok.Data;
-@Data @Builder
-public class ListMandatesRequest { private String id; }
+@Data @Builder(toBuilder = true)
+public class ListMandatesRequest { private String id; private Integer limit; private String cursor; }
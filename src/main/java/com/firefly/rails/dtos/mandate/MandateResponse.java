@@ -1,4 +1,5 @@
 package com.firefly.rails.dtos.mandate;
 import lombok.Builder; import lombok.Data;
+import java.time.Instant;
 @Data @Builder
-public class MandateResponse { private String id; }
+public class MandateResponse { private String id; private Instant createdAt; }
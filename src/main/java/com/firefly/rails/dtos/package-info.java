@@ -21,8 +21,11 @@
  *   <li>{@code reconciliation} - Transaction reconciliation DTOs</li>
  *   <li>{@code specific} - Rail-specific operation DTOs</li>
  *   <li>{@code fees} - Fee calculation DTOs</li>
+ *   <li>{@code batch} - Multiplexed batch operation DTOs</li>
  * </ul>
  * 
+ * <p>Listings paginated by cursor return a {@link com.firefly.rails.dtos.CursorPage}.
+ * 
  * <h2>Design Pattern</h2>
  * <p>All DTOs follow a consistent pattern:
  * <ul>
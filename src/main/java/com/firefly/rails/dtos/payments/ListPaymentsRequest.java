@@ -1,13 +1,17 @@
 package com.firefly.rails.dtos.payments;
+import com.firefly.rails.domain.PaymentStatus;
 import lombok.Builder;
 import lombok.Data;
 import java.time.LocalDate;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ListPaymentsRequest {
     private LocalDate startDate;
     private LocalDate endDate;
+    private PaymentStatus status;
     private Integer limit;
     private Integer offset;
+    /** Opaque cursor of the last payment of the previous page; used instead of offset */
+    private String cursor;
 }
@@ -24,7 +24,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class PaymentResponse {
     private String paymentId;
     private String endToEndReference;
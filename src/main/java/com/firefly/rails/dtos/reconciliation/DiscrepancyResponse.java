@@ -7,14 +7,25 @@ import lombok.Builder;
 import lombok.Data;
 import com.firefly.rails.domain.Money;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
 
 @Data
 @Builder
 public class DiscrepancyResponse {
     private String discrepancyId;
     private String transactionId;
+    private String accountId;
+    private String endToEndReference;
     private String type;
     private Money amount;
+    private LocalDate valueDate;
     private Instant detectedAt;
     private String reason;
+
+    /** Confidence of a suggested match, between 0 and 1; {@code null} for plain discrepancies */
+    private Double confidence;
+
+    /** Entries of the other ledger suggested as counterpart of this transaction */
+    private List<String> matchedEntryIds;
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ */
+package com.firefly.rails.dtos.reconciliation;
+
+import com.firefly.rails.domain.Money;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * A normalized ledger or statement line taking part in reconciliation.
+ */
+@Data
+@Builder
+public class ReconciliationEntry {
+
+    /** Which ledger the entry comes from */
+    private Source source;
+
+    /** Identifier of the entry in its own ledger (transaction ID, statement entry reference) */
+    private String entryId;
+
+    /** Account the entry was booked on */
+    private String accountId;
+
+    /** End-to-end reference shared by both ledgers */
+    private String endToEndReference;
+
+    private Money amount;
+
+    private LocalDate valueDate;
+
+    /** Debtor or creditor name of the other party, when known */
+    private String counterpartyName;
+
+    public enum Source {
+        /** Internal books of the payment originator */
+        INTERNAL,
+
+        /** Statement or report received from the rail */
+        STATEMENT
+    }
+}
@@ -6,6 +6,7 @@ package com.firefly.rails.dtos.reconciliation;
 import lombok.Builder;
 import lombok.Data;
 import com.firefly.rails.domain.Money;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -14,4 +15,8 @@ public class ReconciliationSummary {
     private int reconciledTransactions;
     private int pendingTransactions;
     private Money totalAmount;
+    private Money reconciledAmount;
+    private Money pendingAmount;
+    private LocalDate startDate;
+    private LocalDate endDate;
 }
@@ -16,6 +16,8 @@ public class CreateRecurringPaymentRequest {
     private LocalDate startDate;
     private LocalDate endDate;
     private Integer numberOfPayments;
+    /** Keep a schedule starting on a month's last day on the last day of every month */
+    private Boolean endOfMonth;
     
     public enum RecurrenceFrequency {
         DAILY,
@@ -5,11 +5,13 @@ import lombok.Data;
 import java.time.LocalDate;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ListScheduledPaymentsRequest {
     private LocalDate fromDate;
     private LocalDate toDate;
     private String status;
     private Integer limit;
     private Integer offset;
+    /** Opaque cursor of the last payment of the previous page; used instead of offset */
+    private String cursor;
 }
@@ -9,6 +9,7 @@ import java.time.Instant;
 @Builder
 public class PaymentExecutionHistory {
     private String executionId;
+    private String scheduledPaymentId;
     private String paymentId;
     private Money amount;
     private Instant executedAt;
@@ -15,7 +15,10 @@ public class RecurringPaymentResponse {
     private CreateRecurringPaymentRequest.RecurrenceFrequency frequency;
     private LocalDate startDate;
     private LocalDate endDate;
+    private Integer numberOfPayments;
+    private Boolean endOfMonth;
     private LocalDate nextExecutionDate;
     private int executionCount;
+    private LocalDate lastExecutionDate;
     private boolean active;
 }
@@ -4,6 +4,7 @@ import com.firefly.rails.domain.*;
 import lombok.Builder;
 import lombok.Data;
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 @Data
 @Builder
@@ -12,7 +13,11 @@ public class ScheduledPaymentResponse {
     private Money amount;
     private BankAccount debtorAccount;
     private BankAccount creditorAccount;
+    private String remittanceInformation;
+    private TransactionType transactionType;
     private LocalDate executionDate;
+    private LocalTime executionTime;
+    private IdempotencyKey idempotencyKey;
     private ScheduledPaymentStatus status;
     
     public enum ScheduledPaymentStatus {
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.rails.dtos.settlement;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class NettingCycleResult {
+    private String cycleId;
+    private Mode mode;
+    private long obligationCount;
+    private int participantCount;
+    private Map<Currency, Money> grossTotals;
+    private Map<Currency, Money> netTotals;
+    private List<SettlementInstruction> instructions;
+    private Instant closedAt;
+
+    public enum Mode {
+        /** Net each pair of participants separately */
+        BILATERAL,
+
+        /** Net every participant against all others through a central settlement account */
+        MULTILATERAL
+    }
+}
@@ -1,4 +1,43 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 package com.firefly.rails.dtos.settlement;
-import lombok.Builder; import lombok.Data;
-@Data @Builder
-public class SettlementReport { private String id; }
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.RailType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class SettlementReport {
+    private String id;
+    private RailType railType;
+    private Currency currency;
+    private LocalDate settlementDate;
+    private long transactionCount;
+    private long creditCount;
+    private long debitCount;
+    private Money totalCredits;
+    private Money totalDebits;
+    private Money netAmount;
+    private SettlementTransaction.Direction netDirection;
+    private String status;
+    private Instant generatedAt;
+}
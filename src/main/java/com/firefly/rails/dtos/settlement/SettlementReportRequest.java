@@ -1,4 +1,32 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 package com.firefly.rails.dtos.settlement;
-import lombok.Builder; import lombok.Data;
-@Data @Builder
-public class SettlementReportRequest { private String id; }
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.RailType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class SettlementReportRequest {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private RailType railType;
+    private Currency currency;
+}
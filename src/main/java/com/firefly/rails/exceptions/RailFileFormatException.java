@@ -0,0 +1,6 @@
+package com.firefly.rails.exceptions;
+
+public class RailFileFormatException extends RailException {
+    public RailFileFormatException(String message) { super(message); }
+    public RailFileFormatException(String message, Throwable cause) { super(message, cause); }
+}
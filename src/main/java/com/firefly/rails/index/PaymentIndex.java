@@ -0,0 +1,313 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.index;
+
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.ListPaymentsRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process secondary indexes over payments, for serving filtered
+ * {@link com.firefly.rails.adapter.ports.PaymentRailPort#listPayments listPayments} calls without
+ * scanning the adapter's store.
+ *
+ * <p>Every indexed payment gets a dense ordinal in the order it was first indexed. The index keeps
+ * a {@link CompactBitmap} of ordinals per status, per creation date and per debtor account, and a
+ * query intersects the bitmaps of its filters, smallest first. Date ranges are unions of the
+ * bitmaps of a sorted date map; since ordinals follow creation order, each date's bitmap is a
+ * dense run. Re-indexing a payment after a lifecycle event moves its ordinal between postings.
+ *
+ * <p>Ordinals of removed payments are not reused. Reads share a lock and exclude writes.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * // on every lifecycle event
+ * paymentIndex.index(payment);
+ *
+ * @Override
+ * public Mono<ResponseEntity<List<PaymentResponse>>> listPayments(ListPaymentsRequest request) {
+ *     List<String> ids = paymentIndex.query(PaymentIndex.Query.from(request));
+ *     return repository.findAllById(ids).map(mapper::toResponse).collectList().map(ResponseEntity::ok);
+ * }
+ * }</pre>
+ */
+public class PaymentIndex {
+
+    private final ZoneId zone;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<Posting> postings = new ArrayList<>();
+    private final CompactBitmap live = new CompactBitmap();
+    private final Map<PaymentStatus, CompactBitmap> byStatus = new EnumMap<>(PaymentStatus.class);
+    private final NavigableMap<LocalDate, CompactBitmap> byDate = new TreeMap<>();
+    private final Map<String, CompactBitmap> byDebtor = new HashMap<>();
+
+    /**
+     * Filters of a query; {@code null} filters match every payment.
+     */
+    @Data
+    @Builder(toBuilder = true)
+    public static class Query {
+
+        /** Payments in any of these statuses */
+        private Set<PaymentStatus> statuses;
+
+        /** Payments created on or after this date */
+        private LocalDate fromDate;
+
+        /** Payments created on or before this date */
+        private LocalDate toDate;
+
+        /** Payments from this debtor account, by IBAN or account number */
+        private String debtorAccount;
+
+        /** Matching payment ids to skip */
+        private Integer offset;
+
+        /** Most payment ids to return */
+        private Integer limit;
+
+        public static Query from(ListPaymentsRequest request) {
+            return Query.builder()
+                    .statuses(request.getStatus() == null ? null : EnumSet.of(request.getStatus()))
+                    .fromDate(request.getStartDate())
+                    .toDate(request.getEndDate())
+                    .offset(request.getOffset())
+                    .limit(request.getLimit())
+                    .build();
+        }
+    }
+
+    private record Posting(String paymentId, PaymentStatus status, LocalDate date, String debtor) {
+    }
+
+    /**
+     * Index creation dates in UTC.
+     */
+    public PaymentIndex() {
+        this(ZoneOffset.UTC);
+    }
+
+    /**
+     * @param zone zone in which creation instants are turned into dates
+     */
+    public PaymentIndex(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Index a payment, or re-index it with its current status.
+     */
+    public void index(PaymentResponse payment) {
+        if (payment.getPaymentId() == null) {
+            throw new IllegalArgumentException("Payment ID must not be null");
+        }
+        Posting posting = new Posting(payment.getPaymentId(), payment.getStatus(),
+                payment.getCreatedAt() == null ? null : LocalDate.ofInstant(payment.getCreatedAt(), zone),
+                debtorKey(payment.getDebtorAccount()));
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(posting.paymentId());
+            if (ordinal == null) {
+                ordinal = postings.size();
+                ordinals.put(posting.paymentId(), ordinal);
+                postings.add(null);
+                live.add(ordinal);
+            }
+            Posting previous = postings.get(ordinal);
+            if (posting.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unpost(ordinal, previous);
+            }
+            post(ordinal, posting);
+            postings.set(ordinal, posting);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the payment was indexed
+     */
+    public boolean remove(String paymentId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(paymentId);
+            if (ordinal == null) {
+                return false;
+            }
+            unpost(ordinal, postings.get(ordinal));
+            postings.set(ordinal, null);
+            live.remove(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the payments matching a query, in the order they were first indexed, paged by its
+     * offset and limit.
+     */
+    public List<String> query(Query query) {
+        lock.readLock().lock();
+        try {
+            CompactBitmap matches = matches(query);
+            int offset = query.getOffset() == null ? 0 : Math.max(query.getOffset(), 0);
+            int limit = query.getLimit() == null ? Integer.MAX_VALUE : Math.max(query.getLimit(), 0);
+            List<String> paymentIds = new ArrayList<>(Math.min(limit, Math.max(matches.cardinality() - offset, 0)));
+            // ordinals are found one at a time, so a page costs its offset and length rather than the whole match
+            PrimitiveIterator.OfInt matching = matches.iterator();
+            for (int i = 0; i < offset && matching.hasNext(); i++) {
+                matching.nextInt();
+            }
+            while (paymentIds.size() < limit && matching.hasNext()) {
+                paymentIds.add(postings.get(matching.nextInt()).paymentId());
+            }
+            return paymentIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(Query query) {
+        lock.readLock().lock();
+        try {
+            return matches(query).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed payments.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate memory held by the bitmaps.
+     */
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = live.sizeInBytes();
+            for (CompactBitmap bitmap : byStatus.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (CompactBitmap bitmap : byDate.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (CompactBitmap bitmap : byDebtor.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CompactBitmap matches(Query query) {
+        List<CompactBitmap> filters = new ArrayList<>(3);
+        if (query.getStatuses() != null) {
+            CompactBitmap statuses = new CompactBitmap();
+            for (PaymentStatus status : query.getStatuses()) {
+                CompactBitmap bitmap = byStatus.get(status);
+                if (bitmap != null) {
+                    statuses = CompactBitmap.or(statuses, bitmap);
+                }
+            }
+            filters.add(statuses);
+        }
+        if (query.getFromDate() != null || query.getToDate() != null) {
+            LocalDate from = query.getFromDate() == null ? LocalDate.MIN : query.getFromDate();
+            LocalDate to = query.getToDate() == null ? LocalDate.MAX : query.getToDate();
+            CompactBitmap dates = new CompactBitmap();
+            if (!from.isAfter(to)) {
+                for (CompactBitmap bitmap : byDate.subMap(from, true, to, true).values()) {
+                    dates = CompactBitmap.or(dates, bitmap);
+                }
+            }
+            filters.add(dates);
+        }
+        if (query.getDebtorAccount() != null) {
+            filters.add(byDebtor.getOrDefault(query.getDebtorAccount(), new CompactBitmap()));
+        }
+        if (filters.isEmpty()) {
+            return live;
+        }
+        filters.sort(Comparator.comparingInt(CompactBitmap::cardinality));
+        CompactBitmap result = filters.get(0);
+        for (int i = 1; i < filters.size() && !result.isEmpty(); i++) {
+            result = CompactBitmap.and(result, filters.get(i));
+        }
+        return result;
+    }
+
+    private void post(int ordinal, Posting posting) {
+        if (posting.status() != null) {
+            byStatus.computeIfAbsent(posting.status(), status -> new CompactBitmap()).add(ordinal);
+        }
+        if (posting.date() != null) {
+            byDate.computeIfAbsent(posting.date(), date -> new CompactBitmap()).add(ordinal);
+        }
+        if (posting.debtor() != null) {
+            byDebtor.computeIfAbsent(posting.debtor(), debtor -> new CompactBitmap()).add(ordinal);
+        }
+    }
+
+    private void unpost(int ordinal, Posting posting) {
+        unpost(byStatus, posting.status(), ordinal);
+        unpost(byDate, posting.date(), ordinal);
+        unpost(byDebtor, posting.debtor(), ordinal);
+    }
+
+    private static <K> void unpost(Map<K, CompactBitmap> postings, K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        CompactBitmap bitmap = postings.get(key);
+        if (bitmap != null && bitmap.remove(ordinal) && bitmap.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static String debtorKey(BankAccount account) {
+        if (account == null) {
+            return null;
+        }
+        return account.getIban() != null ? account.getIban() : account.getAccountNumber();
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * In-memory secondary indexes for filtered payment listings.
+ *
+ * <p>This package contains building blocks for answering
+ * {@link com.firefly.rails.adapter.ports.PaymentRailPort#listPayments} filters without a scan:
+ * <ul>
+ *   <li>{@link com.firefly.rails.index.PaymentIndex} - Status, creation date and debtor postings of payments</li>
+ *   <li>{@link com.firefly.rails.index.CompactBitmap} - Compressed bitmap of ordinals with fast set operations</li>
+ * </ul>
+ *
+ * @since 1.0.0
+ */
+package com.firefly.rails.index;
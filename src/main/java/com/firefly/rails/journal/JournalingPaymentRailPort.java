@@ -0,0 +1,221 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.journal;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.CursorPage;
+import com.firefly.rails.dtos.payments.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link PaymentRailPort} decorator that records the lifecycle of every payment in a {@link PaymentJournal}.
+ *
+ * <p>Successful authorizations, confirmations, initiations, cancellations and return requests are
+ * appended as events; a payment read with {@link #getPayment(String)} or {@link #getPayments(Collection)}
+ * whose status differs from the journal's is recorded as a status change. Events are appended on a
+ * bounded elastic worker, since the journal may block on its files, and journal failures are
+ * logged and never fail the rail operation.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public PaymentRailPort payments() {
+ *     return new JournalingPaymentRailPort(sepaPaymentPort, journal, Clock.systemUTC());
+ * }
+ * }</pre>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JournalingPaymentRailPort implements PaymentRailPort {
+
+    private final PaymentRailPort delegate;
+    private final PaymentJournal journal;
+    private final Clock clock;
+
+    @Override
+    public Mono<ResponseEntity<ValidationResponse>> validatePayment(ValidatePaymentRequest request) {
+        return delegate.validatePayment(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<SimulationResponse>> simulatePayment(SimulatePaymentRequest request) {
+        return delegate.simulatePayment(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<AuthorizationResponse>> authorizePayment(AuthorizePaymentRequest request) {
+        return delegate.authorizePayment(request)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    AuthorizationResponse body = response.getBody();
+                    if (response.getStatusCode().is2xxSuccessful() && body != null && body.getAuthorizationId() != null) {
+                        record(PaymentEvent.builder()
+                                .type(PaymentEvent.Type.AUTHORIZED)
+                                .paymentId(body.getAuthorizationId())
+                                .authorizationId(body.getAuthorizationId())
+                                .occurredAt(clock.instant())
+                                .statusReason(body.getStatus() == null ? null : body.getStatus().name())
+                                .endToEndReference(request.getEndToEndReference())
+                                .amount(request.getAmount())
+                                .debtorAccount(request.getDebtorAccount())
+                                .creditorAccount(request.getCreditorAccount())
+                                .transactionType(request.getTransactionType())
+                                .settlementSpeed(request.getSettlementSpeed())
+                                .build());
+                    }
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<AuthorizationResponse>> completeAuthentication(CompleteAuthenticationRequest request) {
+        return delegate.completeAuthentication(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentResponse>> confirmPayment(String authorizationId) {
+        return delegate.confirmPayment(authorizationId)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> recordPayment(response, PaymentEvent.Type.CONFIRMED, authorizationId));
+    }
+
+    @Override
+    public Mono<ResponseEntity<CancellationResponse>> cancelAuthorization(String authorizationId) {
+        return delegate.cancelAuthorization(authorizationId)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    CancellationResponse body = response.getBody();
+                    if (response.getStatusCode().is2xxSuccessful() && body != null && body.isCancelled()) {
+                        record(PaymentEvent.builder()
+                                .type(PaymentEvent.Type.CANCELLED)
+                                .paymentId(authorizationId)
+                                .occurredAt(clock.instant())
+                                .status(PaymentStatus.CANCELLED)
+                                .statusReason(body.getReason())
+                                .build());
+                    }
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentResponse>> initiatePayment(InitiatePaymentRequest request) {
+        return delegate.initiatePayment(request)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> recordPayment(response, PaymentEvent.Type.INITIATED, null));
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentResponse>> getPayment(String paymentId) {
+        return delegate.getPayment(paymentId)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                        recordStatusChange(paymentId, response.getBody());
+                    }
+                });
+    }
+
+    @Override
+    public Flux<PaymentResponse> getPayments(Collection<String> paymentIds) {
+        return delegate.getPayments(paymentIds)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(payment -> recordStatusChange(payment.getPaymentId(), payment));
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentStatusResponse>> getPaymentStatus(String paymentReference) {
+        return delegate.getPaymentStatus(paymentReference);
+    }
+
+    @Override
+    public Mono<ResponseEntity<List<PaymentResponse>>> listPayments(ListPaymentsRequest request) {
+        return delegate.listPayments(request);
+    }
+
+    @Override
+    public Flux<PaymentResponse> streamPayments(ListPaymentsRequest request) {
+        return delegate.streamPayments(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<CursorPage<PaymentResponse>>> listPaymentsPage(ListPaymentsRequest request) {
+        return delegate.listPaymentsPage(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentResponse>> cancelPayment(String paymentId) {
+        return delegate.cancelPayment(paymentId)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> recordPayment(response, PaymentEvent.Type.CANCELLED, null));
+    }
+
+    @Override
+    public Mono<ResponseEntity<ReturnResponse>> requestReturn(ReturnRequest request) {
+        return delegate.requestReturn(request)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful() && request.getId() != null) {
+                        ReturnResponse body = response.getBody();
+                        record(PaymentEvent.builder()
+                                .type(PaymentEvent.Type.RETURN_REQUESTED)
+                                .paymentId(request.getId())
+                                .occurredAt(clock.instant())
+                                .statusReason(body == null ? request.getStatus() : body.getStatus())
+                                .build());
+                    }
+                });
+    }
+
+    private void recordPayment(ResponseEntity<PaymentResponse> response, PaymentEvent.Type type, String authorizationId) {
+        PaymentResponse body = response.getBody();
+        if (response.getStatusCode().is2xxSuccessful() && body != null && body.getPaymentId() != null) {
+            record(PaymentEvent.of(type, body, body.getUpdatedAt() != null ? body.getUpdatedAt() : clock.instant())
+                    .toBuilder()
+                    .authorizationId(authorizationId)
+                    .build());
+        }
+    }
+
+    private void recordStatusChange(String paymentId, PaymentResponse payment) {
+        if (paymentId == null || payment.getStatus() == null) {
+            return;
+        }
+        Optional<PaymentStatus> journaled = journal.current(paymentId).map(PaymentResponse::getStatus);
+        if (journaled.isPresent() && journaled.get() != payment.getStatus()) {
+            record(PaymentEvent.statusChanged(paymentId, payment.getStatus(), payment.getStatusReason(),
+                    payment.getUpdatedAt() != null ? payment.getUpdatedAt() : clock.instant()));
+        }
+    }
+
+    private void record(PaymentEvent event) {
+        try {
+            journal.append(event);
+        } catch (RuntimeException e) {
+            log.warn("Could not journal {} of payment {}: {}", event.getType(), event.getPaymentId(), e.getMessage());
+        }
+    }
+}
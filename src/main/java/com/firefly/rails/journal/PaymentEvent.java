@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.journal;
+
+import com.firefly.rails.domain.*;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Lifecycle event of a payment recorded in a {@link PaymentJournal}.
+ *
+ * <p>Besides its type, an event carries only what changed: replaying the events of a payment in
+ * order and applying every non-null field rebuilds its {@link PaymentResponse}.
+ */
+@Data
+@Builder(toBuilder = true)
+public class PaymentEvent {
+
+    /** Position in the journal, assigned when the event is appended */
+    private long sequence;
+
+    private Type type;
+    private String paymentId;
+    private Instant occurredAt;
+
+    /** Authorization the payment was confirmed from */
+    private String authorizationId;
+
+    private PaymentStatus status;
+    private String statusReason;
+    private String endToEndReference;
+    private Money amount;
+    private BankAccount debtorAccount;
+    private BankAccount creditorAccount;
+    private TransactionType transactionType;
+    private SettlementSpeed settlementSpeed;
+    private LocalDate expectedSettlementDate;
+
+    /**
+     * Event of a payment response, carrying all of its fields.
+     */
+    public static PaymentEvent of(Type type, PaymentResponse payment, Instant occurredAt) {
+        return PaymentEvent.builder()
+                .type(type)
+                .paymentId(payment.getPaymentId())
+                .occurredAt(occurredAt)
+                .status(payment.getStatus())
+                .statusReason(payment.getStatusReason())
+                .endToEndReference(payment.getEndToEndReference())
+                .amount(payment.getAmount())
+                .debtorAccount(payment.getDebtorAccount())
+                .creditorAccount(payment.getCreditorAccount())
+                .transactionType(payment.getTransactionType())
+                .settlementSpeed(payment.getSettlementSpeed())
+                .expectedSettlementDate(payment.getExpectedSettlementDate())
+                .build();
+    }
+
+    /**
+     * Status change of a payment.
+     */
+    public static PaymentEvent statusChanged(String paymentId, PaymentStatus status, String reason, Instant occurredAt) {
+        return PaymentEvent.builder()
+                .type(Type.STATUS_CHANGED)
+                .paymentId(paymentId)
+                .occurredAt(occurredAt)
+                .status(status)
+                .statusReason(reason)
+                .build();
+    }
+
+    public enum Type {
+        AUTHORIZED,
+        CONFIRMED,
+        INITIATED,
+        STATUS_CHANGED,
+        CANCELLED,
+        RETURN_REQUESTED
+    }
+}
@@ -0,0 +1,745 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.journal;
+
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.domain.SettlementSpeed;
+import com.firefly.rails.domain.TransactionType;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.exceptions.RailException;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import com.firefly.rails.status.PaymentStateMachine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Event-sourced journal of payment lifecycle events in memory-mapped segment files.
+ *
+ * <p>Events are appended to the current segment as {@code length | CRC32 | payload} records with a
+ * compact binary payload; a full segment is closed and a new one, named after its first sequence
+ * number, is mapped. An in-memory index keeps the positions of every payment's events, so reading
+ * the history of one payment touches only its own records. A payment confirmed from an
+ * authorization inherits the authorization's events, so its history runs from
+ * {@code authorizePayment} through {@code confirmPayment}, status changes and {@code requestReturn}.
+ *
+ * <p>Every {@code snapshotEvery} events the index and the current state of every payment are
+ * written to a CRC32-checked snapshot, forced to disk and put in place with an atomic move. Opening
+ * a journal loads the snapshot and scans only the records after it; a snapshot that fails its
+ * check is ignored and every segment is scanned instead. A torn record at the end of the last
+ * segment is discarded.
+ *
+ * <p>Appends reach the page cache immediately and the disk on {@link #force()} or {@link #close()}.
+ *
+ * <p>The index costs roughly 200 bytes of heap per payment plus 8 to 16 bytes per event. The
+ * current state of a payment, around a kilobyte with both accounts, is kept only until the payment
+ * reaches a {@linkplain PaymentStateMachine#isTerminal(PaymentStatus) terminal status}; after that
+ * it is rebuilt from the payment's events when asked for. Every segment maps {@code segmentBytes} of
+ * address space until {@link #archive(Path, Instant)} moves it out of the journal together with the
+ * index entries of its payments.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * try (PaymentJournal journal = PaymentJournal.open(Path.of("/var/lib/rails/journal"))) {
+ *     journal.append(PaymentEvent.statusChanged(paymentId, PaymentStatus.SETTLED, null, Instant.now()));
+ *
+ *     Optional<PaymentResponse> atCutOff = journal.stateAt(paymentId, cutOff);
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class PaymentJournal implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x504A5333; // "PJS3"
+    private static final int SNAPSHOT_MAGIC_V2 = 0x504A5332; // "PJS2", without the first segment
+    private static final int SNAPSHOT_MAGIC_V1 = 0x504A5331; // "PJS1", without a checksum
+    private static final int HEADER_BYTES = 8;
+    private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    private static final int DEFAULT_SNAPSHOT_EVERY = 100_000;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SNAPSHOT_FILE = "journal.snapshot";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int snapshotEvery;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, long[]> index = new HashMap<>();
+    private final Map<String, Integer> indexSizes = new HashMap<>();
+    private final Map<String, PaymentResponse> current = new HashMap<>();
+    private long nextSequence = 1;
+    private int sinceSnapshot;
+    private boolean closed;
+
+    private PaymentJournal(Path directory, int segmentBytes, int snapshotEvery) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public static PaymentJournal open(Path directory) {
+        return open(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /**
+     * @param segmentBytes size of each memory-mapped segment file
+     * @param snapshotEvery events between snapshots
+     */
+    public static PaymentJournal open(Path directory, int segmentBytes, int snapshotEvery) {
+        if (segmentBytes < 4_096 || snapshotEvery <= 0) {
+            throw new IllegalArgumentException("Segments must hold at least 4 KiB and snapshots must be periodic");
+        }
+        PaymentJournal journal = new PaymentJournal(directory, segmentBytes, snapshotEvery);
+        try {
+            Files.createDirectories(directory);
+            journal.recover();
+        } catch (IOException e) {
+            throw new RailException("Could not open payment journal in " + directory, e);
+        }
+        return journal;
+    }
+
+    /**
+     * Append an event, assigning its sequence number.
+     *
+     * @return the sequence number of the event
+     */
+    public synchronized long append(PaymentEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Payment journal is closed");
+        }
+        if (event.getPaymentId() == null || event.getType() == null || event.getOccurredAt() == null) {
+            throw new IllegalArgumentException("Payment events need a payment id, a type and a time");
+        }
+        PaymentEvent sequenced = event.toBuilder().sequence(nextSequence).build();
+        byte[] payload = encode(sequenced);
+        if (payload.length + 2 * HEADER_BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Payment event does not fit in a journal segment");
+        }
+        try {
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.position + HEADER_BYTES + payload.length + HEADER_BYTES > segmentBytes) {
+                segment = newSegment(nextSequence);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            MappedByteBuffer buffer = segment.buffer;
+            int position = segment.position;
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            // the length goes last so a reader never sees a record before its payload
+            buffer.putInt(position, payload.length);
+            segment.position = position + HEADER_BYTES + payload.length;
+            index(sequenced, address(segments.size() - 1, position));
+            nextSequence++;
+            if (++sinceSnapshot >= snapshotEvery) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new RailException("Could not append to payment journal in " + directory, e);
+        }
+        return sequenced.getSequence();
+    }
+
+    /**
+     * Every event of a payment in order, including the events of the authorization it was confirmed from.
+     */
+    public synchronized List<PaymentEvent> events(String paymentId) {
+        long[] addresses = index.get(paymentId);
+        if (addresses == null) {
+            return List.of();
+        }
+        int size = indexSizes.get(paymentId);
+        List<PaymentEvent> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(read(addresses[i]));
+        }
+        return events;
+    }
+
+    /**
+     * Current state of a payment.
+     */
+    public synchronized Optional<PaymentResponse> current(String paymentId) {
+        PaymentResponse state = state(paymentId);
+        return state == null ? Optional.empty() : Optional.of(state.toBuilder().build());
+    }
+
+    /**
+     * State of a payment as of an instant, rebuilt from its events that occurred up to that instant.
+     * Events are applied in journal order, so an event journaled late but dated before the instant
+     * still counts.
+     */
+    public synchronized Optional<PaymentResponse> stateAt(String paymentId, Instant at) {
+        PaymentResponse state = null;
+        for (PaymentEvent event : events(paymentId)) {
+            if (!event.getOccurredAt().isAfter(at)) {
+                state = apply(state, paymentId, event);
+            }
+        }
+        return Optional.ofNullable(state);
+    }
+
+    /**
+     * Sequence number the next event will get.
+     */
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Move the oldest segments into an archive directory once every payment with events in them
+     * reached a terminal status before an instant. Segments holding events of the same payment are
+     * archived together, so a payment stays either wholly in the journal or wholly in the archive;
+     * archived payments are dropped from the index. The segment being written to is never archived.
+     *
+     * @return number of segments archived
+     */
+    public synchronized int archive(Path archiveDirectory, Instant before) throws IOException {
+        int cut = segments.size() - 1;
+        List<int[]> retired = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : index.entrySet()) {
+            long[] addresses = entry.getValue();
+            int size = indexSizes.get(entry.getKey());
+            int first = (int) (addresses[0] >>> 32);
+            int last = (int) (addresses[size - 1] >>> 32);
+            if (first >= cut) {
+                continue;
+            }
+            if (current.containsKey(entry.getKey()) || !read(addresses[size - 1]).getOccurredAt().isBefore(before)) {
+                cut = first;
+            } else {
+                retired.add(new int[]{first, last});
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int[] span : retired) {
+                if (span[0] < cut && span[1] >= cut) {
+                    cut = span[0];
+                    changed = true;
+                }
+            }
+        }
+        if (cut <= 0) {
+            return 0;
+        }
+        force();
+        Files.createDirectories(archiveDirectory);
+        for (int s = 0; s < cut; s++) {
+            Path file = segments.get(s).file;
+            Path copy = archiveDirectory.resolve(file.getFileName());
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        long shift = (long) cut << 32;
+        Iterator<Map.Entry<String, long[]>> entries = index.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, long[]> entry = entries.next();
+            long[] addresses = entry.getValue();
+            if ((int) (addresses[0] >>> 32) < cut) {
+                entries.remove();
+                indexSizes.remove(entry.getKey());
+                current.remove(entry.getKey());
+            } else {
+                int size = indexSizes.get(entry.getKey());
+                for (int i = 0; i < size; i++) {
+                    addresses[i] -= shift;
+                }
+            }
+        }
+        List<Segment> archived = new ArrayList<>(segments.subList(0, cut));
+        // the mappings go with the last references to them
+        segments.subList(0, cut).clear();
+        // the snapshot names the first segment kept, so an interrupted delete is finished on open
+        snapshot();
+        for (Segment segment : archived) {
+            Files.delete(segment.file);
+        }
+        log.info("Archived {} payment journal segments to {}", cut, archiveDirectory);
+        return cut;
+    }
+
+    /**
+     * Write the index and the state of every payment, so that opening the journal only scans later events.
+     */
+    public synchronized void snapshot() throws IOException {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        force();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + index.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(nextSequence);
+            out.writeLong(segments.isEmpty() ? nextSequence : firstSequence(segments.get(0).file));
+            out.writeInt(segments.size());
+            out.writeInt(last == null ? 0 : last.position);
+            out.writeInt(index.size());
+            for (Map.Entry<String, long[]> entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                int size = indexSizes.get(entry.getKey());
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeLong(entry.getValue()[i]);
+                }
+                PaymentResponse state = current.get(entry.getKey());
+                out.writeBoolean(state != null);
+                if (state != null) {
+                    writeState(out, state);
+                }
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        ByteBuffer header = ByteBuffer.allocate(12).putInt(SNAPSHOT_MAGIC).putInt(bytes.size())
+                .putInt((int) crc.getValue()).flip();
+        ByteBuffer payload = ByteBuffer.wrap(bytes.toByteArray());
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, payload};
+            while (payload.hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        sinceSnapshot = 0;
+        log.debug("Payment journal snapshot at sequence {}", nextSequence - 1);
+    }
+
+    /**
+     * Flush appended events to disk.
+     */
+    public synchronized void force() {
+        for (Segment segment : segments) {
+            if (segment.dirty()) {
+                segment.buffer.force();
+                segment.forced = segment.position;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        segments.clear();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        long from = loadSnapshot(directory.resolve(SNAPSHOT_FILE), files);
+        for (Path file : files) {
+            segments.add(map(file));
+        }
+        int fromSegment = (int) (from >>> 32);
+        int fromPosition = (int) from;
+        for (int s = fromSegment; s < segments.size(); s++) {
+            Segment segment = segments.get(s);
+            int position = s == fromSegment ? fromPosition : 0;
+            while (true) {
+                if (position + HEADER_BYTES > segmentBytes) {
+                    break;
+                }
+                int length = segment.buffer.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                PaymentEvent event = length > 0 && position + HEADER_BYTES + length <= segmentBytes
+                        ? verify(segment, position, length) : null;
+                if (event == null) {
+                    if (s != segments.size() - 1) {
+                        throw new RailFileFormatException("Corrupt record in payment journal segment " + segment.file);
+                    }
+                    log.warn("Discarding torn record at {} of {}", position, segment.file);
+                    for (int i = position; i < segmentBytes; i++) {
+                        segment.buffer.put(i, (byte) 0);
+                    }
+                    break;
+                }
+                index(event, address(s, position));
+                nextSequence = Math.max(nextSequence, event.getSequence() + 1);
+                position += HEADER_BYTES + length;
+            }
+            segment.position = position;
+            segment.forced = position;
+        }
+        log.info("Opened payment journal in {}: {} segments, {} payments, next sequence {}",
+                directory, segments.size(), index.size(), nextSequence);
+    }
+
+    /**
+     * Load the snapshot, if there is a sound one, and delete the segments it says were archived.
+     *
+     * @param files segment files in order
+     * @return address of the first record after the snapshot; the start of the journal without one
+     */
+    private long loadSnapshot(Path snapshot, List<Path> files) throws IOException {
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        int magic = content.remaining() >= 12 ? content.getInt() : 0;
+        if (magic == SNAPSHOT_MAGIC_V1) {
+            log.info("Ignoring unchecked snapshot {}, scanning the whole journal", snapshot);
+            return 0;
+        }
+        if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V2) {
+            throw new RailFileFormatException("Not a payment journal snapshot: " + snapshot);
+        }
+        int length = content.getInt();
+        int checksum = content.getInt();
+        CRC32 crc = new CRC32();
+        if (length == content.remaining()) {
+            crc.update(content.array(), content.position(), length);
+        }
+        if (length != content.remaining() || (int) crc.getValue() != checksum) {
+            log.warn("Snapshot {} is corrupt, scanning the whole journal", snapshot);
+            return 0;
+        }
+        int archived = 0;
+        long from;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content.array(), 12, length))) {
+            nextSequence = in.readLong();
+            long firstSegment = magic == SNAPSHOT_MAGIC ? in.readLong()
+                    : files.isEmpty() ? nextSequence : firstSequence(files.get(0));
+            int segmentCount = in.readInt();
+            int fromSegment = Math.max(0, segmentCount - 1);
+            int fromPosition = in.readInt();
+            int payments = in.readInt();
+            for (int p = 0; p < payments; p++) {
+                String paymentId = in.readUTF();
+                int size = in.readInt();
+                long[] addresses = new long[Math.max(4, size)];
+                for (int i = 0; i < size; i++) {
+                    addresses[i] = in.readLong();
+                }
+                index.put(paymentId, addresses);
+                indexSizes.put(paymentId, size);
+                if (in.readBoolean()) {
+                    remember(paymentId, readState(in));
+                }
+            }
+            while (archived < files.size() && firstSequence(files.get(archived)) < firstSegment) {
+                archived++;
+            }
+            if (segmentCount > 0 && (archived == files.size() || firstSequence(files.get(archived)) != firstSegment)) {
+                throw new IOException("its segments are missing");
+            }
+            from = address(fromSegment, fromPosition);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot {} is unreadable, scanning the whole journal: {}", snapshot, e.getMessage());
+            index.clear();
+            indexSizes.clear();
+            current.clear();
+            nextSequence = 1;
+            return 0;
+        }
+        for (Path file : files.subList(0, archived)) {
+            log.info("Deleting archived payment journal segment {}", file);
+            Files.delete(file);
+        }
+        files.subList(0, archived).clear();
+        return from;
+    }
+
+    private PaymentEvent verify(Segment segment, int position, int length) {
+        byte[] payload = new byte[length];
+        segment.buffer.get(position + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != segment.buffer.getInt(position + 4)) {
+            return null;
+        }
+        try {
+            return decode(payload);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void index(PaymentEvent event, long address) {
+        String paymentId = event.getPaymentId();
+        PaymentResponse state;
+        if (event.getType() == PaymentEvent.Type.CONFIRMED && event.getAuthorizationId() != null
+                && !index.containsKey(paymentId) && index.containsKey(event.getAuthorizationId())) {
+            // the payment's history starts with its authorization
+            int size = indexSizes.get(event.getAuthorizationId());
+            index.put(paymentId, Arrays.copyOf(index.get(event.getAuthorizationId()), Math.max(4, size * 2)));
+            indexSizes.put(paymentId, size);
+            PaymentResponse authorized = state(event.getAuthorizationId());
+            state = authorized == null ? null : authorized.toBuilder().paymentId(paymentId).build();
+        } else {
+            state = state(paymentId);
+        }
+        long[] addresses = index.computeIfAbsent(paymentId, id -> new long[4]);
+        int size = indexSizes.getOrDefault(paymentId, 0);
+        if (size == addresses.length) {
+            addresses = Arrays.copyOf(addresses, size * 2);
+            index.put(paymentId, addresses);
+        }
+        addresses[size] = address;
+        indexSizes.put(paymentId, size + 1);
+        remember(paymentId, apply(state, paymentId, event));
+    }
+
+    /**
+     * Current state of a payment, replayed from its events once it is no longer kept in memory.
+     */
+    private PaymentResponse state(String paymentId) {
+        PaymentResponse state = current.get(paymentId);
+        if (state != null || !index.containsKey(paymentId)) {
+            return state;
+        }
+        for (PaymentEvent event : events(paymentId)) {
+            state = apply(state, paymentId, event);
+        }
+        return state;
+    }
+
+    private void remember(String paymentId, PaymentResponse state) {
+        if (state.getStatus() != null && PaymentStateMachine.isTerminal(state.getStatus())) {
+            current.remove(paymentId);
+        } else {
+            current.put(paymentId, state);
+        }
+    }
+
+    private PaymentEvent read(long address) {
+        Segment segment = segments.get((int) (address >>> 32));
+        int position = (int) address;
+        byte[] payload = new byte[segment.buffer.getInt(position)];
+        segment.buffer.get(position + HEADER_BYTES, payload);
+        try {
+            return decode(payload);
+        } catch (IOException e) {
+            throw new RailFileFormatException("Unreadable record in payment journal segment " + segment.file);
+        }
+    }
+
+    private Segment newSegment(long firstSequence) throws IOException {
+        Segment segment = map(directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX)));
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long address(int segment, int position) {
+        return (long) segment << 32 | position;
+    }
+
+    private static PaymentResponse apply(PaymentResponse state, String paymentId, PaymentEvent event) {
+        PaymentResponse.PaymentResponseBuilder next = state == null
+                ? PaymentResponse.builder().paymentId(paymentId).createdAt(event.getOccurredAt())
+                : state.toBuilder();
+        next.updatedAt(event.getOccurredAt());
+        if (event.getStatus() != null) {
+            next.status(event.getStatus()).statusReason(event.getStatusReason());
+        } else if (event.getStatusReason() != null) {
+            next.statusReason(event.getStatusReason());
+        }
+        if (event.getEndToEndReference() != null) {
+            next.endToEndReference(event.getEndToEndReference());
+        }
+        if (event.getAmount() != null) {
+            next.amount(event.getAmount());
+        }
+        if (event.getDebtorAccount() != null) {
+            next.debtorAccount(event.getDebtorAccount());
+        }
+        if (event.getCreditorAccount() != null) {
+            next.creditorAccount(event.getCreditorAccount());
+        }
+        if (event.getTransactionType() != null) {
+            next.transactionType(event.getTransactionType());
+        }
+        if (event.getSettlementSpeed() != null) {
+            next.settlementSpeed(event.getSettlementSpeed());
+        }
+        if (event.getExpectedSettlementDate() != null) {
+            next.expectedSettlementDate(event.getExpectedSettlementDate());
+        }
+        return next.build();
+    }
+
+    private static byte[] encode(PaymentEvent event) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(event.getSequence());
+            out.writeByte(event.getType().ordinal());
+            out.writeUTF(event.getPaymentId());
+            out.writeLong(event.getOccurredAt().getEpochSecond());
+            out.writeInt(event.getOccurredAt().getNano());
+            writeString(out, event.getAuthorizationId());
+            out.writeByte(event.getStatus() == null ? -1 : event.getStatus().ordinal());
+            writeString(out, event.getStatusReason());
+            writeString(out, event.getEndToEndReference());
+            writeMoney(out, event.getAmount());
+            writeAccount(out, event.getDebtorAccount());
+            writeAccount(out, event.getCreditorAccount());
+            out.writeByte(event.getTransactionType() == null ? -1 : event.getTransactionType().ordinal());
+            out.writeByte(event.getSettlementSpeed() == null ? -1 : event.getSettlementSpeed().ordinal());
+            out.writeLong(event.getExpectedSettlementDate() == null ? Long.MIN_VALUE
+                    : event.getExpectedSettlementDate().toEpochDay());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PaymentEvent decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        PaymentEvent.PaymentEventBuilder event = PaymentEvent.builder()
+                .sequence(in.readLong())
+                .type(PaymentEvent.Type.values()[in.readByte()])
+                .paymentId(in.readUTF())
+                .occurredAt(Instant.ofEpochSecond(in.readLong(), in.readInt()))
+                .authorizationId(readString(in));
+        byte status = in.readByte();
+        event.status(status < 0 ? null : PaymentStatus.values()[status])
+                .statusReason(readString(in))
+                .endToEndReference(readString(in))
+                .amount(readMoney(in))
+                .debtorAccount(readAccount(in))
+                .creditorAccount(readAccount(in));
+        byte transactionType = in.readByte();
+        event.transactionType(transactionType < 0 ? null : TransactionType.values()[transactionType]);
+        byte settlementSpeed = in.readByte();
+        event.settlementSpeed(settlementSpeed < 0 ? null : SettlementSpeed.values()[settlementSpeed]);
+        long expectedSettlementDate = in.readLong();
+        event.expectedSettlementDate(expectedSettlementDate == Long.MIN_VALUE ? null
+                : LocalDate.ofEpochDay(expectedSettlementDate));
+        return event.build();
+    }
+
+    private static void writeState(DataOutputStream out, PaymentResponse state) throws IOException {
+        byte[] payload = encode(PaymentEvent.of(PaymentEvent.Type.STATUS_CHANGED, state, state.getUpdatedAt()));
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeLong(state.getCreatedAt().getEpochSecond());
+        out.writeInt(state.getCreatedAt().getNano());
+    }
+
+    private static PaymentResponse readState(DataInputStream in) throws IOException {
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        PaymentEvent event = decode(payload);
+        Instant createdAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        return apply(null, event.getPaymentId(), event).toBuilder()
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private static void writeMoney(DataOutputStream out, Money money) throws IOException {
+        out.writeBoolean(money != null);
+        if (money != null) {
+            out.writeUTF(money.getAmount().toPlainString());
+            out.writeByte(money.getCurrency().ordinal());
+        }
+    }
+
+    private static Money readMoney(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Money(new BigDecimal(in.readUTF()), Currency.values()[in.readByte()]) : null;
+    }
+
+    private static void writeAccount(DataOutputStream out, BankAccount account) throws IOException {
+        out.writeBoolean(account != null);
+        if (account != null) {
+            writeString(out, account.getAccountHolderName());
+            writeString(out, account.getIban());
+            writeString(out, account.getAccountNumber());
+            writeString(out, account.getRoutingNumber());
+            writeString(out, account.getSwiftCode());
+            writeString(out, account.getBankName());
+            writeString(out, account.getCountryCode());
+        }
+    }
+
+    private static BankAccount readAccount(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new BankAccount(readString(in), readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int forced;
+
+        private Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private boolean dirty() {
+            return forced != position;
+        }
+    }
+}
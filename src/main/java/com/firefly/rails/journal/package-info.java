@@ -0,0 +1,19 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Event-sourced record of payment lifecycles shared by rail implementations.
+ *
+ * <p>This package contains building blocks for auditing
+ * {@link com.firefly.rails.adapter.ports.PaymentRailPort} operations:
+ * <ul>
+ *   <li>{@link com.firefly.rails.journal.PaymentJournal} - Memory-mapped, CRC-checked journal with point-in-time replay</li>
+ *   <li>{@link com.firefly.rails.journal.PaymentEvent} - Lifecycle event of a payment</li>
+ *   <li>{@link com.firefly.rails.journal.JournalingPaymentRailPort} - Port decorator recording every lifecycle step</li>
+ * </ul>
+ *
+ * @since 1.0.0
+ */
+package com.firefly.rails.journal;
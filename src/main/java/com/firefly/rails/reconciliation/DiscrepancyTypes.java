@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Discrepancy types produced by the reconciliation engines, and their construction.
+ */
+public final class DiscrepancyTypes {
+
+    /** Internal entry with no matching statement entry */
+    public static final String MISSING_ON_RAIL = "MISSING_ON_RAIL";
+
+    /** Statement entry with no matching internal entry */
+    public static final String UNEXPECTED_ON_RAIL = "UNEXPECTED_ON_RAIL";
+
+    /** Unmatched entry with a likely counterpart found by fuzzy matching */
+    public static final String SUGGESTED_MATCH = "SUGGESTED_MATCH";
+
+    private DiscrepancyTypes() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Build the discrepancy reported for an entry left unmatched by exact matching.
+     */
+    public static DiscrepancyResponse unmatched(ReconciliationEntry entry) {
+        boolean internal = entry.getSource() == ReconciliationEntry.Source.INTERNAL;
+        String type = internal ? MISSING_ON_RAIL : UNEXPECTED_ON_RAIL;
+        return DiscrepancyResponse.builder()
+                .discrepancyId(type + ":" + entry.getEntryId())
+                .transactionId(entry.getEntryId())
+                .accountId(entry.getAccountId())
+                .endToEndReference(entry.getEndToEndReference())
+                .type(type)
+                .amount(entry.getAmount())
+                .valueDate(entry.getValueDate())
+                .detectedAt(Instant.now())
+                .reason(internal
+                        ? "No statement entry with the same reference, amount and value date"
+                        : "No internal entry with the same reference, amount and value date")
+                .build();
+    }
+
+    /**
+     * Build a suggestion pairing an unmatched entry with one or more entries of the other ledger.
+     */
+    public static DiscrepancyResponse suggested(ReconciliationEntry entry, List<ReconciliationEntry> counterparts,
+                                                double confidence, String reason) {
+        return DiscrepancyResponse.builder()
+                .discrepancyId(SUGGESTED_MATCH + ":" + entry.getEntryId())
+                .transactionId(entry.getEntryId())
+                .accountId(entry.getAccountId())
+                .endToEndReference(entry.getEndToEndReference())
+                .type(SUGGESTED_MATCH)
+                .amount(entry.getAmount())
+                .valueDate(entry.getValueDate())
+                .detectedAt(Instant.now())
+                .reason(reason)
+                .confidence(confidence)
+                .matchedEntryIds(counterparts.stream().map(ReconciliationEntry::getEntryId).toList())
+                .build();
+    }
+}
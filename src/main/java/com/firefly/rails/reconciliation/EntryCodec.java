@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Compact binary encoding of {@link ReconciliationEntry} used for spill files.
+ */
+final class EntryCodec {
+
+    private static final ReconciliationEntry.Source[] SOURCES = ReconciliationEntry.Source.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private EntryCodec() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    static void write(DataOutput out, ReconciliationEntry entry) throws IOException {
+        out.writeByte(entry.getSource() == null ? -1 : entry.getSource().ordinal());
+        writeString(out, entry.getEntryId());
+        writeString(out, entry.getAccountId());
+        writeString(out, entry.getEndToEndReference());
+        writeString(out, entry.getCounterpartyName());
+        Money amount = entry.getAmount();
+        if (amount == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeUTF(amount.getAmount().toPlainString());
+            out.writeShort(amount.getCurrency().ordinal());
+        }
+        out.writeLong(entry.getValueDate() == null ? Long.MIN_VALUE : entry.getValueDate().toEpochDay());
+    }
+
+    static ReconciliationEntry read(DataInput in) throws IOException {
+        byte source = in.readByte();
+        ReconciliationEntry.ReconciliationEntryBuilder builder = ReconciliationEntry.builder()
+                .source(source < 0 ? null : SOURCES[source])
+                .entryId(readString(in))
+                .accountId(readString(in))
+                .endToEndReference(readString(in))
+                .counterpartyName(readString(in));
+        if (in.readBoolean()) {
+            BigDecimal value = new BigDecimal(in.readUTF());
+            builder.amount(new Money(value, CURRENCIES[in.readShort()]));
+        }
+        long epochDay = in.readLong();
+        if (epochDay != Long.MIN_VALUE) {
+            builder.valueDate(LocalDate.ofEpochDay(epochDay));
+        }
+        return builder.build();
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
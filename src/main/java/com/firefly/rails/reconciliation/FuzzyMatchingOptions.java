@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tuning of {@link FuzzyReconciliationMatcher}.
+ */
+@Data
+@Builder
+public class FuzzyMatchingOptions {
+
+    /** Maximum distance in days between the value dates of matched entries */
+    @Builder.Default
+    private int dateWindowDays = 3;
+
+    /** Maximum amount difference, in minor units, still considered the same amount */
+    @Builder.Default
+    private long amountToleranceMinorUnits = 0;
+
+    /** Minimum confidence for a suggestion to be reported */
+    @Builder.Default
+    private double minConfidence = 0.6;
+
+    /** Maximum candidates scored per item, bounding the work done for one item */
+    @Builder.Default
+    private int maxCandidatesPerItem = 64;
+
+    /** Maximum number of entries aggregated into one side of a 1:N or N:1 match; 1 disables aggregation */
+    @Builder.Default
+    private int maxAggregatedEntries = 4;
+
+    /** Maximum subset-sum search steps per item when aggregating amounts */
+    @Builder.Default
+    private int maxAggregationSteps = 10_000;
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import reactor.core.publisher.Flux;
+
+import java.util.*;
+
+/**
+ * Second reconciliation stage suggesting counterparts for entries left unmatched by exact matching.
+ *
+ * <p>Exact matching misses entries whose reference was truncated or reformatted by the rail, and
+ * payments the rail split or merged. This matcher indexes the unmatched set by amount bucket and by
+ * account and value date, then runs three greedy passes:
+ * <ol>
+ *   <li>1:1 - candidates with the same amount (within tolerance) inside the date window</li>
+ *   <li>1:N - one internal entry against several statement entries summing to its amount</li>
+ *   <li>N:1 - one statement entry against several internal entries summing to its amount</li>
+ * </ol>
+ *
+ * <p>Candidates are scored on reference and counterparty name similarity and value date distance.
+ * Suggestions at or above {@link FuzzyMatchingOptions#getMinConfidence()} are reported as
+ * {@link DiscrepancyTypes#SUGGESTED_MATCH} with their confidence; everything else is reported as
+ * a plain unmatched discrepancy. The work per item is bounded by
+ * {@link FuzzyMatchingOptions#getMaxCandidatesPerItem()} and
+ * {@link FuzzyMatchingOptions#getMaxAggregationSteps()}, so a pathological bucket cannot stall a run.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * FuzzyReconciliationMatcher matcher = new FuzzyReconciliationMatcher(FuzzyMatchingOptions.builder()
+ *         .dateWindowDays(2)
+ *         .build());
+ *
+ * Flux<DiscrepancyResponse> discrepancies =
+ *         matcher.match(engine.unmatched(internal, statement, ReconciliationListener.NONE));
+ * }</pre>
+ */
+public class FuzzyReconciliationMatcher {
+
+    /** Confidence factor applied to aggregated matches, which are inherently less certain */
+    private static final double AGGREGATION_FACTOR = 0.9;
+
+    /** Confidence factor applied when amounts match within tolerance but not exactly */
+    private static final double AMOUNT_TOLERANCE_FACTOR = 0.9;
+
+    private final FuzzyMatchingOptions options;
+
+    public FuzzyReconciliationMatcher() {
+        this(FuzzyMatchingOptions.builder().build());
+    }
+
+    public FuzzyReconciliationMatcher(FuzzyMatchingOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Match the unmatched entries of both ledgers.
+     *
+     * @param unmatched entries left unmatched by exact matching, from both sides
+     * @return suggestions followed by the discrepancies still unmatched
+     */
+    public Flux<DiscrepancyResponse> match(Flux<ReconciliationEntry> unmatched) {
+        return unmatched.collectList().flatMapIterable(this::match);
+    }
+
+    /**
+     * Match the unmatched entries of both ledgers.
+     *
+     * @param unmatched entries left unmatched by exact matching, from both sides
+     * @return suggestions followed by the discrepancies still unmatched
+     */
+    public List<DiscrepancyResponse> match(List<ReconciliationEntry> unmatched) {
+        List<Item> internal = new ArrayList<>();
+        List<Item> statement = new ArrayList<>();
+        SideIndex internalIndex = new SideIndex();
+        SideIndex statementIndex = new SideIndex();
+        List<DiscrepancyResponse> results = new ArrayList<>();
+        List<ReconciliationEntry> unscorable = new ArrayList<>();
+
+        for (ReconciliationEntry entry : unmatched) {
+            if (entry.getAmount() == null || entry.getValueDate() == null) {
+                unscorable.add(entry);
+            } else if (entry.getSource() == ReconciliationEntry.Source.INTERNAL) {
+                Item item = new Item(entry);
+                internal.add(item);
+                internalIndex.add(item);
+            } else {
+                Item item = new Item(entry);
+                statement.add(item);
+                statementIndex.add(item);
+            }
+        }
+
+        for (Item item : internal) {
+            matchSingle(item, statementIndex, results);
+        }
+        if (options.getMaxAggregatedEntries() > 1) {
+            for (Item item : internal) {
+                matchAggregated(item, statementIndex, "statement", results);
+            }
+            for (Item item : statement) {
+                matchAggregated(item, internalIndex, "internal", results);
+            }
+        }
+
+        for (Item item : internal) {
+            if (!item.consumed) {
+                results.add(DiscrepancyTypes.unmatched(item.entry));
+            }
+        }
+        for (Item item : statement) {
+            if (!item.consumed) {
+                results.add(DiscrepancyTypes.unmatched(item.entry));
+            }
+        }
+        for (ReconciliationEntry entry : unscorable) {
+            results.add(DiscrepancyTypes.unmatched(entry));
+        }
+        return results;
+    }
+
+    private void matchSingle(Item item, SideIndex counterparts, List<DiscrepancyResponse> results) {
+        Item best = null;
+        double bestScore = 0;
+        for (Item candidate : counterparts.sameAmount(item)) {
+            double score = score(item, candidate)
+                    * (candidate.minorUnits == item.minorUnits ? 1 : AMOUNT_TOLERANCE_FACTOR);
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        if (best != null && bestScore >= options.getMinConfidence()) {
+            item.consumed = true;
+            best.consumed = true;
+            results.add(DiscrepancyTypes.suggested(item.entry, List.of(best.entry), bestScore,
+                    "Same amount within " + options.getDateWindowDays()
+                            + " days, reference or counterparty differs"));
+        }
+    }
+
+    private void matchAggregated(Item item, SideIndex counterparts, String side, List<DiscrepancyResponse> results) {
+        if (item.consumed) {
+            return;
+        }
+        List<Scored> candidates = new ArrayList<>();
+        for (Item candidate : counterparts.sameAccount(item)) {
+            double score = score(item, candidate);
+            if (score >= options.getMinConfidence()) {
+                candidates.add(new Scored(candidate, score));
+            }
+        }
+        if (candidates.size() < 2) {
+            return;
+        }
+        candidates.sort(Comparator.comparingDouble(Scored::score).reversed());
+
+        ArrayDeque<Scored> chosen = new ArrayDeque<>();
+        int[] budget = {options.getMaxAggregationSteps()};
+        if (!findSubset(candidates, 0, item.minorUnits, chosen, budget)) {
+            return;
+        }
+
+        double total = 0;
+        List<ReconciliationEntry> parts = new ArrayList<>(chosen.size());
+        for (Scored part : chosen) {
+            total += part.score();
+            parts.add(part.item().entry);
+        }
+        double confidence = total / chosen.size() * AGGREGATION_FACTOR;
+        if (confidence < options.getMinConfidence()) {
+            return;
+        }
+        item.consumed = true;
+        for (Scored part : chosen) {
+            part.item().consumed = true;
+        }
+        results.add(DiscrepancyTypes.suggested(item.entry, parts, confidence,
+                "Amount matches the sum of " + parts.size() + " " + side + " entries"));
+    }
+
+    /**
+     * Bounded depth-first subset-sum search over candidates sorted by descending score.
+     */
+    private boolean findSubset(List<Scored> candidates, int from, long remaining, ArrayDeque<Scored> chosen,
+                               int[] budget) {
+        long tolerance = options.getAmountToleranceMinorUnits();
+        if (chosen.size() >= 2 && Math.abs(remaining) <= tolerance) {
+            return true;
+        }
+        if (chosen.size() == options.getMaxAggregatedEntries()) {
+            return false;
+        }
+        for (int i = from; i < candidates.size(); i++) {
+            if (--budget[0] < 0) {
+                return false;
+            }
+            Scored candidate = candidates.get(i);
+            if (candidate.item().minorUnits > remaining + tolerance) {
+                continue;
+            }
+            chosen.addLast(candidate);
+            if (findSubset(candidates, i + 1, remaining - candidate.item().minorUnits, chosen, budget)) {
+                return true;
+            }
+            chosen.removeLast();
+        }
+        return false;
+    }
+
+    private double score(Item a, Item b) {
+        double reference = StringSimilarity.score(a.reference, b.reference);
+        double date = 1.0 - (double) Math.abs(a.epochDay - b.epochDay) / (options.getDateWindowDays() + 1);
+        if (a.counterparty != null && b.counterparty != null) {
+            double name = StringSimilarity.score(a.counterparty, b.counterparty);
+            return 0.6 * reference + 0.25 * name + 0.15 * date;
+        }
+        return 0.8 * reference + 0.2 * date;
+    }
+
+    private record AmountBucket(Currency currency, long bucket) {
+    }
+
+    private record AccountKey(String accountId, Currency currency) {
+    }
+
+    private record Scored(Item item, double score) {
+    }
+
+    private static final class Item {
+        final ReconciliationEntry entry;
+        final long minorUnits;
+        final Currency currency;
+        final long epochDay;
+        final String reference;
+        final String counterparty;
+        boolean consumed;
+
+        Item(ReconciliationEntry entry) {
+            this.entry = entry;
+            this.minorUnits = entry.getAmount().toCents();
+            this.currency = entry.getAmount().getCurrency();
+            this.epochDay = entry.getValueDate().toEpochDay();
+            this.reference = StringSimilarity.normalize(entry.getEndToEndReference());
+            this.counterparty = StringSimilarity.normalize(entry.getCounterpartyName());
+        }
+    }
+
+    /**
+     * Unmatched entries of one ledger, indexed by amount bucket and by account and value date.
+     */
+    private final class SideIndex {
+
+        private final long bucketWidth = Math.max(1, options.getAmountToleranceMinorUnits());
+        private final Map<AmountBucket, List<Item>> byAmount = new HashMap<>();
+        private final Map<AccountKey, TreeMap<Long, List<Item>>> byDay = new HashMap<>();
+
+        void add(Item item) {
+            byAmount.computeIfAbsent(new AmountBucket(item.currency, item.minorUnits / bucketWidth),
+                    k -> new ArrayList<>()).add(item);
+            byDay.computeIfAbsent(new AccountKey(item.entry.getAccountId(), item.currency), k -> new TreeMap<>())
+                    .computeIfAbsent(item.epochDay, k -> new ArrayList<>()).add(item);
+        }
+
+        /**
+         * Unconsumed entries with the target's amount within tolerance and value date within the window.
+         */
+        List<Item> sameAmount(Item target) {
+            List<Item> candidates = new ArrayList<>();
+            long tolerance = options.getAmountToleranceMinorUnits();
+            long fromBucket = (target.minorUnits - tolerance) / bucketWidth;
+            long toBucket = (target.minorUnits + tolerance) / bucketWidth;
+            for (long bucket = fromBucket; bucket <= toBucket; bucket++) {
+                List<Item> items = byAmount.get(new AmountBucket(target.currency, bucket));
+                if (items == null) {
+                    continue;
+                }
+                for (Item item : items) {
+                    if (!item.consumed
+                            && Math.abs(item.minorUnits - target.minorUnits) <= tolerance
+                            && Math.abs(item.epochDay - target.epochDay) <= options.getDateWindowDays()) {
+                        candidates.add(item);
+                        if (candidates.size() == options.getMaxCandidatesPerItem()) {
+                            return candidates;
+                        }
+                    }
+                }
+            }
+            return candidates;
+        }
+
+        /**
+         * Unconsumed entries of the target's account smaller than its amount, value date within the window.
+         */
+        List<Item> sameAccount(Item target) {
+            List<Item> candidates = new ArrayList<>();
+            TreeMap<Long, List<Item>> days = byDay.get(new AccountKey(target.entry.getAccountId(), target.currency));
+            if (days == null) {
+                return candidates;
+            }
+            int window = options.getDateWindowDays();
+            for (List<Item> items : days.subMap(target.epochDay - window, true, target.epochDay + window, true).values()) {
+                for (Item item : items) {
+                    if (!item.consumed && item.minorUnits < target.minorUnits) {
+                        candidates.add(item);
+                        if (candidates.size() == options.getMaxCandidatesPerItem()) {
+                            return candidates;
+                        }
+                    }
+                }
+            }
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import com.firefly.rails.exceptions.RailException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reconciliation of internal ledger entries against rail statement entries.
+ *
+ * <p>Entries match when they share end-to-end reference, amount, currency and value date.
+ * Matching is a partitioned (Grace) hash join:
+ * <ol>
+ *   <li>Internal entries are the build side. They are hashed into partitions held in memory;
+ *       when more than {@code maxInMemoryEntries} are held, the largest partition is spilled to
+ *       a local file and later entries of that partition go straight to disk.</li>
+ *   <li>Statement entries are the probe side. Entries of in-memory partitions are matched - or
+ *       reported unmatched - immediately; entries of spilled partitions are written next to
+ *       their build file.</li>
+ *   <li>Unmatched internal entries of in-memory partitions are reported, then each spilled
+ *       partition is loaded and joined in turn.</li>
+ * </ol>
+ *
+ * <p>Memory is therefore bounded by {@code maxInMemoryEntries} plus one spilled partition;
+ * with 50M entries a day, 256 partitions and a few million in-memory entries keep each
+ * partition small enough to reload. Duplicate keys are matched one to one, in arrival order.
+ *
+ * <p>The engine performs file IO and runs on {@link Schedulers#boundedElastic()}.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * HashJoinReconciliationEngine engine =
+ *     new HashJoinReconciliationEngine(Path.of("/var/tmp/recon"), 256, 2_000_000);
+ *
+ * @Override
+ * public Flux<DiscrepancyResponse> streamDiscrepancies(ReconciliationRequest request) {
+ *     return engine.reconcile(ledger.entries(request), statements.entries(request),
+ *             ReconciliationListener.NONE);
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class HashJoinReconciliationEngine {
+
+    private static final int SPILL_BUFFER_BYTES = 64 * 1024;
+
+    private final Path spillDirectory;
+    private final int partitions;
+    private final int maxInMemoryEntries;
+
+    /**
+     * @param spillDirectory directory under which per-run spill directories are created
+     * @param partitions number of hash partitions
+     * @param maxInMemoryEntries build-side entries kept in memory before spilling
+     */
+    public HashJoinReconciliationEngine(Path spillDirectory, int partitions, int maxInMemoryEntries) {
+        if (partitions <= 0 || maxInMemoryEntries <= 0) {
+            throw new IllegalArgumentException("Partitions and in-memory entry limit must be positive");
+        }
+        this.spillDirectory = spillDirectory;
+        this.partitions = partitions;
+        this.maxInMemoryEntries = maxInMemoryEntries;
+    }
+
+    /**
+     * Reconcile two ledgers and emit a discrepancy for every entry left unmatched.
+     *
+     * @param internal internal ledger entries
+     * @param statement rail statement entries
+     * @param listener notified of every match and unmatched entry
+     * @return discrepancies, emitted as soon as they are known
+     */
+    public Flux<DiscrepancyResponse> reconcile(Flux<ReconciliationEntry> internal,
+                                               Flux<ReconciliationEntry> statement,
+                                               ReconciliationListener listener) {
+        return unmatched(internal, statement, listener).map(DiscrepancyTypes::unmatched);
+    }
+
+    /**
+     * Reconcile two ledgers and emit the entries left unmatched, for further matching stages.
+     *
+     * @param internal internal ledger entries
+     * @param statement rail statement entries
+     * @param listener notified of every match and unmatched entry
+     * @return unmatched entries of both sides, tagged with their {@link ReconciliationEntry.Source}
+     */
+    public Flux<ReconciliationEntry> unmatched(Flux<ReconciliationEntry> internal,
+                                               Flux<ReconciliationEntry> statement,
+                                               ReconciliationListener listener) {
+        return Flux.using(
+                () -> new Join(listener),
+                join -> internal.doOnNext(join::build)
+                        .thenMany(statement.handle(join::probe))
+                        .concatWith(Flux.defer(join::drainInMemory))
+                        .concatWith(Flux.range(0, partitions).concatMap(join::joinSpilled)),
+                Join::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private record MatchKey(String reference, long minorUnits, Currency currency, LocalDate valueDate) {
+
+        static MatchKey of(ReconciliationEntry entry) {
+            return new MatchKey(
+                    entry.getEndToEndReference(),
+                    entry.getAmount() == null ? 0 : entry.getAmount().toCents(),
+                    entry.getAmount() == null ? null : entry.getAmount().getCurrency(),
+                    entry.getValueDate());
+        }
+    }
+
+    /**
+     * State of one reconciliation run.
+     */
+    private final class Join {
+
+        private final ReconciliationListener listener;
+        private final List<Map<MatchKey, ArrayDeque<ReconciliationEntry>>> inMemory;
+        private final int[] partitionSizes;
+        private final DataOutputStream[] buildSpills;
+        private final DataOutputStream[] probeSpills;
+        private Path runDirectory;
+        private long inMemoryCount;
+
+        Join(ReconciliationListener listener) {
+            this.listener = listener;
+            this.inMemory = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                inMemory.add(new HashMap<>());
+            }
+            this.partitionSizes = new int[partitions];
+            this.buildSpills = new DataOutputStream[partitions];
+            this.probeSpills = new DataOutputStream[partitions];
+        }
+
+        void build(ReconciliationEntry entry) {
+            MatchKey key = MatchKey.of(entry);
+            int partition = partitionOf(key);
+            if (buildSpills[partition] != null) {
+                writeEntry(buildSpills[partition], entry);
+                return;
+            }
+            inMemory.get(partition).computeIfAbsent(key, k -> new ArrayDeque<>(1)).addLast(entry);
+            partitionSizes[partition]++;
+            if (++inMemoryCount > maxInMemoryEntries) {
+                spillLargestPartition();
+            }
+        }
+
+        void probe(ReconciliationEntry entry, SynchronousSink<ReconciliationEntry> sink) {
+            MatchKey key = MatchKey.of(entry);
+            int partition = partitionOf(key);
+            if (buildSpills[partition] != null) {
+                if (probeSpills[partition] == null) {
+                    probeSpills[partition] = openSpill(partition, "probe");
+                }
+                writeEntry(probeSpills[partition], entry);
+                return;
+            }
+            ReconciliationEntry match = take(inMemory.get(partition), key);
+            if (match != null) {
+                listener.onMatch(match, entry);
+            } else {
+                listener.onUnmatched(entry);
+                sink.next(entry);
+            }
+        }
+
+        Flux<ReconciliationEntry> drainInMemory() {
+            List<ReconciliationEntry> remaining = new ArrayList<>();
+            for (int partition = 0; partition < partitions; partition++) {
+                if (buildSpills[partition] == null) {
+                    collectRemaining(inMemory.get(partition), remaining);
+                    inMemory.get(partition).clear();
+                }
+            }
+            return Flux.fromIterable(remaining);
+        }
+
+        Flux<ReconciliationEntry> joinSpilled(int partition) {
+            if (buildSpills[partition] == null) {
+                return Flux.empty();
+            }
+            return Flux.defer(() -> {
+                closeQuietly(buildSpills[partition]);
+                closeQuietly(probeSpills[partition]);
+
+                Map<MatchKey, ArrayDeque<ReconciliationEntry>> table = new HashMap<>();
+                readSpill(spillFile(partition, "build"), entry ->
+                        table.computeIfAbsent(MatchKey.of(entry), k -> new ArrayDeque<>(1)).addLast(entry));
+
+                List<ReconciliationEntry> unmatched = new ArrayList<>();
+                if (probeSpills[partition] != null) {
+                    readSpill(spillFile(partition, "probe"), entry -> {
+                        ReconciliationEntry match = take(table, MatchKey.of(entry));
+                        if (match != null) {
+                            listener.onMatch(match, entry);
+                        } else {
+                            listener.onUnmatched(entry);
+                            unmatched.add(entry);
+                        }
+                    });
+                }
+                collectRemaining(table, unmatched);
+                deleteSpills(partition);
+                return Flux.fromIterable(unmatched);
+            });
+        }
+
+        void close() {
+            for (int partition = 0; partition < partitions; partition++) {
+                closeQuietly(buildSpills[partition]);
+                closeQuietly(probeSpills[partition]);
+                if (buildSpills[partition] != null) {
+                    deleteSpills(partition);
+                }
+            }
+            if (runDirectory != null) {
+                try {
+                    Files.deleteIfExists(runDirectory);
+                } catch (IOException e) {
+                    log.warn("Could not delete reconciliation spill directory {}", runDirectory, e);
+                }
+            }
+        }
+
+        private ReconciliationEntry take(Map<MatchKey, ArrayDeque<ReconciliationEntry>> table, MatchKey key) {
+            ArrayDeque<ReconciliationEntry> candidates = table.get(key);
+            if (candidates == null) {
+                return null;
+            }
+            ReconciliationEntry match = candidates.pollFirst();
+            if (candidates.isEmpty()) {
+                table.remove(key);
+            }
+            return match;
+        }
+
+        private void collectRemaining(Map<MatchKey, ArrayDeque<ReconciliationEntry>> table,
+                                      List<ReconciliationEntry> target) {
+            for (ArrayDeque<ReconciliationEntry> entries : table.values()) {
+                for (ReconciliationEntry entry : entries) {
+                    listener.onUnmatched(entry);
+                    target.add(entry);
+                }
+            }
+        }
+
+        private void spillLargestPartition() {
+            int largest = -1;
+            for (int partition = 0; partition < partitions; partition++) {
+                if (buildSpills[partition] == null
+                        && (largest < 0 || partitionSizes[partition] > partitionSizes[largest])) {
+                    largest = partition;
+                }
+            }
+            if (largest < 0) {
+                return;
+            }
+            log.debug("Spilling reconciliation partition {} ({} entries) to disk", largest, partitionSizes[largest]);
+            DataOutputStream out = openSpill(largest, "build");
+            for (ArrayDeque<ReconciliationEntry> entries : inMemory.get(largest).values()) {
+                for (ReconciliationEntry entry : entries) {
+                    writeEntry(out, entry);
+                }
+            }
+            buildSpills[largest] = out;
+            inMemory.get(largest).clear();
+            inMemoryCount -= partitionSizes[largest];
+        }
+
+        private int partitionOf(MatchKey key) {
+            int h = key.hashCode();
+            return Math.floorMod(h ^ (h >>> 16), partitions);
+        }
+
+        private DataOutputStream openSpill(int partition, String side) {
+            try {
+                if (runDirectory == null) {
+                    Files.createDirectories(spillDirectory);
+                    runDirectory = Files.createTempDirectory(spillDirectory, "recon-");
+                }
+                return new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(spillFile(partition, side)), SPILL_BUFFER_BYTES));
+            } catch (IOException e) {
+                throw new RailException("Could not create reconciliation spill file", e);
+            }
+        }
+
+        private Path spillFile(int partition, String side) {
+            return runDirectory.resolve(side + "-" + partition + ".bin");
+        }
+
+        private void writeEntry(DataOutputStream out, ReconciliationEntry entry) {
+            try {
+                EntryCodec.write(out, entry);
+            } catch (IOException e) {
+                throw new RailException("Could not write reconciliation spill file", e);
+            }
+        }
+
+        private void readSpill(Path file, Consumer<ReconciliationEntry> consumer) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(file), SPILL_BUFFER_BYTES))) {
+                while (true) {
+                    ReconciliationEntry entry;
+                    try {
+                        entry = EntryCodec.read(in);
+                    } catch (EOFException end) {
+                        return;
+                    }
+                    consumer.accept(entry);
+                }
+            } catch (IOException e) {
+                throw new RailException("Could not read reconciliation spill file " + file, e);
+            }
+        }
+
+        private void deleteSpills(int partition) {
+            try {
+                Files.deleteIfExists(spillFile(partition, "build"));
+                Files.deleteIfExists(spillFile(partition, "probe"));
+            } catch (IOException e) {
+                log.warn("Could not delete reconciliation spill files of partition {}", partition, e);
+            }
+        }
+
+        private void closeQuietly(Closeable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("Could not close reconciliation spill file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.adapter.ports.ReconciliationPort;
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationReport;
+import com.firefly.rails.dtos.reconciliation.ReconciliationRequest;
+import com.firefly.rails.exceptions.RailException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reconciles many accounts at once by splitting the work into independent partitions.
+ *
+ * <p>Every account becomes at least one partition. Accounts whose estimated volume over the
+ * requested range exceeds {@code maxEntriesPerPartition} are further split into consecutive date
+ * ranges, so one very large account does not leave all other workers idle. Partitions are
+ * reconciled either
+ * <ul>
+ *   <li>on a private work-stealing {@link ForkJoinPool} sized to the available cores, for
+ *       synchronous, CPU-bound reconcilers such as an in-process hash join, or</li>
+ *   <li>through {@link ReconciliationPort#findDiscrepancies(ReconciliationRequest)} with bounded
+ *       concurrency, for adapters that reconcile remotely.</li>
+ * </ul>
+ * Partition reports are merged, in partition order, into one {@link ReconciliationReport}.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * ParallelReconciliationDriver driver =
+ *     new ParallelReconciliationDriver(500_000, accountId -> volumes.dailyEntries(accountId));
+ *
+ * Mono<ReconciliationReport> report = driver.reconcile(accountIds, day, day, partition ->
+ *     reconcileLocally(partition));
+ * }</pre>
+ */
+@Slf4j
+public class ParallelReconciliationDriver implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final long maxEntriesPerPartition;
+    private final ToLongFunction<String> estimatedDailyEntries;
+
+    /**
+     * Driver using one worker per available core.
+     *
+     * @param maxEntriesPerPartition estimated entries above which an account is split by date
+     * @param estimatedDailyEntries estimated entries per day of an account
+     */
+    public ParallelReconciliationDriver(long maxEntriesPerPartition, ToLongFunction<String> estimatedDailyEntries) {
+        this(Runtime.getRuntime().availableProcessors(), maxEntriesPerPartition, estimatedDailyEntries);
+    }
+
+    public ParallelReconciliationDriver(int parallelism, long maxEntriesPerPartition,
+                                        ToLongFunction<String> estimatedDailyEntries) {
+        if (parallelism <= 0 || maxEntriesPerPartition <= 0) {
+            throw new IllegalArgumentException("Parallelism and partition size must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.parallelism = parallelism;
+        this.maxEntriesPerPartition = maxEntriesPerPartition;
+        this.estimatedDailyEntries = estimatedDailyEntries;
+    }
+
+    /**
+     * Reconcile accounts on the work-stealing pool.
+     *
+     * @param accountIds accounts to reconcile
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @param reconciler synchronous reconciliation of one partition
+     * @return merged report
+     */
+    public Mono<ReconciliationReport> reconcile(Collection<String> accountIds, LocalDate startDate, LocalDate endDate,
+                                                Function<ReconciliationRequest, ReconciliationReport> reconciler) {
+        return Mono.fromCallable(() -> {
+                    List<ReconciliationRequest> partitions = partition(accountIds, startDate, endDate);
+                    log.debug("Reconciling {} accounts in {} partitions", accountIds.size(), partitions.size());
+                    if (partitions.isEmpty()) {
+                        return emptyReport(startDate, endDate);
+                    }
+                    ReconciliationReport merged = pool.invoke(new PartitionTask(partitions, 0, partitions.size(),
+                            reconciler));
+                    return finish(merged, startDate, endDate);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Reconcile accounts through a port, at most {@code parallelism} partitions at a time.
+     *
+     * @param accountIds accounts to reconcile
+     * @param startDate first day, inclusive
+     * @param endDate last day, inclusive
+     * @param port port reconciling one partition
+     * @return merged report; matched counts are not known through the port and stay zero. Fails with a
+     *         {@link RailException} if a partition is answered with a non-2xx status or without a body
+     */
+    public Mono<ReconciliationReport> reconcile(Collection<String> accountIds, LocalDate startDate, LocalDate endDate,
+                                                ReconciliationPort port) {
+        return Mono.fromCallable(() -> partition(accountIds, startDate, endDate))
+                .flatMapMany(Flux::fromIterable)
+                .flatMapSequential(request -> port.findDiscrepancies(request)
+                        .switchIfEmpty(Mono.error(() -> failure(request, "no response")))
+                        .map(response -> {
+                            if (!response.getStatusCode().is2xxSuccessful()) {
+                                throw failure(request, "status " + response.getStatusCode().value());
+                            }
+                            if (response.getBody() == null) {
+                                throw failure(request, "no discrepancy list");
+                            }
+                            return toReport(response.getBody());
+                        }), parallelism)
+                .collectList()
+                .map(reports -> finish(mergeAll(reports), startDate, endDate));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Split the workload into one request per account, or per date range for large accounts.
+     */
+    List<ReconciliationRequest> partition(Collection<String> accountIds, LocalDate startDate, LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days <= 0) {
+            throw new IllegalArgumentException("End date " + endDate + " is before start date " + startDate);
+        }
+        List<ReconciliationRequest> partitions = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            long estimated = Math.max(0, estimatedDailyEntries.applyAsLong(accountId)) * days;
+            long chunks = Math.min(days, Math.max(1, (estimated + maxEntriesPerPartition - 1) / maxEntriesPerPartition));
+            long daysPerChunk = days / chunks;
+            long remainder = days % chunks;
+            LocalDate from = startDate;
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                long length = daysPerChunk + (chunk < remainder ? 1 : 0);
+                LocalDate to = from.plusDays(length - 1);
+                partitions.add(ReconciliationRequest.builder()
+                        .accountId(accountId)
+                        .startDate(from)
+                        .endDate(to)
+                        .build());
+                from = to.plusDays(1);
+            }
+        }
+        return partitions;
+    }
+
+    private static RailException failure(ReconciliationRequest request, String reason) {
+        return new RailException("Reconciliation of account " + request.getAccountId() + " from "
+                + request.getStartDate() + " to " + request.getEndDate() + " failed: " + reason);
+    }
+
+    private static ReconciliationReport toReport(List<DiscrepancyResponse> discrepancies) {
+        List<String> ids = new ArrayList<>(discrepancies.size());
+        for (DiscrepancyResponse discrepancy : discrepancies) {
+            ids.add(discrepancy.getDiscrepancyId());
+        }
+        return ReconciliationReport.builder()
+                .unmatchedCount(ids.size())
+                .discrepancyIds(ids)
+                .build();
+    }
+
+    private static ReconciliationReport merge(ReconciliationReport left, ReconciliationReport right) {
+        List<String> ids = new ArrayList<>(size(left) + size(right));
+        if (left.getDiscrepancyIds() != null) {
+            ids.addAll(left.getDiscrepancyIds());
+        }
+        if (right.getDiscrepancyIds() != null) {
+            ids.addAll(right.getDiscrepancyIds());
+        }
+        return ReconciliationReport.builder()
+                .matchedCount(left.getMatchedCount() + right.getMatchedCount())
+                .unmatchedCount(left.getUnmatchedCount() + right.getUnmatchedCount())
+                .discrepancyIds(ids)
+                .build();
+    }
+
+    /**
+     * Merge partition reports, copying each discrepancy list once.
+     */
+    private static ReconciliationReport mergeAll(List<ReconciliationReport> reports) {
+        int matched = 0;
+        int unmatched = 0;
+        int discrepancies = 0;
+        for (ReconciliationReport report : reports) {
+            discrepancies += size(report);
+        }
+        List<String> ids = new ArrayList<>(discrepancies);
+        for (ReconciliationReport report : reports) {
+            matched += report.getMatchedCount();
+            unmatched += report.getUnmatchedCount();
+            if (report.getDiscrepancyIds() != null) {
+                ids.addAll(report.getDiscrepancyIds());
+            }
+        }
+        return ReconciliationReport.builder()
+                .matchedCount(matched)
+                .unmatchedCount(unmatched)
+                .discrepancyIds(ids)
+                .build();
+    }
+
+    private static int size(ReconciliationReport report) {
+        return report.getDiscrepancyIds() == null ? 0 : report.getDiscrepancyIds().size();
+    }
+
+    private static ReconciliationReport finish(ReconciliationReport merged, LocalDate startDate, LocalDate endDate) {
+        merged.setReportId("RECON-" + startDate + "-" + endDate);
+        merged.setReportDate(Instant.now());
+        return merged;
+    }
+
+    private static ReconciliationReport emptyReport(LocalDate startDate, LocalDate endDate) {
+        return finish(ReconciliationReport.builder().discrepancyIds(List.of()).build(), startDate, endDate);
+    }
+
+    /**
+     * Divide-and-conquer over a slice of partitions; idle workers steal the forked halves.
+     */
+    private static final class PartitionTask extends RecursiveTask<ReconciliationReport> {
+
+        private static final long serialVersionUID = 1L;
+
+        // tasks only ever run in the pool; they are never serialized
+        private final transient List<ReconciliationRequest> partitions;
+        private final int from;
+        private final int to;
+        private final transient Function<ReconciliationRequest, ReconciliationReport> reconciler;
+
+        PartitionTask(List<ReconciliationRequest> partitions, int from, int to,
+                      Function<ReconciliationRequest, ReconciliationReport> reconciler) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.reconciler = reconciler;
+        }
+
+        @Override
+        protected ReconciliationReport compute() {
+            if (to - from == 1) {
+                return reconciler.apply(partitions.get(from));
+            }
+            int middle = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(partitions, from, middle, reconciler);
+            left.fork();
+            ReconciliationReport right = new PartitionTask(partitions, middle, to, reconciler).compute();
+            return merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+
+/**
+ * Callback notified by the reconciliation engine as entries are matched or left unmatched.
+ *
+ * <p>Callbacks run on the engine's thread, in the order results are produced, and must not block.
+ */
+public interface ReconciliationListener {
+
+    /** Listener that ignores all events */
+    ReconciliationListener NONE = new ReconciliationListener() { };
+
+    /**
+     * An internal entry was matched with a statement entry.
+     */
+    default void onMatch(ReconciliationEntry internal, ReconciliationEntry statement) {
+    }
+
+    /**
+     * An entry found no counterpart in the other ledger.
+     */
+    default void onUnmatched(ReconciliationEntry entry) {
+    }
+}
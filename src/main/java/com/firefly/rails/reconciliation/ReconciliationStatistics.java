@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener counting matched and unmatched entries of a reconciliation run.
+ */
+public class ReconciliationStatistics implements ReconciliationListener {
+
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong unmatchedInternal = new AtomicLong();
+    private final AtomicLong unmatchedStatement = new AtomicLong();
+
+    @Override
+    public void onMatch(ReconciliationEntry internal, ReconciliationEntry statement) {
+        matched.incrementAndGet();
+    }
+
+    @Override
+    public void onUnmatched(ReconciliationEntry entry) {
+        if (entry.getSource() == ReconciliationEntry.Source.INTERNAL) {
+            unmatchedInternal.incrementAndGet();
+        } else {
+            unmatchedStatement.incrementAndGet();
+        }
+    }
+
+    /** Number of matched internal/statement pairs */
+    public long getMatchedCount() {
+        return matched.get();
+    }
+
+    /** Number of internal entries missing on the rail */
+    public long getUnmatchedInternalCount() {
+        return unmatchedInternal.get();
+    }
+
+    /** Number of statement entries with no internal counterpart */
+    public long getUnmatchedStatementCount() {
+        return unmatchedStatement.get();
+    }
+
+    /** Total number of unmatched entries on either side */
+    public long getUnmatchedCount() {
+        return unmatchedInternal.get() + unmatchedStatement.get();
+    }
+}
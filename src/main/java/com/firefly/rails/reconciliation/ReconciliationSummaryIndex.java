@@ -0,0 +1,454 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import com.firefly.rails.dtos.reconciliation.ReconciliationSummary;
+import com.firefly.rails.exceptions.RailException;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Per-day reconciliation totals of one currency, maintained incrementally and answering
+ * {@link com.firefly.rails.adapter.ports.ReconciliationPort#getReconciliationSummary(LocalDate, LocalDate)}
+ * for any date range in O(log days).
+ *
+ * <p>Each day holds the number and amount of reconciled and pending entries. Days are kept in
+ * Fenwick trees (binary indexed prefix sums), so both recording an entry and summing a range
+ * cost O(log days) regardless of the range length. The index is also a
+ * {@link ReconciliationListener}: matches count as reconciled on the value date of the internal
+ * entry, unmatched entries as pending.
+ *
+ * <p>Entries seen by the listener are remembered by source and entry ID in the bucket of their
+ * value date, so re-running a reconciliation over the same entries counts each of them once; an
+ * entry first left pending and matched by a later run moves from pending to reconciled. Only the
+ * last {@code retentionDays} value dates, counted back from the newest one seen, are remembered,
+ * which bounds the index to the entries of that window. Entries the index cannot hold - no value
+ * date or amount, another currency, a day before the origin or before the retained window - are
+ * logged and skipped rather than failing the engine run; {@link #recordReconciled} and
+ * {@link #recordPending} still take days of any age.
+ *
+ * <p>Raw day buckets and the remembered entries are persisted to a local file by {@link #flush()} and {@link #close()}, and
+ * reloaded when the index is opened again; the file is replaced atomically.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * ReconciliationSummaryIndex summaries = new ReconciliationSummaryIndex(
+ *         Path.of("/var/lib/rails/recon-summary-eur.bin"), Currency.EUR, LocalDate.of(2020, 1, 1));
+ *
+ * engine.reconcile(internal, statement, summaries);
+ *
+ * @Override
+ * public Mono<ResponseEntity<ReconciliationSummary>> getReconciliationSummary(LocalDate from, LocalDate to) {
+ *     return Mono.just(ResponseEntity.ok(summaries.summary(from, to)));
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class ReconciliationSummaryIndex implements ReconciliationListener, Closeable {
+
+    private static final int MAGIC_V1 = 0x52534d31; // "RSM1", buckets only
+    private static final int MAGIC_V2 = 0x52534d32; // "RSM2", every remembered entry
+    private static final int MAGIC = 0x52534d33; // "RSM3", remembered entries by day
+    private static final int INITIAL_DAYS = 366;
+
+    public static final int DEFAULT_RETENTION_DAYS = 90;
+
+    private static final int RECONCILED_COUNT = 0;
+    private static final int PENDING_COUNT = 1;
+    private static final int RECONCILED_MINOR = 2;
+    private static final int PENDING_MINOR = 3;
+    private static final int METRICS = 4;
+
+    private final Path file;
+    private final Currency currency;
+    private final long originEpochDay;
+    private final int retentionDays;
+
+    /** Raw per-day values, {@code [metric][day]} */
+    private long[][] days;
+
+    /** Fenwick trees over {@link #days}, {@code [metric][day + 1]} */
+    private long[][] trees;
+
+    /** Entries recorded through the listener, by value day and then source and entry ID */
+    private final NavigableMap<Integer, Map<String, Recorded>> recorded = new TreeMap<>();
+
+    private enum Kind {
+        RECONCILED,
+        PENDING,
+        /** Statement side of a match; counted through its internal entry */
+        COUNTERPART
+    }
+
+    private record Recorded(Kind kind, long minorUnits) {
+    }
+
+    /**
+     * Index remembering listener entries of the last {@value #DEFAULT_RETENTION_DAYS} value dates.
+     */
+    public ReconciliationSummaryIndex(Path file, Currency currency, LocalDate origin) {
+        this(file, currency, origin, DEFAULT_RETENTION_DAYS);
+    }
+
+    /**
+     * @param file local file the buckets are persisted to; loaded if it exists
+     * @param currency currency of every recorded amount
+     * @param origin first day that can be recorded
+     * @param retentionDays value dates whose listener entries are remembered, counted back from the newest
+     */
+    public ReconciliationSummaryIndex(Path file, Currency currency, LocalDate origin, int retentionDays) {
+        if (retentionDays < 1) {
+            throw new IllegalArgumentException("Retention must be at least one day");
+        }
+        this.file = file;
+        this.currency = currency;
+        this.originEpochDay = origin.toEpochDay();
+        this.retentionDays = retentionDays;
+        if (Files.exists(file)) {
+            load();
+        } else {
+            this.days = new long[METRICS][INITIAL_DAYS];
+        }
+        rebuildTrees();
+    }
+
+    @Override
+    public synchronized void onMatch(ReconciliationEntry internal, ReconciliationEntry statement) {
+        if (!recordable(internal)) {
+            return;
+        }
+        int day = dayIndex(internal.getValueDate());
+        String internalKey = key(internal);
+        Recorded previous = internalKey == null ? null : remembered(day).get(internalKey);
+        if (previous == null || previous.kind() != Kind.RECONCILED) {
+            unrecord(day, previous);
+            long minorUnits = internal.getAmount().toCents();
+            add(RECONCILED_COUNT, day, 1);
+            add(RECONCILED_MINOR, day, minorUnits);
+            if (internalKey != null) {
+                remember(day, internalKey, new Recorded(Kind.RECONCILED, minorUnits));
+            }
+        }
+        String statementKey = statement == null ? null : key(statement);
+        if (statementKey != null) {
+            // a statement entry is looked up again on its own value date, falling back to the match's
+            int statementDay = statement.getValueDate() == null ? day
+                    : (int) Math.max(statement.getValueDate().toEpochDay() - originEpochDay, 0);
+            if (retained(statementDay)) {
+                unrecord(statementDay, remember(statementDay, statementKey, new Recorded(Kind.COUNTERPART, 0)));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onUnmatched(ReconciliationEntry entry) {
+        if (!recordable(entry)) {
+            return;
+        }
+        int day = dayIndex(entry.getValueDate());
+        String key = key(entry);
+        if (key != null && remembered(day).containsKey(key)) {
+            return;
+        }
+        long minorUnits = entry.getAmount().toCents();
+        add(PENDING_COUNT, day, 1);
+        add(PENDING_MINOR, day, minorUnits);
+        if (key != null) {
+            remember(day, key, new Recorded(Kind.PENDING, minorUnits));
+        }
+    }
+
+    /**
+     * Record an entry reconciled on the given day.
+     */
+    public synchronized void recordReconciled(LocalDate date, Money amount) {
+        int day = dayIndex(date);
+        add(RECONCILED_COUNT, day, 1);
+        add(RECONCILED_MINOR, day, minorUnits(amount));
+    }
+
+    /**
+     * Record an entry left pending on the given day.
+     */
+    public synchronized void recordPending(LocalDate date, Money amount) {
+        int day = dayIndex(date);
+        add(PENDING_COUNT, day, 1);
+        add(PENDING_MINOR, day, minorUnits(amount));
+    }
+
+    /**
+     * Move a previously pending entry to reconciled, e.g. after a discrepancy was resolved by hand.
+     * Pending totals of the day never go below zero.
+     */
+    public synchronized void resolvePending(LocalDate date, Money amount) {
+        int day = dayIndex(date);
+        long minorUnits = minorUnits(amount);
+        add(PENDING_COUNT, day, -Math.min(1, days[PENDING_COUNT][day]));
+        add(PENDING_MINOR, day, -Math.min(minorUnits, Math.max(days[PENDING_MINOR][day], 0)));
+        add(RECONCILED_COUNT, day, 1);
+        add(RECONCILED_MINOR, day, minorUnits);
+    }
+
+    /**
+     * Summarize an inclusive date range.
+     */
+    public synchronized ReconciliationSummary summary(LocalDate startDate, LocalDate endDate) {
+        long from = Math.max(startDate.toEpochDay() - originEpochDay, 0);
+        long to = Math.min(endDate.toEpochDay() - originEpochDay, days[0].length - 1);
+        long[] totals = new long[METRICS];
+        if (from <= to) {
+            for (int metric = 0; metric < METRICS; metric++) {
+                totals[metric] = prefix(metric, (int) to) - prefix(metric, (int) from - 1);
+            }
+        }
+        long reconciled = totals[RECONCILED_COUNT];
+        long pending = totals[PENDING_COUNT];
+        return ReconciliationSummary.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalTransactions(clamp(reconciled + pending))
+                .reconciledTransactions(clamp(reconciled))
+                .pendingTransactions(clamp(pending))
+                .totalAmount(Money.fromCents(totals[RECONCILED_MINOR] + totals[PENDING_MINOR], currency))
+                .reconciledAmount(Money.fromCents(totals[RECONCILED_MINOR], currency))
+                .pendingAmount(Money.fromCents(totals[PENDING_MINOR], currency))
+                .build();
+    }
+
+    /**
+     * Persist the day buckets, atomically replacing the previous file.
+     */
+    public synchronized void flush() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(currency.name());
+                out.writeLong(originEpochDay);
+                out.writeInt(days[0].length);
+                for (long[] metric : days) {
+                    for (long value : metric) {
+                        out.writeLong(value);
+                    }
+                }
+                out.writeInt(recorded.size());
+                for (Map.Entry<Integer, Map<String, Recorded>> day : recorded.entrySet()) {
+                    out.writeInt(day.getKey());
+                    out.writeInt(day.getValue().size());
+                    for (Map.Entry<String, Recorded> entry : day.getValue().entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeByte(entry.getValue().kind().ordinal());
+                        out.writeLong(entry.getValue().minorUnits());
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RailException("Could not persist reconciliation summaries to " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_V2 && magic != MAGIC_V1) {
+                throw new RailFileFormatException("Not a reconciliation summary file: " + file);
+            }
+            String storedCurrency = in.readUTF();
+            long storedOrigin = in.readLong();
+            if (!currency.name().equals(storedCurrency) || storedOrigin != originEpochDay) {
+                throw new RailFileFormatException("Reconciliation summary file " + file + " was written for "
+                        + storedCurrency + " from " + LocalDate.ofEpochDay(storedOrigin));
+            }
+            int length = in.readInt();
+            days = new long[METRICS][length];
+            for (long[] metric : days) {
+                for (int day = 0; day < length; day++) {
+                    metric[day] = in.readLong();
+                }
+            }
+            Kind[] kinds = Kind.values();
+            if (magic == MAGIC) {
+                int buckets = in.readInt();
+                for (int i = 0; i < buckets; i++) {
+                    int day = in.readInt();
+                    int entries = in.readInt();
+                    Map<String, Recorded> bucket = new HashMap<>(entries * 2);
+                    for (int j = 0; j < entries; j++) {
+                        bucket.put(in.readUTF(), new Recorded(kinds[in.readByte()], in.readLong()));
+                    }
+                    recorded.put(day, bucket);
+                }
+            } else if (magic == MAGIC_V2) {
+                // statement counterparts were kept without their day; they are remembered on the origin
+                int entries = in.readInt();
+                for (int i = 0; i < entries; i++) {
+                    String key = in.readUTF();
+                    Kind kind = kinds[in.readByte()];
+                    int day = in.readInt();
+                    recorded.computeIfAbsent(day, ignored -> new HashMap<>()).put(key, new Recorded(kind, in.readLong()));
+                }
+                evict();
+            }
+        } catch (IOException e) {
+            throw new RailException("Could not load reconciliation summaries from " + file, e);
+        }
+    }
+
+    private boolean recordable(ReconciliationEntry entry) {
+        String problem;
+        if (entry == null || entry.getValueDate() == null || entry.getAmount() == null) {
+            problem = "it has no value date or amount";
+        } else if (entry.getAmount().getCurrency() != currency) {
+            problem = "it is in " + entry.getAmount().getCurrency() + ", not " + currency;
+        } else if (entry.getValueDate().toEpochDay() < originEpochDay) {
+            problem = "it is dated before the summary origin " + LocalDate.ofEpochDay(originEpochDay);
+        } else if (!retained((int) Math.min(entry.getValueDate().toEpochDay() - originEpochDay, Integer.MAX_VALUE))) {
+            problem = "it is dated before the last " + retentionDays + " days remembered";
+        } else {
+            return true;
+        }
+        log.warn("Skipping reconciliation entry {} in summaries: {}", entry == null ? null : entry.getEntryId(), problem);
+        return false;
+    }
+
+    private static String key(ReconciliationEntry entry) {
+        return entry.getEntryId() == null ? null : entry.getSource() + ":" + entry.getEntryId();
+    }
+
+    /**
+     * Take back the pending counts of a remembered entry.
+     */
+    private void unrecord(int day, Recorded previous) {
+        if (previous != null && previous.kind() == Kind.PENDING) {
+            add(PENDING_COUNT, day, -Math.min(1, days[PENDING_COUNT][day]));
+            add(PENDING_MINOR, day, -Math.min(previous.minorUnits(), Math.max(days[PENDING_MINOR][day], 0)));
+        }
+    }
+
+    private Map<String, Recorded> remembered(int day) {
+        return recorded.getOrDefault(day, Map.of());
+    }
+
+    private Recorded remember(int day, String key, Recorded entry) {
+        Recorded previous = recorded.computeIfAbsent(day, ignored -> new HashMap<>()).put(key, entry);
+        evict();
+        return previous;
+    }
+
+    /**
+     * Whether entries of a day are inside the window remembered for deduplication.
+     */
+    private boolean retained(int day) {
+        return recorded.isEmpty() || day > recorded.lastKey() - retentionDays;
+    }
+
+    /**
+     * Forget the entries of days that fell out of the retained window.
+     */
+    private void evict() {
+        if (!recorded.isEmpty()) {
+            recorded.headMap(recorded.lastKey() - retentionDays, true).clear();
+        }
+    }
+
+    private static int clamp(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    private int dayIndex(LocalDate date) {
+        long day = date.toEpochDay() - originEpochDay;
+        if (day < 0) {
+            throw new IllegalArgumentException("Date " + date + " is before the summary origin "
+                    + LocalDate.ofEpochDay(originEpochDay));
+        }
+        if (day >= days[0].length) {
+            int length = days[0].length;
+            while (length <= day) {
+                length *= 2;
+            }
+            for (int metric = 0; metric < METRICS; metric++) {
+                days[metric] = Arrays.copyOf(days[metric], length);
+            }
+            rebuildTrees();
+        }
+        return (int) day;
+    }
+
+    private long minorUnits(Money amount) {
+        if (amount.getCurrency() != currency) {
+            throw new IllegalArgumentException("Summary index holds " + currency + ", not " + amount.getCurrency());
+        }
+        return amount.toCents();
+    }
+
+    private void add(int metric, int day, long delta) {
+        days[metric][day] += delta;
+        long[] tree = trees[metric];
+        for (int i = day + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private long prefix(int metric, int day) {
+        long sum = 0;
+        long[] tree = trees[metric];
+        for (int i = day + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Build the Fenwick trees from the raw day values in O(days).
+     */
+    private void rebuildTrees() {
+        trees = new long[METRICS][];
+        for (int metric = 0; metric < METRICS; metric++) {
+            long[] tree = new long[days[metric].length + 1];
+            for (int i = 1; i < tree.length; i++) {
+                tree[i] += days[metric][i - 1];
+                int parent = i + (i & -i);
+                if (parent < tree.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+            trees[metric] = tree;
+        }
+    }
+}
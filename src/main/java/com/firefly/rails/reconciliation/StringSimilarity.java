@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation;
+
+import java.util.Arrays;
+
+/**
+ * Cheap similarity of references and names: a truncation check followed by the Dice coefficient
+ * of character bigrams, both on upper-cased alphanumerics.
+ */
+final class StringSimilarity {
+
+    private static final int MIN_TRUNCATED_LENGTH = 4;
+
+    private StringSimilarity() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Normalize a value for comparison.
+     *
+     * @return upper-cased letters and digits only, or {@code null} if nothing remains
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.isEmpty() ? null : normalized.toString();
+    }
+
+    /**
+     * Similarity of two normalized values.
+     *
+     * @return 1 for equal values, 0 if either is {@code null}
+     */
+    static double score(String a, String b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        String shorter = a.length() <= b.length() ? a : b;
+        String longer = shorter == a ? b : a;
+        if (shorter.length() >= MIN_TRUNCATED_LENGTH && (longer.startsWith(shorter) || longer.endsWith(shorter))) {
+            // Rails truncate references to their field length
+            return 0.9 + 0.1 * shorter.length() / longer.length();
+        }
+        return dice(a, b);
+    }
+
+    private static double dice(String a, String b) {
+        if (a.length() < 2 || b.length() < 2) {
+            return 0;
+        }
+        int[] left = bigrams(a);
+        int[] right = bigrams(b);
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] == right[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (left[i] < right[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * common / (left.length + right.length);
+    }
+
+    private static int[] bigrams(String value) {
+        int[] bigrams = new int[value.length() - 1];
+        for (int i = 0; i < bigrams.length; i++) {
+            bigrams[i] = (value.charAt(i) << 16) | value.charAt(i + 1);
+        }
+        Arrays.sort(bigrams);
+        return bigrams;
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.reconciliation.camt;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import reactor.core.publisher.Flux;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+
+/**
+ * Streaming reader for ISO 20022 camt.053 bank statements, camt.054 debit/credit notifications
+ * and camt.052 account reports.
+ *
+ * <p>The document is read with StAX and turned into one {@link ReconciliationEntry} per
+ * transaction: every {@code TxDtls} of a batched {@code Ntry} becomes its own entry, and an
+ * {@code Ntry} without transaction details becomes one entry. Only the current entry is held in
+ * memory, so statements of hundreds of megabytes are read in near-constant memory. Elements are
+ * matched by local name, so all message versions are accepted regardless of namespace.
+ *
+ * <p>Entries carry the statement account (IBAN or other identification), the transaction amount
+ * and currency, the value date (booking date if absent), the end-to-end reference and the debtor
+ * name of credits or creditor name of debits. DTDs and external entities are rejected.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * Flux<ReconciliationEntry> statement =
+ *     CamtStatementReader.read(() -> Files.newInputStream(path));
+ *
+ * return engine.reconcile(ledger.entries(request), statement, ReconciliationListener.NONE);
+ * }</pre>
+ */
+public class CamtStatementReader implements Iterator<ReconciliationEntry>, Closeable {
+
+    private static final String NOT_PROVIDED = "NOTPROVIDED";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final InputStream in;
+    private final XMLStreamReader xml;
+
+    /** Local names of the open elements the reader descended into */
+    private final List<String> path = new ArrayList<>();
+    private ReconciliationEntry next;
+
+    private String statementId;
+    private String accountId;
+    private int entryCount;
+
+    private final Fields entry = new Fields();
+    private final Fields transaction = new Fields();
+    private String entryReference;
+    private String entryServicerReference;
+    private LocalDate valueDate;
+    private LocalDate bookingDate;
+    private int transactionCount;
+
+    public CamtStatementReader(InputStream in) {
+        this.in = in;
+        try {
+            this.xml = FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new RailFileFormatException("Could not open camt document", e);
+        }
+    }
+
+    /**
+     * Stream the entries of a camt document. The stream is opened on subscription and closed on
+     * completion, error or cancellation.
+     *
+     * @param source opens the underlying stream
+     * @return flux of statement entries
+     */
+    public static Flux<ReconciliationEntry> read(Callable<? extends InputStream> source) {
+        return Flux.using(
+                () -> new CamtStatementReader(source.call()),
+                reader -> Flux.fromIterable(() -> reader),
+                reader -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ReconciliationEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ReconciliationEntry result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private ReconciliationEntry advance() {
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    startElement(xml.getLocalName());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    ReconciliationEntry completed = endElement(xml.getLocalName());
+                    if (completed != null) {
+                        return completed;
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new RailFileFormatException("Malformed camt document: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Either consume a leaf element the reader needs, or descend into it.
+     */
+    private void startElement(String name) throws XMLStreamException {
+        boolean inTransaction = path.contains("TxDtls");
+        Fields target = inTransaction ? transaction : entry;
+
+        switch (name) {
+            case "Stmt", "Ntfctn", "Rpt" -> {
+                if (endsWith("BkToCstmrStmt") || endsWith("BkToCstmrDbtCdtNtfctn") || endsWith("BkToCstmrAcctRpt")) {
+                    statementId = null;
+                    accountId = null;
+                }
+            }
+            case "Id" -> {
+                if (endsWith("Stmt") || endsWith("Ntfctn") || endsWith("Rpt")) {
+                    statementId = text();
+                    return;
+                }
+                if (accountId == null && endsWith("Acct", "Id", "Othr") && !path.contains("Ntry")) {
+                    accountId = text();
+                    return;
+                }
+            }
+            case "IBAN" -> {
+                if (endsWith("Acct", "Id") && !path.contains("Ntry")) {
+                    accountId = text();
+                    return;
+                }
+            }
+            case "Ntry" -> startEntry();
+            case "TxDtls" -> {
+                transaction.clear();
+                transactionCount++;
+            }
+            case "Amt" -> {
+                if (endsWith("Ntry") || endsWith("TxDtls") || endsWith("TxDtls", "AmtDtls", "TxAmt")) {
+                    target.currency = xml.getAttributeValue(null, "Ccy");
+                    target.amount = text();
+                    return;
+                }
+            }
+            case "CdtDbtInd" -> {
+                if (endsWith("Ntry") || endsWith("TxDtls")) {
+                    target.creditDebit = text();
+                    return;
+                }
+            }
+            case "Dt", "DtTm" -> {
+                if (endsWith("Ntry", "ValDt")) {
+                    valueDate = date(text());
+                    return;
+                }
+                if (endsWith("Ntry", "BookgDt")) {
+                    bookingDate = date(text());
+                    return;
+                }
+            }
+            case "NtryRef" -> {
+                if (endsWith("Ntry")) {
+                    entryReference = text();
+                    return;
+                }
+            }
+            case "AcctSvcrRef" -> {
+                if (endsWith("Ntry")) {
+                    entryServicerReference = text();
+                    return;
+                }
+                if (endsWith("TxDtls", "Refs")) {
+                    transaction.servicerReference = text();
+                    return;
+                }
+            }
+            case "EndToEndId" -> {
+                if (endsWith("TxDtls", "Refs")) {
+                    String reference = text();
+                    transaction.endToEndReference = NOT_PROVIDED.equals(reference) ? null : reference;
+                    return;
+                }
+            }
+            case "Nm" -> {
+                if (endsWith("RltdPties", "Dbtr") || endsWith("RltdPties", "Dbtr", "Pty")) {
+                    transaction.debtorName = text();
+                    return;
+                }
+                if (endsWith("RltdPties", "Cdtr") || endsWith("RltdPties", "Cdtr", "Pty")) {
+                    transaction.creditorName = text();
+                    return;
+                }
+            }
+            default -> {
+                // Descend
+            }
+        }
+        path.add(name);
+    }
+
+    private ReconciliationEntry endElement(String name) {
+        if (path.isEmpty()) {
+            return null;
+        }
+        path.remove(path.size() - 1);
+        if ("TxDtls".equals(name)) {
+            return toEntry(transaction, entryBaseId() + "/" + transactionCount);
+        }
+        if ("Ntry".equals(name) && transactionCount == 0) {
+            return toEntry(entry, entryBaseId());
+        }
+        return null;
+    }
+
+    private void startEntry() {
+        entryCount++;
+        entry.clear();
+        transaction.clear();
+        entryReference = null;
+        entryServicerReference = null;
+        valueDate = null;
+        bookingDate = null;
+        transactionCount = 0;
+    }
+
+    private String entryBaseId() {
+        if (entryServicerReference != null) {
+            return entryServicerReference;
+        }
+        if (entryReference != null) {
+            return entryReference;
+        }
+        return (statementId == null ? "NTRY" : statementId) + "-" + entryCount;
+    }
+
+    private ReconciliationEntry toEntry(Fields fields, String defaultId) {
+        // Transaction details inherit what they do not repeat from their entry
+        String amount = fields.amount != null ? fields.amount : entry.amount;
+        String currency = fields.amount != null ? fields.currency : entry.currency;
+        String creditDebit = fields.creditDebit != null ? fields.creditDebit : entry.creditDebit;
+        String counterparty = "DBIT".equals(creditDebit) ? fields.creditorName : fields.debtorName;
+
+        return ReconciliationEntry.builder()
+                .source(ReconciliationEntry.Source.STATEMENT)
+                .entryId(fields.servicerReference != null ? fields.servicerReference : defaultId)
+                .accountId(accountId)
+                .endToEndReference(fields.endToEndReference)
+                .amount(money(amount, currency))
+                .valueDate(valueDate != null ? valueDate : bookingDate)
+                .counterpartyName(counterparty)
+                .build();
+    }
+
+    private Money money(String amount, String currency) {
+        if (amount == null) {
+            return null;
+        }
+        if (currency == null) {
+            throw new RailFileFormatException("Amount without currency in entry " + entryCount + " at line "
+                    + xml.getLocation().getLineNumber());
+        }
+        try {
+            return new Money(new BigDecimal(amount), Currency.valueOf(currency));
+        } catch (IllegalArgumentException e) {
+            throw new RailFileFormatException("Invalid amount '" + amount + "' " + currency + " in entry "
+                    + entryCount + " at line " + xml.getLocation().getLineNumber(), e);
+        }
+    }
+
+    private LocalDate date(String value) {
+        try {
+            return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+        } catch (DateTimeParseException e) {
+            throw new RailFileFormatException("Invalid date '" + value + "' at line "
+                    + xml.getLocation().getLineNumber(), e);
+        }
+    }
+
+    private String text() throws XMLStreamException {
+        String text = xml.getElementText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private boolean endsWith(String... names) {
+        int offset = path.size() - names.length;
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equals(path.get(offset + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+
+    /**
+     * Values that may be given on the entry and repeated or refined on each transaction.
+     */
+    private static final class Fields {
+        String amount;
+        String currency;
+        String creditDebit;
+        String endToEndReference;
+        String servicerReference;
+        String debtorName;
+        String creditorName;
+
+        void clear() {
+            amount = null;
+            currency = null;
+            creditDebit = null;
+            endToEndReference = null;
+            servicerReference = null;
+            debtorName = null;
+            creditorName = null;
+        }
+    }
+}
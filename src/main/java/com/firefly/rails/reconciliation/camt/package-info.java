@@ -0,0 +1,15 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * ISO 20022 cash management (camt) statement ingestion.
+ * 
+ * <ul>
+ *   <li>{@link com.firefly.rails.reconciliation.camt.CamtStatementReader} - Streaming camt.052/053/054 reader</li>
+ * </ul>
+ * 
+ * @since 1.0.0
+ */
+package com.firefly.rails.reconciliation.camt;
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Reconciliation engines shared by rail implementations.
+ * 
+ * <p>This package contains building blocks for implementing
+ * {@link com.firefly.rails.adapter.ports.ReconciliationPort}:
+ * <ul>
+ *   <li>{@link com.firefly.rails.reconciliation.HashJoinReconciliationEngine} - Streaming hash join with disk spill</li>
+ *   <li>{@link com.firefly.rails.reconciliation.FuzzyReconciliationMatcher} - Suggestions for entries exact matching missed</li>
+ *   <li>{@link com.firefly.rails.reconciliation.ParallelReconciliationDriver} - Partitioned reconciliation of many accounts</li>
+ *   <li>{@link com.firefly.rails.reconciliation.ReconciliationSummaryIndex} - Per-day summaries answering date ranges in O(log days)</li>
+ *   <li>{@link com.firefly.rails.reconciliation.ReconciliationListener} - Callback for matches and unmatched entries</li>
+ *   <li>{@link com.firefly.rails.reconciliation.ReconciliationStatistics} - Listener counting run results</li>
+ *   <li>{@link com.firefly.rails.reconciliation.DiscrepancyTypes} - Discrepancy types and construction</li>
+ * </ul>
+ * 
+ * @see com.firefly.rails.reconciliation.camt
+ * @since 1.0.0
+ */
+package com.firefly.rails.reconciliation;
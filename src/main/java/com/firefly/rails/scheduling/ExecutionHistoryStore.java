@@ -0,0 +1,517 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.scheduled.PaymentExecutionHistory;
+import com.firefly.rails.exceptions.RailException;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only execution history of recurring payments in a compact columnar encoding.
+ *
+ * <p>Executions of each recurring payment are appended to an open tail; every {@code 128} rows the
+ * tail is sealed into an immutable block. A block stores each field as its own column:
+ * execution times as variable-length deltas, amounts as a scale and a variable-length unscaled
+ * value, currency and status as one byte per row, and identifiers and failure reasons
+ * dictionary-encoded per block.
+ * A standing order executed monthly for ten years takes a few kilobytes instead of a list of
+ * objects.
+ * <ul>
+ *   <li>{@link #latest(String, int)} decodes the tail and only as many blocks from the end as
+ *       needed, so "last N executions" does not depend on the length of the history.</li>
+ *   <li>{@link #page(String, int, int)} and {@link #stream(String)} decode block by block.</li>
+ *   <li>{@link #compact(Instant)} applies time-based retention: blocks that are entirely older
+ *       than the cut-off are dropped, and blocks that straddle it are rewritten.</li>
+ * </ul>
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public Mono<ResponseEntity<List<PaymentExecutionHistory>>> getRecurringPaymentHistory(String recurringPaymentId) {
+ *     return Mono.just(ResponseEntity.ok(historyStore.latest(recurringPaymentId, 24)));
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class ExecutionHistoryStore {
+
+    static final int BLOCK_ROWS = 128;
+
+    private static final int MAGIC = 0x45485331; // "EHS1"
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+    private static final int NONE = 0xFF;
+
+    private final Map<String, History> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Held shared by appends and exclusively by {@link #compact(Instant)} and the snapshot taken by
+     * {@link #save(Path)}, so histories are neither added nor removed while those walk the map.
+     */
+    private final ReadWriteLock structure = new ReentrantReadWriteLock();
+
+    /**
+     * Append an execution to the history of a recurring payment.
+     */
+    public void append(String recurringPaymentId, PaymentExecutionHistory execution) {
+        structure.readLock().lock();
+        try {
+            History history = histories.computeIfAbsent(recurringPaymentId, id -> new History());
+            synchronized (history) {
+                history.tail.add(execution);
+                if (history.tail.size() == BLOCK_ROWS) {
+                    history.blocks.add(Block.encode(history.tail));
+                    history.tail.clear();
+                }
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of retained executions of a recurring payment.
+     */
+    public int count(String recurringPaymentId) {
+        History history = histories.get(recurringPaymentId);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            return history.rows();
+        }
+    }
+
+    /**
+     * Most recent executions, newest first.
+     */
+    public List<PaymentExecutionHistory> latest(String recurringPaymentId, int limit) {
+        History history = histories.get(recurringPaymentId);
+        List<PaymentExecutionHistory> latest = new ArrayList<>(Math.max(0, limit));
+        if (history == null || limit <= 0) {
+            return latest;
+        }
+        synchronized (history) {
+            for (int i = history.tail.size() - 1; i >= 0 && latest.size() < limit; i--) {
+                latest.add(history.tail.get(i));
+            }
+            for (int b = history.blocks.size() - 1; b >= 0 && latest.size() < limit; b--) {
+                List<PaymentExecutionHistory> rows = history.blocks.get(b).decode();
+                for (int i = rows.size() - 1; i >= 0 && latest.size() < limit; i--) {
+                    latest.add(rows.get(i));
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * A page of executions, oldest first.
+     *
+     * @param offset executions to skip
+     * @param limit maximum executions returned
+     */
+    public List<PaymentExecutionHistory> page(String recurringPaymentId, int offset, int limit) {
+        History history = histories.get(recurringPaymentId);
+        List<PaymentExecutionHistory> page = new ArrayList<>();
+        if (history == null || limit <= 0) {
+            return page;
+        }
+        synchronized (history) {
+            int skip = Math.max(0, offset);
+            for (Block block : history.blocks) {
+                if (page.size() >= limit) {
+                    return page;
+                }
+                if (skip >= block.rows) {
+                    skip -= block.rows;
+                    continue;
+                }
+                List<PaymentExecutionHistory> rows = block.decode();
+                for (int i = skip; i < rows.size() && page.size() < limit; i++) {
+                    page.add(rows.get(i));
+                }
+                skip = 0;
+            }
+            for (int i = skip; i < history.tail.size() && page.size() < limit; i++) {
+                page.add(history.tail.get(i));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Every retained execution, oldest first, decoded one block at a time as requested.
+     */
+    public Flux<PaymentExecutionHistory> stream(String recurringPaymentId) {
+        return Flux.defer(() -> {
+            History history = histories.get(recurringPaymentId);
+            if (history == null) {
+                return Flux.empty();
+            }
+            List<Block> blocks;
+            List<PaymentExecutionHistory> tail;
+            synchronized (history) {
+                blocks = List.copyOf(history.blocks);
+                tail = List.copyOf(history.tail);
+            }
+            return Flux.fromIterable(blocks)
+                    .concatMapIterable(Block::decode)
+                    .concatWith(Flux.fromIterable(tail));
+        });
+    }
+
+    /**
+     * Drop every execution before a cut-off.
+     *
+     * @return number of executions removed
+     */
+    public long compact(Instant retainFrom) {
+        structure.writeLock().lock();
+        try {
+            return compact(retainFrom.toEpochMilli(), retainFrom);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    private long compact(long cutOff, Instant retainFrom) {
+        long removed = 0;
+        for (Map.Entry<String, History> entry : histories.entrySet()) {
+            History history = entry.getValue();
+            synchronized (history) {
+                List<Block> retained = new ArrayList<>(history.blocks.size());
+                for (Block block : history.blocks) {
+                    if (block.maxExecutedAt < cutOff) {
+                        removed += block.rows;
+                    } else if (block.minExecutedAt < cutOff) {
+                        List<PaymentExecutionHistory> rows = new ArrayList<>(block.decode());
+                        rows.removeIf(row -> millis(row) < cutOff);
+                        removed += block.rows - rows.size();
+                        retained.add(Block.encode(rows));
+                    } else {
+                        retained.add(block);
+                    }
+                }
+                history.blocks.clear();
+                history.blocks.addAll(retained);
+                int tailSize = history.tail.size();
+                history.tail.removeIf(row -> millis(row) < cutOff);
+                removed += tailSize - history.tail.size();
+                if (history.rows() == 0) {
+                    histories.remove(entry.getKey(), history);
+                }
+            }
+        }
+        log.debug("Compacted execution history before {}: {} executions removed", retainFrom, removed);
+        return removed;
+    }
+
+    /**
+     * Bytes held by sealed blocks, excluding the open tails.
+     */
+    public long sizeInBytes() {
+        long size = 0;
+        for (History history : histories.values()) {
+            synchronized (history) {
+                for (Block block : history.blocks) {
+                    size += block.data.length;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Persist every history, atomically replacing the previous file. The histories are copied under
+     * the lock and written without it; the file is forced to disk before it replaces the previous one.
+     */
+    public void save(Path file) {
+        Map<String, List<Block>> snapshot = new LinkedHashMap<>();
+        structure.writeLock().lock();
+        try {
+            for (Map.Entry<String, History> entry : histories.entrySet()) {
+                History history = entry.getValue();
+                synchronized (history) {
+                    List<Block> blocks = new ArrayList<>(history.blocks);
+                    if (!history.tail.isEmpty()) {
+                        blocks.add(Block.encode(history.tail));
+                    }
+                    snapshot.put(entry.getKey(), blocks);
+                }
+            }
+        } finally {
+            structure.writeLock().unlock();
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(MAGIC);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, List<Block>> entry : snapshot.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (Block block : entry.getValue()) {
+                        out.writeInt(block.data.length);
+                        out.write(block.data);
+                    }
+                }
+                out.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RailException("Could not persist execution history to " + file, e);
+        }
+    }
+
+    /**
+     * Load histories saved with {@link #save(Path)}.
+     *
+     * @throws RailFileFormatException if the file is not an execution history file
+     */
+    public static ExecutionHistoryStore load(Path file) {
+        ExecutionHistoryStore store = new ExecutionHistoryStore();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new RailFileFormatException("Not an execution history file: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                History history = new History();
+                int blocks = in.readInt();
+                for (int b = 0; b < blocks; b++) {
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    Block block = Block.of(data);
+                    if (b == blocks - 1 && block.rows < BLOCK_ROWS) {
+                        history.tail.addAll(block.decode());
+                    } else {
+                        history.blocks.add(block);
+                    }
+                }
+                store.histories.put(id, history);
+            }
+        } catch (IOException e) {
+            throw new RailException("Could not load execution history from " + file, e);
+        }
+        return store;
+    }
+
+    private static long millis(PaymentExecutionHistory execution) {
+        return execution.getExecutedAt() == null ? Long.MIN_VALUE : execution.getExecutedAt().toEpochMilli();
+    }
+
+    private static final class History {
+        private final List<Block> blocks = new ArrayList<>();
+        private final List<PaymentExecutionHistory> tail = new ArrayList<>(BLOCK_ROWS);
+
+        private int rows() {
+            int rows = tail.size();
+            for (Block block : blocks) {
+                rows += block.rows;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Immutable columnar encoding of up to {@link #BLOCK_ROWS} executions.
+     */
+    private static final class Block {
+        private final byte[] data;
+        private final int rows;
+        private final long minExecutedAt;
+        private final long maxExecutedAt;
+
+        private Block(byte[] data, int rows, long minExecutedAt, long maxExecutedAt) {
+            this.data = data;
+            this.rows = rows;
+            this.minExecutedAt = minExecutedAt;
+            this.maxExecutedAt = maxExecutedAt;
+        }
+
+        private static Block encode(List<PaymentExecutionHistory> rows) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 16 + 64);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            writeVarint(bytes, rows.size());
+
+            long previous = 0;
+            for (PaymentExecutionHistory row : rows) {
+                long executedAt = millis(row);
+                min = Math.min(min, executedAt);
+                max = Math.max(max, executedAt);
+                bytes.write(row.getExecutedAt() == null ? 0 : 1);
+                writeVarint(bytes, zigZag(executedAt - previous));
+                previous = executedAt;
+            }
+            for (PaymentExecutionHistory row : rows) {
+                Money amount = row.getAmount();
+                bytes.write(amount == null ? NONE : amount.getCurrency().ordinal());
+                if (amount != null) {
+                    writeVarint(bytes, zigZag(amount.getAmount().scale()));
+                    writeVarint(bytes, amount.getAmount().unscaledValue().longValueExact());
+                }
+            }
+            for (PaymentExecutionHistory row : rows) {
+                bytes.write(row.getStatus() == null ? NONE : row.getStatus().ordinal());
+            }
+            writeStrings(bytes, rows.stream().map(PaymentExecutionHistory::getExecutionId).toList());
+            writeStrings(bytes, rows.stream().map(PaymentExecutionHistory::getScheduledPaymentId).toList());
+            writeStrings(bytes, rows.stream().map(PaymentExecutionHistory::getPaymentId).toList());
+            writeStrings(bytes, rows.stream().map(PaymentExecutionHistory::getFailureReason).toList());
+            return new Block(bytes.toByteArray(), rows.size(), min, max);
+        }
+
+        private static Block of(byte[] data) {
+            List<PaymentExecutionHistory> rows = new Block(data, 0, 0, 0).decode();
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (PaymentExecutionHistory row : rows) {
+                min = Math.min(min, millis(row));
+                max = Math.max(max, millis(row));
+            }
+            return new Block(data, rows.size(), min, max);
+        }
+
+        private List<PaymentExecutionHistory> decode() {
+            ByteArrayInputStream in = new ByteArrayInputStream(data);
+            int count = (int) readVarint(in);
+            PaymentExecutionHistory.PaymentExecutionHistoryBuilder[] rows =
+                    new PaymentExecutionHistory.PaymentExecutionHistoryBuilder[count];
+            long executedAt = 0;
+            for (int i = 0; i < count; i++) {
+                boolean present = in.read() == 1;
+                executedAt += unZigZag(readVarint(in));
+                rows[i] = PaymentExecutionHistory.builder().executedAt(present ? Instant.ofEpochMilli(executedAt) : null);
+            }
+            for (int i = 0; i < count; i++) {
+                int currency = in.read();
+                if (currency != NONE) {
+                    int scale = (int) unZigZag(readVarint(in));
+                    rows[i].amount(new Money(BigDecimal.valueOf(readVarint(in), scale), CURRENCIES[currency]));
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                int status = in.read();
+                rows[i].status(status == NONE ? null : STATUSES[status]);
+            }
+            String[] executionIds = readStrings(in, count);
+            String[] scheduledPaymentIds = readStrings(in, count);
+            String[] paymentIds = readStrings(in, count);
+            String[] failureReasons = readStrings(in, count);
+            List<PaymentExecutionHistory> decoded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                decoded.add(rows[i]
+                        .executionId(executionIds[i])
+                        .scheduledPaymentId(scheduledPaymentIds[i])
+                        .paymentId(paymentIds[i])
+                        .failureReason(failureReasons[i])
+                        .build());
+            }
+            return decoded;
+        }
+
+        /**
+         * Dictionary of distinct values followed by one index per row; index 0 is {@code null}.
+         */
+        private static void writeStrings(ByteArrayOutputStream bytes, List<String> values) {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            for (String value : values) {
+                if (value != null) {
+                    dictionary.putIfAbsent(value, dictionary.size() + 1);
+                }
+            }
+            writeVarint(bytes, dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes, utf8.length);
+                bytes.writeBytes(utf8);
+            }
+            for (String value : values) {
+                writeVarint(bytes, value == null ? 0 : dictionary.get(value));
+            }
+        }
+
+        private static String[] readStrings(ByteArrayInputStream in, int count) {
+            String[] dictionary = new String[(int) readVarint(in) + 1];
+            for (int i = 1; i < dictionary.length; i++) {
+                byte[] utf8 = new byte[(int) readVarint(in)];
+                in.readNBytes(utf8, 0, utf8.length);
+                dictionary[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = dictionary[(int) readVarint(in)];
+            }
+            return values;
+        }
+
+        private static void writeVarint(ByteArrayOutputStream bytes, long value) {
+            while ((value & ~0x7FL) != 0) {
+                bytes.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            bytes.write((int) value);
+        }
+
+        private static long readVarint(ByteArrayInputStream in) {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.read();
+                if (b < 0) {
+                    throw new RailFileFormatException("Truncated execution history block");
+                }
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
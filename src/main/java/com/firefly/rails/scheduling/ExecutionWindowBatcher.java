@@ -0,0 +1,302 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.BulkPaymentPort;
+import com.firefly.rails.calendar.BusinessDayCalendar;
+import com.firefly.rails.calendar.BusinessDayCalendarRegistry;
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.domain.RailType;
+import com.firefly.rails.dtos.bulk.BulkPaymentRequest;
+import com.firefly.rails.dtos.bulk.BulkPaymentResponse;
+import com.firefly.rails.dtos.bulk.DuplicateReference;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import com.firefly.rails.dtos.scheduled.ScheduledPaymentResponse;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Groups due scheduled payments into bulks per rail, debtor account and settlement window, and
+ * submits them through {@link BulkPaymentPort} closest cut-off first.
+ *
+ * <p>A settlement window is identified by the next cut-off of the rail's
+ * {@link BusinessDayCalendar}: payments of the same rail and debtor account that can still make the
+ * same cut-off travel in the same bulk, split into bulks of the rail's optimum size. Bulks are
+ * submitted in order of their cut-off, so when many payments fall due at once - e.g. everything
+ * scheduled for 06:00 - the ACH bulks that must make the 10:30 window are submitted before the
+ * BACS bulks whose cut-off is at 22:30. Rails without a calendar are submitted last.
+ *
+ * <p>Bulk ids are derived from the rail, the window and the first payment of the bulk; every payment
+ * keeps its scheduled payment id as end-to-end reference and the idempotency key the
+ * {@link ScheduledPaymentEngine} would initiate it with on its own, so a failed bulk can be
+ * resubmitted without executing payments twice. With an engine, the outcome of every payment is
+ * recorded once its bulk is answered: {@code SUBMITTED} when the bulk was accepted, {@code REJECTED}
+ * for duplicates within the bulk and {@code FAILED} when the rail definitely rejected the bulk with
+ * a client error other than {@code 408} or {@code 429}. A bulk that failed in transport, timed out
+ * or was answered otherwise may still have been accepted; its payments stay fired and unresolved in
+ * the engine's write-ahead log, so {@link ScheduledPaymentEngine#recover()} initiates them again
+ * with the same idempotency keys.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * ExecutionWindowBatcher batcher = ExecutionWindowBatcher.builder()
+ *         .bulkPort(achBulkPort)
+ *         .calendars(calendarRegistry)
+ *         .engine(engine)
+ *         .bulkSize(RailType.ACH, 10_000)
+ *         .build();
+ *
+ * batcher.submit(engine.takeDue(Instant.now()), payment -> RailType.ACH)
+ *         .subscribe(bulk -> log.info("Bulk {} {}", bulk.getId(), bulk.getStatus()));
+ * }</pre>
+ */
+@Slf4j
+public class ExecutionWindowBatcher {
+
+    private static final int DEFAULT_BULK_SIZE = 1_000;
+    private static final Map<RailType, Integer> DEFAULT_BULK_SIZES = Map.of(
+            RailType.ACH, 10_000,
+            RailType.BACS, 10_000,
+            RailType.SEPA, 5_000);
+
+    private final BulkPaymentPort bulkPort;
+    private final BusinessDayCalendarRegistry calendars;
+    private final ScheduledPaymentEngine engine;
+    private final Map<RailType, Integer> bulkSizes;
+    private final int defaultBulkSize;
+    private final int concurrency;
+    private final int maxPending;
+    private final Duration linger;
+    private final Clock clock;
+
+    /**
+     * @param bulkPort port bulks are submitted through
+     * @param calendars cut-offs and processing dates per rail
+     * @param engine engine the outcome of every submitted payment is recorded with; not recorded if {@code null}
+     * @param bulkSizes optimum bulk size per rail, overriding 10,000 for ACH and BACS and 5,000 for SEPA
+     * @param defaultBulkSize bulk size of other rails; 1,000 if not positive
+     * @param concurrency bulks submitted at a time; 4 if not positive
+     * @param maxPending due payments planned together; 100,000 if not positive
+     * @param linger how long to wait for more due payments before planning; 200 ms if {@code null}
+     * @param clock time source; the system clock if {@code null}
+     */
+    @Builder
+    private ExecutionWindowBatcher(BulkPaymentPort bulkPort, BusinessDayCalendarRegistry calendars,
+                                   ScheduledPaymentEngine engine, Map<RailType, Integer> bulkSizes, int defaultBulkSize, int concurrency,
+                                   int maxPending, Duration linger, Clock clock) {
+        if (bulkPort == null || calendars == null) {
+            throw new IllegalArgumentException("Bulk port and calendars must not be null");
+        }
+        this.bulkPort = bulkPort;
+        this.calendars = calendars;
+        this.engine = engine;
+        Map<RailType, Integer> sizes = new EnumMap<>(RailType.class);
+        sizes.putAll(DEFAULT_BULK_SIZES);
+        sizes.putAll(bulkSizes);
+        this.bulkSizes = sizes;
+        this.defaultBulkSize = defaultBulkSize > 0 ? defaultBulkSize : DEFAULT_BULK_SIZE;
+        this.concurrency = concurrency > 0 ? concurrency : 4;
+        this.maxPending = maxPending > 0 ? maxPending : 100_000;
+        this.linger = linger == null ? Duration.ofMillis(200) : linger;
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+    }
+
+    /**
+     * Plan and submit due payments as they arrive.
+     *
+     * @param due due scheduled payments
+     * @param railOf rail a payment is submitted on
+     * @return outcome of every submitted bulk; failed submissions are reported with status {@code FAILED}
+     */
+    public Flux<BulkPaymentResponse> submit(Flux<ScheduledPaymentResponse> due,
+                                            Function<ScheduledPaymentResponse, RailType> railOf) {
+        return due.bufferTimeout(maxPending, linger)
+                .concatMap(payments -> Flux.fromIterable(plan(payments, railOf, clock.instant()))
+                        .flatMap(this::submit, concurrency, 1));
+    }
+
+    /**
+     * Group payments into bulks, ordered by the cut-off they must make.
+     */
+    public List<BulkPaymentRequest> plan(Collection<ScheduledPaymentResponse> payments,
+                                         Function<ScheduledPaymentResponse, RailType> railOf, Instant now) {
+        Map<WindowKey, List<ScheduledPaymentResponse>> windows = new HashMap<>();
+        Map<RailType, Window> railWindows = new EnumMap<>(RailType.class);
+        for (ScheduledPaymentResponse payment : payments) {
+            RailType railType = railOf.apply(payment);
+            Window window = railWindows.computeIfAbsent(railType, rail -> window(rail, now));
+            windows.computeIfAbsent(new WindowKey(railType, payment.getDebtorAccount(), window), key -> new ArrayList<>())
+                    .add(payment);
+        }
+
+        List<Map.Entry<WindowKey, List<ScheduledPaymentResponse>>> ordered = new ArrayList<>(windows.entrySet());
+        ordered.sort(Comparator.<Map.Entry<WindowKey, List<ScheduledPaymentResponse>>, Instant>comparing(
+                        entry -> entry.getKey().window().cutOff(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(entry -> entry.getValue().size(), Comparator.reverseOrder()));
+
+        List<BulkPaymentRequest> bulks = new ArrayList<>();
+        for (Map.Entry<WindowKey, List<ScheduledPaymentResponse>> entry : ordered) {
+            WindowKey key = entry.getKey();
+            List<ScheduledPaymentResponse> items = entry.getValue();
+            int size = bulkSizes.getOrDefault(key.railType(), defaultBulkSize);
+            String prefix = key.railType() + "-" + (key.window().cutOff() == null
+                    ? "ASAP" : String.valueOf(key.window().cutOff().getEpochSecond()));
+            for (int from = 0; from < items.size(); from += size) {
+                bulks.add(BulkPaymentRequest.builder()
+                        .id(prefix + "-" + items.get(from).getScheduledPaymentId())
+                        .debtorAccount(key.debtorAccount())
+                        .requestedExecutionDate(key.window().processingDate())
+                        .payments(items.subList(from, Math.min(items.size(), from + size)).stream()
+                                .map(ExecutionWindowBatcher::toInitiation)
+                                .toList())
+                        .build());
+            }
+        }
+        log.debug("Planned {} due payments into {} bulks across {} windows", payments.size(), bulks.size(),
+                windows.size());
+        return bulks;
+    }
+
+    private Mono<BulkPaymentResponse> submit(BulkPaymentRequest bulk) {
+        return Mono.defer(() -> bulkPort.submitBulkPayment(bulk))
+                .map(response -> {
+                    if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                        return new Submission(response.getBody(), Outcome.ACCEPTED);
+                    }
+                    BulkPaymentResponse failed = failed(bulk, "Rail answered " + response.getStatusCode().value());
+                    return new Submission(failed, isRejection(response.getStatusCode()) ? Outcome.REJECTED : Outcome.IN_DOUBT);
+                })
+                .onErrorResume(error -> {
+                    log.warn("Bulk {} failed: {}", bulk.getId(), error.getMessage());
+                    return Mono.just(new Submission(failed(bulk, error.getMessage()), Outcome.IN_DOUBT));
+                })
+                .flatMap(submission -> record(bulk, submission).thenReturn(submission.response()));
+    }
+
+    private Mono<Void> record(BulkPaymentRequest bulk, Submission submission) {
+        if (engine == null) {
+            return Mono.empty();
+        }
+        if (submission.outcome() == Outcome.IN_DOUBT) {
+            log.warn("Bulk {} may have been accepted; its {} payments stay unresolved until recovery",
+                    bulk.getId(), bulk.getPayments().size());
+            return Mono.empty();
+        }
+        boolean accepted = submission.outcome() == Outcome.ACCEPTED;
+        Set<Integer> duplicates = new HashSet<>();
+        if (accepted && submission.response().getDuplicates() != null) {
+            for (DuplicateReference duplicate : submission.response().getDuplicates()) {
+                if (duplicate.getDuplicateOfIndex() != null) {
+                    duplicates.add(duplicate.getItemIndex());
+                }
+            }
+        }
+        List<InitiatePaymentRequest> payments = bulk.getPayments();
+        return Flux.range(0, payments.size())
+                .concatMap(index -> engine.recordExecution(payments.get(index).getEndToEndReference(), null,
+                        !accepted ? PaymentStatus.FAILED
+                                : duplicates.contains(index) ? PaymentStatus.REJECTED : PaymentStatus.SUBMITTED))
+                .then();
+    }
+
+    /**
+     * Whether an answer definitely rejects the bulk, rather than leaving open whether it was taken.
+     */
+    private static boolean isRejection(HttpStatusCode status) {
+        return status.is4xxClientError() && status.value() != HttpStatus.REQUEST_TIMEOUT.value()
+                && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private BulkPaymentResponse failed(BulkPaymentRequest bulk, String reason) {
+        log.debug("Bulk {} not accepted: {}", bulk.getId(), reason);
+        return BulkPaymentResponse.builder()
+                .id(bulk.getId())
+                .status("FAILED")
+                .acceptedCount(0)
+                .rejectedCount(bulk.getPayments().size())
+                .submittedAt(clock.instant())
+                .build();
+    }
+
+    private Window window(RailType railType, Instant now) {
+        BusinessDayCalendar calendar = calendars.getRailCalendars().get(railType);
+        if (calendar == null) {
+            return new Window(null, null);
+        }
+        return new Window(calendar.nextCutOff(now), calendar.processingDate(now));
+    }
+
+    private static InitiatePaymentRequest toInitiation(ScheduledPaymentResponse payment) {
+        return InitiatePaymentRequest.builder()
+                .amount(payment.getAmount())
+                .debtorAccount(payment.getDebtorAccount())
+                .creditorAccount(payment.getCreditorAccount())
+                .endToEndReference(payment.getScheduledPaymentId())
+                .remittanceInformation(payment.getRemittanceInformation())
+                .transactionType(payment.getTransactionType())
+                .requestedExecutionDate(payment.getExecutionDate())
+                .idempotencyKey(ScheduledPaymentEngine.idempotencyKey(payment.getScheduledPaymentId(),
+                        payment.getIdempotencyKey()))
+                .metadata(Map.of("scheduledPaymentId", payment.getScheduledPaymentId()))
+                .build();
+    }
+
+    private enum Outcome {
+        ACCEPTED,
+        REJECTED,
+        IN_DOUBT
+    }
+
+    private record Submission(BulkPaymentResponse response, Outcome outcome) {
+    }
+
+    private record Window(Instant cutOff, LocalDate processingDate) {
+    }
+
+    private record WindowKey(RailType railType, BankAccount debtorAccount, Window window) {
+    }
+
+    /**
+     * Builder collecting optimum bulk sizes per rail.
+     */
+    public static class ExecutionWindowBatcherBuilder {
+
+        private final Map<RailType, Integer> bulkSizes = new EnumMap<>(RailType.class);
+
+        /**
+         * Optimum bulk size of a rail.
+         */
+        public ExecutionWindowBatcherBuilder bulkSize(RailType railType, int size) {
+            bulkSizes.put(railType, size);
+            return this;
+        }
+
+        public ExecutionWindowBatcherBuilder bulkSizes(Map<RailType, Integer> sizes) {
+            bulkSizes.putAll(sizes);
+            return this;
+        }
+    }
+}
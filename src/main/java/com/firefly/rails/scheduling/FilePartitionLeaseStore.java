@@ -0,0 +1,190 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.exceptions.RailException;
+import com.firefly.rails.exceptions.RailFileFormatException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link PartitionLeaseStore} kept in one file shared by every node, e.g. on a shared volume or,
+ * in tests, in a temporary directory.
+ *
+ * <p>Every call reads the file, applies its change and writes it back while holding an exclusive
+ * {@link FileLock}, so processes see each other's changes atomically. Stores of the same file in
+ * one JVM additionally synchronise on a shared monitor, since file locks are held per process.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * PartitionCoordinator partitions = PartitionCoordinator.builder()
+ *         .leaseStore(new FilePartitionLeaseStore(Path.of("/shared/scheduler/leases")))
+ *         .nodeId(hostName)
+ *         .build();
+ * }</pre>
+ */
+public class FilePartitionLeaseStore implements PartitionLeaseStore {
+
+    private static final int MAGIC = 0x504C5332; // "PLS2"
+    private static final int MAGIC_V1 = 0x504C5331; // "PLS1", leases with a fencing token
+    private static final Map<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Object monitor;
+
+    public FilePartitionLeaseStore(Path file) {
+        this.file = file.toAbsolutePath().normalize();
+        this.monitor = MONITORS.computeIfAbsent(this.file, path -> new Object());
+    }
+
+    @Override
+    public Set<String> heartbeat(String nodeId, Instant now, Instant expiresAt) {
+        return update(state -> {
+            state.nodes.put(nodeId, expiresAt.toEpochMilli());
+            state.nodes.values().removeIf(expiry -> expiry <= now.toEpochMilli());
+            return new TreeSet<>(state.nodes.keySet());
+        });
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        update(state -> state.nodes.remove(nodeId));
+    }
+
+    @Override
+    public Map<Integer, Lease> acquire(String nodeId, Collection<Integer> partitions, Instant now, Instant expiresAt) {
+        return update(state -> {
+            Map<Integer, Lease> granted = new TreeMap<>();
+            for (int partition : partitions) {
+                Lease current = state.leases.get(partition);
+                boolean free = current == null || !current.expiresAt().isAfter(now);
+                if (!free && !current.owner().equals(nodeId)) {
+                    continue;
+                }
+                Lease lease = new Lease(partition, nodeId, expiresAt);
+                state.leases.put(partition, lease);
+                granted.put(partition, lease);
+            }
+            return granted;
+        });
+    }
+
+    @Override
+    public void release(String nodeId, Collection<Integer> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        update(state -> {
+            for (int partition : partitions) {
+                Lease current = state.leases.get(partition);
+                if (current != null && current.owner().equals(nodeId)) {
+                    state.leases.remove(partition);
+                }
+            }
+            return null;
+        });
+    }
+
+    private <T> T update(Function<State, T> change) {
+        synchronized (monitor) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    State state = read(channel);
+                    T result = change.apply(state);
+                    write(channel, state);
+                    return result;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new RailException("Could not update partition leases in " + file, e);
+            }
+        }
+    }
+
+    private State read(FileChannel channel) throws IOException {
+        State state = new State();
+        if (channel.size() == 0) {
+            return state;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new RailFileFormatException("Truncated partition lease file: " + file);
+            }
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        int magic = in.readInt();
+        if (magic != MAGIC && magic != MAGIC_V1) {
+            throw new RailFileFormatException("Not a partition lease file: " + file);
+        }
+        int nodes = in.readInt();
+        for (int i = 0; i < nodes; i++) {
+            state.nodes.put(in.readUTF(), in.readLong());
+        }
+        int leases = in.readInt();
+        for (int i = 0; i < leases; i++) {
+            int partition = in.readInt();
+            String owner = in.readUTF();
+            if (magic == MAGIC_V1) {
+                in.readLong();
+            }
+            state.leases.put(partition, new Lease(partition, owner, Instant.ofEpochMilli(in.readLong())));
+        }
+        return state;
+    }
+
+    private void write(FileChannel channel, State state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(state.nodes.size());
+        for (Map.Entry<String, Long> node : state.nodes.entrySet()) {
+            out.writeUTF(node.getKey());
+            out.writeLong(node.getValue());
+        }
+        out.writeInt(state.leases.size());
+        for (Lease lease : state.leases.values()) {
+            out.writeInt(lease.partition());
+            out.writeUTF(lease.owner());
+            out.writeLong(lease.expiresAt().toEpochMilli());
+        }
+        out.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+    }
+
+    private static final class State {
+        private final Map<String, Long> nodes = new TreeMap<>();
+        private final Map<Integer, Lease> leases = new TreeMap<>();
+    }
+}
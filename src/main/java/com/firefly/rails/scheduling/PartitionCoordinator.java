@@ -0,0 +1,290 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Spreads scheduled payments across scheduler nodes so that each is fired by exactly one node.
+ *
+ * <p>Scheduled payment ids are hashed into a fixed number of partitions with a jump consistent
+ * hash. Each partition is assigned to a live node by rendezvous hashing, and the node takes a
+ * time-bound lease on it in a shared {@link PartitionLeaseStore}. A node fires a payment only while
+ * it holds an unexpired lease on the payment's partition.
+ *
+ * <p>{@link #rebalance()}, run every third of the lease duration by {@link #start()}, renews the
+ * node's heartbeat and leases, hands over partitions that now belong to another node and takes
+ * over partitions assigned to it. Rendezvous hashing moves only the partitions of the node that
+ * joined or left:
+ * <ul>
+ *   <li>a joining node gets its partitions within two rebalance periods, once their owners have
+ *       released them;</li>
+ *   <li>the partitions of a node that shut down with {@link #close()} are taken over on the next
+ *       rebalance;</li>
+ *   <li>the partitions of a node that died are taken over once its leases expire.</li>
+ * </ul>
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * PartitionCoordinator partitions = PartitionCoordinator.builder()
+ *         .leaseStore(leaseStore)
+ *         .nodeId(hostName)
+ *         .partitions(64)
+ *         .leaseDuration(Duration.ofSeconds(15))
+ *         .build();
+ *
+ * ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+ *         .paymentRail(sepaRail)
+ *         .partitions(partitions)
+ *         .build();
+ *
+ * partitions.start();
+ * }</pre>
+ */
+@Slf4j
+public class PartitionCoordinator implements AutoCloseable {
+
+    private final PartitionLeaseStore leaseStore;
+    private final String nodeId;
+    private final int partitions;
+    private final Duration leaseDuration;
+    private final Clock clock;
+
+    private final List<PartitionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<Integer, PartitionLeaseStore.Lease> leases = Map.of();
+    private Disposable ticker;
+
+    /**
+     * @param leaseStore shared store of node heartbeats and partition leases
+     * @param nodeId identifier of this node, unique among the nodes sharing the lease store
+     * @param partitions number of partitions, the same on every node; 64 if not positive
+     * @param leaseDuration how long heartbeats and leases last; 15 seconds if {@code null}
+     * @param clock time source; the system clock if {@code null}
+     */
+    @Builder
+    private PartitionCoordinator(PartitionLeaseStore leaseStore, String nodeId, int partitions,
+                                 Duration leaseDuration, Clock clock) {
+        if (leaseStore == null) {
+            throw new IllegalArgumentException("Lease store must not be null");
+        }
+        if (nodeId == null || nodeId.isBlank()) {
+            throw new IllegalArgumentException("Node id must not be blank");
+        }
+        this.leaseStore = leaseStore;
+        this.nodeId = nodeId;
+        this.partitions = partitions > 0 ? partitions : 64;
+        this.leaseDuration = leaseDuration == null ? Duration.ofSeconds(15) : leaseDuration;
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+    }
+
+    /**
+     * Partition of a scheduled payment among a number of partitions.
+     */
+    public static int partitionOf(String scheduledPaymentId, int partitions) {
+        // jump consistent hash (Lamping and Veach)
+        long key = hash(scheduledPaymentId);
+        long bucket = -1;
+        long next = 0;
+        while (next < partitions) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    public int partitionOf(String scheduledPaymentId) {
+        return partitionOf(scheduledPaymentId, partitions);
+    }
+
+    /**
+     * Whether this node currently holds an unexpired lease on the partition of a payment.
+     */
+    public boolean owns(String scheduledPaymentId) {
+        PartitionLeaseStore.Lease lease = leases.get(partitionOf(scheduledPaymentId));
+        return lease != null && lease.expiresAt().isAfter(clock.instant());
+    }
+
+    /**
+     * Whether this node still holds the lease on the partition of a payment, even if it lapsed
+     * because a renewal is late. {@code false} once the partition was handed over or taken by
+     * another node.
+     */
+    public boolean holds(String scheduledPaymentId) {
+        return leases.containsKey(partitionOf(scheduledPaymentId));
+    }
+
+    /**
+     * Partitions this node holds an unexpired lease on.
+     */
+    public Set<Integer> ownedPartitions() {
+        Instant now = clock.instant();
+        Set<Integer> owned = new TreeSet<>();
+        leases.forEach((partition, lease) -> {
+            if (lease.expiresAt().isAfter(now)) {
+                owned.add(partition);
+            }
+        });
+        return owned;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public void addListener(PartitionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Renew this node's heartbeat and leases, release the partitions assigned to other nodes and
+     * acquire the ones assigned to this node, then notify listeners of the partitions gained and lost.
+     * A partition whose lease had lapsed before it was renewed counts as gained, since another node
+     * may have held it in between.
+     *
+     * @return partitions held after the rebalance
+     */
+    public synchronized Set<Integer> rebalance() {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(leaseDuration);
+        Set<String> liveNodes = new HashSet<>(leaseStore.heartbeat(nodeId, now, expiresAt));
+        liveNodes.add(nodeId);
+
+        List<Integer> assigned = new ArrayList<>();
+        List<Integer> handedOver = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            if (nodeId.equals(assignee(partition, liveNodes))) {
+                assigned.add(partition);
+            } else if (leases.containsKey(partition)) {
+                handedOver.add(partition);
+            }
+        }
+        leaseStore.release(nodeId, handedOver);
+        Map<Integer, PartitionLeaseStore.Lease> granted = leaseStore.acquire(nodeId, assigned, now, expiresAt);
+
+        Set<Integer> revoked = new TreeSet<>(leases.keySet());
+        revoked.removeAll(granted.keySet());
+        Set<Integer> gained = new TreeSet<>(granted.keySet());
+        leases.forEach((partition, lease) -> {
+            if (lease.expiresAt().isAfter(now)) {
+                gained.remove(partition);
+            }
+        });
+        leases = Map.copyOf(granted);
+        if (!revoked.isEmpty() || !gained.isEmpty()) {
+            log.info("Node {} holds {} of {} partitions ({} gained, {} lost, {} live nodes)",
+                    nodeId, granted.size(), partitions, gained.size(), revoked.size(), liveNodes.size());
+        }
+        for (PartitionListener listener : listeners) {
+            if (!revoked.isEmpty()) {
+                listener.onPartitionsRevoked(revoked);
+            }
+            if (!gained.isEmpty()) {
+                listener.onPartitionsAssigned(gained);
+            }
+        }
+        return granted.keySet();
+    }
+
+    /**
+     * Rebalance every third of the lease duration until {@link #close()}.
+     */
+    public synchronized void start() {
+        if (ticker != null && !ticker.isDisposed()) {
+            throw new IllegalStateException("Partition coordinator already started");
+        }
+        ticker = Flux.interval(Duration.ZERO, leaseDuration.dividedBy(3), Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .subscribe(ignored -> {
+                    try {
+                        rebalance();
+                    } catch (RuntimeException e) {
+                        log.warn("Partition rebalance of node {} failed: {}", nodeId, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Stop rebalancing, release every lease and leave, so that other nodes take over at once.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.dispose();
+        }
+        Set<Integer> released = leases.keySet();
+        leases = Map.of();
+        leaseStore.release(nodeId, released);
+        leaseStore.leave(nodeId);
+        if (!released.isEmpty()) {
+            for (PartitionListener listener : listeners) {
+                listener.onPartitionsRevoked(released);
+            }
+        }
+    }
+
+    private static String assignee(int partition, Set<String> nodes) {
+        // rendezvous hashing: the node with the highest weight for the partition wins
+        String winner = null;
+        long best = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long weight = mix(hash(node) ^ (partition * 0x9E3779B97F4A7C15L));
+            if (winner == null || weight > best || (weight == best && node.compareTo(winner) < 0)) {
+                winner = node;
+                best = weight;
+            }
+        }
+        return winner;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Receives the partitions a node gains and loses.
+     */
+    public interface PartitionListener {
+
+        default void onPartitionsAssigned(Set<Integer> partitions) {
+        }
+
+        default void onPartitionsRevoked(Set<Integer> partitions) {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared record of which scheduler nodes are alive and which node holds each partition.
+ *
+ * <p>Implementations must apply every call atomically with respect to every other node, e.g. in
+ * one database transaction or under one file lock. Expiry is judged with the {@code now} passed by
+ * the caller, so nodes are expected to run with synchronised clocks.
+ *
+ * @see PartitionCoordinator
+ * @see FilePartitionLeaseStore
+ */
+public interface PartitionLeaseStore {
+
+    /**
+     * Announce that a node is alive until an instant.
+     *
+     * @return every node alive at {@code now}, including the caller
+     */
+    Set<String> heartbeat(String nodeId, Instant now, Instant expiresAt);
+
+    /**
+     * Remove a node from the live nodes, e.g. on a graceful shutdown.
+     */
+    void leave(String nodeId);
+
+    /**
+     * Acquire or renew leases. A partition is granted when it has no lease, its lease expired
+     * before {@code now}, or the caller already holds it.
+     *
+     * @return the leases held by the caller after the call, by partition
+     */
+    Map<Integer, Lease> acquire(String nodeId, Collection<Integer> partitions, Instant now, Instant expiresAt);
+
+    /**
+     * Give up leases held by a node so that another node can take them at once.
+     */
+    void release(String nodeId, Collection<Integer> partitions);
+
+    /**
+     * Lease of a partition.
+     */
+    record Lease(int partition, String owner, Instant expiresAt) {
+    }
+}
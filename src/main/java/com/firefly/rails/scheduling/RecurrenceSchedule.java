@@ -0,0 +1,341 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.calendar.BusinessDayCalendar;
+import com.firefly.rails.calendar.BusinessDayConvention;
+import com.firefly.rails.domain.railspecific.UPISpecific;
+import com.firefly.rails.dtos.scheduled.CreateRecurringPaymentRequest;
+import com.firefly.rails.dtos.scheduled.RecurringPaymentResponse;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily expanded execution dates of a recurring payment.
+ *
+ * <p>The n-th date is computed directly from the start date - {@code start + n * interval} days or
+ * months - rather than from the previous date, so a schedule starting on 31 January runs on 28
+ * February and then 31 March instead of drifting to the 28th. With {@code endOfMonth} a schedule
+ * starting on the last day of a month stays on the last day of every month, and with a
+ * {@code dayOfMonth} every monthly date falls on that day, or on the month's last day in shorter
+ * months, whatever day the schedule starts on. Dates are then moved
+ * onto business days of an optional {@link BusinessDayCalendar} with a
+ * {@link BusinessDayConvention}; a date rolled onto the previous execution date is merged with it.
+ *
+ * <p>Nothing is materialized: {@link #iterator()} computes one date at a time, and
+ * {@link #occurrence(long)} and {@link #nextExecutionDate(LocalDate)} jump straight to the right
+ * occurrence with integer arithmetic, so they cost the same for the 3rd and the 3000th execution.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * RecurrenceSchedule schedule = RecurrenceSchedule.of(request)
+ *         .withCalendar(calendars.forRail(RailType.SEPA), BusinessDayConvention.MODIFIED_FOLLOWING);
+ *
+ * LocalDate next = schedule.nextExecutionDate(standingOrder).orElse(null);
+ * }</pre>
+ */
+@Getter
+public final class RecurrenceSchedule implements Iterable<LocalDate> {
+
+    /** Largest distance a business-day convention moves a date */
+    private static final int MAX_ROLL_DAYS = 14;
+
+    private final LocalDate startDate;
+    private final ChronoUnit unit;
+    private final int interval;
+    private final LocalDate endDate;
+    private final Integer numberOfPayments;
+    private final boolean endOfMonth;
+    private final Integer dayOfMonth;
+    private final BusinessDayCalendar calendar;
+    private final BusinessDayConvention convention;
+
+    /**
+     * @param startDate first unadjusted execution date
+     * @param unit {@link ChronoUnit#DAYS}, {@code WEEKS}, {@code MONTHS} or {@code YEARS}
+     * @param interval units between executions
+     * @param endDate last possible unadjusted execution date, or {@code null}
+     * @param numberOfPayments number of executions, or {@code null}
+     * @param endOfMonth keep a month-end start date on month ends
+     * @param dayOfMonth day of the month of every monthly date, capped at the month's length, or {@code null}
+     *                   for the start date's day
+     * @param calendar business days to roll onto, or {@code null}
+     * @param convention how dates are rolled; following if {@code null}
+     */
+    @Builder(toBuilder = true)
+    private RecurrenceSchedule(LocalDate startDate, ChronoUnit unit, int interval, LocalDate endDate,
+                               Integer numberOfPayments, boolean endOfMonth, Integer dayOfMonth,
+                               BusinessDayCalendar calendar, BusinessDayConvention convention) {
+        if (startDate == null || unit == null || interval <= 0) {
+            throw new IllegalArgumentException("Recurrence needs a start date, a unit and a positive interval");
+        }
+        if (dayOfMonth != null && (dayOfMonth < 1 || dayOfMonth > 31)) {
+            throw new IllegalArgumentException("Day of month must be between 1 and 31, was " + dayOfMonth);
+        }
+        this.startDate = startDate;
+        this.unit = switch (unit) {
+            case DAYS, MONTHS -> unit;
+            case WEEKS -> ChronoUnit.DAYS;
+            case YEARS -> ChronoUnit.MONTHS;
+            default -> throw new IllegalArgumentException("Unsupported recurrence unit " + unit);
+        };
+        this.interval = switch (unit) {
+            case WEEKS -> Math.multiplyExact(interval, 7);
+            case YEARS -> Math.multiplyExact(interval, 12);
+            default -> interval;
+        };
+        this.endDate = endDate;
+        this.numberOfPayments = numberOfPayments;
+        this.endOfMonth = endOfMonth && startDate.equals(startDate.with(TemporalAdjusters.lastDayOfMonth()));
+        this.dayOfMonth = dayOfMonth;
+        this.calendar = calendar;
+        this.convention = convention == null ? BusinessDayConvention.FOLLOWING : convention;
+    }
+
+    /**
+     * Schedule of a standing order request.
+     */
+    public static RecurrenceSchedule of(CreateRecurringPaymentRequest request) {
+        return of(request.getFrequency(), request.getStartDate(), request.getEndDate(), request.getNumberOfPayments(),
+                Boolean.TRUE.equals(request.getEndOfMonth()));
+    }
+
+    /**
+     * Schedule of an existing standing order.
+     */
+    public static RecurrenceSchedule of(RecurringPaymentResponse response) {
+        return of(response.getFrequency(), response.getStartDate(), response.getEndDate(),
+                response.getNumberOfPayments(), Boolean.TRUE.equals(response.getEndOfMonth()));
+    }
+
+    public static RecurrenceSchedule of(CreateRecurringPaymentRequest.RecurrenceFrequency frequency,
+                                        LocalDate startDate, LocalDate endDate, Integer numberOfPayments) {
+        return of(frequency, startDate, endDate, numberOfPayments, false);
+    }
+
+    /**
+     * @param endOfMonth keep a schedule starting on a month's last day on the last day of every month
+     */
+    public static RecurrenceSchedule of(CreateRecurringPaymentRequest.RecurrenceFrequency frequency,
+                                        LocalDate startDate, LocalDate endDate, Integer numberOfPayments,
+                                        boolean endOfMonth) {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Recurrence frequency must not be null");
+        }
+        RecurrenceScheduleBuilder builder = builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .numberOfPayments(numberOfPayments)
+                .endOfMonth(endOfMonth);
+        return switch (frequency) {
+            case DAILY -> builder.unit(ChronoUnit.DAYS).interval(1).build();
+            case WEEKLY -> builder.unit(ChronoUnit.WEEKS).interval(1).build();
+            case BIWEEKLY -> builder.unit(ChronoUnit.WEEKS).interval(2).build();
+            case MONTHLY -> builder.unit(ChronoUnit.MONTHS).interval(1).build();
+            case QUARTERLY -> builder.unit(ChronoUnit.MONTHS).interval(3).build();
+            case YEARLY -> builder.unit(ChronoUnit.YEARS).interval(1).build();
+        };
+    }
+
+    /**
+     * Schedule of a UPI AutoPay mandate. The rule value is the day of the week (1 = Monday) for
+     * weekly and fortnightly rules, and the day of the month, capped at the month's length, for
+     * monthly and longer rules; the first execution is the first such day on or after the start.
+     *
+     * @throws IllegalArgumentException for {@code AS_PRESENTED} rules, which have no schedule
+     */
+    public static RecurrenceSchedule of(UPISpecific.RecurrenceRule rule, LocalDate startDate, LocalDate endDate) {
+        UPISpecific.RecurrencePattern pattern = rule.getPattern();
+        Integer value = rule.getValue();
+        RecurrenceScheduleBuilder builder = builder().endDate(endDate);
+        return switch (pattern) {
+            case DAILY -> builder.startDate(startDate).unit(ChronoUnit.DAYS).interval(1).build();
+            case WEEKLY, FORTNIGHTLY -> builder
+                    .startDate(value == null ? startDate
+                            : startDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.of(value))))
+                    .unit(ChronoUnit.WEEKS)
+                    .interval(pattern == UPISpecific.RecurrencePattern.WEEKLY ? 1 : 2)
+                    .build();
+            case MONTHLY, QUARTERLY, HALF_YEARLY, YEARLY -> builder
+                    .startDate(value == null ? startDate : firstDayOfMonthOnOrAfter(startDate, value))
+                    .dayOfMonth(value == null ? null : Math.min(Math.max(value, 1), 31))
+                    .unit(ChronoUnit.MONTHS)
+                    .interval(switch (pattern) {
+                        case QUARTERLY -> 3;
+                        case HALF_YEARLY -> 6;
+                        case YEARLY -> 12;
+                        default -> 1;
+                    })
+                    .build();
+            case AS_PRESENTED -> throw new IllegalArgumentException("AS_PRESENTED mandates have no schedule");
+        };
+    }
+
+    /**
+     * Same schedule rolled onto business days of a calendar.
+     */
+    public RecurrenceSchedule withCalendar(BusinessDayCalendar calendar, BusinessDayConvention convention) {
+        return toBuilder().calendar(calendar).convention(convention).build();
+    }
+
+    /**
+     * First execution date strictly after a date, or empty if the schedule has ended by then.
+     */
+    public Optional<LocalDate> nextExecutionDate(LocalDate after) {
+        long n = firstIndexOnOrAfter(after.minusDays(calendar == null ? 0 : MAX_ROLL_DAYS));
+        LocalDate previous = n == 0 ? null : adjusted(unadjusted(n - 1));
+        for (; hasOccurrence(n); n++) {
+            LocalDate date = adjusted(unadjusted(n));
+            if (date.isAfter(after) && (previous == null || date.isAfter(previous))) {
+                return Optional.of(date);
+            }
+            previous = date;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Execution date of the n-th occurrence, counting from zero, or empty if the schedule has fewer
+     * occurrences. Occurrences merged by a business-day roll are counted separately.
+     */
+    public Optional<LocalDate> occurrence(long n) {
+        return n < 0 || !hasOccurrence(n) ? Optional.empty() : Optional.of(adjusted(unadjusted(n)));
+    }
+
+    /**
+     * Next execution date of an active standing order: the first execution date after its last
+     * execution. Without a last execution date, the execution dates it has already executed are
+     * skipped, counting dates merged by a business-day roll once.
+     */
+    public Optional<LocalDate> nextExecutionDate(RecurringPaymentResponse response) {
+        if (!response.isActive()) {
+            return Optional.empty();
+        }
+        if (response.getLastExecutionDate() != null) {
+            return nextExecutionDate(response.getLastExecutionDate());
+        }
+        return stream().skip(Math.max(response.getExecutionCount(), 0)).findFirst();
+    }
+
+    @Override
+    public Iterator<LocalDate> iterator() {
+        return new Iterator<>() {
+            private long n;
+            private LocalDate previous;
+            private LocalDate next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LocalDate next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LocalDate current = next;
+                previous = current;
+                next = advance();
+                return current;
+            }
+
+            private LocalDate advance() {
+                while (hasOccurrence(n)) {
+                    LocalDate date = adjusted(unadjusted(n++));
+                    if (previous == null || date.isAfter(previous)) {
+                        return date;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Execution dates as a lazy stream; unbounded if the schedule has no end.
+     */
+    public Stream<LocalDate> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    private boolean hasOccurrence(long n) {
+        if (numberOfPayments != null && n >= numberOfPayments) {
+            return false;
+        }
+        return endDate == null || !unadjusted(n).isAfter(endDate);
+    }
+
+    private LocalDate unadjusted(long n) {
+        if (unit == ChronoUnit.DAYS) {
+            return startDate.plusDays(n * interval);
+        }
+        if (dayOfMonth != null) {
+            LocalDate month = startDate.withDayOfMonth(1).plusMonths(n * interval);
+            return month.withDayOfMonth(Math.min(dayOfMonth, month.lengthOfMonth()));
+        }
+        LocalDate date = startDate.plusMonths(n * interval);
+        return endOfMonth ? date.with(TemporalAdjusters.lastDayOfMonth()) : date;
+    }
+
+    private LocalDate adjusted(LocalDate date) {
+        return calendar == null ? date : convention.adjust(date, calendar);
+    }
+
+    /**
+     * Smallest occurrence index whose unadjusted date is on or after a date.
+     */
+    private long firstIndexOnOrAfter(LocalDate date) {
+        if (!date.isAfter(startDate)) {
+            return 0;
+        }
+        if (unit == ChronoUnit.DAYS) {
+            long days = ChronoUnit.DAYS.between(startDate, date);
+            return (days + interval - 1) / interval;
+        }
+        long n = ChronoUnit.MONTHS.between(startDate.withDayOfMonth(1), date.withDayOfMonth(1)) / interval;
+        while (unadjusted(n).isBefore(date)) {
+            n++;
+        }
+        while (n > 0 && !unadjusted(n - 1).isBefore(date)) {
+            n--;
+        }
+        return n;
+    }
+
+    private static LocalDate firstDayOfMonthOnOrAfter(LocalDate date, int dayOfMonth) {
+        LocalDate candidate = date.withDayOfMonth(Math.min(dayOfMonth, date.lengthOfMonth()));
+        if (candidate.isBefore(date)) {
+            LocalDate nextMonth = date.plusMonths(1);
+            candidate = nextMonth.withDayOfMonth(Math.min(dayOfMonth, nextMonth.lengthOfMonth()));
+        }
+        return candidate;
+    }
+}
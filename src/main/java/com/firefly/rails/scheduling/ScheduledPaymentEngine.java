@@ -0,0 +1,524 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.domain.IdempotencyKey;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.dtos.scheduled.CreateScheduledPaymentRequest;
+import com.firefly.rails.dtos.scheduled.PaymentExecutionHistory;
+import com.firefly.rails.dtos.scheduled.ScheduledPaymentResponse;
+import com.firefly.rails.dtos.scheduled.UpdateScheduledPaymentRequest;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process execution engine for scheduled payments.
+ *
+ * <p>Pending payments are held in a {@link TimingWheel} keyed by scheduled payment id, so creating,
+ * cancelling and rescheduling a payment is O(1) however many millions are pending, and nothing is
+ * ever scanned or polled. Every tick the wheel is advanced to the current time; the payments that
+ * fell due are initiated through {@link PaymentRailPort#initiatePayment(InitiatePaymentRequest)} in
+ * batches of {@code batchSize}, with at most {@code concurrency} requests in flight, and each
+ * outcome is reported as a {@link PaymentExecutionHistory}.
+ *
+ * <p>A payment is due at its {@code executionDate} and {@code executionTime} in the engine's zone,
+ * or at {@code defaultExecutionTime} when it has no execution time. Each initiation carries the
+ * request's idempotency key, or {@code scheduled-<id>} when it has none, so a retried initiation
+ * is not executed twice by the rail.
+ *
+ * <p>With a {@link ScheduledPaymentWriteAheadLog} every transition is durable before it takes
+ * effect, a payment is recorded as fired before it is initiated, and {@link #recover()} restores
+ * the engine after a restart. A payment that cannot be recorded as fired is put back and tried
+ * again on the next tick; one whose outcome cannot be recorded stays fired in the log, so
+ * {@link #recover()} initiates it again with the same idempotency key. Neither stops the ticker.
+ *
+ * <p>With a {@link PartitionCoordinator} several nodes share the scheduled payments: a due payment
+ * is fired only if this node holds an unexpired lease on its partition. A payment whose lease
+ * lapsed because a renewal is late is deferred to the next tick and stays pending; one whose
+ * partition was handed over to another node is dropped.
+ *
+ * <p>The engine remembers the payments it fired until {@link #retainFired(Collection)} drops them,
+ * so that a {@link SchedulingScheduledPaymentPort} does not schedule them again while the adapter
+ * still lists them as pending. This memory does not survive a restart; a payment the adapter still
+ * lists as pending then is initiated again with the same idempotency key.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+ *         .paymentRail(sepaRail)
+ *         .zone(ZoneId.of("Europe/Madrid"))
+ *         .defaultExecutionTime(LocalTime.of(6, 0))
+ *         .build();
+ *
+ * engine.schedule(scheduledPaymentId, request);
+ * engine.start(execution -> history.append(execution));
+ * }</pre>
+ */
+@Slf4j
+public class ScheduledPaymentEngine implements AutoCloseable {
+
+    private final PaymentRailPort paymentRail;
+    private final ZoneId zone;
+    private final Clock clock;
+    private final long tickMillis;
+    private final LocalTime defaultExecutionTime;
+    private final int batchSize;
+    private final int concurrency;
+    private final ScheduledPaymentWriteAheadLog writeAheadLog;
+    private final PartitionCoordinator partitions;
+
+    private final TimingWheel<CreateScheduledPaymentRequest> wheel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<String> fired = ConcurrentHashMap.newKeySet();
+    private volatile Disposable ticker;
+
+    /**
+     * @param paymentRail port payments are initiated through
+     * @param zone zone of execution dates and times; UTC if {@code null}
+     * @param clock time source; the system clock if {@code null}
+     * @param tick wheel resolution; one second if {@code null}
+     * @param defaultExecutionTime execution time of payments without one; start of day if {@code null}
+     * @param batchSize payments initiated per batch; 500 if not positive
+     * @param concurrency initiations in flight; 32 if not positive
+     * @param writeAheadLog log every transition is made durable in before it takes effect, or {@code null}
+     * @param partitions coordinator deciding which payments this node fires, or {@code null} for all
+     */
+    @Builder
+    private ScheduledPaymentEngine(PaymentRailPort paymentRail, ZoneId zone, Clock clock, Duration tick,
+                                   LocalTime defaultExecutionTime, int batchSize, int concurrency,
+                                   ScheduledPaymentWriteAheadLog writeAheadLog, PartitionCoordinator partitions) {
+        if (paymentRail == null) {
+            throw new IllegalArgumentException("Payment rail must not be null");
+        }
+        this.paymentRail = paymentRail;
+        this.zone = zone == null ? ZoneOffset.UTC : zone;
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+        this.tickMillis = tick == null ? 1000 : Math.max(1, tick.toMillis());
+        this.defaultExecutionTime = defaultExecutionTime == null ? LocalTime.MIDNIGHT : defaultExecutionTime;
+        this.batchSize = batchSize > 0 ? batchSize : 500;
+        this.concurrency = concurrency > 0 ? concurrency : 32;
+        this.writeAheadLog = writeAheadLog;
+        this.partitions = partitions;
+        this.wheel = new TimingWheel<>(Math.floorDiv(this.clock.millis(), tickMillis));
+    }
+
+    /**
+     * Schedule a payment at its execution date and time, replacing any pending schedule of the id.
+     *
+     * @throws IllegalArgumentException if the request has no execution date
+     */
+    public void schedule(String scheduledPaymentId, CreateScheduledPaymentRequest request) {
+        schedule(scheduledPaymentId, executionInstant(request), request);
+    }
+
+    /**
+     * Schedule a payment at an instant, replacing any pending schedule of the id. With a write-ahead
+     * log this blocks until the payment is durable.
+     */
+    public void schedule(String scheduledPaymentId, Instant dueAt, CreateScheduledPaymentRequest request) {
+        if (writeAheadLog != null) {
+            writeAheadLog.created(scheduledPaymentId, request).join();
+        }
+        lock.lock();
+        try {
+            wheel.schedule(scheduledPaymentId, toTick(dueAt), request);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a pending payment.
+     *
+     * @return {@code false} if it is not pending, e.g. because it already fired
+     */
+    public boolean cancel(String scheduledPaymentId) {
+        lock.lock();
+        try {
+            if (wheel.cancel(scheduledPaymentId) == null) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.cancelled(scheduledPaymentId).join();
+        }
+        return true;
+    }
+
+    /**
+     * Apply an update to a pending payment, moving it if its execution date changed.
+     *
+     * @return {@code false} if it is not pending
+     */
+    public boolean reschedule(UpdateScheduledPaymentRequest update) {
+        CreateScheduledPaymentRequest updated;
+        lock.lock();
+        try {
+            CreateScheduledPaymentRequest current = wheel.get(update.getScheduledPaymentId());
+            if (current == null) {
+                return false;
+            }
+            updated = CreateScheduledPaymentRequest.builder()
+                    .amount(update.getNewAmount() != null ? update.getNewAmount() : current.getAmount())
+                    .debtorAccount(current.getDebtorAccount())
+                    .creditorAccount(current.getCreditorAccount())
+                    .remittanceInformation(update.getNewRemittanceInfo() != null
+                            ? update.getNewRemittanceInfo() : current.getRemittanceInformation())
+                    .transactionType(current.getTransactionType())
+                    .executionDate(update.getNewExecutionDate() != null
+                            ? update.getNewExecutionDate() : current.getExecutionDate())
+                    .executionTime(current.getExecutionTime())
+                    .idempotencyKey(current.getIdempotencyKey())
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.updated(update.getScheduledPaymentId(), updated).join();
+        }
+        lock.lock();
+        try {
+            return wheel.reschedule(update.getScheduledPaymentId(), toTick(executionInstant(updated)), updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reload the payments of the write-ahead log: pending payments are scheduled again, and payments
+     * that had fired but whose outcome was never recorded are initiated again with their original
+     * idempotency key.
+     *
+     * @return outcome of the re-initiated payments
+     */
+    public Flux<PaymentExecutionHistory> recover() {
+        if (writeAheadLog == null) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            List<ScheduledPaymentWriteAheadLog.PendingPayment> inDoubt = new ArrayList<>();
+            lock.lock();
+            try {
+                for (ScheduledPaymentWriteAheadLog.PendingPayment payment : writeAheadLog.pending()) {
+                    if (payment.fired()) {
+                        fired.add(payment.scheduledPaymentId());
+                        inDoubt.add(payment);
+                    } else {
+                        Instant dueAt = payment.request().getExecutionDate() == null
+                                ? clock.instant() : executionInstant(payment.request());
+                        wheel.schedule(payment.scheduledPaymentId(), toTick(dueAt), payment.request());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            log.info("Recovered scheduled payments: {} pending, {} in doubt", pendingCount(), inDoubt.size());
+            return Flux.fromIterable(inDoubt)
+                    .flatMap(payment -> initiate(payment.scheduledPaymentId(), payment.request()), concurrency);
+        });
+    }
+
+    /**
+     * Record the outcome of a payment taken with {@link #takeDue(Instant)}.
+     */
+    public Mono<Void> recordExecution(String scheduledPaymentId, String paymentId, PaymentStatus status) {
+        return writeAheadLog == null ? Mono.empty()
+                : Mono.fromFuture(() -> writeAheadLog.executed(scheduledPaymentId, paymentId, status));
+    }
+
+    /**
+     * When a pending payment is due, at tick resolution.
+     */
+    public Optional<Instant> dueAt(String scheduledPaymentId) {
+        lock.lock();
+        try {
+            long deadline = wheel.deadline(scheduledPaymentId);
+            return deadline < 0 ? Optional.empty() : Optional.of(Instant.ofEpochMilli(deadline * tickMillis));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether this node fires a payment, i.e. it has no partition coordinator or holds the lease on
+     * the payment's partition.
+     */
+    public boolean owns(String scheduledPaymentId) {
+        return partitions == null || partitions.owns(scheduledPaymentId);
+    }
+
+    /**
+     * Whether this engine fired a payment, as far as it still remembers.
+     */
+    public boolean hasFired(String scheduledPaymentId) {
+        return fired.contains(scheduledPaymentId);
+    }
+
+    /**
+     * Forget the fired payments other than the given ones, e.g. all that the adapter no longer lists
+     * as pending.
+     */
+    public void retainFired(Collection<String> scheduledPaymentIds) {
+        fired.retainAll(scheduledPaymentIds instanceof Set<?> ? scheduledPaymentIds : new HashSet<>(scheduledPaymentIds));
+    }
+
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Initiate every payment due by now.
+     */
+    public Flux<PaymentExecutionHistory> fireDue() {
+        return fireDue(clock.instant());
+    }
+
+    /**
+     * Initiate every payment due by an instant. Payments are removed from the engine when they fall
+     * due, before they are initiated, so each fires once.
+     */
+    public Flux<PaymentExecutionHistory> fireDue(Instant now) {
+        return Flux.defer(() -> {
+            List<Map.Entry<String, CreateScheduledPaymentRequest>> due = advanceTo(now);
+            if (due.isEmpty()) {
+                return Flux.empty();
+            }
+            log.debug("{} scheduled payments due at {}", due.size(), now);
+            return Flux.fromIterable(due)
+                    .filterWhen(entry -> claim(entry, now))
+                    .buffer(batchSize)
+                    .concatMap(batch -> Flux.fromIterable(batch)
+                            .flatMap(entry -> execute(entry, now), concurrency));
+        });
+    }
+
+    /**
+     * Remove every payment due by an instant without initiating it, for callers that submit due
+     * payments themselves, e.g. in bulks through an {@link ExecutionWindowBatcher}. With a
+     * write-ahead log each payment is recorded as fired before it is emitted, and its outcome should
+     * be recorded with {@link #recordExecution(String, String, PaymentStatus)}.
+     */
+    public Flux<ScheduledPaymentResponse> takeDue(Instant now) {
+        return Flux.defer(() -> Flux.fromIterable(advanceTo(now)))
+                .filterWhen(entry -> claim(entry, now))
+                .filterWhen(entry -> markFired(entry, now))
+                .map(entry -> {
+                    CreateScheduledPaymentRequest request = entry.getValue();
+                    return ScheduledPaymentResponse.builder()
+                            .scheduledPaymentId(entry.getKey())
+                            .amount(request.getAmount())
+                            .debtorAccount(request.getDebtorAccount())
+                            .creditorAccount(request.getCreditorAccount())
+                            .remittanceInformation(request.getRemittanceInformation())
+                            .transactionType(request.getTransactionType())
+                            .executionDate(request.getExecutionDate())
+                            .executionTime(request.getExecutionTime())
+                            .idempotencyKey(idempotencyKey(entry.getKey(), request.getIdempotencyKey()))
+                            .status(ScheduledPaymentResponse.ScheduledPaymentStatus.EXECUTING)
+                            .build();
+                });
+    }
+
+    /**
+     * Fire due payments on every tick until {@link #close()}.
+     *
+     * @param onExecution receives the outcome of every initiated payment
+     */
+    public synchronized void start(Consumer<PaymentExecutionHistory> onExecution) {
+        if (ticker != null && !ticker.isDisposed()) {
+            throw new IllegalStateException("Scheduled payment engine already started");
+        }
+        ticker = Flux.interval(Duration.ofMillis(tickMillis))
+                .onBackpressureDrop()
+                .concatMap(ignored -> fireDue().onErrorResume(error -> {
+                    log.error("Scheduled payment engine tick failed", error);
+                    return Flux.empty();
+                }), 1)
+                .subscribe(execution -> {
+                    try {
+                        onExecution.accept(execution);
+                    } catch (RuntimeException e) {
+                        log.warn("Execution listener failed for scheduled payment {}: {}",
+                                execution.getScheduledPaymentId(), e.getMessage());
+                    }
+                }, error -> log.error("Scheduled payment engine stopped", error));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.dispose();
+        }
+    }
+
+    private List<Map.Entry<String, CreateScheduledPaymentRequest>> advanceTo(Instant now) {
+        List<Map.Entry<String, CreateScheduledPaymentRequest>> due = new ArrayList<>();
+        lock.lock();
+        try {
+            wheel.advanceTo(Math.floorDiv(now.toEpochMilli(), tickMillis), (id, request) -> due.add(Map.entry(id, request)));
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    private Mono<Boolean> claim(Map.Entry<String, CreateScheduledPaymentRequest> entry, Instant now) {
+        String scheduledPaymentId = entry.getKey();
+        if (owns(scheduledPaymentId)) {
+            return Mono.just(true);
+        }
+        if (partitions.holds(scheduledPaymentId)) {
+            log.debug("Lease on the partition of scheduled payment {} lapsed, deferring it", scheduledPaymentId);
+            defer(scheduledPaymentId, entry.getValue(), now);
+            return Mono.just(false);
+        }
+        log.debug("Scheduled payment {} belongs to another node's partition", scheduledPaymentId);
+        return writeAheadLog == null ? Mono.just(false)
+                : Mono.fromFuture(() -> writeAheadLog.cancelled(scheduledPaymentId))
+                        .thenReturn(false)
+                        .onErrorResume(error -> {
+                            // the owner fires it; a stale log entry is dropped again on recovery
+                            log.warn("Could not drop scheduled payment {} of another partition from the log: {}",
+                                    scheduledPaymentId, error.getMessage());
+                            return Mono.just(false);
+                        });
+    }
+
+    private void defer(String scheduledPaymentId, CreateScheduledPaymentRequest request, Instant now) {
+        lock.lock();
+        try {
+            if (wheel.get(scheduledPaymentId) == null) {
+                wheel.schedule(scheduledPaymentId, Math.floorDiv(now.toEpochMilli(), tickMillis) + 1, request);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Mono<PaymentExecutionHistory> execute(Map.Entry<String, CreateScheduledPaymentRequest> entry, Instant now) {
+        return markFired(entry, now)
+                .filter(Boolean::booleanValue)
+                .flatMap(fired -> initiate(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Record a payment as fired; if that fails it is put back for the next tick.
+     *
+     * @return whether the payment may be handed to the rail
+     */
+    private Mono<Boolean> markFired(Map.Entry<String, CreateScheduledPaymentRequest> entry, Instant now) {
+        if (writeAheadLog == null) {
+            fired.add(entry.getKey());
+            return Mono.just(true);
+        }
+        return Mono.fromFuture(() -> writeAheadLog.fired(entry.getKey()))
+                .then(Mono.fromRunnable(() -> fired.add(entry.getKey())))
+                .thenReturn(true)
+                .onErrorResume(error -> {
+                    log.error("Could not record scheduled payment {} as fired, retrying on the next tick: {}",
+                            entry.getKey(), error.getMessage());
+                    defer(entry.getKey(), entry.getValue(), now);
+                    return Mono.just(false);
+                });
+    }
+
+    private Mono<PaymentExecutionHistory> initiate(String scheduledPaymentId, CreateScheduledPaymentRequest request) {
+        IdempotencyKey idempotencyKey = idempotencyKey(scheduledPaymentId, request.getIdempotencyKey());
+        InitiatePaymentRequest initiation = InitiatePaymentRequest.builder()
+                .amount(request.getAmount())
+                .debtorAccount(request.getDebtorAccount())
+                .creditorAccount(request.getCreditorAccount())
+                .remittanceInformation(request.getRemittanceInformation())
+                .transactionType(request.getTransactionType())
+                .requestedExecutionDate(request.getExecutionDate())
+                .idempotencyKey(idempotencyKey)
+                .metadata(Map.of("scheduledPaymentId", scheduledPaymentId))
+                .build();
+        PaymentExecutionHistory.PaymentExecutionHistoryBuilder history = PaymentExecutionHistory.builder()
+                .executionId(idempotencyKey.getKey())
+                .scheduledPaymentId(scheduledPaymentId)
+                .amount(request.getAmount());
+        return Mono.defer(() -> paymentRail.initiatePayment(initiation))
+                .map(response -> {
+                    PaymentResponse body = response.getBody();
+                    if (!response.getStatusCode().is2xxSuccessful() || body == null) {
+                        return history.status(PaymentStatus.FAILED)
+                                .failureReason("Rail answered " + response.getStatusCode().value())
+                                .executedAt(clock.instant())
+                                .build();
+                    }
+                    return history.paymentId(body.getPaymentId())
+                            .status(body.getStatus())
+                            .failureReason(body.getStatusReason())
+                            .executedAt(clock.instant())
+                            .build();
+                })
+                .onErrorResume(error -> {
+                    log.warn("Scheduled payment {} failed: {}", scheduledPaymentId, error.getMessage());
+                    return Mono.just(history.status(PaymentStatus.FAILED)
+                            .failureReason(error.getMessage())
+                            .executedAt(clock.instant())
+                            .build());
+                })
+                .flatMap(execution -> recordExecution(scheduledPaymentId, execution.getPaymentId(), execution.getStatus())
+                        .onErrorResume(error -> {
+                            // left fired in the log, so recovery initiates it again with the same key
+                            log.error("Could not record the outcome of scheduled payment {}: {}",
+                                    scheduledPaymentId, error.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(execution));
+    }
+
+    /**
+     * Idempotency key a scheduled payment is initiated with, whether on its own or in a bulk.
+     */
+    static IdempotencyKey idempotencyKey(String scheduledPaymentId, IdempotencyKey requested) {
+        return requested != null ? requested : IdempotencyKey.fromString("scheduled-" + scheduledPaymentId);
+    }
+
+    private Instant executionInstant(CreateScheduledPaymentRequest request) {
+        if (request.getExecutionDate() == null) {
+            throw new IllegalArgumentException("Scheduled payment has no execution date");
+        }
+        LocalTime time = request.getExecutionTime() != null ? request.getExecutionTime() : defaultExecutionTime;
+        return ZonedDateTime.of(request.getExecutionDate(), time, zone).toInstant();
+    }
+
+    private long toTick(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli() + tickMillis - 1, tickMillis);
+    }
+}
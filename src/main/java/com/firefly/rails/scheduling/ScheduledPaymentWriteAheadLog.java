@@ -0,0 +1,532 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.domain.*;
+import com.firefly.rails.dtos.scheduled.CreateScheduledPaymentRequest;
+import com.firefly.rails.exceptions.RailException;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of scheduled payment state transitions.
+ *
+ * <p>Every transition - created, updated, fired, executed, cancelled - is appended as a
+ * length-prefixed, CRC32-checked record. A single writer thread drains all records appended while
+ * the previous write was in progress, writes them in one go and forces them to disk with one
+ * {@code fsync}; the future of each record completes only once it is durable. Under load many
+ * transitions share one {@code fsync} (group commit).
+ *
+ * <p>The log keeps the live state - payments that are pending or fired but not yet executed - in
+ * memory. Every {@code snapshotEvery} records that state is written to a snapshot file, atomically
+ * replacing the previous one, and the log is truncated, so startup replays one snapshot plus a
+ * bounded tail. A torn record at the end of the log, left by a crash in the middle of a write, is
+ * discarded on replay.
+ *
+ * <p>A payment is recorded as fired before it is initiated. Payments that are fired but not
+ * executed after a restart were in flight during the crash; re-initiating them with the same
+ * idempotency key gives exactly-once execution on a single node.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(Path.of("/var/lib/rails/scheduled"));
+ * ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+ *         .paymentRail(sepaRail)
+ *         .writeAheadLog(wal)
+ *         .build();
+ *
+ * engine.recover().subscribe(execution -> history.append(execution));
+ * }</pre>
+ */
+@Slf4j
+public class ScheduledPaymentWriteAheadLog implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x53505331; // "SPS1"
+    private static final int DEFAULT_SNAPSHOT_EVERY = 100_000;
+    private static final int MAX_BATCH = 4_096;
+
+    private static final byte CREATED = 1;
+    private static final byte UPDATED = 2;
+    private static final byte FIRED = 3;
+    private static final byte EXECUTED = 4;
+    private static final byte CANCELLED = 5;
+
+    /**
+     * A payment that is pending, or fired but not yet executed.
+     */
+    public record PendingPayment(String scheduledPaymentId, CreateScheduledPaymentRequest request, boolean fired) {
+    }
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final int snapshotEvery;
+    private final FileChannel channel;
+    private final Map<String, PendingPayment> state = new ConcurrentHashMap<>();
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final Append shutdown = new Append(null);
+    private final Thread writer;
+
+    private long recordsSinceSnapshot;
+    private IOException broken;
+    private volatile boolean closed;
+
+    private ScheduledPaymentWriteAheadLog(Path directory, int snapshotEvery) throws IOException {
+        Files.createDirectories(directory);
+        this.logFile = directory.resolve("scheduled-payments.wal");
+        this.snapshotFile = directory.resolve("scheduled-payments.snapshot");
+        this.snapshotEvery = snapshotEvery;
+        loadSnapshot();
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        replayLog();
+        this.writer = new Thread(this::writeLoop, "scheduled-payment-wal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Open a log in a directory, replaying its snapshot and log.
+     *
+     * @throws RailException if the files cannot be read
+     */
+    public static ScheduledPaymentWriteAheadLog open(Path directory) {
+        return open(directory, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    public static ScheduledPaymentWriteAheadLog open(Path directory, int snapshotEvery) {
+        try {
+            return new ScheduledPaymentWriteAheadLog(directory, Math.max(1, snapshotEvery));
+        } catch (IOException e) {
+            throw new RailException("Could not open scheduled payment log in " + directory, e);
+        }
+    }
+
+    public CompletableFuture<Void> created(String scheduledPaymentId, CreateScheduledPaymentRequest request) {
+        return append(CREATED, scheduledPaymentId, out -> writeRequest(out, request));
+    }
+
+    public CompletableFuture<Void> updated(String scheduledPaymentId, CreateScheduledPaymentRequest request) {
+        return append(UPDATED, scheduledPaymentId, out -> writeRequest(out, request));
+    }
+
+    public CompletableFuture<Void> fired(String scheduledPaymentId) {
+        return append(FIRED, scheduledPaymentId, out -> { });
+    }
+
+    public CompletableFuture<Void> executed(String scheduledPaymentId, String paymentId, PaymentStatus status) {
+        return append(EXECUTED, scheduledPaymentId, out -> {
+            writeString(out, paymentId);
+            writeString(out, status == null ? null : status.name());
+        });
+    }
+
+    public CompletableFuture<Void> cancelled(String scheduledPaymentId) {
+        return append(CANCELLED, scheduledPaymentId, out -> { });
+    }
+
+    /**
+     * Write a snapshot and truncate the log once every record appended so far is durable.
+     */
+    public CompletableFuture<Void> snapshot() {
+        Append snapshot = new Append(null);
+        enqueue(snapshot);
+        return snapshot.future;
+    }
+
+    /**
+     * Payments pending or fired but not executed, including those recovered on open.
+     */
+    public Collection<PendingPayment> pending() {
+        return List.copyOf(state.values());
+    }
+
+    public PendingPayment get(String scheduledPaymentId) {
+        return state.get(scheduledPaymentId);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(shutdown);
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new RailException("Could not close scheduled payment log " + logFile, e);
+        }
+    }
+
+    private CompletableFuture<Void> append(byte type, String scheduledPaymentId, RecordBody body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(scheduledPaymentId);
+            body.write(out);
+            Append append = new Append(bytes.toByteArray());
+            enqueue(append);
+            return append.future;
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RailException("Could not encode scheduled payment record", e));
+        }
+    }
+
+    private void enqueue(Append append) {
+        if (closed) {
+            append.future.completeExceptionally(new IllegalStateException("Scheduled payment log is closed"));
+            return;
+        }
+        queue.add(append);
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            int stop = batch.indexOf(shutdown);
+            if (stop >= 0) {
+                queue.drainTo(batch);
+                batch.remove(shutdown);
+                running = false;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Append> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            int to = from;
+            while (to < batch.size() && batch.get(to).payload != null) {
+                to++;
+            }
+            if (to > from) {
+                commit(batch.subList(from, to));
+            }
+            if (to < batch.size()) {
+                Append snapshot = batch.get(to);
+                try {
+                    writeSnapshot();
+                    snapshot.future.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    snapshot.future.completeExceptionally(new RailException("Could not snapshot scheduled payments", e));
+                }
+                to++;
+            }
+            from = to;
+        }
+    }
+
+    private void commit(List<Append> records) {
+        if (broken != null) {
+            RailException failure = new RailException("Scheduled payment log " + logFile
+                    + " could not be repaired after a failed write", broken);
+            records.forEach(record -> record.future.completeExceptionally(failure));
+            return;
+        }
+        long committed;
+        try {
+            committed = channel.position();
+        } catch (IOException e) {
+            RailException failure = new RailException("Could not write scheduled payment log " + logFile, e);
+            records.forEach(record -> record.future.completeExceptionally(failure));
+            return;
+        }
+        try {
+            int size = 0;
+            for (Append record : records) {
+                size += 8 + record.payload.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            CRC32 crc = new CRC32();
+            for (Append record : records) {
+                crc.reset();
+                crc.update(record.payload);
+                buffer.putInt(record.payload.length).putInt((int) crc.getValue()).put(record.payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            RailException failure = new RailException("Could not write scheduled payment log " + logFile, e);
+            rollBack(committed, e);
+            records.forEach(record -> record.future.completeExceptionally(failure));
+            return;
+        }
+        for (Append record : records) {
+            apply(record.payload);
+            record.future.complete(null);
+        }
+        recordsSinceSnapshot += records.size();
+        if (recordsSinceSnapshot >= snapshotEvery) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                log.warn("Could not snapshot scheduled payments, keeping the full log: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cut a failed or partial write off the log, so records appended after it are not lost behind a
+     * torn record on replay. If the log cannot be cut, it accepts no further records.
+     */
+    private void rollBack(long committed, IOException cause) {
+        try {
+            channel.truncate(committed);
+            channel.position(committed);
+            channel.force(true);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            broken = e;
+            log.error("Could not truncate {} to {} bytes after a failed write, refusing further records",
+                    logFile, committed, e);
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Path temp = Files.createTempFile(snapshotFile.getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            Collection<PendingPayment> payments = state.values();
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(payments.size());
+            for (PendingPayment payment : payments) {
+                out.writeUTF(payment.scheduledPaymentId());
+                out.writeBoolean(payment.fired());
+                writeRequest(out, payment.request());
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        recordsSinceSnapshot = 0;
+        log.debug("Snapshot of {} scheduled payments written to {}", state.size(), snapshotFile);
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new RailFileFormatException("Not a scheduled payment snapshot: " + snapshotFile);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                boolean fired = in.readBoolean();
+                state.put(id, new PendingPayment(id, readRequest(in), fired));
+            }
+        }
+    }
+
+    /**
+     * Replay the log onto the snapshot state; a torn or corrupt tail is cut off.
+     */
+    private void replayLog() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        CRC32 crc = new CRC32();
+        long position = 0;
+        int replayed = 0;
+        while (position + 8 <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + 8);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(payload.array());
+            position += 8 + length;
+            replayed++;
+        }
+        if (position < size) {
+            log.warn("Discarding {} bytes of torn records at the end of {}", size - position, logFile);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        recordsSinceSnapshot = replayed;
+        log.info("Recovered {} scheduled payments from {} ({} log records)", state.size(), logFile, replayed);
+    }
+
+    private void apply(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte type = in.readByte();
+            String id = in.readUTF();
+            switch (type) {
+                case CREATED -> state.put(id, new PendingPayment(id, readRequest(in), false));
+                case UPDATED -> {
+                    CreateScheduledPaymentRequest request = readRequest(in);
+                    PendingPayment current = state.get(id);
+                    state.put(id, new PendingPayment(id, request, current != null && current.fired()));
+                }
+                case FIRED -> state.computeIfPresent(id, (key, current) ->
+                        new PendingPayment(key, current.request(), true));
+                case EXECUTED, CANCELLED -> state.remove(id);
+                default -> throw new RailFileFormatException("Unknown scheduled payment record type " + type);
+            }
+        } catch (IOException e) {
+            throw new RailFileFormatException("Corrupt scheduled payment record in " + logFile, e);
+        }
+    }
+
+    private static void writeRequest(DataOutputStream out, CreateScheduledPaymentRequest request) throws IOException {
+        Money amount = request.getAmount();
+        out.writeBoolean(amount != null);
+        if (amount != null) {
+            out.writeUTF(amount.getAmount().toPlainString());
+            out.writeUTF(amount.getCurrency().name());
+        }
+        writeAccount(out, request.getDebtorAccount());
+        writeAccount(out, request.getCreditorAccount());
+        writeString(out, request.getRemittanceInformation());
+        writeString(out, request.getTransactionType() == null ? null : request.getTransactionType().name());
+        out.writeLong(request.getExecutionDate() == null ? Long.MIN_VALUE : request.getExecutionDate().toEpochDay());
+        out.writeLong(request.getExecutionTime() == null ? -1 : request.getExecutionTime().toNanoOfDay());
+        IdempotencyKey key = request.getIdempotencyKey();
+        out.writeBoolean(key != null);
+        if (key != null) {
+            out.writeUTF(key.getKey());
+            out.writeLong(key.getCreatedAt().toEpochMilli());
+            out.writeLong(key.getExpiresAt() == null ? Long.MIN_VALUE : key.getExpiresAt().toEpochMilli());
+        }
+    }
+
+    private static CreateScheduledPaymentRequest readRequest(DataInputStream in) throws IOException {
+        CreateScheduledPaymentRequest.CreateScheduledPaymentRequestBuilder request = CreateScheduledPaymentRequest.builder();
+        if (in.readBoolean()) {
+            request.amount(new Money(new BigDecimal(in.readUTF()), Currency.valueOf(in.readUTF())));
+        }
+        request.debtorAccount(readAccount(in));
+        request.creditorAccount(readAccount(in));
+        request.remittanceInformation(readString(in));
+        String transactionType = readString(in);
+        request.transactionType(transactionType == null ? null : TransactionType.valueOf(transactionType));
+        long executionDate = in.readLong();
+        request.executionDate(executionDate == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(executionDate));
+        long executionTime = in.readLong();
+        request.executionTime(executionTime < 0 ? null : LocalTime.ofNanoOfDay(executionTime));
+        if (in.readBoolean()) {
+            String key = in.readUTF();
+            Instant createdAt = Instant.ofEpochMilli(in.readLong());
+            long expiresAt = in.readLong();
+            request.idempotencyKey(new IdempotencyKey(key, createdAt,
+                    expiresAt == Long.MIN_VALUE ? null : Instant.ofEpochMilli(expiresAt)));
+        }
+        return request.build();
+    }
+
+    private static void writeAccount(DataOutputStream out, BankAccount account) throws IOException {
+        out.writeBoolean(account != null);
+        if (account != null) {
+            writeString(out, account.getAccountHolderName());
+            writeString(out, account.getIban());
+            writeString(out, account.getAccountNumber());
+            writeString(out, account.getRoutingNumber());
+            writeString(out, account.getSwiftCode());
+            writeString(out, account.getBankName());
+            writeString(out, account.getCountryCode());
+        }
+    }
+
+    private static BankAccount readAccount(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new BankAccount(readString(in), readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A record to append, or a snapshot request if it has no payload.
+     */
+    private static final class Append {
+        private final byte[] payload;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Append(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.ScheduledPaymentPort;
+import com.firefly.rails.dtos.CursorPage;
+import com.firefly.rails.dtos.scheduled.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ScheduledPaymentPort} decorator that keeps a {@link ScheduledPaymentEngine} in step with
+ * the scheduled payments stored by the adapter.
+ *
+ * <p>A payment is scheduled once the delegate has created it, cancelled once the delegate has
+ * cancelled it, and moved once the delegate has accepted an update. Rejected requests leave the
+ * engine untouched. The engine is updated on a bounded elastic worker, since it blocks on its
+ * write-ahead log when it has one. Recurring payment operations are passed through.
+ *
+ * <p>When the engine is partitioned across nodes, a payment created on a node that does not own
+ * its partition is left to the owner. Registered as a
+ * {@link PartitionCoordinator.PartitionListener}, the decorator loads the pending payments of every
+ * partition the node gains, and {@link #syncEvery(Duration)} reloads all owned partitions
+ * periodically to pick up payments created on other nodes. Payments the engine has already fired
+ * are not scheduled again, even though the adapter may still list them as pending.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public ScheduledPaymentPort scheduledPayments() {
+ *     SchedulingScheduledPaymentPort port = new SchedulingScheduledPaymentPort(sepaScheduledPort, engine);
+ *     partitions.addListener(port);
+ *     port.syncEvery(Duration.ofSeconds(30));
+ *     return port;
+ * }
+ * }</pre>
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulingScheduledPaymentPort implements ScheduledPaymentPort, PartitionCoordinator.PartitionListener {
+
+    private final ScheduledPaymentPort delegate;
+    private final ScheduledPaymentEngine engine;
+
+    @Override
+    public Mono<ResponseEntity<ScheduledPaymentResponse>> createScheduledPayment(CreateScheduledPaymentRequest request) {
+        return delegate.createScheduledPayment(request)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    ScheduledPaymentResponse body = response.getBody();
+                    if (response.getStatusCode().is2xxSuccessful() && body != null
+                            && body.getScheduledPaymentId() != null && engine.owns(body.getScheduledPaymentId())) {
+                        engine.schedule(body.getScheduledPaymentId(), request);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<ScheduledPaymentResponse>> getScheduledPayment(String scheduledPaymentId) {
+        return delegate.getScheduledPayment(scheduledPaymentId);
+    }
+
+    @Override
+    public Mono<ResponseEntity<List<ScheduledPaymentResponse>>> listScheduledPayments(ListScheduledPaymentsRequest request) {
+        return delegate.listScheduledPayments(request);
+    }
+
+    @Override
+    public Flux<ScheduledPaymentResponse> streamScheduledPayments(ListScheduledPaymentsRequest request) {
+        return delegate.streamScheduledPayments(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<CursorPage<ScheduledPaymentResponse>>> listScheduledPaymentsPage(
+            ListScheduledPaymentsRequest request) {
+        return delegate.listScheduledPaymentsPage(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<CancellationResponse>> cancelScheduledPayment(String scheduledPaymentId) {
+        return delegate.cancelScheduledPayment(scheduledPaymentId)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        engine.cancel(scheduledPaymentId);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<ScheduledPaymentResponse>> updateScheduledPayment(UpdateScheduledPaymentRequest request) {
+        return delegate.updateScheduledPayment(request)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        engine.reschedule(request);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<ResponseEntity<RecurringPaymentResponse>> createRecurringPayment(CreateRecurringPaymentRequest request) {
+        return delegate.createRecurringPayment(request);
+    }
+
+    @Override
+    public Mono<ResponseEntity<RecurringPaymentResponse>> getRecurringPayment(String recurringPaymentId) {
+        return delegate.getRecurringPayment(recurringPaymentId);
+    }
+
+    @Override
+    public Mono<ResponseEntity<CancellationResponse>> cancelRecurringPayment(String recurringPaymentId) {
+        return delegate.cancelRecurringPayment(recurringPaymentId);
+    }
+
+    @Override
+    public Mono<ResponseEntity<List<PaymentExecutionHistory>>> getRecurringPaymentHistory(String recurringPaymentId) {
+        return delegate.getRecurringPaymentHistory(recurringPaymentId);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Set<Integer> partitions) {
+        sync().subscribe(
+                loaded -> log.info("Loaded {} scheduled payments of {} gained partitions", loaded, partitions.size()),
+                error -> log.warn("Could not load scheduled payments of gained partitions: {}", error.getMessage()));
+    }
+
+    /**
+     * Run {@link #sync()} periodically, so payments created on nodes that do not own their partition
+     * are scheduled by the owner within one period.
+     *
+     * @return handle that stops the periodic sync when disposed
+     */
+    public Disposable syncEvery(Duration period) {
+        return Flux.interval(period, period, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .concatMap(ignored -> sync().onErrorResume(error -> {
+                    log.warn("Could not sync scheduled payments: {}", error.getMessage());
+                    return Mono.just(0);
+                }), 1)
+                .subscribe(loaded -> {
+                    if (loaded > 0) {
+                        log.info("Loaded {} scheduled payments created on other nodes", loaded);
+                    }
+                });
+    }
+
+    /**
+     * Schedule every pending payment of the delegate that this node owns and the engine neither
+     * holds nor has fired. Fired payments the delegate no longer lists as pending are forgotten.
+     *
+     * @return number of payments scheduled
+     */
+    public Mono<Integer> sync() {
+        return delegate.listScheduledPayments(ListScheduledPaymentsRequest.builder()
+                        .status(ScheduledPaymentResponse.ScheduledPaymentStatus.PENDING.name())
+                        .build())
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                        log.warn("Could not list pending scheduled payments: status {}", response.getStatusCode().value());
+                        return 0;
+                    }
+                    int scheduled = 0;
+                    Set<String> pending = new HashSet<>();
+                    for (ScheduledPaymentResponse payment : response.getBody()) {
+                        String id = payment.getScheduledPaymentId();
+                        if (payment.getStatus() != ScheduledPaymentResponse.ScheduledPaymentStatus.PENDING) {
+                            continue;
+                        }
+                        pending.add(id);
+                        if (payment.getExecutionDate() != null && engine.owns(id) && !engine.hasFired(id)
+                                && engine.dueAt(id).isEmpty()) {
+                            engine.schedule(id, CreateScheduledPaymentRequest.builder()
+                                    .amount(payment.getAmount())
+                                    .debtorAccount(payment.getDebtorAccount())
+                                    .creditorAccount(payment.getCreditorAccount())
+                                    .remittanceInformation(payment.getRemittanceInformation())
+                                    .transactionType(payment.getTransactionType())
+                                    .executionDate(payment.getExecutionDate())
+                                    .executionTime(payment.getExecutionTime())
+                                    .idempotencyKey(payment.getIdempotencyKey())
+                                    .build());
+                            scheduled++;
+                        }
+                    }
+                    engine.retainFired(pending);
+                    return scheduled;
+                })
+                .defaultIfEmpty(0);
+    }
+}
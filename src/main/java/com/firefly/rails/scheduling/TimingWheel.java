@@ -0,0 +1,250 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel of keyed timers, in ticks.
+ *
+ * <p>The wheel has four levels of 512 slots. Level {@code k} holds timers whose deadline first
+ * differs from the current tick in the k-th group of 9 bits, so 2<sup>36</sup> ticks - over 2000
+ * years at one-second ticks - are covered without an overflow list. Each slot is an intrusive
+ * doubly-linked list, and timers are indexed by key, so insert, cancel and reschedule are O(1)
+ * regardless of how many timers are pending. When the low bits of the current tick roll over, the
+ * matching slot of the level above is cascaded one level down; a timer is cascaded at most three
+ * times before it fires.
+ *
+ * <p>Not thread-safe; callers synchronize.
+ *
+ * @param <T> timer payload
+ */
+public final class TimingWheel<T> {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 9;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final Node<T>[] slots;
+    private final Map<String, Node<T>> index = new HashMap<>();
+
+    /** Timers already due, fired on the next {@link #advanceTo(long, BiConsumer)} */
+    private final Node<T> expired = new Node<>(null, 0, null);
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTick) {
+        this.currentTick = startTick;
+        this.slots = (Node<T>[]) new Node<?>[LEVELS * SLOTS];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = sentinel();
+        }
+        expired.prev = expired;
+        expired.next = expired;
+    }
+
+    /**
+     * Add a timer, replacing any pending timer with the same key.
+     *
+     * @return the payload of the replaced timer, or {@code null}
+     */
+    public T schedule(String key, long deadlineTick, T payload) {
+        Node<T> previous = index.remove(key);
+        if (previous != null) {
+            previous.unlink();
+        }
+        Node<T> node = new Node<>(key, deadlineTick, payload);
+        index.put(key, node);
+        place(node);
+        return previous == null ? null : previous.payload;
+    }
+
+    /**
+     * Move a pending timer to a new deadline, optionally replacing its payload.
+     *
+     * @return {@code false} if no timer is pending for the key
+     */
+    public boolean reschedule(String key, long deadlineTick, T payload) {
+        Node<T> node = index.get(key);
+        if (node == null) {
+            return false;
+        }
+        node.unlink();
+        node.deadline = deadlineTick;
+        if (payload != null) {
+            node.payload = payload;
+        }
+        place(node);
+        return true;
+    }
+
+    /**
+     * Remove a pending timer.
+     *
+     * @return its payload, or {@code null} if no timer is pending for the key
+     */
+    public T cancel(String key) {
+        Node<T> node = index.remove(key);
+        if (node == null) {
+            return null;
+        }
+        node.unlink();
+        return node.payload;
+    }
+
+    public T get(String key) {
+        Node<T> node = index.get(key);
+        return node == null ? null : node.payload;
+    }
+
+    /**
+     * Deadline of a pending timer, or {@code -1}.
+     */
+    public long deadline(String key) {
+        Node<T> node = index.get(key);
+        return node == null ? -1 : node.deadline;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Advance the wheel to a tick, removing and handing every timer due by then to the consumer.
+     * The consumer must not modify the wheel.
+     *
+     * @return number of timers fired
+     */
+    public int advanceTo(long tick, BiConsumer<String, T> consumer) {
+        int fired = drain(expired, consumer);
+        while (currentTick < tick) {
+            if (index.isEmpty()) {
+                currentTick = tick;
+                break;
+            }
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(slots[slotIndex(level, currentTick)]);
+                }
+            }
+            fired += drain(slots[slotIndex(0, currentTick)], consumer);
+            fired += drain(expired, consumer);
+        }
+        return fired;
+    }
+
+    private void place(Node<T> node) {
+        long deadline = node.deadline;
+        if (deadline <= currentTick) {
+            expired.append(node);
+            return;
+        }
+        int highestDifferentBit = 63 - Long.numberOfLeadingZeros(deadline ^ currentTick);
+        int level = Math.min(LEVELS - 1, highestDifferentBit / SLOT_BITS);
+        slots[slotIndex(level, deadline)].append(node);
+    }
+
+    private void cascade(Node<T> head) {
+        Node<T> node = detach(head);
+        while (node != null) {
+            Node<T> next = node.next;
+            node.prev = null;
+            node.next = null;
+            place(node);
+            node = next;
+        }
+    }
+
+    private int drain(Node<T> head, BiConsumer<String, T> consumer) {
+        Node<T> node = detach(head);
+        int fired = 0;
+        while (node != null) {
+            Node<T> next = node.next;
+            node.prev = null;
+            node.next = null;
+            index.remove(node.key);
+            consumer.accept(node.key, node.payload);
+            fired++;
+            node = next;
+        }
+        return fired;
+    }
+
+    /**
+     * Empty a slot, returning its former nodes as a {@code null}-terminated chain.
+     */
+    private static <T> Node<T> detach(Node<T> head) {
+        if (head.next == head) {
+            return null;
+        }
+        Node<T> first = head.next;
+        head.prev.next = null;
+        head.prev = head;
+        head.next = head;
+        return first;
+    }
+
+    private static int slotIndex(int level, long tick) {
+        return level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+
+    private static <T> Node<T> sentinel() {
+        Node<T> head = new Node<>(null, 0, null);
+        head.prev = head;
+        head.next = head;
+        return head;
+    }
+
+    private static final class Node<T> {
+        private final String key;
+        private long deadline;
+        private T payload;
+        private Node<T> prev;
+        private Node<T> next;
+
+        private Node(String key, long deadline, T payload) {
+            this.key = key;
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        private void append(Node<T> node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+    }
+}
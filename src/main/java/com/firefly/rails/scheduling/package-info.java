@@ -0,0 +1,26 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Execution of scheduled and recurring payments shared by rail implementations.
+ *
+ * <p>This package contains building blocks for implementing
+ * {@link com.firefly.rails.adapter.ports.ScheduledPaymentPort}:
+ * <ul>
+ *   <li>{@link com.firefly.rails.scheduling.TimingWheel} - Hierarchical timing wheel with O(1) insert and cancel</li>
+ *   <li>{@link com.firefly.rails.scheduling.ScheduledPaymentEngine} - Fires due scheduled payments into the payment rail</li>
+ *   <li>{@link com.firefly.rails.scheduling.ScheduledPaymentWriteAheadLog} - Group-committed log of scheduled payment transitions</li>
+ *   <li>{@link com.firefly.rails.scheduling.PartitionCoordinator} - Leased partitioning of scheduled payments across nodes</li>
+ *   <li>{@link com.firefly.rails.scheduling.PartitionLeaseStore} - Shared store of node heartbeats and partition leases</li>
+ *   <li>{@link com.firefly.rails.scheduling.FilePartitionLeaseStore} - File-locked lease store</li>
+ *   <li>{@link com.firefly.rails.scheduling.ExecutionWindowBatcher} - Cut-off-aware bulks of due payments</li>
+ *   <li>{@link com.firefly.rails.scheduling.RecurrenceSchedule} - Lazily expanded recurring payment dates</li>
+ *   <li>{@link com.firefly.rails.scheduling.ExecutionHistoryStore} - Compact columnar execution history of recurring payments</li>
+ *   <li>{@link com.firefly.rails.scheduling.SchedulingScheduledPaymentPort} - Port decorator keeping the engine in step</li>
+ * </ul>
+ *
+ * @since 1.0.0
+ */
+package com.firefly.rails.scheduling;
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.settlement;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.settlement.NettingCycleResult;
+import com.firefly.rails.dtos.settlement.SettlementInstruction;
+import com.firefly.rails.dtos.settlement.SettlementObligation;
+import com.firefly.rails.dtos.settlement.SettlementTransaction;
+import com.firefly.rails.exceptions.SettlementException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Nets payment obligations between participants into settlement instructions.
+ *
+ * <p>Obligations are ingested one at a time, as they are accepted, and folded into running
+ * positions held in primitive {@code long} arrays of minor units: one multilateral position per
+ * participant and currency, and - in bilateral mode - one position per participant pair and
+ * currency. Closing a cycle turns the positions into instructions and starts the next cycle.
+ * <ul>
+ *   <li>{@link NettingCycleResult.Mode#MULTILATERAL} - every net debtor pays its net position into
+ *       the central settlement account and every net creditor receives its position from it, as in
+ *       CHIPS {@link com.firefly.rails.domain.railspecific.CHIPSSpecific.SettlementMethod#BALANCED}
+ *       settlement.</li>
+ *   <li>{@link NettingCycleResult.Mode#BILATERAL} - each pair of participants settles the net of
+ *       the obligations between them, as for internal book transfers.</li>
+ * </ul>
+ *
+ * <p>Before instructions are released the cycle is checked for conservation: per currency the
+ * multilateral positions sum to zero, debits equal credits, and applying every instruction to a
+ * copy of the positions leaves every participant at exactly zero. A violation fails the cycle with
+ * a {@link SettlementException} and keeps its positions, so nothing is settled on a broken ledger.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * NettingEngine engine = new NettingEngine(NettingCycleResult.Mode.MULTILATERAL);
+ *
+ * Mono<NettingCycleResult> cycle = engine.net(acceptedChipsPayments.map(this::toObligation));
+ * }</pre>
+ */
+@Slf4j
+public class NettingEngine {
+
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final int PARTICIPANT_BITS = 25;
+    private static final long PARTICIPANT_MASK = (1L << PARTICIPANT_BITS) - 1;
+
+    private final NettingCycleResult.Mode mode;
+
+    private final Map<String, Integer> participantIndex = new HashMap<>();
+    private String[] participants = new String[16];
+
+    /** Multilateral positions {@code [currency][participant]}; positive = net creditor */
+    private final long[][] positions = new long[CURRENCIES.length][];
+
+    /** Gross obligations {@code [currency]} of the current cycle */
+    private final long[] gross = new long[CURRENCIES.length];
+
+    /** Bilateral pair key (currency, low participant, high participant) to slot in {@link #pairPositions} */
+    private final Map<Long, Integer> pairSlots = new HashMap<>();
+
+    /** Bilateral positions; positive = the lower-indexed participant owes the higher-indexed one */
+    private long[] pairPositions = new long[16];
+    private long[] pairKeys = new long[16];
+
+    private long obligationCount;
+    private long cycleNumber;
+
+    public NettingEngine(NettingCycleResult.Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Ingest a stream of obligations and close the cycle when it completes.
+     *
+     * @param obligations obligations of the cycle
+     * @return the closed cycle
+     */
+    public Mono<NettingCycleResult> net(Flux<SettlementObligation> obligations) {
+        return obligations.doOnNext(this::add).then(Mono.fromCallable(this::closeCycle));
+    }
+
+    /**
+     * Fold one obligation into the positions of the current cycle.
+     */
+    public synchronized void add(SettlementObligation obligation) {
+        String debtor = obligation.getDebtorParticipant();
+        String creditor = obligation.getCreditorParticipant();
+        if (debtor == null || creditor == null || obligation.getAmount() == null) {
+            throw new IllegalArgumentException("Obligation " + obligation.getPaymentId()
+                    + " must have debtor, creditor and amount");
+        }
+        obligationCount++;
+        if (debtor.equals(creditor)) {
+            return;
+        }
+        int currency = obligation.getAmount().getCurrency().ordinal();
+        long minorUnits = obligation.getAmount().toCents();
+        int debtorIndex = participant(debtor);
+        int creditorIndex = participant(creditor);
+
+        long[] currencyPositions = positions(currency);
+        currencyPositions[debtorIndex] = Math.subtractExact(currencyPositions[debtorIndex], minorUnits);
+        currencyPositions[creditorIndex] = Math.addExact(currencyPositions[creditorIndex], minorUnits);
+        gross[currency] = Math.addExact(gross[currency], minorUnits);
+
+        if (mode == NettingCycleResult.Mode.BILATERAL) {
+            int low = Math.min(debtorIndex, creditorIndex);
+            int high = Math.max(debtorIndex, creditorIndex);
+            int slot = pairSlot(currency, low, high);
+            long delta = debtorIndex == low ? minorUnits : -minorUnits;
+            pairPositions[slot] = Math.addExact(pairPositions[slot], delta);
+        }
+    }
+
+    /**
+     * Current multilateral position of a participant in minor units.
+     *
+     * @return positive when the participant is a net receiver, negative when it is a net payer
+     */
+    public synchronized long getPositionMinorUnits(String participant, Currency currency) {
+        Integer index = participantIndex.get(participant);
+        long[] currencyPositions = positions[currency.ordinal()];
+        return index == null || currencyPositions == null || index >= currencyPositions.length
+                ? 0 : currencyPositions[index];
+    }
+
+    /**
+     * Turn the current positions into settlement instructions and start a new cycle.
+     *
+     * @return the closed cycle
+     * @throws SettlementException if the cycle does not conserve value
+     */
+    public synchronized NettingCycleResult closeCycle() {
+        String cycleId = mode + "-" + (++cycleNumber);
+        List<SettlementInstruction> instructions = mode == NettingCycleResult.Mode.MULTILATERAL
+                ? multilateralInstructions(cycleId)
+                : bilateralInstructions(cycleId);
+
+        long[] net = verifyConservation(instructions);
+
+        Map<Currency, Money> grossTotals = new EnumMap<>(Currency.class);
+        Map<Currency, Money> netTotals = new EnumMap<>(Currency.class);
+        for (int currency = 0; currency < CURRENCIES.length; currency++) {
+            if (gross[currency] != 0) {
+                grossTotals.put(CURRENCIES[currency], Money.fromCents(gross[currency], CURRENCIES[currency]));
+                netTotals.put(CURRENCIES[currency], Money.fromCents(net[currency], CURRENCIES[currency]));
+            }
+        }
+        NettingCycleResult result = NettingCycleResult.builder()
+                .cycleId(cycleId)
+                .mode(mode)
+                .obligationCount(obligationCount)
+                .participantCount(participantIndex.size())
+                .grossTotals(grossTotals)
+                .netTotals(netTotals)
+                .instructions(instructions)
+                .closedAt(Instant.now())
+                .build();
+        log.debug("Closed netting cycle {}: {} obligations into {} instructions",
+                cycleId, obligationCount, instructions.size());
+        reset();
+        return result;
+    }
+
+    private List<SettlementInstruction> multilateralInstructions(String cycleId) {
+        List<SettlementInstruction> instructions = new ArrayList<>();
+        for (int currency = 0; currency < CURRENCIES.length; currency++) {
+            long[] currencyPositions = positions[currency];
+            if (currencyPositions == null) {
+                continue;
+            }
+            int count = Math.min(participantIndex.size(), currencyPositions.length);
+            for (int participant = 0; participant < count; participant++) {
+                long position = currencyPositions[participant];
+                if (position != 0) {
+                    instructions.add(instruction(cycleId, participants[participant], null,
+                            position < 0 ? SettlementTransaction.Direction.DEBIT : SettlementTransaction.Direction.CREDIT,
+                            Math.abs(position), CURRENCIES[currency]));
+                }
+            }
+        }
+        return instructions;
+    }
+
+    private List<SettlementInstruction> bilateralInstructions(String cycleId) {
+        List<SettlementInstruction> instructions = new ArrayList<>();
+        for (int slot = 0; slot < pairSlots.size(); slot++) {
+            long position = pairPositions[slot];
+            if (position == 0) {
+                continue;
+            }
+            long key = pairKeys[slot];
+            int currency = (int) (key >>> (2 * PARTICIPANT_BITS));
+            String low = participants[(int) ((key >>> PARTICIPANT_BITS) & PARTICIPANT_MASK)];
+            String high = participants[(int) (key & PARTICIPANT_MASK)];
+            instructions.add(instruction(cycleId, position > 0 ? low : high, position > 0 ? high : low,
+                    SettlementTransaction.Direction.DEBIT, Math.abs(position), CURRENCIES[currency]));
+        }
+        return instructions;
+    }
+
+    /**
+     * @return net amount paid per currency
+     */
+    private long[] verifyConservation(List<SettlementInstruction> instructions) {
+        long[] debits = new long[CURRENCIES.length];
+        long[] credits = new long[CURRENCIES.length];
+        long[][] residual = new long[CURRENCIES.length][];
+        for (int currency = 0; currency < CURRENCIES.length; currency++) {
+            if (positions[currency] == null) {
+                continue;
+            }
+            residual[currency] = positions[currency].clone();
+            long sum = 0;
+            for (long position : residual[currency]) {
+                sum = Math.addExact(sum, position);
+            }
+            if (sum != 0) {
+                throw new SettlementException("Netting cycle positions in " + CURRENCIES[currency]
+                        + " do not sum to zero: " + sum);
+            }
+        }
+
+        for (SettlementInstruction instruction : instructions) {
+            int currency = instruction.getAmount().getCurrency().ordinal();
+            long minorUnits = instruction.getAmount().toCents();
+            int participant = participantIndex.get(instruction.getParticipant());
+            boolean pays = instruction.getDirection() == SettlementTransaction.Direction.DEBIT;
+            residual[currency][participant] += pays ? minorUnits : -minorUnits;
+            if (pays) {
+                debits[currency] += minorUnits;
+            } else {
+                credits[currency] += minorUnits;
+            }
+            if (instruction.getCounterparty() != null) {
+                residual[currency][participantIndex.get(instruction.getCounterparty())] -= minorUnits;
+                credits[currency] += minorUnits;
+            }
+        }
+
+        for (int currency = 0; currency < CURRENCIES.length; currency++) {
+            if (debits[currency] != credits[currency]) {
+                throw new SettlementException("Netting cycle instructions in " + CURRENCIES[currency]
+                        + " debit " + debits[currency] + " but credit " + credits[currency]);
+            }
+            if (residual[currency] == null) {
+                continue;
+            }
+            for (int participant = 0; participant < residual[currency].length; participant++) {
+                if (residual[currency][participant] != 0) {
+                    throw new SettlementException("Netting cycle instructions leave participant "
+                            + participants[participant] + " with " + residual[currency][participant]
+                            + " " + CURRENCIES[currency] + " minor units unsettled");
+                }
+            }
+        }
+        return debits;
+    }
+
+    private SettlementInstruction instruction(String cycleId, String participant, String counterparty,
+                                              SettlementTransaction.Direction direction, long minorUnits,
+                                              Currency currency) {
+        return SettlementInstruction.builder()
+                .cycleId(cycleId)
+                .participant(participant)
+                .counterparty(counterparty)
+                .direction(direction)
+                .amount(Money.fromCents(minorUnits, currency))
+                .build();
+    }
+
+    private int participant(String name) {
+        Integer index = participantIndex.get(name);
+        if (index != null) {
+            return index;
+        }
+        int next = participantIndex.size();
+        if (next > PARTICIPANT_MASK) {
+            throw new SettlementException("Too many netting participants");
+        }
+        if (next == participants.length) {
+            participants = Arrays.copyOf(participants, next * 2);
+        }
+        participants[next] = name;
+        participantIndex.put(name, next);
+        return next;
+    }
+
+    private long[] positions(int currency) {
+        long[] currencyPositions = positions[currency];
+        if (currencyPositions == null || currencyPositions.length < participants.length) {
+            currencyPositions = currencyPositions == null
+                    ? new long[participants.length]
+                    : Arrays.copyOf(currencyPositions, participants.length);
+            positions[currency] = currencyPositions;
+        }
+        return currencyPositions;
+    }
+
+    private int pairSlot(int currency, int low, int high) {
+        long key = ((long) currency << (2 * PARTICIPANT_BITS)) | ((long) low << PARTICIPANT_BITS) | high;
+        Integer slot = pairSlots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        int next = pairSlots.size();
+        if (next == pairPositions.length) {
+            pairPositions = Arrays.copyOf(pairPositions, next * 2);
+            pairKeys = Arrays.copyOf(pairKeys, next * 2);
+        }
+        pairKeys[next] = key;
+        pairSlots.put(key, next);
+        return next;
+    }
+
+    private void reset() {
+        for (int currency = 0; currency < CURRENCIES.length; currency++) {
+            if (positions[currency] != null) {
+                Arrays.fill(positions[currency], 0);
+            }
+        }
+        Arrays.fill(gross, 0);
+        pairSlots.clear();
+        Arrays.fill(pairPositions, 0);
+        obligationCount = 0;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.rails.settlement;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.RailType;
+import com.firefly.rails.dtos.settlement.SettlementReport;
+import com.firefly.rails.dtos.settlement.SettlementTransaction;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Builds settlement reports incrementally from a stream of settled transactions.
+ *
+ * <p>Transactions must arrive ordered by settlement date and, within a date, by currency - the
+ * natural order of a settlement ledger query. Each run of transactions with the same date and
+ * currency is folded into running totals and emitted as one {@link SettlementReport} as soon as
+ * the run ends, so only the totals of the current report are held in memory and the first
+ * report is available long before a month of transactions has been read.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public Flux<SettlementReport> streamSettlementReports(SettlementReportRequest request) {
+ *     return SettlementReportAggregator.dailyReports(
+ *             ledger.settledTransactions(request.getStartDate(), request.getEndDate()), RailType.SEPA);
+ * }
+ * }</pre>
+ */
+public final class SettlementReportAggregator {
+
+    private SettlementReportAggregator() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Fold transactions ordered by settlement date and currency into one report per date and currency.
+     *
+     * @param transactions settled transactions, ordered by settlement date then currency
+     * @param railType rail the reports are generated for
+     * @return reports in input order
+     */
+    public static Flux<SettlementReport> dailyReports(Flux<SettlementTransaction> transactions, RailType railType) {
+        return transactions
+                .windowUntilChanged(ReportKey::of)
+                .concatMap(window -> window
+                        .reduce(new Totals(), Totals::add)
+                        .filter(totals -> totals.key != null)
+                        .map(totals -> totals.toReport(railType)));
+    }
+
+    private record ReportKey(LocalDate settlementDate, Currency currency) {
+
+        static ReportKey of(SettlementTransaction transaction) {
+            return new ReportKey(transaction.getSettlementDate(), transaction.getAmount().getCurrency());
+        }
+    }
+
+    /**
+     * Running totals of one report, in minor units.
+     */
+    private static final class Totals {
+        ReportKey key;
+        long creditCount;
+        long debitCount;
+        long creditMinorUnits;
+        long debitMinorUnits;
+
+        Totals add(SettlementTransaction transaction) {
+            if (key == null) {
+                key = ReportKey.of(transaction);
+            }
+            long minorUnits = transaction.getAmount().toCents();
+            if (transaction.getDirection() == SettlementTransaction.Direction.DEBIT) {
+                debitCount++;
+                debitMinorUnits = Math.addExact(debitMinorUnits, minorUnits);
+            } else {
+                creditCount++;
+                creditMinorUnits = Math.addExact(creditMinorUnits, minorUnits);
+            }
+            return this;
+        }
+
+        SettlementReport toReport(RailType railType) {
+            long net = creditMinorUnits - debitMinorUnits;
+            return SettlementReport.builder()
+                    .id(railType + "-" + key.settlementDate() + "-" + key.currency())
+                    .railType(railType)
+                    .currency(key.currency())
+                    .settlementDate(key.settlementDate())
+                    .transactionCount(creditCount + debitCount)
+                    .creditCount(creditCount)
+                    .debitCount(debitCount)
+                    .totalCredits(Money.fromCents(creditMinorUnits, key.currency()))
+                    .totalDebits(Money.fromCents(debitMinorUnits, key.currency()))
+                    .netAmount(Money.fromCents(Math.abs(net), key.currency()))
+                    .netDirection(net >= 0 ? SettlementTransaction.Direction.CREDIT : SettlementTransaction.Direction.DEBIT)
+                    .generatedAt(Instant.now())
+                    .build();
+        }
+    }
+}
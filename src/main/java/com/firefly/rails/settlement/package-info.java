@@ -0,0 +1,18 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Settlement reporting shared by rail implementations.
+ * 
+ * <p>This package contains building blocks for implementing
+ * {@link com.firefly.rails.adapter.ports.SettlementPort}:
+ * <ul>
+ *   <li>{@link com.firefly.rails.settlement.SettlementReportAggregator} - Streaming per-day settlement reports</li>
+ *   <li>{@link com.firefly.rails.settlement.NettingEngine} - Bilateral and multilateral netting into settlement instructions</li>
+ * </ul>
+ * 
+ * @since 1.0.0
+ */
+package com.firefly.rails.settlement;
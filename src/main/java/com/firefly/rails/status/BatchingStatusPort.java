@@ -0,0 +1,177 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.status;
+
+import com.firefly.rails.adapter.ports.StatusPort;
+import com.firefly.rails.dtos.status.PaymentTrackingResponse;
+import com.firefly.rails.dtos.status.TransactionStatusResponse;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StatusPort} decorator that merges single status lookups into bulk rail queries.
+ *
+ * <p>Each {@link #queryTransactionStatus(String)} joins the current batch. The batch is sent as
+ * one {@link StatusPort#queryTransactionStatuses(Collection)} call to the delegate once it holds
+ * {@code maxBatchSize} transactions or {@code maxWait} after its first lookup, whichever comes
+ * first, and the statuses are handed back to the callers by transaction id. Lookups of the same
+ * transaction in one batch share one entry. A transaction missing from the result answers
+ * {@code 404 Not Found}; a failed batch fails all of its lookups.
+ *
+ * <p>Reference lookups, tracking and subscriptions are passed through.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public StatusPort status() {
+ *     return BatchingStatusPort.builder()
+ *             .delegate(gpiTrackerStatusPort)
+ *             .maxBatchSize(100)
+ *             .maxWait(Duration.ofMillis(20))
+ *             .build();
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class BatchingStatusPort implements StatusPort {
+
+    private final StatusPort delegate;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final Scheduler scheduler;
+
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<TransactionStatusResponse>> batch = new LinkedHashMap<>();
+    private Disposable timer;
+
+    /**
+     * @param delegate port the batched queries are sent to
+     * @param maxBatchSize transactions per query; 100 if not positive
+     * @param maxWait longest a lookup waits for its batch to fill; 10 milliseconds if {@code null}
+     * @param scheduler scheduler of the batch timer; the parallel scheduler if {@code null}
+     */
+    @Builder
+    private BatchingStatusPort(StatusPort delegate, int maxBatchSize, Duration maxWait, Scheduler scheduler) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate status port must not be null");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : 100;
+        this.maxWait = maxWait == null ? Duration.ofMillis(10) : maxWait;
+        this.scheduler = scheduler == null ? Schedulers.parallel() : scheduler;
+    }
+
+    @Override
+    public Mono<ResponseEntity<TransactionStatusResponse>> queryTransactionStatus(String transactionId) {
+        return Mono.defer(() -> {
+            CompletableFuture<TransactionStatusResponse> lookup;
+            Map<String, CompletableFuture<TransactionStatusResponse>> full = null;
+            synchronized (lock) {
+                lookup = batch.computeIfAbsent(transactionId, id -> new CompletableFuture<>());
+                if (batch.size() >= maxBatchSize) {
+                    full = takeBatch();
+                } else if (timer == null) {
+                    timer = scheduler.schedule(this::flushOnTimer, maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (full != null) {
+                send(full);
+            }
+            return Mono.fromFuture(lookup, true)
+                    .map(ResponseEntity::ok)
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<List<TransactionStatusResponse>>> queryTransactionStatuses(Collection<String> transactionIds) {
+        return delegate.queryTransactionStatuses(transactionIds);
+    }
+
+    @Override
+    public Mono<ResponseEntity<TransactionStatusResponse>> queryStatusByReference(String endToEndReference) {
+        return delegate.queryStatusByReference(endToEndReference);
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentTrackingResponse>> getPaymentTracking(String paymentId) {
+        return delegate.getPaymentTracking(paymentId);
+    }
+
+    @Override
+    public Flux<TransactionStatusResponse> subscribeToStatus(Collection<String> transactionIds) {
+        return delegate.subscribeToStatus(transactionIds);
+    }
+
+    private void flushOnTimer() {
+        Map<String, CompletableFuture<TransactionStatusResponse>> due;
+        synchronized (lock) {
+            timer = null;
+            if (batch.isEmpty()) {
+                return;
+            }
+            due = takeBatch();
+        }
+        send(due);
+    }
+
+    private Map<String, CompletableFuture<TransactionStatusResponse>> takeBatch() {
+        Map<String, CompletableFuture<TransactionStatusResponse>> taken = batch;
+        batch = new LinkedHashMap<>();
+        if (timer != null) {
+            timer.dispose();
+            timer = null;
+        }
+        return taken;
+    }
+
+    private void send(Map<String, CompletableFuture<TransactionStatusResponse>> lookups) {
+        log.debug("Querying the status of {} transactions in one batch", lookups.size());
+        Mono.defer(() -> delegate.queryTransactionStatuses(lookups.keySet()))
+                .subscribe(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        fail(lookups, new IllegalStateException(
+                                "Batched status query answered " + response.getStatusCode().value()));
+                        return;
+                    }
+                    for (TransactionStatusResponse status : response.getBody() == null
+                            ? List.<TransactionStatusResponse>of() : response.getBody()) {
+                        CompletableFuture<TransactionStatusResponse> lookup = lookups.get(status.getId());
+                        if (lookup != null) {
+                            lookup.complete(status);
+                        }
+                    }
+                    lookups.values().forEach(lookup -> lookup.complete(null));
+                }, error -> fail(lookups, error), () -> lookups.values().forEach(lookup -> lookup.complete(null)));
+    }
+
+    private static void fail(Map<String, CompletableFuture<TransactionStatusResponse>> lookups, Throwable error) {
+        log.warn("Batched status query of {} transactions failed: {}", lookups.size(), error.getMessage());
+        lookups.values().forEach(lookup -> lookup.completeExceptionally(error));
+    }
+}
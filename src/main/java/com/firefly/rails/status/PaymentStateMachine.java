@@ -0,0 +1,301 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.status;
+
+import com.firefly.rails.domain.PaymentStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static com.firefly.rails.domain.PaymentStatus.*;
+
+/**
+ * Lifecycle of payments over {@link PaymentStatus}, safe against concurrent and out-of-order
+ * status events.
+ *
+ * <p>Only legal transitions are applied, e.g. {@code SUBMITTED -> SETTLED} but never
+ * {@code SETTLED -> PROCESSING}. The state of each payment is one word holding the status and a
+ * version, updated with compare-and-set, so concurrent events for the same payment never lose an
+ * update and never take a lock. An event is
+ * <ul>
+ *   <li>{@link Outcome#APPLIED} if it is a legal transition from the current status;</li>
+ *   <li>{@link Outcome#DUPLICATE} if the payment already has the status;</li>
+ *   <li>{@link Outcome#STALE} if the payment can no longer reach it, e.g. a late
+ *       {@code PROCESSING} after {@code SETTLED};</li>
+ *   <li>{@link Outcome#BUFFERED} if it can be reached from the current status but not in one
+ *       step, e.g. {@code SETTLED} before {@code SUBMITTED}; it is applied as soon as it becomes
+ *       legal. Each payment buffers at most one event, the most advanced;</li>
+ *   <li>{@link Outcome#REJECTED} if the payment reached a terminal status.</li>
+ * </ul>
+ * Every applied transition is passed to the listeners with the version it produced, which orders
+ * the transitions of a payment even when listeners are called from different threads.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * PaymentStateMachine lifecycle = new PaymentStateMachine();
+ * lifecycle.addListener(transition -> statusHub.publish(TransactionStatusResponse.builder()
+ *         .id(transition.paymentId())
+ *         .status(transition.to().name())
+ *         .build()));
+ *
+ * // in the rail callback handler
+ * lifecycle.apply(callback.getPaymentId(), PaymentStatus.SETTLED);
+ * }</pre>
+ */
+@Slf4j
+public class PaymentStateMachine {
+
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+    private static final int STATUS_BITS = 8;
+    private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+    private static final int UNKNOWN = (int) STATUS_MASK;
+
+    private static final int[] LEGAL = new int[STATUSES.length];
+    private static final int[] REACHABLE = new int[STATUSES.length];
+    private static final int TERMINAL;
+
+    static {
+        // instant rails answer an initiation with a payment already processing or settled
+        legal(INITIATED, PENDING_VALIDATION, SUBMITTED, PROCESSING, SETTLED, COMPLETED, COMPLIANCE_HOLD,
+                REJECTED, FAILED, CANCELLED);
+        legal(PENDING_VALIDATION, SUBMITTED, COMPLIANCE_HOLD, REJECTED, FAILED, CANCELLED);
+        legal(COMPLIANCE_HOLD, PENDING_VALIDATION, SUBMITTED, PROCESSING, REJECTED, FAILED, CANCELLED);
+        legal(SUBMITTED, PROCESSING, PENDING_INTERMEDIARY, COMPLIANCE_HOLD, SETTLED, COMPLETED,
+                REJECTED, FAILED, CANCELLED, RETURNED);
+        legal(PROCESSING, PENDING_INTERMEDIARY, COMPLIANCE_HOLD, SETTLED, COMPLETED, REJECTED, FAILED, RETURNED);
+        legal(PENDING_INTERMEDIARY, PROCESSING, COMPLIANCE_HOLD, SETTLED, COMPLETED, REJECTED, FAILED, RETURNED);
+        legal(SETTLED, COMPLETED, RETURNED, PENDING_REVERSAL);
+        legal(COMPLETED, RETURNED, PENDING_REVERSAL);
+        legal(PENDING_REVERSAL, REVERSED, SETTLED, COMPLETED);
+
+        // transitive closure, used to tell early events from stale ones
+        System.arraycopy(LEGAL, 0, REACHABLE, 0, LEGAL.length);
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int from = 0; from < STATUSES.length; from++) {
+                int reachable = REACHABLE[from];
+                for (int via = 0; via < STATUSES.length; via++) {
+                    if ((REACHABLE[from] & (1 << via)) != 0) {
+                        reachable |= REACHABLE[via];
+                    }
+                }
+                changed |= reachable != REACHABLE[from];
+                REACHABLE[from] = reachable;
+            }
+        }
+        int terminal = 0;
+        for (PaymentStatus status : STATUSES) {
+            if (LEGAL[status.ordinal()] == 0) {
+                terminal |= 1 << status.ordinal();
+            }
+        }
+        TERMINAL = terminal;
+    }
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final List<Consumer<Transition>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Whether a payment may move directly from one status to another.
+     */
+    public static boolean isLegal(PaymentStatus from, PaymentStatus to) {
+        return (LEGAL[from.ordinal()] & (1 << to.ordinal())) != 0;
+    }
+
+    /**
+     * Whether a payment may reach a status from another through any sequence of transitions.
+     */
+    public static boolean isReachable(PaymentStatus from, PaymentStatus to) {
+        return (REACHABLE[from.ordinal()] & (1 << to.ordinal())) != 0;
+    }
+
+    /**
+     * Whether a status is final: FAILED, REJECTED, CANCELLED, RETURNED or REVERSED.
+     */
+    public static boolean isTerminal(PaymentStatus status) {
+        return (TERMINAL & (1 << status.ordinal())) != 0;
+    }
+
+    public void addListener(Consumer<Transition> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Apply a status event to a payment. The first event of a payment sets its status whatever it is.
+     */
+    public Outcome apply(String paymentId, PaymentStatus to) {
+        State state = states.get(paymentId);
+        if (state == null) {
+            state = states.computeIfAbsent(paymentId, id -> new State());
+        }
+        while (true) {
+            long word = state.word;
+            int from = (int) (word & STATUS_MASK);
+            if (from == to.ordinal()) {
+                return Outcome.DUPLICATE;
+            }
+            if (from == UNKNOWN || isLegal(STATUSES[from], to)) {
+                long next = ((word >>> STATUS_BITS) + 1) << STATUS_BITS | to.ordinal();
+                if (State.WORD.compareAndSet(state, word, next)) {
+                    emit(paymentId, from, to, next);
+                    drainBuffered(paymentId, state);
+                    return Outcome.APPLIED;
+                }
+                continue;
+            }
+            if (isTerminal(STATUSES[from])) {
+                return Outcome.REJECTED;
+            }
+            if (!isReachable(STATUSES[from], to)) {
+                return Outcome.STALE;
+            }
+            buffer(state, to);
+            if (state.word != word) {
+                // a concurrent transition may have made the buffered event legal
+                drainBuffered(paymentId, state);
+            }
+            return Outcome.BUFFERED;
+        }
+    }
+
+    /**
+     * Current status of a payment, if any event was applied to it.
+     */
+    public Optional<PaymentStatus> status(String paymentId) {
+        State state = states.get(paymentId);
+        if (state == null) {
+            return Optional.empty();
+        }
+        int status = (int) (state.word & STATUS_MASK);
+        return status == UNKNOWN ? Optional.empty() : Optional.of(STATUSES[status]);
+    }
+
+    /**
+     * Number of transitions applied to a payment.
+     */
+    public long version(String paymentId) {
+        State state = states.get(paymentId);
+        return state == null ? 0 : state.word >>> STATUS_BITS;
+    }
+
+    /**
+     * Forget a payment, e.g. once it reached a terminal status and was persisted.
+     */
+    public void remove(String paymentId) {
+        states.remove(paymentId);
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    private static void buffer(State state, PaymentStatus to) {
+        while (true) {
+            PaymentStatus buffered = (PaymentStatus) State.BUFFERED.getVolatile(state);
+            if (buffered != null && !isReachable(buffered, to)) {
+                return;
+            }
+            if (State.BUFFERED.compareAndSet(state, buffered, to)) {
+                return;
+            }
+        }
+    }
+
+    private void drainBuffered(String paymentId, State state) {
+        PaymentStatus buffered = (PaymentStatus) State.BUFFERED.getVolatile(state);
+        if (buffered == null) {
+            return;
+        }
+        int current = (int) (state.word & STATUS_MASK);
+        boolean legal = current != UNKNOWN && isLegal(STATUSES[current], buffered);
+        boolean stale = current != UNKNOWN && !isReachable(STATUSES[current], buffered);
+        if ((legal || stale) && State.BUFFERED.compareAndSet(state, buffered, null)) {
+            if (legal) {
+                apply(paymentId, buffered);
+            } else {
+                log.debug("Dropped buffered {} of payment {} at {}", buffered, paymentId, STATUSES[current]);
+            }
+        }
+    }
+
+    private void emit(String paymentId, int from, PaymentStatus to, long word) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Transition transition = new Transition(paymentId, from == UNKNOWN ? null : STATUSES[from], to,
+                word >>> STATUS_BITS);
+        for (Consumer<Transition> listener : listeners) {
+            try {
+                listener.accept(transition);
+            } catch (RuntimeException e) {
+                log.warn("Payment transition listener failed for {}: {}", paymentId, e.getMessage());
+            }
+        }
+    }
+
+    private static void legal(PaymentStatus from, PaymentStatus... to) {
+        for (PaymentStatus status : to) {
+            LEGAL[from.ordinal()] |= 1 << status.ordinal();
+        }
+    }
+
+    /**
+     * Result of applying a status event.
+     */
+    public enum Outcome {
+        APPLIED,
+        DUPLICATE,
+        STALE,
+        BUFFERED,
+        REJECTED
+    }
+
+    /**
+     * Applied transition of a payment.
+     *
+     * @param from previous status, {@code null} for the first status of a payment
+     * @param version number of transitions applied to the payment including this one
+     */
+    public record Transition(String paymentId, PaymentStatus from, PaymentStatus to, long version) {
+    }
+
+    private static final class State {
+        private static final VarHandle WORD;
+        private static final VarHandle BUFFERED;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                WORD = lookup.findVarHandle(State.class, "word", long.class);
+                BUFFERED = lookup.findVarHandle(State.class, "buffered", PaymentStatus.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /** version in the high bits, status ordinal in the low eight */
+        private volatile long word = UNKNOWN;
+        private volatile PaymentStatus buffered;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.status;
+
+import com.firefly.rails.adapter.ports.StatusPort;
+import com.firefly.rails.dtos.status.TransactionStatusResponse;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * In-process fan-out of payment status changes to subscribers of sets of payment ids.
+ *
+ * <p>Adapters {@link #publish(TransactionStatusResponse)} every status change they learn of, e.g.
+ * from a rail callback or a status poll, and implement
+ * {@link com.firefly.rails.adapter.ports.StatusPort#subscribeToStatus(Collection)} with
+ * {@link #subscribe(Collection, Function)}. Publishing looks up the subscribers of the payment in a
+ * concurrent index and costs nothing for payments nobody watches.
+ *
+ * <p>Each subscriber buffers at most one status per payment it watches: a status that arrives
+ * before the previous one of the same payment was delivered replaces it. A slow client therefore
+ * receives the latest status of each payment, never an unbounded backlog, and publishing never
+ * blocks on a subscriber.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public Flux<TransactionStatusResponse> subscribeToStatus(Collection<String> transactionIds) {
+ *     return statusHub.subscribe(transactionIds,
+ *             id -> queryTransactionStatus(id).mapNotNull(ResponseEntity::getBody));
+ * }
+ *
+ * // in the rail callback handler
+ * statusHub.publish(TransactionStatusResponse.builder().id(paymentId).status("SETTLED").build());
+ * }</pre>
+ */
+@Slf4j
+public class PaymentStatusHub {
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final int maxPaymentsPerSubscription;
+
+    public PaymentStatusHub() {
+        this(StatusPort.MAX_SUBSCRIBED_TRANSACTIONS);
+    }
+
+    /**
+     * @param maxPaymentsPerSubscription most payment ids one subscription may watch
+     */
+    public PaymentStatusHub(int maxPaymentsPerSubscription) {
+        if (maxPaymentsPerSubscription <= 0) {
+            throw new IllegalArgumentException("Max payments per subscription must be positive");
+        }
+        this.maxPaymentsPerSubscription = maxPaymentsPerSubscription;
+    }
+
+    /**
+     * Subscribe to status changes of payments published from now on.
+     */
+    public Flux<TransactionStatusResponse> subscribe(Collection<String> paymentIds) {
+        return subscribe(paymentIds, id -> Mono.empty());
+    }
+
+    /**
+     * Subscribe to status changes of payments, starting with their current status.
+     *
+     * @param current looks up the current status of a payment; ignored for a payment once a
+     *                newer status was published
+     */
+    public Flux<TransactionStatusResponse> subscribe(Collection<String> paymentIds,
+                                                     Function<String, Mono<TransactionStatusResponse>> current) {
+        Set<String> ids = new LinkedHashSet<>(paymentIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        if (ids.size() > maxPaymentsPerSubscription) {
+            return Flux.error(new IllegalArgumentException("Cannot watch more than "
+                    + maxPaymentsPerSubscription + " payments in one subscription"));
+        }
+        return Flux.create(sink -> {
+            Subscriber subscriber = new Subscriber(sink);
+            for (String id : ids) {
+                subscribers.compute(id, (key, watchers) -> {
+                    Set<Subscriber> updated = watchers != null ? watchers : ConcurrentHashMap.newKeySet();
+                    updated.add(subscriber);
+                    return updated;
+                });
+            }
+            subscriptions.incrementAndGet();
+            sink.onRequest(requested -> subscriber.drain());
+            sink.onDispose(() -> {
+                for (String id : ids) {
+                    subscribers.computeIfPresent(id, (key, watchers) -> {
+                        watchers.remove(subscriber);
+                        return watchers.isEmpty() ? null : watchers;
+                    });
+                }
+                subscriptions.decrementAndGet();
+            });
+            for (String id : ids) {
+                current.apply(id).subscribe(subscriber::offerCurrent,
+                        error -> log.debug("Could not look up status of {}: {}", id, error.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Deliver a status change to every subscriber of its payment.
+     *
+     * @return number of subscribers it was delivered to
+     */
+    public int publish(TransactionStatusResponse status) {
+        if (status == null || status.getId() == null) {
+            return 0;
+        }
+        Set<Subscriber> watchers = subscribers.get(status.getId());
+        if (watchers == null) {
+            return 0;
+        }
+        int delivered = 0;
+        for (Subscriber subscriber : watchers) {
+            subscriber.offer(status);
+            delivered++;
+        }
+        return delivered;
+    }
+
+    /**
+     * Number of open subscriptions.
+     */
+    public int subscriptionCount() {
+        return subscriptions.get();
+    }
+
+    /**
+     * Number of payments watched by at least one subscription.
+     */
+    public int watchedPaymentCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Conflating buffer of one subscription, drained as the client requests more.
+     */
+    private static final class Subscriber {
+        private final FluxSink<TransactionStatusResponse> sink;
+        private final Map<String, TransactionStatusResponse> pending = new LinkedHashMap<>();
+        private final Set<String> published = new HashSet<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Subscriber(FluxSink<TransactionStatusResponse> sink) {
+            this.sink = sink;
+        }
+
+        private void offer(TransactionStatusResponse status) {
+            synchronized (this) {
+                published.add(status.getId());
+                pending.put(status.getId(), status);
+            }
+            drain();
+        }
+
+        private void offerCurrent(TransactionStatusResponse status) {
+            synchronized (this) {
+                if (status.getId() == null || published.contains(status.getId())) {
+                    return;
+                }
+                pending.putIfAbsent(status.getId(), status);
+            }
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    TransactionStatusResponse next;
+                    synchronized (this) {
+                        Iterator<TransactionStatusResponse> iterator = pending.values().iterator();
+                        if (!iterator.hasNext()) {
+                            break;
+                        }
+                        next = iterator.next();
+                        iterator.remove();
+                    }
+                    sink.next(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
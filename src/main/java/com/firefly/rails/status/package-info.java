@@ -0,0 +1,19 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+
+/**
+ * Payment status tracking shared by rail implementations.
+ *
+ * <p>This package contains building blocks for implementing
+ * {@link com.firefly.rails.adapter.ports.StatusPort}:
+ * <ul>
+ *   <li>{@link com.firefly.rails.status.PaymentStatusHub} - Fan-out of status changes to streaming subscribers</li>
+ *   <li>{@link com.firefly.rails.status.BatchingStatusPort} - Micro-batched status lookups toward bulk rail queries</li>
+ *   <li>{@link com.firefly.rails.status.PaymentStateMachine} - Lock-free payment lifecycle over legal status transitions</li>
+ * </ul>
+ *
+ * @since 1.0.0
+ */
+package com.firefly.rails.status;
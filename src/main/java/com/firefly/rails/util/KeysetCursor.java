@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.rails.util;
+
+import com.firefly.rails.dtos.CursorPage;
+import com.firefly.rails.dtos.mandate.MandateResponse;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.dtos.scheduled.ScheduledPaymentResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Position in a keyset-paginated listing: the timestamp and id of the last item returned.
+ *
+ * <p>Listings are ordered by timestamp, then id. The next page is every item after the cursor,
+ * which a store answers with an index range scan such as
+ * {@code WHERE (created_at, id) > (:timestamp, :id) ORDER BY created_at, id LIMIT :limit}, so
+ * page N costs the same as page 1 and concurrent inserts never shift items between pages.
+ *
+ * <p>Cursors travel as opaque URL-safe strings; see {@link #encode()} and {@link #decode(String)}.
+ *
+ * <h2>Usage Example</h2>
+ * <pre>{@code
+ * @Override
+ * public Flux<PaymentResponse> streamPayments(ListPaymentsRequest request) {
+ *     KeysetCursor after = request.getCursor() == null ? null : KeysetCursor.decode(request.getCursor());
+ *     return repository.findAfter(after, request.getStartDate(), request.getEndDate()).map(mapper::toResponse);
+ * }
+ * }</pre>
+ *
+ * @param timestamp timestamp of the item; {@link Instant#MIN} if it has none
+ * @param id id of the item, breaking ties between equal timestamps
+ */
+public record KeysetCursor(Instant timestamp, String id) implements Comparable<KeysetCursor> {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 1_000;
+
+    private static final Comparator<KeysetCursor> ORDER = Comparator.comparing(KeysetCursor::timestamp)
+            .thenComparing(KeysetCursor::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public KeysetCursor {
+        timestamp = timestamp == null ? Instant.MIN : timestamp;
+    }
+
+    public static KeysetCursor of(PaymentResponse payment) {
+        return new KeysetCursor(payment.getCreatedAt(), payment.getPaymentId());
+    }
+
+    public static KeysetCursor of(MandateResponse mandate) {
+        return new KeysetCursor(mandate.getCreatedAt(), mandate.getId());
+    }
+
+    /**
+     * Scheduled payments are listed by execution date, then id.
+     */
+    public static KeysetCursor of(ScheduledPaymentResponse payment) {
+        return new KeysetCursor(payment.getExecutionDate() == null ? null
+                : payment.getExecutionDate().atStartOfDay(ZoneOffset.UTC).toInstant(), payment.getScheduledPaymentId());
+    }
+
+    public String encode() {
+        String key = timestamp.getEpochSecond() + ":" + timestamp.getNano() + ":" + (id == null ? "" : id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            if (key.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(Instant.ofEpochSecond(Long.parseLong(key[0]), Long.parseLong(key[1])), key[2]);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    @Override
+    public int compareTo(KeysetCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    /**
+     * Page size of a request: the default if not given, capped at {@link #MAX_PAGE_SIZE}.
+     */
+    public static int pageSize(Integer limit) {
+        return limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Sort items into keyset order and skip those up to a cursor.
+     * For listings that can only be read in full; this buffers every item.
+     *
+     * @param cursor encoded cursor, or {@code null} to start at the first item
+     */
+    public static <T> Flux<T> after(Flux<T> items, String cursor, Function<T, KeysetCursor> key) {
+        Comparator<T> order = Comparator.comparing(key);
+        if (cursor == null) {
+            return items.sort(order);
+        }
+        return Mono.fromCallable(() -> decode(cursor))
+                .flatMapMany(after -> items.filter(item -> key.apply(item).compareTo(after) > 0).sort(order));
+    }
+
+    /**
+     * Take one page from items in keyset order, reading one item past the page to know whether another follows.
+     */
+    public static <T> Mono<CursorPage<T>> page(Flux<T> ordered, int pageSize, Function<T, KeysetCursor> key) {
+        return ordered.take(pageSize + 1L, true)
+                .collectList()
+                .map(items -> {
+                    boolean more = items.size() > pageSize;
+                    List<T> page = more ? List.copyOf(items.subList(0, pageSize)) : items;
+                    return CursorPage.<T>builder()
+                            .items(page)
+                            .nextCursor(more ? key.apply(page.get(page.size() - 1)).encode() : null)
+                            .build();
+                });
+    }
+}
@@ -21,6 +21,7 @@
  * <ul>
  *   <li>{@link com.firefly.rails.util.DtoMapper} - Base class for DTO mapping</li>
  *   <li>{@link com.firefly.rails.util.ValidationUtil} - Validation utilities for banking operations</li>
+ *   <li>{@link com.firefly.rails.util.KeysetCursor} - Keyset pagination cursors</li>
  * </ul>
  * 
  * @see com.firefly.rails.dtos
@@ -8,6 +8,7 @@ import com.firefly.rails.adapter.RailAdapter;
 import com.firefly.rails.adapter.ports.PaymentRailPort;
 import com.firefly.rails.domain.PaymentStatus;
 import com.firefly.rails.dtos.payments.*;
+import com.firefly.rails.exceptions.PaymentNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,14 +16,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -279,6 +292,74 @@ class AbstractPaymentRailControllerTest {
                 .verifyComplete();
         }
 
+        @Test
+        @DisplayName("Should stream a batch lookup from the adapter")
+        void shouldGetPayments() {
+            // Given
+            List<String> paymentIds = List.of("pay_1", "pay_2");
+            when(paymentRailPort.getPayments(paymentIds)).thenReturn(Flux.just(
+                PaymentResponse.builder().paymentId("pay_1").build(),
+                PaymentResponse.builder().paymentId("pay_2").build()));
+
+            // When & Then
+            StepVerifier.create(controller.getPayments(paymentIds).map(PaymentResponse::getPaymentId))
+                .expectNext("pay_1", "pay_2")
+                .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Should answer 400 for a batch lookup over the cap")
+        void shouldCapBatchLookup() {
+            // Given
+            List<String> paymentIds = new ArrayList<>();
+            for (int i = 0; i <= PaymentRailPort.MAX_LOOKUP_PAYMENTS; i++) {
+                paymentIds.add("pay_" + i);
+            }
+            // the request is rejected before the port is looked up
+            lenient().when(railAdapter.payments()).thenReturn(paymentRailPort);
+
+            // When & Then
+            StepVerifier.create(controller.getPayments(paymentIds))
+                .expectErrorSatisfies(error -> assertThat(error).isInstanceOfSatisfying(ResponseStatusException.class,
+                    e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST)))
+                .verify();
+            verify(paymentRailPort, never()).getPayments(any());
+        }
+
+        @Test
+        @DisplayName("Should fan out a batch lookup eight at a time, in order, leaving out missing payments")
+        void shouldFanOutBatchLookup() {
+            // Given
+            List<String> paymentIds = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                paymentIds.add("pay_" + i);
+            }
+            paymentIds.addAll(List.of("pay_3", "missing", "unknown"));
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(paymentRailPort.getPayments(any())).thenCallRealMethod();
+            when(paymentRailPort.getPayment(anyString())).thenAnswer(invocation -> {
+                String paymentId = invocation.getArgument(0);
+                if (paymentId.equals("missing")) {
+                    return Mono.just(ResponseEntity.notFound().build());
+                }
+                if (paymentId.equals("unknown")) {
+                    return Mono.error(new PaymentNotFoundException("Payment not found: " + paymentId));
+                }
+                return Mono.delay(Duration.ofMillis(5 + Math.floorMod(paymentId.hashCode(), 7)))
+                    .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .thenReturn(ResponseEntity.ok(PaymentResponse.builder().paymentId(paymentId).build()))
+                    .doOnSuccess(response -> inFlight.decrementAndGet());
+            });
+
+            // When & Then
+            StepVerifier.create(controller.getPayments(paymentIds).map(PaymentResponse::getPaymentId).collectList())
+                .assertNext(found -> assertThat(found).containsExactlyElementsOf(paymentIds.subList(0, 40)))
+                .verifyComplete();
+            assertThat(maxInFlight.get()).isBetween(2, 8);
+            verify(paymentRailPort, times(1)).getPayment("pay_3");
+        }
+
         @Test
         @DisplayName("Should get payment status by reference")
         void shouldGetPaymentStatus() {
@@ -13,8 +13,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -53,6 +62,23 @@ class AllControllersTest {
         assertThat(controller).isNotNull();
     }
 
+    @Test
+    @DisplayName("Should answer 400 when streaming more transactions than the cap")
+    void shouldCapStatusStream() {
+        when(railAdapter.status()).thenReturn(statusPort);
+        AbstractStatusController controller = new TestStatusController(railAdapter);
+        List<String> transactionIds = new ArrayList<>();
+        for (int i = 0; i <= StatusPort.MAX_SUBSCRIBED_TRANSACTIONS; i++) {
+            transactionIds.add("txn_" + i);
+        }
+
+        StepVerifier.create(controller.streamTransactionStatus(transactionIds))
+                .expectErrorSatisfies(error -> assertThat(error).isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST)))
+                .verify();
+        verify(statusPort, never()).subscribeToStatus(any());
+    }
+
     @Test
     @DisplayName("Should instantiate AbstractSettlementController")
     void shouldInstantiateSettlementController() {
@@ -109,6 +135,13 @@ class AllControllersTest {
         assertThat(controller).isNotNull();
     }
 
+    @Test
+    @DisplayName("Should instantiate AbstractBatchController")
+    void shouldInstantiateBatchController() {
+        AbstractBatchController controller = new TestBatchController(railAdapter);
+        assertThat(controller.batchExecutor.supportedOperations()).contains("payments.validate", "compliance.sanctions", "status.transaction");
+    }
+
     // Test implementations
     static class TestPaymentRailController extends AbstractPaymentRailController {
         TestPaymentRailController(RailAdapter railAdapter) { super(railAdapter); }
@@ -145,4 +178,8 @@ class AllControllersTest {
     static class TestRailSpecificController extends AbstractRailSpecificController {
         TestRailSpecificController(RailAdapter railAdapter) { super(railAdapter); }
     }
+
+    static class TestBatchController extends AbstractBatchController {
+        TestBatchController(RailAdapter railAdapter) { super(railAdapter); }
+    }
 }
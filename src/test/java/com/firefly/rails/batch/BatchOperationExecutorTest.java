@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.batch;
+
+import com.firefly.rails.adapter.RailAdapter;
+import com.firefly.rails.adapter.ports.CompliancePort;
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.adapter.ports.StatusPort;
+import com.firefly.rails.dtos.batch.BatchOperation;
+import com.firefly.rails.dtos.batch.BatchOperationResult;
+import com.firefly.rails.dtos.batch.BatchRequest;
+import com.firefly.rails.dtos.batch.BatchResponse;
+import com.firefly.rails.dtos.compliance.SanctionsScreeningRequest;
+import com.firefly.rails.dtos.compliance.SanctionsScreeningResponse;
+import com.firefly.rails.dtos.payments.*;
+import com.firefly.rails.exceptions.PaymentNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for executing multiplexed batches of rail operations.
+ */
+@DisplayName("Batch Operation Executor Tests")
+class BatchOperationExecutorTest {
+
+    private PaymentRailPort payments;
+    private CompliancePort compliance;
+    private StatusPort status;
+    private BatchOperationExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        payments = mock(PaymentRailPort.class);
+        compliance = mock(CompliancePort.class);
+        status = mock(StatusPort.class);
+        RailAdapter railAdapter = mock(RailAdapter.class);
+        when(railAdapter.payments()).thenReturn(payments);
+        when(railAdapter.compliance()).thenReturn(compliance);
+        when(railAdapter.status()).thenReturn(status);
+        executor = new BatchOperationExecutor(railAdapter);
+    }
+
+    @Nested
+    @DisplayName("Execution")
+    class ExecutionTests {
+
+        @Test
+        @DisplayName("Should run a dependent chain in order next to independent operations running concurrently")
+        void shouldRunChainsInOrderAndIndependentOperationsConcurrently() {
+            // Given
+            Map<String, Long> started = new ConcurrentHashMap<>();
+            Map<String, Long> finished = new ConcurrentHashMap<>();
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(payments.validatePayment(any())).thenReturn(timed("validate", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.ok(ValidationResponse.builder().valid(true).build())));
+            when(payments.simulatePayment(any())).thenReturn(timed("simulate", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.ok(SimulationResponse.builder().isValid(true).build())));
+            when(payments.initiatePayment(any())).thenReturn(timed("initiate", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.status(HttpStatus.CREATED).body(PaymentResponse.builder().paymentId("pay_1").build())));
+            when(compliance.screenSanctions(any())).thenReturn(timed("sanctions", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.ok(SanctionsScreeningResponse.builder().match(false).build())));
+            BatchRequest request = BatchRequest.builder()
+                    .operations(List.of(
+                            operation("validate", "payments.validate", ValidatePaymentRequest.builder().build()),
+                            operation("simulate", "payments.simulate", SimulatePaymentRequest.builder().build(), "validate"),
+                            operation("sanctions", "compliance.sanctions", SanctionsScreeningRequest.builder().name("Jane Doe").build()),
+                            operation("initiate", "payments.initiate", InitiatePaymentRequest.builder().build(), "simulate", "sanctions")))
+                    .build();
+
+            // When
+            BatchResponse response = executor.execute(request).block().getBody();
+
+            // Then
+            assertThat(response.getResults()).extracting(BatchOperationResult::getId, BatchOperationResult::getStatus)
+                    .containsExactly(tuple("validate", 200), tuple("simulate", 200), tuple("sanctions", 200), tuple("initiate", 201));
+            assertThat(response.getResults().get(3).getBody()).isInstanceOf(PaymentResponse.class);
+            assertThat(started.get("simulate")).isGreaterThanOrEqualTo(finished.get("validate"));
+            assertThat(started.get("initiate")).isGreaterThanOrEqualTo(Math.max(finished.get("simulate"), finished.get("sanctions")));
+            assertThat(maxInFlight.get()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should bound operations calling the rail without letting waiting operations hold back the others")
+        void shouldBoundConcurrencyAcrossDependencies() {
+            // Given
+            Map<String, Long> started = new ConcurrentHashMap<>();
+            Map<String, Long> finished = new ConcurrentHashMap<>();
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(payments.validatePayment(any())).thenReturn(timed("validate", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.ok(ValidationResponse.builder().valid(true).build())));
+            when(payments.simulatePayment(any())).thenReturn(timed("simulate", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.ok(SimulationResponse.builder().isValid(true).build())));
+            when(compliance.screenSanctions(any())).thenReturn(timed("sanctions", started, finished, inFlight, maxInFlight,
+                    ResponseEntity.ok(SanctionsScreeningResponse.builder().match(false).build())));
+            List<BatchOperation> operations = new ArrayList<>();
+            operations.add(operation("validate", "payments.validate", ValidatePaymentRequest.builder().build()));
+            for (int i = 0; i < 16; i++) {
+                operations.add(operation("simulate-" + i, "payments.simulate", SimulatePaymentRequest.builder().build(), "validate"));
+            }
+            for (int i = 0; i < BatchOperationExecutor.DEFAULT_CONCURRENCY - 1; i++) {
+                operations.add(operation("sanctions-" + i, "compliance.sanctions",
+                        SanctionsScreeningRequest.builder().name("Jane Doe").build()));
+            }
+
+            // When
+            BatchResponse response = executor.execute(BatchRequest.builder().operations(operations).build()).block().getBody();
+
+            // Then
+            assertThat(response.getResults()).hasSize(operations.size()).allMatch(BatchOperationResult::isSuccessful);
+            assertThat(started.get("sanctions")).isLessThan(finished.get("validate"));
+            assertThat(maxInFlight.get()).isEqualTo(BatchOperationExecutor.DEFAULT_CONCURRENCY);
+        }
+
+        @Test
+        @DisplayName("Should skip operations whose dependency failed and report every failure on its own")
+        void shouldIsolateFailures() {
+            // Given
+            when(payments.validatePayment(any())).thenReturn(Mono.just(ResponseEntity.unprocessableEntity()
+                    .body(ValidationResponse.builder().valid(false).build())));
+            when(payments.getPayment("pay_9")).thenReturn(Mono.error(new PaymentNotFoundException("Payment not found: pay_9")));
+            when(status.queryTransactionStatus(any())).thenReturn(Mono.empty());
+            BatchRequest request = BatchRequest.builder()
+                    .operations(List.of(
+                            operation("validate", "payments.validate", ValidatePaymentRequest.builder().build()),
+                            operation("simulate", "payments.simulate", SimulatePaymentRequest.builder().build(), "validate"),
+                            operation("initiate", "payments.initiate", InitiatePaymentRequest.builder().build(), "simulate"),
+                            operation("lookup", "payments.get", "pay_9"),
+                            operation("status", "status.transaction", "txn_1"),
+                            operation("unknown", "payments.teleport", "pay_1"),
+                            operation(null, "payments.get", null)))
+                    .build();
+
+            // When
+            BatchResponse response = executor.execute(request).block().getBody();
+
+            // Then
+            assertThat(response.getResults()).extracting(BatchOperationResult::getId, BatchOperationResult::getStatus)
+                    .containsExactly(tuple("validate", 422), tuple("simulate", 424), tuple("initiate", 424),
+                            tuple("lookup", 404), tuple("status", 200), tuple("unknown", 400), tuple("6", 400));
+            assertThat(response.getResults().get(2).getError()).isEqualTo("Dependency simulate failed");
+            verify(payments, never()).simulatePayment(any());
+            verify(payments, never()).initiatePayment(any());
+        }
+
+        @Test
+        @DisplayName("Should skip operations whose dependency answered 2xx with a declining body")
+        void shouldSkipDeclinedDependencies() {
+            // Given
+            when(payments.validatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(
+                    ValidationResponse.builder().valid(false).build())));
+            when(compliance.screenSanctions(any())).thenReturn(Mono.just(ResponseEntity.ok(
+                    SanctionsScreeningResponse.builder().match(true).build())));
+            BatchRequest request = BatchRequest.builder()
+                    .operations(List.of(
+                            operation("validate", "payments.validate", ValidatePaymentRequest.builder().build()),
+                            operation("sanctions", "compliance.sanctions", SanctionsScreeningRequest.builder().name("Jane Doe").build()),
+                            operation("initiate", "payments.initiate", InitiatePaymentRequest.builder().build(), "validate"),
+                            operation("pay", "payments.initiate", InitiatePaymentRequest.builder().build(), "sanctions")))
+                    .build();
+
+            // When
+            BatchResponse response = executor.execute(request).block().getBody();
+
+            // Then
+            assertThat(response.getResults()).extracting(BatchOperationResult::getId, BatchOperationResult::getStatus,
+                            BatchOperationResult::isSuccessful)
+                    .containsExactly(tuple("validate", 200, false), tuple("sanctions", 200, false),
+                            tuple("initiate", 424, false), tuple("pay", 424, false));
+            assertThat(response.getResults()).extracting(BatchOperationResult::getError)
+                    .containsExactly("Payment is not valid", "Sanctions screening matched",
+                            "Dependency validate failed", "Dependency sanctions failed");
+            assertThat(response.getResults().get(0).getBody()).isInstanceOf(ValidationResponse.class);
+            verify(payments, never()).initiatePayment(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Validation")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("Should reject forward, unknown and duplicate references and oversized batches without running anything")
+        void shouldRejectMalformedBatches() {
+            // Given
+            List<BatchRequest> malformed = List.of(
+                    BatchRequest.builder().operations(List.of(
+                            operation("a", "payments.get", "pay_1", "b"),
+                            operation("b", "payments.get", "pay_2"))).build(),
+                    BatchRequest.builder().operations(List.of(
+                            operation("a", "payments.get", "pay_1", "a"))).build(),
+                    BatchRequest.builder().operations(List.of(
+                            operation("a", "payments.get", "pay_1"),
+                            operation("a", "payments.get", "pay_2"))).build(),
+                    BatchRequest.builder().operations(Collections.nCopies(
+                            BatchOperationExecutor.DEFAULT_MAX_OPERATIONS + 1, operation(null, "payments.get", "pay_1"))).build());
+
+            // When / Then
+            for (BatchRequest request : malformed) {
+                assertThat(executor.execute(request).block().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            }
+            verifyNoInteractions(payments);
+        }
+    }
+
+    private static BatchOperation operation(String id, String operation, Object body, String... dependsOn) {
+        return BatchOperation.builder()
+                .id(id)
+                .operation(operation)
+                .body(body)
+                .dependsOn(List.of(dependsOn))
+                .build();
+    }
+
+    private static <T> Mono<ResponseEntity<T>> timed(String name, Map<String, Long> started, Map<String, Long> finished,
+                                                     AtomicInteger inFlight, AtomicInteger maxInFlight,
+                                                     ResponseEntity<T> response) {
+        return Mono.delay(Duration.ofMillis(50))
+                .doOnSubscribe(subscription -> {
+                    started.put(name, System.nanoTime());
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                })
+                .thenReturn(response)
+                .doOnSuccess(value -> {
+                    inFlight.decrementAndGet();
+                    finished.put(name, System.nanoTime());
+                });
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.bulk;
+
+import com.firefly.rails.adapter.ports.BulkPaymentPort;
+import com.firefly.rails.dtos.bulk.BulkPaymentRequest;
+import com.firefly.rails.dtos.bulk.BulkPaymentResponse;
+import com.firefly.rails.dtos.bulk.DuplicateReference;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for off-heap duplicate reference detection.
+ */
+@DisplayName("Duplicate Reference Detector Tests")
+class DuplicateReferenceDetectorTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    @Nested
+    @DisplayName("Detection")
+    class DetectionTests {
+
+        @Test
+        @DisplayName("Should report duplicates inside a single bulk")
+        void shouldReportDuplicatesInsideBulk() {
+            // Given
+            DuplicateReferenceDetector detector = new DuplicateReferenceDetector(100, Duration.ofDays(1), true, clock);
+
+            // When
+            List<DuplicateReference> duplicates = detector.reserve(Arrays.asList("E2E-1", "E2E-2", null, "E2E-1"));
+
+            // Then
+            assertThat(duplicates).singleElement().satisfies(duplicate -> {
+                assertThat(duplicate.getItemIndex()).isEqualTo(3);
+                assertThat(duplicate.getDuplicateOfIndex()).isZero();
+            });
+        }
+
+        @Test
+        @DisplayName("Should report duplicates against earlier bulks and register nothing")
+        void shouldReportDuplicatesAcrossBulks() {
+            // Given
+            DuplicateReferenceDetector detector = new DuplicateReferenceDetector(100, Duration.ofDays(1), true, clock);
+            assertThat(detector.reserve(List.of("E2E-1", "E2E-2"))).isEmpty();
+
+            // When
+            List<DuplicateReference> duplicates = detector.reserve(List.of("E2E-3", "E2E-2"));
+
+            // Then
+            assertThat(duplicates).singleElement().satisfies(duplicate -> {
+                assertThat(duplicate.getItemIndex()).isEqualTo(1);
+                assertThat(duplicate.getFirstSeenAt()).isEqualTo(clock.instant());
+            });
+            assertThat(detector.findDuplicates(List.of("E2E-3"))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should forget references after the window or on release")
+        void shouldExpireAndReleaseReferences() {
+            // Given
+            DuplicateReferenceDetector detector = new DuplicateReferenceDetector(100, Duration.ofHours(1), false, clock);
+            detector.reserve(List.of("E2E-1", "E2E-2"));
+
+            // When
+            detector.release(List.of("E2E-2"));
+            clock.advance(Duration.ofMinutes(30));
+
+            // Then
+            assertThat(detector.findDuplicates(List.of("E2E-1", "E2E-2"))).hasSize(1);
+            clock.advance(Duration.ofMinutes(31));
+            assertThat(detector.findDuplicates(List.of("E2E-1", "E2E-2"))).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Port decorator")
+    class DecoratorTests {
+
+        @Test
+        @DisplayName("Should release references unless the rail confirms the bulk")
+        void shouldReleaseUnlessConfirmed() {
+            // Given
+            DuplicateReferenceDetector detector = new DuplicateReferenceDetector(100, Duration.ofHours(1), false, clock);
+            BulkPaymentPort rail = mock(BulkPaymentPort.class);
+            DeduplicatingBulkPaymentPort port = new DeduplicatingBulkPaymentPort(rail, detector);
+            BulkPaymentRequest request = BulkPaymentRequest.builder()
+                    .id("BULK-1")
+                    .payments(List.of(InitiatePaymentRequest.builder().endToEndReference("E2E-1").build()))
+                    .build();
+
+            // When / Then - empty, cancelled and failed submissions keep nothing reserved
+            when(rail.submitBulkPayment(request)).thenReturn(Mono.empty());
+            StepVerifier.create(port.submitBulkPayment(request)).verifyComplete();
+            assertThat(detector.findDuplicates(List.of("E2E-1"))).isEmpty();
+
+            when(rail.submitBulkPayment(request)).thenReturn(Mono.never());
+            StepVerifier.create(port.submitBulkPayment(request)).thenCancel().verify();
+            assertThat(detector.findDuplicates(List.of("E2E-1"))).isEmpty();
+
+            when(rail.submitBulkPayment(request)).thenReturn(Mono.just(ResponseEntity.internalServerError().build()));
+            StepVerifier.create(port.submitBulkPayment(request)).expectNextCount(1).verifyComplete();
+            assertThat(detector.findDuplicates(List.of("E2E-1"))).isEmpty();
+
+            when(rail.submitBulkPayment(request)).thenReturn(Mono.just(ResponseEntity.ok(BulkPaymentResponse.builder().build())));
+            StepVerifier.create(port.submitBulkPayment(request)).expectNextCount(1).verifyComplete();
+            assertThat(detector.findDuplicates(List.of("E2E-1"))).hasSize(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Off-heap index")
+    class IndexTests {
+
+        @Test
+        @DisplayName("Should grow and purge expired entries when rebuilding")
+        void shouldGrowAndPurge() {
+            // Given
+            DuplicateReferenceDetector detector = new DuplicateReferenceDetector(16, Duration.ofHours(1), true, clock);
+            List<String> first = references("A-", 10_000);
+            detector.reserve(first);
+            clock.advance(Duration.ofHours(2));
+
+            // When
+            List<String> second = references("B-", 10_000);
+            assertThat(detector.reserve(second)).isEmpty();
+
+            // Then
+            assertThat(detector.findDuplicates(first)).isEmpty();
+            assertThat(detector.findDuplicates(second)).hasSize(10_000);
+        }
+    }
+
+    private static List<String> references(String prefix, int count) {
+        List<String> references = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            references.add(prefix + i);
+        }
+        return references;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.bulk.bacs;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.railspecific.BACSSpecific;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the Standard 18 writer and reader.
+ */
+@DisplayName("BACS Standard 18 Writer/Reader Tests")
+class Standard18WriterTest {
+
+    private static final LocalDate CREATED = LocalDate.of(2025, 3, 3);
+
+    @Test
+    @DisplayName("Should group payments into one section per service user and processing day")
+    void shouldGroupPaymentsIntoSections() throws Exception {
+        // Given
+        StringWriter out = new StringWriter();
+
+        // When
+        try (Standard18Writer writer = new Standard18Writer(out, "000001", "123456", CREATED)) {
+            writer.write(payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 1000));
+            writer.write(payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 2550));
+            writer.write(payment("123456", "2025-03-06", BACSSpecific.TransactionCode.DIRECT_DEBIT_17, 700));
+            writer.finish();
+            assertThat(writer.getSectionCount()).isEqualTo(2);
+        }
+
+        // Then
+        List<String> lines = out.toString().lines().toList();
+        assertThat(lines).filteredOn(line -> line.startsWith("UHL1")).hasSize(2);
+        assertThat(lines).filteredOn(line -> line.startsWith("UTL1")).hasSize(2);
+        assertThat(lines).allSatisfy(line -> assertThat(line.length()).isIn(80, 100));
+    }
+
+    @Test
+    @DisplayName("Should round-trip payments and contras through the reader")
+    void shouldRoundTripThroughReader() throws Exception {
+        // Given
+        StringWriter out = new StringWriter();
+        try (Standard18Writer writer = new Standard18Writer(out, "000001", "123456", CREATED)) {
+            writer.write(payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 1000));
+            writer.write(payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 2550));
+        }
+
+        // When
+        List<Standard18Record> records = new ArrayList<>();
+        try (Standard18Reader reader = new Standard18Reader(new StringReader(out.toString()))) {
+            reader.forEachRemaining(records::add);
+        }
+
+        // Then
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0).getProcessingDate()).isEqualTo(LocalDate.of(2025, 3, 5));
+        assertThat(records.get(0).toPayment().getAmount().toCents()).isEqualTo(1000);
+        Standard18Record contra = records.get(2);
+        assertThat(contra.isContra()).isTrue();
+        assertThat(contra.getTransactionCode()).isEqualTo("17");
+        assertThat(contra.getAmountPence()).isEqualTo(3550);
+    }
+
+    @Test
+    @DisplayName("Should open a new section with its own contra when the originating account changes")
+    void shouldSplitSectionsByOriginatingAccount() throws Exception {
+        // Given
+        StringWriter out = new StringWriter();
+        BACSSpecific.BACSPayment other = payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 2550);
+        other.setOriginatingAccountNumber("87654321");
+        try (Standard18Writer writer = new Standard18Writer(out, "000001", "123456", CREATED)) {
+            writer.write(payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 1000));
+            writer.write(other);
+            writer.finish();
+            assertThat(writer.getSectionCount()).isEqualTo(2);
+        }
+
+        // When
+        List<Standard18Record> records = new ArrayList<>();
+        try (Standard18Reader reader = new Standard18Reader(new StringReader(out.toString()))) {
+            reader.forEachRemaining(records::add);
+        }
+
+        // Then
+        assertThat(records).filteredOn(Standard18Record::isContra)
+            .extracting(Standard18Record::getDestinationAccountNumber, Standard18Record::getAmountPence)
+            .containsExactly(tuple("12345678", 1000L), tuple("87654321", 2550L));
+    }
+
+    @Test
+    @DisplayName("Should reject a file whose trailer totals do not match")
+    void shouldRejectTamperedTotals() throws Exception {
+        // Given
+        StringWriter out = new StringWriter();
+        try (Standard18Writer writer = new Standard18Writer(out, "000001", "123456", CREATED)) {
+            writer.write(payment("123456", "2025-03-05", BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 1000));
+        }
+        String tampered = out.toString().replace("00000000010000", "00000000010001");
+
+        // When & Then
+        StepVerifier.create(Standard18Reader.read(() -> new StringReader(tampered)))
+            .expectNextCount(2)
+            .expectError(RailFileFormatException.class)
+            .verify();
+    }
+
+    @Test
+    @DisplayName("Should reject non-GBP amounts")
+    void shouldRejectNonGbpAmounts() {
+        Standard18Writer writer = new Standard18Writer(new StringWriter(), "000001", "123456", CREATED);
+        BACSSpecific.BACSPayment payment = payment("123456", "2025-03-05",
+                BACSSpecific.TransactionCode.DIRECT_CREDIT_99, 1000);
+        payment.setAmount(Money.fromCents(1000, Currency.EUR));
+
+        assertThatThrownBy(() -> writer.write(payment))
+            .isInstanceOf(RailFileFormatException.class)
+            .hasMessageContaining("GBP");
+    }
+
+    private static BACSSpecific.BACSPayment payment(String sun, String date, BACSSpecific.TransactionCode code,
+                                                    long pence) {
+        return BACSSpecific.BACSPayment.builder()
+                .serviceUserNumber(sun)
+                .processingDate(date)
+                .transactionCode(code)
+                .sortCode("40-47-84")
+                .accountNumber("70872490")
+                .destinationAccountName("J Smith")
+                .originatingSortCode("200000")
+                .originatingAccountNumber("12345678")
+                .originatingAccountName("Firefly Ltd")
+                .reference("INV 1001")
+                .amount(Money.fromCents(pence, Currency.GBP))
+                .build();
+    }
+}
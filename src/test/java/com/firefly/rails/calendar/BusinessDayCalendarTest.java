@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.calendar;
+
+import com.firefly.rails.domain.RailType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for precomputed business-day calendars.
+ */
+@DisplayName("Business Day Calendar Tests")
+class BusinessDayCalendarTest {
+
+    private final BusinessDayCalendarRegistry registry =
+            BusinessDayCalendarRegistry.withDefaults(LocalDate.of(2024, 1, 1), 5);
+
+    @Nested
+    @DisplayName("Date math")
+    class DateMathTests {
+
+        @Test
+        @DisplayName("Should skip weekends and TARGET2 holidays")
+        void shouldSkipTargetHolidays() {
+            // Given
+            BusinessDayCalendar target2 = registry.forRail(RailType.SEPA);
+
+            // Then - Easter 2025 is 20 April
+            assertThat(target2.isBusinessDay(LocalDate.of(2025, 4, 18))).isFalse();
+            assertThat(target2.nextBusinessDay(LocalDate.of(2025, 4, 17))).isEqualTo(LocalDate.of(2025, 4, 22));
+            assertThat(target2.addBusinessDays(LocalDate.of(2025, 12, 24), 1)).isEqualTo(LocalDate.of(2025, 12, 29));
+            assertThat(target2.previousBusinessDay(LocalDate.of(2025, 12, 29))).isEqualTo(LocalDate.of(2025, 12, 24));
+            assertThat(target2.addBusinessDays(LocalDate.of(2025, 4, 19), 0)).isEqualTo(LocalDate.of(2025, 4, 22));
+            assertThat(target2.businessDaysBetween(LocalDate.of(2025, 4, 14), LocalDate.of(2025, 4, 28))).isEqualTo(8);
+            assertThat(registry.forRail(RailType.TARGET2)).isSameAs(target2);
+        }
+
+        @Test
+        @DisplayName("Should substitute UK holidays falling on a weekend")
+        void shouldSubstituteUkHolidays() {
+            // Given - 25 December 2027 is a Saturday
+            BusinessDayCalendar bacs = registry.forRail(RailType.BACS);
+
+            // Then
+            assertThat(bacs.isBusinessDay(LocalDate.of(2027, 12, 27))).isFalse();
+            assertThat(bacs.isBusinessDay(LocalDate.of(2027, 12, 28))).isFalse();
+            assertThat(bacs.isBusinessDay(LocalDate.of(2027, 12, 29))).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should reject dates outside the calendar")
+        void shouldRejectOutOfRange() {
+            BusinessDayCalendar fedwire = registry.forRail(RailType.FEDWIRE);
+            assertThatThrownBy(() -> fedwire.isBusinessDay(LocalDate.of(2040, 1, 2)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cut-offs")
+    class CutOffTests {
+
+        @Test
+        @DisplayName("Should find the next ACH same-day window")
+        void shouldFindNextAchWindow() {
+            // Given
+            BusinessDayCalendar ach = registry.forRail(RailType.ACH);
+            ZoneId newYork = ZoneId.of("America/New_York");
+
+            // When
+            Instant midday = ZonedDateTime.of(2025, 3, 14, 12, 0, 0, 0, newYork).toInstant();
+            Instant evening = ZonedDateTime.of(2025, 3, 14, 17, 0, 0, 0, newYork).toInstant();
+
+            // Then - 14 March 2025 is a Friday
+            assertThat(ach.nextCutOff(midday)).isEqualTo(ZonedDateTime.of(2025, 3, 14, 14, 45, 0, 0, newYork).toInstant());
+            assertThat(ach.nextCutOff(evening)).isEqualTo(ZonedDateTime.of(2025, 3, 17, 10, 30, 0, 0, newYork).toInstant());
+            assertThat(ach.expectedSettlementDate(evening)).isEqualTo(LocalDate.of(2025, 3, 18));
+        }
+
+        @Test
+        @DisplayName("Should follow the BACS three-day cycle")
+        void shouldFollowBacsCycle() {
+            // Given
+            BusinessDayCalendar bacs = registry.forRail(RailType.BACS);
+            Instant mondayMorning = ZonedDateTime.of(2025, 3, 10, 9, 0, 0, 0, ZoneId.of("Europe/London")).toInstant();
+
+            // Then
+            assertThat(bacs.processingDate(mondayMorning)).isEqualTo(LocalDate.of(2025, 3, 10));
+            assertThat(bacs.expectedSettlementDate(mondayMorning)).isEqualTo(LocalDate.of(2025, 3, 12));
+        }
+    }
+
+    @Nested
+    @DisplayName("Holiday rules")
+    class HolidayRuleTests {
+
+        @Test
+        @DisplayName("Should compute Easter and Federal Reserve holidays")
+        void shouldComputeHolidays() {
+            assertThat(HolidayRules.easterSunday(2024)).isEqualTo(LocalDate.of(2024, 3, 31));
+            assertThat(HolidayRules.easterSunday(2026)).isEqualTo(LocalDate.of(2026, 4, 5));
+            assertThat(HolidayRules.federalReserve(2025, 2025)).contains(
+                    LocalDate.of(2025, 1, 20), LocalDate.of(2025, 5, 26), LocalDate.of(2025, 11, 27));
+            assertThat(HolidayRules.federalReserve(2022, 2022)).contains(LocalDate.of(2022, 6, 20));
+        }
+
+        @Test
+        @DisplayName("Should parse holiday files")
+        void shouldParseHolidayFile() {
+            assertThat(HolidayRules.parse(new StringReader("# one-off closures\n2023-05-08\n\n2022-09-19\n")))
+                    .containsExactly(LocalDate.of(2023, 5, 8), LocalDate.of(2022, 9, 19));
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.callback;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firefly.rails.domain.PaymentStatus;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the callback dispatcher against a local stub HTTP server.
+ */
+@DisplayName("Callback Dispatcher Tests")
+class CallbackDispatcherTest {
+
+    private static final PaymentStatus[] LIFECYCLE = {PaymentStatus.INITIATED, PaymentStatus.SUBMITTED,
+            PaymentStatus.PROCESSING, PaymentStatus.SETTLED, PaymentStatus.COMPLETED};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final Map<String, Queue<JsonNode>> received = new HashMap<>();
+    private final Map<String, AtomicInteger> requests = new HashMap<>();
+    private final Map<String, IntSupplier> responses = new HashMap<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        for (String path : List.of("/single", "/batch", "/flaky", "/down", "/gone")) {
+            received.put(path, new ConcurrentLinkedQueue<>());
+            requests.put(path, new AtomicInteger());
+            responses.put(path, () -> 204);
+            server.createContext(path, exchange -> {
+                requests.get(path).incrementAndGet();
+                JsonNode body = objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+                int status = responses.get(path).getAsInt();
+                if (status < 300) {
+                    if (body.isArray()) {
+                        body.forEach(received.get(path)::add);
+                    } else {
+                        received.get(path).add(body);
+                    }
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            });
+        }
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Nested
+    @DisplayName("Delivery")
+    class DeliveryTests {
+
+        @Test
+        @DisplayName("Should deliver a load of notifications in order per payment, batching where supported")
+        void shouldDeliverUnderLoad() {
+            // Given
+            int payments = 400;
+            try (CallbackSpool spool = CallbackSpool.open(directory);
+                 CallbackDispatcher dispatcher = dispatcher(spool, 5)) {
+                dispatcher.batching(url("/batch"), 50);
+                dispatcher.start();
+
+                // When
+                Flux.range(0, payments * LIFECYCLE.length)
+                        .concatMap(i -> Flux.just(url("/single"), url("/batch"))
+                                .flatMap(endpoint -> dispatcher.dispatch(endpoint,
+                                        notification("PAY-" + i % payments, LIFECYCLE[i / payments]))))
+                        .blockLast(Duration.ofSeconds(60));
+
+                // Then
+                awaitDelivered(dispatcher);
+                for (String path : List.of("/single", "/batch")) {
+                    assertThat(received.get(path)).hasSize(payments * LIFECYCLE.length);
+                    assertInOrderPerPayment(received.get(path));
+                }
+                assertThat(requests.get("/single").get()).isEqualTo(payments * LIFECYCLE.length);
+                assertThat(requests.get("/batch").get()).isLessThan(payments * LIFECYCLE.length / 2);
+                assertThat(received.get("/batch")).extracting(node -> node.get("notificationId").asText())
+                        .doesNotHaveDuplicates();
+            }
+        }
+
+        @Test
+        @DisplayName("Should retry failed deliveries with backoff while holding later notifications")
+        void shouldRetryInOrder() {
+            // Given
+            AtomicInteger calls = new AtomicInteger();
+            responses.put("/flaky", () -> calls.incrementAndGet() <= 3 ? 503 : 200);
+            try (CallbackSpool spool = CallbackSpool.open(directory);
+                 CallbackDispatcher dispatcher = dispatcher(spool, 5)) {
+                dispatcher.start();
+
+                // When
+                for (PaymentStatus status : LIFECYCLE) {
+                    dispatcher.dispatch(url("/flaky"), notification("PAY-1", status)).block();
+                }
+
+                // Then
+                awaitDelivered(dispatcher);
+                assertThat(received.get("/flaky")).extracting(node -> node.get("status").asText())
+                        .containsExactly(Arrays.stream(LIFECYCLE).map(Enum::name).toArray(String[]::new));
+                assertThat(requests.get("/flaky").get()).isEqualTo(LIFECYCLE.length + 3);
+            }
+        }
+
+        @Test
+        @DisplayName("Should abandon notifications rejected by the endpoint and carry on")
+        void shouldDeadLetterClientErrors() {
+            // Given
+            AtomicInteger calls = new AtomicInteger();
+            responses.put("/gone", () -> calls.incrementAndGet() == 1 ? 400 : 200);
+            List<CallbackSpool.Entry> deadLetters = new CopyOnWriteArrayList<>();
+            List<String> threads = new CopyOnWriteArrayList<>();
+            try (CallbackSpool spool = CallbackSpool.open(directory);
+                 CallbackDispatcher dispatcher = dispatcher(spool, 5)) {
+                dispatcher.addDeadLetterListener(entries -> {
+                    threads.add(Thread.currentThread().getName());
+                    deadLetters.addAll(entries);
+                });
+                dispatcher.start();
+
+                // When
+                dispatcher.dispatch(url("/gone"), notification("PAY-1", PaymentStatus.INITIATED)).block();
+                dispatcher.dispatch(url("/gone"), notification("PAY-1", PaymentStatus.SUBMITTED)).block();
+
+                // Then
+                awaitDelivered(dispatcher);
+                assertThat(deadLetters).extracting(entry -> entry.notification().getStatus())
+                        .containsExactly(PaymentStatus.INITIATED);
+                assertThat(received.get("/gone")).extracting(node -> node.get("status").asText())
+                        .containsExactly("SUBMITTED");
+                assertThat(threads).allMatch(name -> name.startsWith("boundedElastic"));
+            }
+        }
+
+        @Test
+        @DisplayName("Should drop the queues of idle endpoints and recreate them on demand")
+        void shouldDropIdleQueues() {
+            // Given
+            int endpoints = 50;
+            try (CallbackSpool spool = CallbackSpool.open(directory);
+                 CallbackDispatcher dispatcher = dispatcher(spool, 5)) {
+                dispatcher.start();
+                Flux.range(0, endpoints)
+                        .flatMap(i -> dispatcher.dispatch(url("/single") + "?tenant=" + i,
+                                notification("PAY-" + i, PaymentStatus.SETTLED)))
+                        .blockLast(Duration.ofSeconds(60));
+                awaitDelivered(dispatcher);
+
+                // When
+                awaitIdle(dispatcher);
+                dispatcher.dispatch(url("/single") + "?tenant=0", notification("PAY-0", PaymentStatus.COMPLETED))
+                        .block();
+
+                // Then
+                awaitDelivered(dispatcher);
+                awaitIdle(dispatcher);
+                assertThat(received.get("/single")).hasSize(endpoints + 1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Spool")
+    class SpoolTests {
+
+        @Test
+        @DisplayName("Should deliver notifications spooled before a restart")
+        void shouldRedeliverAfterRestart() {
+            // Given
+            responses.put("/down", () -> 500);
+            try (CallbackSpool spool = CallbackSpool.open(directory);
+                 CallbackDispatcher dispatcher = dispatcher(spool, 1_000)) {
+                dispatcher.start();
+                for (PaymentStatus status : LIFECYCLE) {
+                    dispatcher.dispatch(url("/down"), notification("PAY-1", status)).block();
+                }
+            }
+
+            // When
+            responses.put("/down", () -> 200);
+            try (CallbackSpool spool = CallbackSpool.open(directory);
+                 CallbackDispatcher dispatcher = dispatcher(spool, 5)) {
+                assertThat(dispatcher.pendingCount()).isEqualTo(LIFECYCLE.length);
+                dispatcher.start();
+
+                // Then
+                awaitDelivered(dispatcher);
+            }
+            // delivery is at least once: a request in flight during the restart may have got through
+            Map<String, String> statuses = new LinkedHashMap<>();
+            received.get("/down").forEach(node ->
+                    statuses.putIfAbsent(node.get("notificationId").asText(), node.get("status").asText()));
+            assertThat(statuses.values()).containsExactly(Arrays.stream(LIFECYCLE).map(Enum::name).toArray(String[]::new));
+            try (CallbackSpool spool = CallbackSpool.open(directory)) {
+                assertThat(spool.pending()).isEmpty();
+            }
+        }
+
+        @Test
+        @DisplayName("Should compact the spool once most notifications are acknowledged")
+        void shouldCompact() {
+            // Given
+            try (CallbackSpool spool = CallbackSpool.open(directory, 100)) {
+                for (int i = 0; i < 200; i++) {
+                    List<CallbackSpool.Entry> entries = spool.append("http://localhost/a",
+                            List.of(notification("PAY-" + i, PaymentStatus.SETTLED)));
+                    if (i % 10 != 0) {
+                        spool.acknowledge(List.of(entries.get(0).id()));
+                    }
+                }
+            }
+
+            // When
+            try (CallbackSpool reopened = CallbackSpool.open(directory)) {
+
+                // Then
+                assertThat(reopened.pending()).hasSize(20)
+                        .extracting(entry -> entry.notification().getPaymentId())
+                        .startsWith("PAY-0", "PAY-10");
+                assertThat(directory.resolve("callbacks.spool").toFile().length()).isLessThan(200 * 40);
+            }
+        }
+
+        @Test
+        @DisplayName("Should close the spool with the dispatcher")
+        void shouldCloseSpool() {
+            // Given
+            CallbackSpool spool = CallbackSpool.open(directory);
+            CallbackDispatcher dispatcher = dispatcher(spool, 5);
+
+            // When
+            dispatcher.close();
+
+            // Then
+            assertThatThrownBy(() -> spool.append(url("/single"), List.of(notification("PAY-1", PaymentStatus.SETTLED))))
+                    .isInstanceOf(IllegalStateException.class);
+            try (CallbackSpool reopened = CallbackSpool.open(directory)) {
+                assertThat(reopened.pending()).isEmpty();
+            }
+        }
+    }
+
+    private CallbackDispatcher dispatcher(CallbackSpool spool, int maxAttempts) {
+        return CallbackDispatcher.builder()
+                .webClient(WebClient.create())
+                .spool(spool)
+                .maxAttempts(maxAttempts)
+                .initialBackoff(Duration.ofMillis(10))
+                .maxBackoff(Duration.ofMillis(50))
+                .build();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static CallbackNotification notification(String paymentId, PaymentStatus status) {
+        return CallbackNotification.builder()
+                .paymentId(paymentId)
+                .status(status)
+                .occurredAt(Instant.now())
+                .build();
+    }
+
+    private static void awaitDelivered(CallbackDispatcher dispatcher) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (dispatcher.pendingCount() > 0) {
+            assertThat(System.nanoTime()).as("notifications still pending").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void awaitIdle(CallbackDispatcher dispatcher) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (dispatcher.endpointCount() > 0) {
+            assertThat(System.nanoTime()).as("endpoint queues still held").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void assertInOrderPerPayment(Collection<JsonNode> notifications) {
+        Map<String, Integer> last = new HashMap<>();
+        for (JsonNode notification : notifications) {
+            int step = Arrays.asList(LIFECYCLE).indexOf(PaymentStatus.valueOf(notification.get("status").asText()));
+            Integer previous = last.put(notification.get("paymentId").asText(), step);
+            assertThat(step).isEqualTo(previous == null ? 0 : previous + 1);
+        }
+    }
+}
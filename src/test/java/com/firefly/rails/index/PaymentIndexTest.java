@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.index;
+
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.ListPaymentsRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the compact bitmap and the payment secondary indexes built on it.
+ */
+@DisplayName("Payment Index Tests")
+class PaymentIndexTest {
+
+    private static final Instant T0 = Instant.parse("2025-03-01T10:00:00Z");
+    private static final BankAccount ALICE = new BankAccount("Alice", "DE89370400440532013000", null, null, null, null, "DE");
+    private static final BankAccount BOB = new BankAccount("Bob", "FR1420041010050500013M02606", null, null, null, null, "FR");
+
+    @Nested
+    @DisplayName("Compact bitmap")
+    class BitmapTests {
+
+        @Test
+        @DisplayName("Should match a BitSet for sparse and dense values across chunks")
+        void shouldMatchBitSet() {
+            // Given
+            Random random = new Random(11);
+            BitSet[] expected = {new BitSet(), new BitSet()};
+            CompactBitmap[] bitmaps = {new CompactBitmap(), new CompactBitmap()};
+            for (int side = 0; side < 2; side++) {
+                for (int i = 0; i < 60_000; i++) {
+                    // a dense first chunk, a sparse second one and scattered values further out
+                    int value = switch (random.nextInt(3)) {
+                        case 0 -> random.nextInt(65_536);
+                        case 1 -> 65_536 + random.nextInt(65_536);
+                        default -> random.nextInt(5_000_000);
+                    };
+                    if (side == 1 && value < 65_536 && random.nextBoolean()) {
+                        continue;
+                    }
+                    expected[side].set(value);
+                    bitmaps[side].add(value);
+                }
+                for (int i = 0; i < 20_000; i++) {
+                    int value = random.nextInt(131_072);
+                    assertThat(bitmaps[side].remove(value)).isEqualTo(expected[side].get(value));
+                    expected[side].clear(value);
+                }
+            }
+
+            // When
+            BitSet and = (BitSet) expected[0].clone();
+            and.and(expected[1]);
+            BitSet or = (BitSet) expected[0].clone();
+            or.or(expected[1]);
+            BitSet andNot = (BitSet) expected[0].clone();
+            andNot.andNot(expected[1]);
+
+            // Then
+            assertThat(bitmaps[0].toArray()).containsExactly(expected[0].stream().toArray());
+            PrimitiveIterator.OfInt iterated = bitmaps[1].iterator();
+            expected[1].stream().forEach(value -> assertThat(iterated.nextInt()).isEqualTo(value));
+            assertThat(iterated.hasNext()).isFalse();
+            assertThat(CompactBitmap.and(bitmaps[0], bitmaps[1]).toArray()).containsExactly(and.stream().toArray());
+            assertThat(CompactBitmap.or(bitmaps[0], bitmaps[1]).toArray()).containsExactly(or.stream().toArray());
+            assertThat(CompactBitmap.andNot(bitmaps[0], bitmaps[1]).toArray()).containsExactly(andNot.stream().toArray());
+            assertThat(bitmaps[1].cardinality()).isEqualTo(expected[1].cardinality());
+            assertThat(bitmaps[0].contains(-1)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should keep a dense run of ordinals in about one bit each")
+        void shouldBeCompact() {
+            // Given
+            CompactBitmap bitmap = new CompactBitmap();
+
+            // When
+            IntStream.range(0, 1_000_000).forEach(bitmap::add);
+
+            // Then
+            assertThat(bitmap.cardinality()).isEqualTo(1_000_000);
+            // 16 chunks of 65536 bits
+            assertThat(bitmap.sizeInBytes()).isLessThan(16 * 8_192 + 2_048);
+        }
+    }
+
+    @Nested
+    @DisplayName("Queries")
+    class QueryTests {
+
+        @Test
+        @DisplayName("Should answer combined filters as a scan would")
+        void shouldAnswerCombinedFilters() {
+            // Given
+            PaymentIndex index = new PaymentIndex();
+            List<PaymentResponse> payments = new ArrayList<>();
+            PaymentStatus[] statuses = {PaymentStatus.SUBMITTED, PaymentStatus.SETTLED, PaymentStatus.FAILED};
+            for (int i = 0; i < 20_000; i++) {
+                PaymentResponse payment = PaymentResponse.builder()
+                        .paymentId("PAY-" + i)
+                        .status(statuses[i % 3])
+                        .createdAt(T0.plusSeconds(i * 60L))
+                        .debtorAccount(i % 7 == 0 ? ALICE : BOB)
+                        .build();
+                payments.add(payment);
+                index.index(payment);
+            }
+            PaymentIndex.Query query = PaymentIndex.Query.builder()
+                    .statuses(EnumSet.of(PaymentStatus.SETTLED, PaymentStatus.FAILED))
+                    .fromDate(LocalDate.of(2025, 3, 3))
+                    .toDate(LocalDate.of(2025, 3, 5))
+                    .debtorAccount(ALICE.getIban())
+                    .build();
+
+            // When
+            List<String> matches = index.query(query);
+
+            // Then
+            List<String> scanned = payments.stream()
+                    .filter(p -> p.getStatus() != PaymentStatus.SUBMITTED)
+                    .filter(p -> !p.getCreatedAt().isBefore(Instant.parse("2025-03-03T00:00:00Z"))
+                            && p.getCreatedAt().isBefore(Instant.parse("2025-03-06T00:00:00Z")))
+                    .filter(p -> p.getDebtorAccount() == ALICE)
+                    .map(PaymentResponse::getPaymentId)
+                    .toList();
+            assertThat(matches).isNotEmpty().containsExactlyElementsOf(scanned);
+            assertThat(index.count(query)).isEqualTo(scanned.size());
+            assertThat(index.query(query.toBuilder().limit(3).build())).containsExactlyElementsOf(scanned.subList(0, 3));
+            assertThat(index.count(PaymentIndex.Query.builder().build())).isEqualTo(20_000);
+        }
+
+        @Test
+        @DisplayName("Should page a list request by its offset and limit")
+        void shouldPageListRequest() {
+            // Given
+            PaymentIndex index = new PaymentIndex();
+            for (int i = 0; i < 200_000; i++) {
+                index.index(PaymentResponse.builder()
+                        .paymentId("PAY-" + i)
+                        .status(i % 2 == 0 ? PaymentStatus.SETTLED : PaymentStatus.SUBMITTED)
+                        .createdAt(T0)
+                        .build());
+            }
+            ListPaymentsRequest request = ListPaymentsRequest.builder()
+                    .status(PaymentStatus.SETTLED)
+                    .offset(70_000)
+                    .limit(3)
+                    .build();
+
+            // When
+            List<String> page = index.query(PaymentIndex.Query.from(request));
+
+            // Then
+            assertThat(page).containsExactly("PAY-140000", "PAY-140002", "PAY-140004");
+            assertThat(index.query(PaymentIndex.Query.from(request.toBuilder().offset(99_999).build())))
+                    .containsExactly("PAY-199998");
+        }
+
+        @Test
+        @DisplayName("Should move a payment between postings on each lifecycle event")
+        void shouldReindexOnLifecycleEvents() {
+            // Given
+            PaymentIndex index = new PaymentIndex();
+            PaymentResponse payment = PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .createdAt(T0)
+                    .debtorAccount(ALICE)
+                    .build();
+            index.index(payment);
+
+            // When
+            index.index(payment.toBuilder().status(PaymentStatus.SETTLED).build());
+
+            // Then
+            assertThat(index.query(byStatus(PaymentStatus.SUBMITTED))).isEmpty();
+            assertThat(index.query(byStatus(PaymentStatus.SETTLED))).containsExactly("PAY-1");
+            assertThat(index.size()).isEqualTo(1);
+            assertThat(index.remove("PAY-1")).isTrue();
+            assertThat(index.query(byStatus(PaymentStatus.SETTLED))).isEmpty();
+            assertThat(index.query(PaymentIndex.Query.builder().build())).isEmpty();
+        }
+    }
+
+    private static PaymentIndex.Query byStatus(PaymentStatus status) {
+        return PaymentIndex.Query.builder().statuses(EnumSet.of(status)).build();
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.journal;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.AuthorizationResponse;
+import com.firefly.rails.dtos.payments.AuthorizePaymentRequest;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.dtos.payments.ReturnRequest;
+import com.firefly.rails.dtos.payments.ReturnResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the event-sourced payment journal.
+ */
+@DisplayName("Payment Journal Tests")
+class PaymentJournalTest {
+
+    private static final Instant T0 = Instant.parse("2025-03-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Events")
+    class EventTests {
+
+        @Test
+        @DisplayName("Should rebuild the state of a payment at any point in time")
+        void shouldRebuildPointInTimeState() {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory)) {
+                journal.append(initiated("PAY-1", T0));
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.SUBMITTED, null, T0.plusSeconds(60)));
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.SETTLED, null, T0.plusSeconds(120)));
+
+                // When / Then
+                assertThat(journal.events("PAY-1")).extracting(PaymentEvent::getSequence).containsExactly(1L, 2L, 3L);
+                assertThat(journal.stateAt("PAY-1", T0.plusSeconds(90))).get()
+                        .satisfies(state -> {
+                            assertThat(state.getStatus()).isEqualTo(PaymentStatus.SUBMITTED);
+                            assertThat(state.getAmount()).isEqualTo(new Money(new BigDecimal("12.345"), Currency.EUR));
+                            assertThat(state.getCreatedAt()).isEqualTo(T0);
+                        });
+                assertThat(journal.stateAt("PAY-1", T0.minusSeconds(1))).isEmpty();
+                assertThat(journal.current("PAY-1")).get()
+                        .extracting(PaymentResponse::getStatus).isEqualTo(PaymentStatus.SETTLED);
+            }
+        }
+
+        @Test
+        @DisplayName("Should count events journaled late but dated before the instant")
+        void shouldRebuildFromLateEvents() {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory)) {
+                journal.append(initiated("PAY-1", T0));
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.SETTLED, null, T0.plusSeconds(120)));
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.SUBMITTED, null, T0.plusSeconds(60)));
+
+                // When / Then
+                assertThat(journal.stateAt("PAY-1", T0.plusSeconds(90))).get()
+                        .extracting(PaymentResponse::getStatus).isEqualTo(PaymentStatus.SUBMITTED);
+            }
+        }
+
+        @Test
+        @DisplayName("Should start the history of a confirmed payment with its authorization")
+        void shouldLinkAuthorizationToPayment() {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory)) {
+                journal.append(PaymentEvent.builder()
+                        .type(PaymentEvent.Type.AUTHORIZED)
+                        .paymentId("AUTH-1")
+                        .authorizationId("AUTH-1")
+                        .occurredAt(T0)
+                        .endToEndReference("E2E-1")
+                        .build());
+
+                // When
+                journal.append(initiated("PAY-1", T0.plusSeconds(5)).toBuilder()
+                        .type(PaymentEvent.Type.CONFIRMED)
+                        .authorizationId("AUTH-1")
+                        .build());
+
+                // Then
+                assertThat(journal.events("PAY-1")).extracting(PaymentEvent::getType)
+                        .containsExactly(PaymentEvent.Type.AUTHORIZED, PaymentEvent.Type.CONFIRMED);
+                assertThat(journal.current("PAY-1")).get()
+                        .extracting(PaymentResponse::getEndToEndReference).isEqualTo("E2E-1");
+                assertThat(journal.events("AUTH-1")).hasSize(1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Segments and recovery")
+    class RecoveryTests {
+
+        @Test
+        @DisplayName("Should roll over segments and reopen from a snapshot")
+        void shouldRollOverAndReopen() throws IOException {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory, 4_096, 50)) {
+                for (int i = 0; i < 200; i++) {
+                    journal.append(PaymentEvent.statusChanged("PAY-" + (i % 10), PaymentStatus.PROCESSING,
+                            "step " + i, T0.plusSeconds(i)));
+                }
+            }
+
+            // When
+            try (PaymentJournal reopened = PaymentJournal.open(directory, 4_096, 50)) {
+
+                // Then
+                assertThat(segmentFiles()).hasSizeGreaterThan(1);
+                assertThat(Files.exists(directory.resolve("journal.snapshot"))).isTrue();
+                assertThat(reopened.nextSequence()).isEqualTo(201);
+                assertThat(reopened.events("PAY-3")).hasSize(20)
+                        .extracting(PaymentEvent::getStatusReason).endsWith("step 193");
+                assertThat(reopened.current("PAY-3")).get()
+                        .extracting(PaymentResponse::getStatusReason).isEqualTo("step 193");
+            }
+        }
+
+        @Test
+        @DisplayName("Should scan the whole journal when the snapshot is corrupt")
+        void shouldIgnoreCorruptSnapshot() throws IOException {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory, 4_096, 50)) {
+                for (int i = 0; i < 120; i++) {
+                    journal.append(PaymentEvent.statusChanged("PAY-" + (i % 10), PaymentStatus.PROCESSING,
+                            "step " + i, T0.plusSeconds(i)));
+                }
+            }
+            Path snapshot = directory.resolve("journal.snapshot");
+            byte[] content = Files.readAllBytes(snapshot);
+            content[content.length / 2] ^= 0x5A;
+            Files.write(snapshot, content);
+
+            // When
+            try (PaymentJournal reopened = PaymentJournal.open(directory, 4_096, 50)) {
+
+                // Then
+                assertThat(reopened.nextSequence()).isEqualTo(121);
+                assertThat(reopened.events("PAY-3")).hasSize(12);
+                assertThat(reopened.current("PAY-3")).get()
+                        .extracting(PaymentResponse::getStatusReason).isEqualTo("step 113");
+            }
+        }
+
+        @Test
+        @DisplayName("Should archive the segments of finished payments and reopen without them")
+        void shouldArchiveFinishedPayments() throws IOException {
+            // Given
+            Path archive = directory.resolve("archive");
+            int segmentsBefore;
+            try (PaymentJournal journal = PaymentJournal.open(directory, 4_096, 1_000)) {
+                for (int i = 0; i < 200; i++) {
+                    journal.append(PaymentEvent.statusChanged("OLD-" + (i % 10), PaymentStatus.PROCESSING,
+                            "step " + i, T0.plusSeconds(i)));
+                }
+                for (int i = 0; i < 10; i++) {
+                    journal.append(PaymentEvent.statusChanged("OLD-" + i, PaymentStatus.REJECTED, "AC04",
+                            T0.plusSeconds(200 + i)));
+                }
+                for (int i = 0; i < 80; i++) {
+                    journal.append(PaymentEvent.statusChanged("ONE-" + i, PaymentStatus.REJECTED, "AC04",
+                            T0.plusSeconds(220 + i)));
+                }
+                for (int i = 0; i < 100; i++) {
+                    journal.append(PaymentEvent.statusChanged("NEW-1", PaymentStatus.PROCESSING, "step " + i,
+                            T0.plusSeconds(400 + i)));
+                }
+                segmentsBefore = segmentFiles().size();
+
+                // When
+                int tooEarly = journal.archive(archive, T0.plusSeconds(205));
+                int archived = journal.archive(archive, T0.plusSeconds(1_000));
+
+                // Then
+                assertThat(tooEarly).isZero();
+                assertThat(archived).isPositive();
+                assertThat(segmentFiles()).hasSize(segmentsBefore - archived);
+                try (Stream<Path> files = Files.list(archive)) {
+                    assertThat(files).hasSize(archived);
+                }
+                assertThat(journal.events("OLD-3")).isEmpty();
+                assertThat(journal.events("NEW-1")).hasSize(100);
+            }
+
+            try (PaymentJournal reopened = PaymentJournal.open(directory, 4_096, 1_000)) {
+                assertThat(reopened.nextSequence()).isEqualTo(391);
+                assertThat(reopened.current("OLD-3")).isEmpty();
+                assertThat(reopened.events("NEW-1")).extracting(PaymentEvent::getStatusReason).endsWith("step 99");
+                assertThat(reopened.current("NEW-1")).get()
+                        .extracting(PaymentResponse::getStatus).isEqualTo(PaymentStatus.PROCESSING);
+            }
+        }
+
+        @Test
+        @DisplayName("Should rebuild the state of a finished payment from its events")
+        void shouldRebuildFinishedPayment() {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory, 4_096, 1_000)) {
+                journal.append(initiated("PAY-1", T0));
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.REJECTED, "AC04", T0.plusSeconds(1)));
+
+                // When
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.REJECTED, "AM04", T0.plusSeconds(2)));
+
+                // Then
+                assertThat(journal.current("PAY-1")).get()
+                        .satisfies(state -> {
+                            assertThat(state.getStatusReason()).isEqualTo("AM04");
+                            assertThat(state.getCreatedAt()).isEqualTo(T0);
+                            assertThat(state.getAmount()).isNotNull();
+                        });
+            }
+        }
+
+        @Test
+        @DisplayName("Should discard a torn record at the end of the journal")
+        void shouldDiscardTornTail() throws IOException {
+            // Given
+            try (PaymentJournal journal = PaymentJournal.open(directory, 4_096, 1_000)) {
+                journal.append(initiated("PAY-1", T0));
+                journal.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.SETTLED, null, T0.plusSeconds(1)));
+            }
+            Path segment = segmentFiles().get(0);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // corrupt the payload of the last record
+                long size = channel.size();
+                java.nio.ByteBuffer content = java.nio.ByteBuffer.allocate((int) size);
+                channel.read(content, 0);
+                int position = 0;
+                int last = 0;
+                while (content.getInt(position) != 0) {
+                    last = position;
+                    position += 8 + content.getInt(position);
+                }
+                channel.write(java.nio.ByteBuffer.wrap(new byte[]{1, 2, 3}), last + 12);
+            }
+
+            // When
+            try (PaymentJournal reopened = PaymentJournal.open(directory, 4_096, 1_000)) {
+                long sequence = reopened.append(PaymentEvent.statusChanged("PAY-1", PaymentStatus.FAILED, "retry",
+                        T0.plusSeconds(2)));
+
+                // Then
+                assertThat(sequence).isEqualTo(2);
+                assertThat(reopened.events("PAY-1")).extracting(PaymentEvent::getStatus)
+                        .containsExactly(PaymentStatus.INITIATED, PaymentStatus.FAILED);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Journaling port")
+    class PortTests {
+
+        @Test
+        @DisplayName("Should record the lifecycle from authorization to return")
+        void shouldRecordLifecycle() {
+            // Given
+            PaymentRailPort delegate = mock(PaymentRailPort.class);
+            Clock clock = Clock.fixed(T0, ZoneOffset.UTC);
+            PaymentResponse payment = PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .amount(new Money(new BigDecimal("100.00"), Currency.EUR))
+                    .build();
+            when(delegate.authorizePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(AuthorizationResponse.builder()
+                    .authorizationId("AUTH-1")
+                    .status(AuthorizationResponse.AuthorizationStatus.AUTHORIZED)
+                    .build())));
+            when(delegate.confirmPayment("AUTH-1")).thenReturn(Mono.just(ResponseEntity.ok(payment)));
+            when(delegate.getPayment("PAY-1")).thenReturn(Mono.just(ResponseEntity.ok(payment.toBuilder()
+                    .status(PaymentStatus.SETTLED)
+                    .build())));
+            when(delegate.requestReturn(any())).thenReturn(Mono.just(ResponseEntity.ok(ReturnResponse.builder()
+                    .id("PAY-1")
+                    .status("REQUESTED")
+                    .build())));
+
+            try (PaymentJournal journal = PaymentJournal.open(directory)) {
+                JournalingPaymentRailPort port = new JournalingPaymentRailPort(delegate, journal, clock);
+
+                // When
+                StepVerifier.create(port.authorizePayment(AuthorizePaymentRequest.builder()
+                                .endToEndReference("E2E-1")
+                                .build())
+                        .then(port.confirmPayment("AUTH-1"))
+                        .then(port.getPayment("PAY-1"))
+                        .then(port.requestReturn(ReturnRequest.builder().id("PAY-1").build())))
+                        .expectNextCount(1)
+                        .verifyComplete();
+
+                // Then
+                List<PaymentEvent> events = journal.events("PAY-1");
+                assertThat(events).extracting(PaymentEvent::getType).containsExactly(
+                        PaymentEvent.Type.AUTHORIZED, PaymentEvent.Type.CONFIRMED,
+                        PaymentEvent.Type.STATUS_CHANGED, PaymentEvent.Type.RETURN_REQUESTED);
+                assertThat(journal.current("PAY-1")).get().satisfies(state -> {
+                    assertThat(state.getStatus()).isEqualTo(PaymentStatus.SETTLED);
+                    assertThat(state.getEndToEndReference()).isEqualTo("E2E-1");
+                    assertThat(state.getStatusReason()).isEqualTo("REQUESTED");
+                });
+            }
+        }
+
+        @Test
+        @DisplayName("Should append events off the thread that delivered the rail response")
+        void shouldJournalOffTheCallingThread() {
+            // Given
+            PaymentRailPort delegate = mock(PaymentRailPort.class);
+            when(delegate.initiatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.INITIATED)
+                    .build())));
+
+            try (PaymentJournal journal = spy(PaymentJournal.open(directory))) {
+                List<String> threads = new ArrayList<>();
+                doAnswer(invocation -> {
+                    threads.add(Thread.currentThread().getName());
+                    return invocation.callRealMethod();
+                }).when(journal).append(any());
+                JournalingPaymentRailPort port = new JournalingPaymentRailPort(delegate, journal,
+                        Clock.fixed(T0, ZoneOffset.UTC));
+
+                // When
+                port.initiatePayment(InitiatePaymentRequest.builder().build()).block();
+
+                // Then
+                assertThat(threads).singleElement().satisfies(thread -> assertThat(thread).startsWith("boundedElastic"));
+                assertThat(journal.events("PAY-1")).hasSize(1);
+            }
+        }
+    }
+
+    private static PaymentEvent initiated(String paymentId, Instant at) {
+        return PaymentEvent.builder()
+                .type(PaymentEvent.Type.INITIATED)
+                .paymentId(paymentId)
+                .occurredAt(at)
+                .status(PaymentStatus.INITIATED)
+                .amount(new Money(new BigDecimal("12.345"), Currency.EUR))
+                .build();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the fuzzy reconciliation matching stage.
+ */
+@DisplayName("Fuzzy Reconciliation Matcher Tests")
+class FuzzyReconciliationMatcherTest {
+
+    private static final LocalDate VALUE_DATE = LocalDate.of(2025, 3, 14);
+
+    private final FuzzyReconciliationMatcher matcher = new FuzzyReconciliationMatcher();
+
+    @Nested
+    @DisplayName("One to one")
+    class SingleTests {
+
+        @Test
+        @DisplayName("Should suggest a counterpart for a truncated reference")
+        void shouldSuggestTruncatedReference() {
+            // Given
+            List<ReconciliationEntry> unmatched = List.of(
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-1", "INVOICE-2025-000123", "150.00", 0),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-1", "INVOICE-2025-0", "150.00", 1));
+
+            // When
+            List<DiscrepancyResponse> results = matcher.match(unmatched);
+
+            // Then
+            assertThat(results).singleElement().satisfies(result -> {
+                assertThat(result.getType()).isEqualTo(DiscrepancyTypes.SUGGESTED_MATCH);
+                assertThat(result.getTransactionId()).isEqualTo("I-1");
+                assertThat(result.getMatchedEntryIds()).containsExactly("S-1");
+                assertThat(result.getConfidence()).isGreaterThan(0.8);
+            });
+        }
+
+        @Test
+        @DisplayName("Should leave unrelated entries and entries outside the window unmatched")
+        void shouldNotSuggestUnrelatedEntries() {
+            // Given
+            List<ReconciliationEntry> unmatched = List.of(
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-1", "PAYROLL-MARCH", "150.00", 0),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-1", "XQ7781", "150.00", 0),
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-2", "RENT-APRIL", "900.00", 0),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-2", "RENT-APRIL", "900.00", 10));
+
+            // When
+            List<DiscrepancyResponse> results = matcher.match(unmatched);
+
+            // Then
+            assertThat(results).extracting(DiscrepancyResponse::getType)
+                    .containsOnly(DiscrepancyTypes.MISSING_ON_RAIL, DiscrepancyTypes.UNEXPECTED_ON_RAIL)
+                    .hasSize(4);
+        }
+    }
+
+    @Nested
+    @DisplayName("Aggregation")
+    class AggregationTests {
+
+        @Test
+        @DisplayName("Should suggest a payment split by the rail")
+        void shouldSuggestSplit() {
+            // Given
+            List<ReconciliationEntry> unmatched = List.of(
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-1", "BATCH-77", "100.00", 0),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-1", "BATCH-77", "60.00", 0),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-2", "BATCH-77", "40.00", 1),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-3", "OTHER-1", "40.00", 0));
+
+            // When
+            List<DiscrepancyResponse> results = matcher.match(unmatched);
+
+            // Then
+            assertThat(results).filteredOn(r -> DiscrepancyTypes.SUGGESTED_MATCH.equals(r.getType()))
+                    .singleElement()
+                    .satisfies(result -> assertThat(result.getMatchedEntryIds())
+                            .containsExactlyInAnyOrder("S-1", "S-2"));
+            assertThat(results).extracting(DiscrepancyResponse::getTransactionId).contains("S-3");
+        }
+
+        @Test
+        @DisplayName("Should suggest payments merged by the rail")
+        void shouldSuggestMerge() {
+            // Given
+            List<ReconciliationEntry> unmatched = List.of(
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-1", "SUPPLIER-9", "25.00", 0),
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-2", "SUPPLIER-9", "75.00", 0),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-1", "SUPPLIER-9", "100.00", 0));
+
+            // When
+            List<DiscrepancyResponse> results = matcher.match(unmatched);
+
+            // Then
+            assertThat(results).singleElement().satisfies(result -> {
+                assertThat(result.getTransactionId()).isEqualTo("S-1");
+                assertThat(result.getMatchedEntryIds()).containsExactlyInAnyOrder("I-1", "I-2");
+            });
+        }
+    }
+
+    private static ReconciliationEntry entry(ReconciliationEntry.Source source, String id, String reference,
+                                             String amount, int dayOffset) {
+        return ReconciliationEntry.builder()
+                .source(source)
+                .entryId(id)
+                .accountId("ACC-1")
+                .endToEndReference(reference)
+                .amount(new Money(new BigDecimal(amount), Currency.EUR))
+                .valueDate(VALUE_DATE.plusDays(dayOffset))
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the streaming hash-join reconciliation engine.
+ */
+@DisplayName("Hash Join Reconciliation Engine Tests")
+class HashJoinReconciliationEngineTest {
+
+    private static final LocalDate VALUE_DATE = LocalDate.of(2025, 3, 14);
+
+    @TempDir
+    Path spillDirectory;
+
+    @Nested
+    @DisplayName("Matching")
+    class MatchingTests {
+
+        @Test
+        @DisplayName("Should report entries missing on either side")
+        void shouldReportUnmatchedEntries() {
+            // Given
+            HashJoinReconciliationEngine engine = new HashJoinReconciliationEngine(spillDirectory, 8, 1_000);
+            ReconciliationStatistics statistics = new ReconciliationStatistics();
+            Flux<ReconciliationEntry> internal = Flux.just(
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-1", "E2E-1", "10.00"),
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-2", "E2E-2", "20.00"));
+            Flux<ReconciliationEntry> statement = Flux.just(
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-1", "E2E-1", "10.00"),
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-2", "E2E-2", "20.01"));
+
+            // When
+            List<DiscrepancyResponse> discrepancies = engine.reconcile(internal, statement, statistics)
+                    .collectList().block();
+
+            // Then
+            assertThat(discrepancies).extracting(DiscrepancyResponse::getDiscrepancyId)
+                    .containsExactlyInAnyOrder("MISSING_ON_RAIL:I-2", "UNEXPECTED_ON_RAIL:S-2");
+            assertThat(statistics.getMatchedCount()).isEqualTo(1);
+            assertThat(statistics.getUnmatchedCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should match duplicate keys one to one")
+        void shouldMatchDuplicatesOneToOne() {
+            // Given
+            HashJoinReconciliationEngine engine = new HashJoinReconciliationEngine(spillDirectory, 8, 1_000);
+            Flux<ReconciliationEntry> internal = Flux.just(
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-1", "E2E-1", "10.00"),
+                    entry(ReconciliationEntry.Source.INTERNAL, "I-2", "E2E-1", "10.00"));
+            Flux<ReconciliationEntry> statement = Flux.just(
+                    entry(ReconciliationEntry.Source.STATEMENT, "S-1", "E2E-1", "10.00"));
+
+            // When
+            List<ReconciliationEntry> unmatched = engine.unmatched(internal, statement, ReconciliationListener.NONE)
+                    .collectList().block();
+
+            // Then
+            assertThat(unmatched).extracting(ReconciliationEntry::getEntryId).containsExactly("I-2");
+        }
+    }
+
+    @Nested
+    @DisplayName("Spilling")
+    class SpillTests {
+
+        @Test
+        @DisplayName("Should spill partitions to disk and clean up afterwards")
+        void shouldSpillAndCleanUp() throws Exception {
+            // Given
+            int count = 5_000;
+            HashJoinReconciliationEngine engine = new HashJoinReconciliationEngine(spillDirectory, 16, 100);
+            ReconciliationStatistics statistics = new ReconciliationStatistics();
+            Flux<ReconciliationEntry> internal = Flux.range(0, count)
+                    .map(i -> entry(ReconciliationEntry.Source.INTERNAL, "I-" + i, "E2E-" + i, "1.00"));
+            Flux<ReconciliationEntry> statement = Flux.range(1, count)
+                    .map(i -> entry(ReconciliationEntry.Source.STATEMENT, "S-" + i, "E2E-" + i, "1.00"));
+
+            // When
+            List<ReconciliationEntry> unmatched = engine.unmatched(internal, statement, statistics)
+                    .collectList().block();
+
+            // Then
+            assertThat(unmatched).extracting(ReconciliationEntry::getEntryId)
+                    .containsExactlyInAnyOrder("I-0", "S-" + count);
+            assertThat(statistics.getMatchedCount()).isEqualTo(count - 1);
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertThat(files).isEmpty();
+            }
+        }
+    }
+
+    private static ReconciliationEntry entry(ReconciliationEntry.Source source, String id, String reference,
+                                             String amount) {
+        return ReconciliationEntry.builder()
+                .source(source)
+                .entryId(id)
+                .accountId("ACC-1")
+                .endToEndReference(reference)
+                .amount(new Money(new BigDecimal(amount), Currency.EUR))
+                .valueDate(VALUE_DATE)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.adapter.ports.ReconciliationPort;
+import com.firefly.rails.dtos.reconciliation.DiscrepancyResponse;
+import com.firefly.rails.dtos.reconciliation.ReconciliationReport;
+import com.firefly.rails.dtos.reconciliation.ReconciliationRequest;
+import com.firefly.rails.exceptions.RailException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for partitioned parallel reconciliation.
+ */
+@DisplayName("Parallel Reconciliation Driver Tests")
+class ParallelReconciliationDriverTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 3, 1);
+    private static final LocalDate END = LocalDate.of(2025, 3, 10);
+
+    @Nested
+    @DisplayName("Partitioning")
+    class PartitionTests {
+
+        @Test
+        @DisplayName("Should split only large accounts into consecutive date ranges")
+        void shouldSplitLargeAccounts() {
+            // Given
+            try (ParallelReconciliationDriver driver = new ParallelReconciliationDriver(4, 1_000,
+                    account -> account.equals("BIG") ? 300 : 10)) {
+
+                // When
+                List<ReconciliationRequest> partitions = driver.partition(List.of("SMALL", "BIG"), START, END);
+
+                // Then
+                assertThat(partitions).hasSize(4);
+                assertThat(partitions.get(0).getStartDate()).isEqualTo(START);
+                assertThat(partitions.get(0).getEndDate()).isEqualTo(END);
+                assertThat(partitions.subList(1, 4)).extracting(ReconciliationRequest::getStartDate)
+                        .containsExactly(START, START.plusDays(4), START.plusDays(7));
+                assertThat(partitions.get(3).getEndDate()).isEqualTo(END);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Execution")
+    class ExecutionTests {
+
+        @Test
+        @DisplayName("Should reconcile partitions on several workers and merge in partition order")
+        void shouldMergeInOrder() {
+            // Given
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            List<String> accounts = List.of("A", "B", "C", "D", "E", "F", "G", "H");
+            try (ParallelReconciliationDriver driver = new ParallelReconciliationDriver(4, 1_000, account -> 0)) {
+
+                // When
+                ReconciliationReport report = driver.reconcile(accounts, START, END, partition -> {
+                    threads.add(Thread.currentThread().getName());
+                    busyWork();
+                    return ReconciliationReport.builder()
+                            .matchedCount(10)
+                            .unmatchedCount(1)
+                            .discrepancyIds(List.of(partition.getAccountId()))
+                            .build();
+                }).block();
+
+                // Then
+                assertThat(report.getMatchedCount()).isEqualTo(80);
+                assertThat(report.getUnmatchedCount()).isEqualTo(8);
+                assertThat(report.getDiscrepancyIds()).containsExactlyElementsOf(accounts);
+                assertThat(report.getReportId()).isEqualTo("RECON-2025-03-01-2025-03-10");
+                assertThat(threads).hasSizeGreaterThan(1);
+            }
+        }
+
+        @Test
+        @DisplayName("Should fan out through the reconciliation port")
+        void shouldUsePort() {
+            // Given
+            ReconciliationPort port = mock(ReconciliationPort.class);
+            when(port.findDiscrepancies(any())).thenAnswer(invocation -> {
+                ReconciliationRequest request = invocation.getArgument(0);
+                return Mono.just(ResponseEntity.ok(List.of(DiscrepancyResponse.builder()
+                        .discrepancyId("D-" + request.getAccountId())
+                        .build())));
+            });
+            try (ParallelReconciliationDriver driver = new ParallelReconciliationDriver(2, 1_000, account -> 0)) {
+
+                // When
+                ReconciliationReport report = driver.reconcile(List.of("A", "B", "C"), START, END, port).block();
+
+                // Then
+                assertThat(report.getUnmatchedCount()).isEqualTo(3);
+                assertThat(report.getDiscrepancyIds()).containsExactly("D-A", "D-B", "D-C");
+                verify(port, times(3)).findDiscrepancies(any());
+            }
+        }
+
+        @Test
+        @DisplayName("Should fail instead of reporting nothing unmatched when the rail fetch fails")
+        void shouldPropagateFailedFetches() {
+            // Given
+            ReconciliationPort port = mock(ReconciliationPort.class);
+            when(port.findDiscrepancies(any())).thenAnswer(invocation -> {
+                ReconciliationRequest request = invocation.getArgument(0);
+                return Mono.just(request.getAccountId().equals("B")
+                        ? ResponseEntity.status(503).<List<DiscrepancyResponse>>build()
+                        : ResponseEntity.ok(List.<DiscrepancyResponse>of()));
+            });
+            try (ParallelReconciliationDriver driver = new ParallelReconciliationDriver(2, 1_000, account -> 0)) {
+
+                // When
+                Mono<ReconciliationReport> report = driver.reconcile(List.of("A", "B", "C"), START, END, port);
+                Mono<ReconciliationReport> reversed = driver.reconcile(List.of("A"), END, START, port);
+
+                // Then
+                assertThatThrownBy(report::block)
+                        .isInstanceOf(RailException.class)
+                        .hasMessageContaining("account B")
+                        .hasMessageContaining("503");
+                assertThatThrownBy(reversed::block).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    private static void busyWork() {
+        long deadline = System.nanoTime() + 20_000_000L;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
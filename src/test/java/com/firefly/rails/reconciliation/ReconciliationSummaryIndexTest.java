@@ -0,0 +1,193 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.reconciliation;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import com.firefly.rails.dtos.reconciliation.ReconciliationSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for incrementally maintained reconciliation summaries.
+ */
+@DisplayName("Reconciliation Summary Index Tests")
+class ReconciliationSummaryIndexTest {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2025, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Range queries")
+    class QueryTests {
+
+        @Test
+        @DisplayName("Should sum only the days inside the range")
+        void shouldSumRange() {
+            // Given
+            ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(
+                    directory.resolve("summary.bin"), Currency.EUR, ORIGIN);
+            index.recordReconciled(ORIGIN, Money.fromCents(1_000, Currency.EUR));
+            index.recordReconciled(ORIGIN.plusDays(10), Money.fromCents(2_000, Currency.EUR));
+            index.recordPending(ORIGIN.plusDays(10), Money.fromCents(500, Currency.EUR));
+            index.recordPending(ORIGIN.plusDays(20), Money.fromCents(700, Currency.EUR));
+
+            // When
+            ReconciliationSummary summary = index.summary(ORIGIN.plusDays(1), ORIGIN.plusDays(15));
+
+            // Then
+            assertThat(summary.getTotalTransactions()).isEqualTo(2);
+            assertThat(summary.getReconciledTransactions()).isEqualTo(1);
+            assertThat(summary.getPendingTransactions()).isEqualTo(1);
+            assertThat(summary.getTotalAmount().toCents()).isEqualTo(2_500);
+            assertThat(summary.getPendingAmount().toCents()).isEqualTo(500);
+        }
+
+        @Test
+        @DisplayName("Should grow beyond the initial range and resolve pending entries")
+        void shouldGrowAndResolve() {
+            // Given
+            ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(
+                    directory.resolve("summary.bin"), Currency.EUR, ORIGIN);
+            LocalDate late = ORIGIN.plusYears(3);
+            index.recordPending(ORIGIN, Money.fromCents(100, Currency.EUR));
+            index.recordPending(late, Money.fromCents(300, Currency.EUR));
+
+            // When
+            index.resolvePending(late, Money.fromCents(300, Currency.EUR));
+
+            // Then
+            ReconciliationSummary summary = index.summary(ORIGIN.minusDays(5), late.plusDays(5));
+            assertThat(summary.getReconciledTransactions()).isEqualTo(1);
+            assertThat(summary.getPendingTransactions()).isEqualTo(1);
+            assertThat(summary.getReconciledAmount().toCents()).isEqualTo(300);
+            assertThatThrownBy(() -> index.recordPending(ORIGIN.minusDays(1), Money.fromCents(1, Currency.EUR)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Listener")
+    class ListenerTests {
+
+        @Test
+        @DisplayName("Should count each entry once across re-runs and move it from pending to reconciled")
+        void shouldBeIdempotentAcrossRuns() {
+            // Given
+            Path file = directory.resolve("summary.bin");
+            ReconciliationEntry internal = entry(ReconciliationEntry.Source.INTERNAL, "TX-1", ORIGIN, 1_000, Currency.EUR);
+            ReconciliationEntry statement = entry(ReconciliationEntry.Source.STATEMENT, "ST-1", ORIGIN, 1_000, Currency.EUR);
+            try (ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(file, Currency.EUR, ORIGIN)) {
+                index.onUnmatched(internal);
+                index.onUnmatched(statement);
+                index.onUnmatched(internal);
+            }
+
+            // When
+            ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(file, Currency.EUR, ORIGIN);
+            index.onMatch(internal, statement);
+            index.onMatch(internal, statement);
+
+            // Then
+            ReconciliationSummary summary = index.summary(ORIGIN, ORIGIN);
+            assertThat(summary.getReconciledTransactions()).isEqualTo(1);
+            assertThat(summary.getPendingTransactions()).isZero();
+            assertThat(summary.getReconciledAmount().toCents()).isEqualTo(1_000);
+            assertThat(summary.getPendingAmount().toCents()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should remember only the retained days and skip entries older than them")
+        void shouldForgetDaysOutsideRetention() {
+            // Given
+            Path file = directory.resolve("summary.bin");
+            ReconciliationEntry early = entry(ReconciliationEntry.Source.INTERNAL, "TX-1", ORIGIN, 100, Currency.EUR);
+            ReconciliationEntry recent = entry(ReconciliationEntry.Source.INTERNAL, "TX-2", ORIGIN.plusDays(29), 200, Currency.EUR);
+            ReconciliationEntry late = entry(ReconciliationEntry.Source.INTERNAL, "TX-3", ORIGIN.plusDays(40), 300, Currency.EUR);
+            try (ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(file, Currency.EUR, ORIGIN, 30)) {
+                index.onUnmatched(early);
+                index.onUnmatched(recent);
+                index.onUnmatched(late);
+            }
+
+            // When
+            ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(file, Currency.EUR, ORIGIN, 30);
+            index.onUnmatched(early);
+            index.onUnmatched(recent);
+            index.onMatch(recent, null);
+
+            // Then
+            ReconciliationSummary summary = index.summary(ORIGIN, ORIGIN.plusDays(40));
+            assertThat(summary.getPendingTransactions()).isEqualTo(2);
+            assertThat(summary.getPendingAmount().toCents()).isEqualTo(400);
+            assertThat(summary.getReconciledTransactions()).isEqualTo(1);
+            assertThat(summary.getReconciledAmount().toCents()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("Should skip entries it cannot hold and never resolve below zero")
+        void shouldSkipBadEntries() {
+            // Given
+            ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(
+                    directory.resolve("summary.bin"), Currency.EUR, ORIGIN);
+
+            // When
+            index.onUnmatched(entry(ReconciliationEntry.Source.INTERNAL, "TX-1", null, 100, Currency.EUR));
+            index.onUnmatched(entry(ReconciliationEntry.Source.INTERNAL, "TX-2", ORIGIN, 100, Currency.USD));
+            index.onMatch(entry(ReconciliationEntry.Source.INTERNAL, "TX-3", ORIGIN.minusDays(1), 100, Currency.EUR), null);
+            index.resolvePending(ORIGIN, Money.fromCents(100, Currency.EUR));
+
+            // Then
+            ReconciliationSummary summary = index.summary(ORIGIN, ORIGIN);
+            assertThat(summary.getPendingTransactions()).isZero();
+            assertThat(summary.getPendingAmount().toCents()).isZero();
+            assertThat(summary.getReconciledTransactions()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class PersistenceTests {
+
+        @Test
+        @DisplayName("Should reload persisted buckets")
+        void shouldReloadBuckets() {
+            // Given
+            Path file = directory.resolve("summary.bin");
+            try (ReconciliationSummaryIndex index = new ReconciliationSummaryIndex(file, Currency.EUR, ORIGIN)) {
+                index.recordReconciled(ORIGIN.plusDays(3), Money.fromCents(4_200, Currency.EUR));
+            }
+
+            // When
+            ReconciliationSummaryIndex reopened = new ReconciliationSummaryIndex(file, Currency.EUR, ORIGIN);
+
+            // Then
+            assertThat(reopened.summary(ORIGIN, ORIGIN.plusDays(3)).getReconciledAmount().toCents())
+                    .isEqualTo(4_200);
+            assertThatThrownBy(() -> new ReconciliationSummaryIndex(file, Currency.USD, ORIGIN))
+                    .hasMessageContaining("EUR");
+        }
+    }
+
+    private static ReconciliationEntry entry(ReconciliationEntry.Source source, String entryId, LocalDate valueDate,
+                                             long cents, Currency currency) {
+        return ReconciliationEntry.builder()
+                .source(source)
+                .entryId(entryId)
+                .valueDate(valueDate)
+                .amount(Money.fromCents(cents, currency))
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.reconciliation.camt;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.dtos.reconciliation.ReconciliationEntry;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for streaming camt statement ingestion.
+ */
+@DisplayName("Camt Statement Reader Tests")
+class CamtStatementReaderTest {
+
+    private static final String CAMT_053 = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:camt.053.001.02">
+              <BkToCstmrStmt>
+                <GrpHdr><MsgId>MSG-1</MsgId></GrpHdr>
+                <Stmt>
+                  <Id>STMT-1</Id>
+                  <Acct><Id><IBAN>DE89370400440532013000</IBAN></Id></Acct>
+                  <Bal><Amt Ccy="EUR">9999.00</Amt></Bal>
+                  <Ntry>
+                    <Amt Ccy="EUR">150.00</Amt>
+                    <CdtDbtInd>CRDT</CdtDbtInd>
+                    <BookgDt><Dt>2025-03-14</Dt></BookgDt>
+                    <ValDt><Dt>2025-03-15</Dt></ValDt>
+                    <AcctSvcrRef>BANK-REF-1</AcctSvcrRef>
+                    <NtryDtls>
+                      <TxDtls>
+                        <Refs><EndToEndId>E2E-1</EndToEndId></Refs>
+                        <AmtDtls><TxAmt><Amt Ccy="EUR">100.00</Amt></TxAmt></AmtDtls>
+                        <RltdPties><Dbtr><Nm>Alice GmbH</Nm></Dbtr><Cdtr><Nm>Us</Nm></Cdtr></RltdPties>
+                      </TxDtls>
+                      <TxDtls>
+                        <Refs><EndToEndId>NOTPROVIDED</EndToEndId></Refs>
+                        <AmtDtls><TxAmt><Amt Ccy="EUR">50.00</Amt></TxAmt></AmtDtls>
+                      </TxDtls>
+                    </NtryDtls>
+                  </Ntry>
+                  <Ntry>
+                    <Amt Ccy="EUR">12.50</Amt>
+                    <CdtDbtInd>DBIT</CdtDbtInd>
+                    <BookgDt><Dt>2025-03-14</Dt></BookgDt>
+                  </Ntry>
+                </Stmt>
+              </BkToCstmrStmt>
+            </Document>
+            """;
+
+    private static final String CAMT_054 = """
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:camt.054.001.08">
+              <BkToCstmrDbtCdtNtfctn>
+                <Ntfctn>
+                  <Id>NTF-1</Id>
+                  <Acct><Id><Othr><Id>ACC-42</Id></Othr></Id></Acct>
+                  <Ntry>
+                    <NtryRef>N-1</NtryRef>
+                    <Amt Ccy="GBP">75.00</Amt>
+                    <CdtDbtInd>DBIT</CdtDbtInd>
+                    <ValDt><DtTm>2025-03-16T10:00:00</DtTm></ValDt>
+                    <NtryDtls><TxDtls>
+                      <Refs><EndToEndId>E2E-9</EndToEndId></Refs>
+                      <RltdPties><Cdtr><Pty><Nm>Supplier Ltd</Nm></Pty></Cdtr></RltdPties>
+                    </TxDtls></NtryDtls>
+                  </Ntry>
+                </Ntfctn>
+              </BkToCstmrDbtCdtNtfctn>
+            </Document>
+            """;
+
+    @Nested
+    @DisplayName("Parsing")
+    class ParsingTests {
+
+        @Test
+        @DisplayName("Should emit one entry per transaction of a camt.053 statement")
+        void shouldReadCamt053() {
+            // When
+            List<ReconciliationEntry> entries = CamtStatementReader.read(() -> stream(CAMT_053)).collectList().block();
+
+            // Then
+            assertThat(entries).hasSize(3);
+            assertThat(entries.get(0)).satisfies(entry -> {
+                assertThat(entry.getSource()).isEqualTo(ReconciliationEntry.Source.STATEMENT);
+                assertThat(entry.getEntryId()).isEqualTo("BANK-REF-1/1");
+                assertThat(entry.getAccountId()).isEqualTo("DE89370400440532013000");
+                assertThat(entry.getEndToEndReference()).isEqualTo("E2E-1");
+                assertThat(entry.getAmount().toCents()).isEqualTo(10_000);
+                assertThat(entry.getValueDate()).isEqualTo(LocalDate.of(2025, 3, 15));
+                assertThat(entry.getCounterpartyName()).isEqualTo("Alice GmbH");
+            });
+            assertThat(entries.get(1).getEndToEndReference()).isNull();
+            assertThat(entries.get(1).getAmount().toCents()).isEqualTo(5_000);
+            assertThat(entries.get(2)).satisfies(entry -> {
+                assertThat(entry.getEntryId()).isEqualTo("STMT-1-2");
+                assertThat(entry.getAmount().toCents()).isEqualTo(1_250);
+                assertThat(entry.getValueDate()).isEqualTo(LocalDate.of(2025, 3, 14));
+            });
+        }
+
+        @Test
+        @DisplayName("Should read camt.054 notifications with inherited entry amounts")
+        void shouldReadCamt054() {
+            // When
+            List<ReconciliationEntry> entries = CamtStatementReader.read(() -> stream(CAMT_054)).collectList().block();
+
+            // Then
+            assertThat(entries).singleElement().satisfies(entry -> {
+                assertThat(entry.getEntryId()).isEqualTo("N-1/1");
+                assertThat(entry.getAccountId()).isEqualTo("ACC-42");
+                assertThat(entry.getAmount().getCurrency()).isEqualTo(Currency.GBP);
+                assertThat(entry.getValueDate()).isEqualTo(LocalDate.of(2025, 3, 16));
+                assertThat(entry.getCounterpartyName()).isEqualTo("Supplier Ltd");
+            });
+        }
+
+        @Test
+        @DisplayName("Should fail on invalid amounts and reject DTDs")
+        void shouldRejectInvalidDocuments() {
+            StepVerifier.create(CamtStatementReader.read(() -> stream(CAMT_054.replace("75.00", "seventy"))))
+                    .verifyError(RailFileFormatException.class);
+            String withDtd = "<?xml version=\"1.0\"?><!DOCTYPE d [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                    + "<Document><BkToCstmrStmt><Stmt><Id>&x;</Id></Stmt></BkToCstmrStmt></Document>";
+            StepVerifier.create(CamtStatementReader.read(() -> stream(withDtd)))
+                    .verifyError(RailFileFormatException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Large statements")
+    class VolumeTests {
+
+        @Test
+        @DisplayName("Should stream a large generated statement without buffering it")
+        void shouldStreamLargeStatement() {
+            // Given
+            int count = 200_000;
+
+            // When / Then
+            StepVerifier.create(CamtStatementReader.read(() -> generatedStatement(count)).map(entry -> 1))
+                    .expectNextCount(count)
+                    .verifyComplete();
+        }
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A camt.053 statement produced entry by entry, never held in memory as a whole.
+     */
+    private static InputStream generatedStatement(int count) {
+        Iterator<InputStream> parts = Stream.concat(Stream.concat(
+                        Stream.of(stream("<Document><BkToCstmrStmt><Stmt><Id>BIG</Id>"
+                                + "<Acct><Id><IBAN>DE89370400440532013000</IBAN></Id></Acct>")),
+                        IntStream.range(0, count).mapToObj(i -> stream("<Ntry><Amt Ccy=\"EUR\">" + (i % 1000) + ".25</Amt>"
+                                + "<CdtDbtInd>CRDT</CdtDbtInd><ValDt><Dt>2025-03-14</Dt></ValDt>"
+                                + "<NtryDtls><TxDtls><Refs><EndToEndId>E2E-" + i + "</EndToEndId></Refs>"
+                                + "</TxDtls></NtryDtls></Ntry>"))),
+                Stream.of(stream("</Stmt></BkToCstmrStmt></Document>")))
+                .iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return parts.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return parts.next();
+            }
+        });
+    }
+}
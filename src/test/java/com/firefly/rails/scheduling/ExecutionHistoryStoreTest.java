@@ -0,0 +1,216 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.scheduled.PaymentExecutionHistory;
+import com.firefly.rails.exceptions.RailFileFormatException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the columnar recurring payment execution history.
+ */
+@DisplayName("Execution History Store Tests")
+class ExecutionHistoryStoreTest {
+
+    private static final Instant START = Instant.parse("2015-01-05T06:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Reads")
+    class ReadTests {
+
+        @Test
+        @DisplayName("Should return executions unchanged across sealed blocks and the tail")
+        void shouldRoundTrip() {
+            // Given
+            ExecutionHistoryStore store = new ExecutionHistoryStore();
+            List<PaymentExecutionHistory> appended = append(store, "RP-1", 300);
+
+            // When
+            List<PaymentExecutionHistory> streamed = store.stream("RP-1").collectList().block();
+
+            // Then
+            assertThat(store.count("RP-1")).isEqualTo(300);
+            assertThat(streamed).containsExactlyElementsOf(appended);
+            assertThat(store.stream("RP-unknown").collectList().block()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should page oldest first and return the latest executions newest first")
+        void shouldPageAndReturnLatest() {
+            // Given
+            ExecutionHistoryStore store = new ExecutionHistoryStore();
+            List<PaymentExecutionHistory> appended = append(store, "RP-1", 300);
+            List<PaymentExecutionHistory> reversed = new ArrayList<>(appended);
+            Collections.reverse(reversed);
+
+            // When / Then
+            assertThat(store.page("RP-1", 120, 20)).containsExactlyElementsOf(appended.subList(120, 140));
+            assertThat(store.page("RP-1", 290, 20)).containsExactlyElementsOf(appended.subList(290, 300));
+            assertThat(store.latest("RP-1", 60)).containsExactlyElementsOf(reversed.subList(0, 60));
+            assertThat(store.latest("RP-1", 500)).containsExactlyElementsOf(reversed);
+        }
+
+        @Test
+        @DisplayName("Should keep ten years of monthly executions in a few kilobytes")
+        void shouldEncodeCompactly() {
+            // Given
+            ExecutionHistoryStore store = new ExecutionHistoryStore();
+
+            // When
+            append(store, "RP-1", 128);
+
+            // Then
+            assertThat(store.sizeInBytes()).isLessThan(128 * 40);
+        }
+    }
+
+    @Nested
+    @DisplayName("Retention")
+    class RetentionTests {
+
+        @Test
+        @DisplayName("Should drop expired blocks and rewrite the block straddling the cut-off")
+        void shouldCompact() {
+            // Given
+            ExecutionHistoryStore store = new ExecutionHistoryStore();
+            List<PaymentExecutionHistory> appended = append(store, "RP-1", 300);
+            append(store, "RP-2", 5);
+
+            // When
+            long removed = store.compact(START.plus(200, ChronoUnit.DAYS));
+
+            // Then
+            assertThat(removed).isEqualTo(205);
+            assertThat(store.count("RP-1")).isEqualTo(100);
+            assertThat(store.count("RP-2")).isZero();
+            assertThat(store.stream("RP-1").collectList().block())
+                    .containsExactlyElementsOf(appended.subList(200, 300));
+        }
+
+        @Test
+        @DisplayName("Should not lose executions appended while their history is compacted away")
+        void shouldKeepAppendsDuringCompaction() throws Exception {
+            for (int round = 0; round < 200; round++) {
+                // Given
+                ExecutionHistoryStore store = new ExecutionHistoryStore();
+                append(store, "RP-1", 1);
+                Thread appender = new Thread(() -> store.append("RP-1", execution("RP-1", 500)));
+
+                // When
+                appender.start();
+                store.compact(START.plus(100, ChronoUnit.DAYS));
+                appender.join();
+
+                // Then
+                assertThat(store.count("RP-1")).isEqualTo(1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class PersistenceTests {
+
+        @Test
+        @DisplayName("Should load the histories it saved")
+        void shouldSaveAndLoad() {
+            // Given
+            ExecutionHistoryStore store = new ExecutionHistoryStore();
+            List<PaymentExecutionHistory> first = append(store, "RP-1", 130);
+            List<PaymentExecutionHistory> second = append(store, "RP-2", 3);
+            Path file = directory.resolve("history.bin");
+
+            // When
+            store.save(file);
+            ExecutionHistoryStore loaded = ExecutionHistoryStore.load(file);
+            PaymentExecutionHistory next = execution("RP-2", 3);
+            loaded.append("RP-2", next);
+
+            // Then
+            assertThat(loaded.stream("RP-1").collectList().block()).containsExactlyElementsOf(first);
+            assertThat(loaded.latest("RP-2", 2)).containsExactly(next, second.get(2));
+        }
+
+        @Test
+        @DisplayName("Should save a consistent file while new histories are appended")
+        void shouldSaveWhileAppending() throws Exception {
+            // Given
+            ExecutionHistoryStore store = new ExecutionHistoryStore();
+            Path file = directory.resolve("history.bin");
+            Thread appender = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    store.append("RP-" + i, execution("RP-" + i, 0));
+                }
+            });
+
+            // When
+            appender.start();
+            while (appender.isAlive()) {
+                store.save(file);
+                ExecutionHistoryStore loaded = ExecutionHistoryStore.load(file);
+
+                // Then
+                assertThat(loaded.count("RP-0")).isLessThanOrEqualTo(1);
+            }
+            appender.join();
+            store.save(file);
+            assertThat(ExecutionHistoryStore.load(file).count("RP-4999")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reject a file that is not an execution history")
+        void shouldRejectForeignFile() throws Exception {
+            // Given
+            Path file = Files.write(directory.resolve("foreign.bin"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+            // When / Then
+            assertThatThrownBy(() -> ExecutionHistoryStore.load(file))
+                    .isInstanceOf(RailFileFormatException.class);
+        }
+    }
+
+    private static List<PaymentExecutionHistory> append(ExecutionHistoryStore store, String id, int count) {
+        List<PaymentExecutionHistory> appended = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PaymentExecutionHistory execution = execution(id, i);
+            store.append(id, execution);
+            appended.add(execution);
+        }
+        return appended;
+    }
+
+    private static PaymentExecutionHistory execution(String id, int n) {
+        boolean failed = n % 10 == 7;
+        return PaymentExecutionHistory.builder()
+                .executionId(id + "-EX-" + n)
+                .scheduledPaymentId(id)
+                .paymentId(failed ? null : "PAY-" + n)
+                .amount(n % 3 == 0 ? new Money(new BigDecimal("1250.00"), Currency.EUR) : Money.fromCents(99_999, Currency.EUR))
+                .executedAt(START.plus(n, ChronoUnit.DAYS))
+                .status(failed ? PaymentStatus.FAILED : PaymentStatus.COMPLETED)
+                .failureReason(failed ? "Insufficient funds" : null)
+                .build();
+    }
+}
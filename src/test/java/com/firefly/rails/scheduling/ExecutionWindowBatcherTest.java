@@ -0,0 +1,244 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.BulkPaymentPort;
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.calendar.BusinessDayCalendarRegistry;
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.IdempotencyKey;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.domain.RailType;
+import com.firefly.rails.dtos.bulk.BulkPaymentRequest;
+import com.firefly.rails.dtos.bulk.BulkPaymentResponse;
+import com.firefly.rails.dtos.bulk.DuplicateReference;
+import com.firefly.rails.dtos.scheduled.CreateScheduledPaymentRequest;
+import com.firefly.rails.dtos.scheduled.ScheduledPaymentResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for cut-off-aware batching of due scheduled payments.
+ */
+@DisplayName("Execution Window Batcher Tests")
+class ExecutionWindowBatcherTest {
+
+    /** Friday 14 March 2025, 06:00 in New York */
+    private static final Instant SIX_AM = ZonedDateTime.of(2025, 3, 14, 6, 0, 0, 0,
+            ZoneId.of("America/New_York")).toInstant();
+
+    private static final BusinessDayCalendarRegistry CALENDARS =
+            BusinessDayCalendarRegistry.withDefaults(LocalDate.of(2025, 1, 1), 2);
+
+    private static final BankAccount PAYROLL = BankAccount.fromAccountNumber("Payroll", "000123456", "021000021");
+    private static final BankAccount RENT = BankAccount.fromAccountNumber("Rent", "000987654", "021000021");
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Planning")
+    class PlanningTests {
+
+        @Test
+        @DisplayName("Should group by rail, debtor and window and order by cut-off")
+        void shouldGroupAndOrderByCutOff() {
+            // Given
+            ExecutionWindowBatcher batcher = ExecutionWindowBatcher.builder()
+                    .bulkPort(mock(BulkPaymentPort.class))
+                    .calendars(CALENDARS)
+                    .bulkSize(RailType.ACH, 2)
+                    .build();
+            List<ScheduledPaymentResponse> due = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                due.add(payment("BACS-" + i, PAYROLL));
+                due.add(payment("SWIFT-" + i, PAYROLL));
+                due.add(payment("ACH-" + i, PAYROLL));
+            }
+            due.add(payment("ACH-RENT", RENT));
+            ScheduledPaymentResponse keyed = payment("ACH-KEYED", RENT);
+            keyed.setIdempotencyKey(IdempotencyKey.fromString("client-key"));
+            due.add(keyed);
+
+            // When
+            List<BulkPaymentRequest> bulks = batcher.plan(due,
+                    payment -> RailType.valueOf(payment.getScheduledPaymentId().split("-")[0]), SIX_AM);
+
+            // Then
+            assertThat(bulks).extracting(bulk -> bulk.getPayments().size()).containsExactly(2, 1, 2, 3, 3);
+            assertThat(bulks.get(0).getId()).startsWith("ACH-");
+            assertThat(bulks.get(0).getDebtorAccount()).isEqualTo(PAYROLL);
+            assertThat(bulks.get(0).getRequestedExecutionDate()).isEqualTo(LocalDate.of(2025, 3, 14));
+            assertThat(bulks.get(3).getId()).startsWith("BACS-");
+            assertThat(bulks.get(4).getId()).startsWith("SWIFT-ASAP-");
+            assertThat(bulks).flatExtracting(BulkPaymentRequest::getPayments)
+                    .extracting(payment -> payment.getIdempotencyKey().getKey())
+                    .doesNotHaveDuplicates()
+                    .contains("scheduled-ACH-RENT", "client-key");
+        }
+    }
+
+    @Nested
+    @DisplayName("Submission")
+    class SubmissionTests {
+
+        @Test
+        @DisplayName("Should submit every bulk, record rejections and leave bulks in doubt unresolved")
+        void shouldSubmitBulks() {
+            // Given
+            BulkPaymentPort bulkPort = mock(BulkPaymentPort.class);
+            when(bulkPort.submitBulkPayment(any())).thenAnswer(invocation -> {
+                BulkPaymentRequest bulk = invocation.getArgument(0);
+                if (bulk.getId().startsWith("BACS")) {
+                    return Mono.error(new IllegalStateException("BACS gateway down"));
+                }
+                if (bulk.getId().startsWith("SWIFT")) {
+                    return Mono.just(ResponseEntity.unprocessableEntity().body(BulkPaymentResponse.builder()
+                            .id(bulk.getId())
+                            .status("REJECTED")
+                            .build()));
+                }
+                return Mono.just(ResponseEntity.ok(BulkPaymentResponse.builder()
+                        .id(bulk.getId())
+                        .status("ACCEPTED")
+                        .acceptedCount(bulk.getPayments().size())
+                        .build()));
+            });
+            ScheduledPaymentEngine engine = mock(ScheduledPaymentEngine.class);
+            when(engine.recordExecution(anyString(), any(), any())).thenReturn(Mono.empty());
+            ExecutionWindowBatcher batcher = ExecutionWindowBatcher.builder()
+                    .bulkPort(bulkPort)
+                    .calendars(CALENDARS)
+                    .engine(engine)
+                    .clock(Clock.fixed(SIX_AM, ZoneOffset.UTC))
+                    .linger(Duration.ofMillis(10))
+                    .build();
+
+            // When
+            List<BulkPaymentResponse> responses = batcher.submit(
+                    Flux.just(payment("ACH-1", PAYROLL), payment("ACH-2", PAYROLL), payment("BACS-1", PAYROLL),
+                            payment("SWIFT-1", PAYROLL)),
+                    payment -> RailType.valueOf(payment.getScheduledPaymentId().split("-")[0]))
+                    .collectList()
+                    .block();
+
+            // Then
+            assertThat(responses).extracting(BulkPaymentResponse::getStatus, BulkPaymentResponse::getAcceptedCount,
+                            BulkPaymentResponse::getRejectedCount)
+                    .containsExactlyInAnyOrder(tuple("ACCEPTED", 2, 0), tuple("FAILED", 0, 1), tuple("FAILED", 0, 1));
+            verify(engine).recordExecution("ACH-1", null, PaymentStatus.SUBMITTED);
+            verify(engine).recordExecution("ACH-2", null, PaymentStatus.SUBMITTED);
+            verify(engine).recordExecution("SWIFT-1", null, PaymentStatus.FAILED);
+            verify(engine, never()).recordExecution(eq("BACS-1"), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should record duplicates within a bulk as rejected")
+        void shouldRecordDuplicatesAsRejected() {
+            // Given
+            BulkPaymentPort bulkPort = mock(BulkPaymentPort.class);
+            when(bulkPort.submitBulkPayment(any())).thenAnswer(invocation -> {
+                BulkPaymentRequest bulk = invocation.getArgument(0);
+                return Mono.just(ResponseEntity.ok(BulkPaymentResponse.builder()
+                        .id(bulk.getId())
+                        .status("PARTIALLY_ACCEPTED")
+                        .acceptedCount(1)
+                        .rejectedCount(1)
+                        .duplicates(List.of(DuplicateReference.builder()
+                                .itemIndex(1)
+                                .endToEndReference(bulk.getPayments().get(1).getEndToEndReference())
+                                .duplicateOfIndex(0)
+                                .build()))
+                        .build()));
+            });
+            ScheduledPaymentEngine engine = mock(ScheduledPaymentEngine.class);
+            when(engine.recordExecution(anyString(), any(), any())).thenReturn(Mono.empty());
+            ExecutionWindowBatcher batcher = ExecutionWindowBatcher.builder()
+                    .bulkPort(bulkPort)
+                    .calendars(CALENDARS)
+                    .engine(engine)
+                    .clock(Clock.fixed(SIX_AM, ZoneOffset.UTC))
+                    .linger(Duration.ofMillis(10))
+                    .build();
+
+            // When
+            batcher.submit(Flux.just(payment("ACH-1", PAYROLL), payment("ACH-2", PAYROLL)), payment -> RailType.ACH)
+                    .blockLast();
+
+            // Then
+            verify(engine).recordExecution("ACH-1", null, PaymentStatus.SUBMITTED);
+            verify(engine).recordExecution("ACH-2", null, PaymentStatus.REJECTED);
+        }
+
+        @Test
+        @DisplayName("Should leave the payments of a timed-out bulk fired in the log for recovery")
+        void shouldLeaveTimedOutBulkForRecovery() {
+            // Given
+            BulkPaymentPort bulkPort = mock(BulkPaymentPort.class);
+            when(bulkPort.submitBulkPayment(any())).thenReturn(Mono.error(new TimeoutException("no answer")));
+            try (ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(directory)) {
+                ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+                        .paymentRail(mock(PaymentRailPort.class))
+                        .clock(Clock.fixed(SIX_AM.minus(Duration.ofDays(1)), ZoneOffset.UTC))
+                        .writeAheadLog(wal)
+                        .build();
+                engine.schedule("ACH-1", SIX_AM, CreateScheduledPaymentRequest.builder()
+                        .amount(Money.fromCents(10_000, Currency.USD))
+                        .debtorAccount(PAYROLL)
+                        .creditorAccount(RENT)
+                        .executionDate(LocalDate.of(2025, 3, 14))
+                        .build());
+                ExecutionWindowBatcher batcher = ExecutionWindowBatcher.builder()
+                        .bulkPort(bulkPort)
+                        .calendars(CALENDARS)
+                        .engine(engine)
+                        .clock(Clock.fixed(SIX_AM, ZoneOffset.UTC))
+                        .linger(Duration.ofMillis(10))
+                        .build();
+
+                // When
+                BulkPaymentResponse response = batcher.submit(engine.takeDue(SIX_AM), payment -> RailType.ACH)
+                        .blockLast();
+
+                // Then
+                assertThat(response.getStatus()).isEqualTo("FAILED");
+                assertThat(wal.pending()).singleElement().satisfies(payment -> {
+                    assertThat(payment.scheduledPaymentId()).isEqualTo("ACH-1");
+                    assertThat(payment.fired()).isTrue();
+                });
+            }
+        }
+    }
+
+    private static ScheduledPaymentResponse payment(String id, BankAccount debtor) {
+        return ScheduledPaymentResponse.builder()
+                .scheduledPaymentId(id)
+                .amount(Money.fromCents(10_000, Currency.USD))
+                .debtorAccount(debtor)
+                .creditorAccount(RENT)
+                .executionDate(LocalDate.of(2025, 3, 14))
+                .status(ScheduledPaymentResponse.ScheduledPaymentStatus.EXECUTING)
+                .build();
+    }
+}
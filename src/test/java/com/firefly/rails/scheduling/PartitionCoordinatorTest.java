@@ -0,0 +1,418 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.adapter.ports.ScheduledPaymentPort;
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.IdempotencyKey;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.dtos.scheduled.CreateScheduledPaymentRequest;
+import com.firefly.rails.dtos.scheduled.PaymentExecutionHistory;
+import com.firefly.rails.dtos.scheduled.ScheduledPaymentResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for leased partitioning of scheduled payments across nodes.
+ */
+@DisplayName("Partition Coordinator Tests")
+class PartitionCoordinatorTest {
+
+    private static final Instant START = Instant.parse("2025-03-14T00:00:00Z");
+    private static final Duration LEASE = Duration.ofSeconds(15);
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Hashing")
+    class HashingTests {
+
+        @Test
+        @DisplayName("Should spread ids evenly and move few of them when partitions are added")
+        void shouldHashConsistently() {
+            // Given
+            int[] counts = new int[16];
+            int moved = 0;
+
+            // When
+            for (int i = 0; i < 16_000; i++) {
+                int partition = PartitionCoordinator.partitionOf("SP-" + i, 16);
+                counts[partition]++;
+                if (PartitionCoordinator.partitionOf("SP-" + i, 17) != partition) {
+                    moved++;
+                }
+            }
+
+            // Then
+            assertThat(Arrays.stream(counts).min().getAsInt()).isGreaterThan(800);
+            assertThat(Arrays.stream(counts).max().getAsInt()).isLessThan(1_200);
+            assertThat(moved).isBetween(500, 1_500);
+        }
+    }
+
+    @Nested
+    @DisplayName("Leases")
+    class LeaseTests {
+
+        @Test
+        @DisplayName("Should hand partitions to a joining node and take them back when it dies")
+        void shouldRebalance() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PartitionCoordinator a = coordinator("node-a", clock);
+            PartitionCoordinator b = coordinator("node-b", clock);
+            assertThat(a.rebalance()).hasSize(16);
+
+            // When
+            b.rebalance();
+            a.rebalance();
+            Set<Integer> joined = b.rebalance();
+
+            // Then
+            assertThat(joined).isNotEmpty().hasSizeLessThan(16);
+            assertThat(a.ownedPartitions()).doesNotContainAnyElementsOf(joined);
+            Set<Integer> all = new TreeSet<>(a.ownedPartitions());
+            all.addAll(joined);
+            assertThat(all).hasSize(16);
+
+            // When node-b stops renewing
+            clock.advance(LEASE.dividedBy(3));
+            a.rebalance();
+            clock.advance(LEASE);
+
+            // Then
+            assertThat(a.rebalance()).hasSize(16);
+            assertThat(b.ownedPartitions()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should release every partition on close")
+        void shouldReleaseOnClose() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            FilePartitionLeaseStore store = new FilePartitionLeaseStore(directory.resolve("leases"));
+            PartitionCoordinator a = coordinator("node-a", clock);
+            PartitionCoordinator b = coordinator("node-b", clock);
+            a.rebalance();
+            b.rebalance();
+            List<Set<Integer>> revoked = new ArrayList<>();
+            a.addListener(new PartitionCoordinator.PartitionListener() {
+                @Override
+                public void onPartitionsRevoked(Set<Integer> partitions) {
+                    revoked.add(partitions);
+                }
+            });
+
+            // When
+            a.close();
+
+            // Then
+            assertThat(revoked).singleElement().satisfies(partitions -> assertThat(partitions).hasSize(16));
+            assertThat(b.rebalance()).hasSize(16);
+            assertThat(store.acquire("node-b", List.of(0), clock.instant(), clock.instant().plus(LEASE)))
+                    .extractingByKey(0)
+                    .satisfies(lease -> assertThat(lease.owner()).isEqualTo("node-b"));
+        }
+
+        @Test
+        @DisplayName("Should report partitions renewed after their lease lapsed as gained")
+        void shouldReportLapsedPartitionsAsGained() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PartitionCoordinator a = coordinator("node-a", clock);
+            a.rebalance();
+            List<Set<Integer>> gained = new ArrayList<>();
+            a.addListener(new PartitionCoordinator.PartitionListener() {
+                @Override
+                public void onPartitionsAssigned(Set<Integer> partitions) {
+                    gained.add(partitions);
+                }
+            });
+
+            // When
+            a.rebalance();
+            clock.advance(LEASE.plusSeconds(1));
+            a.rebalance();
+
+            // Then
+            assertThat(gained).singleElement().satisfies(partitions -> assertThat(partitions).hasSize(16));
+        }
+    }
+
+    @Nested
+    @DisplayName("Partitioned engines")
+    class EngineTests {
+
+        @Test
+        @DisplayName("Should fire every due payment exactly once across nodes")
+        void shouldFireOnce() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenAnswer(invocation -> Mono.just(ResponseEntity.ok(
+                    PaymentResponse.builder()
+                            .paymentId("PAY-" + invocation.<InitiatePaymentRequest>getArgument(0).getMetadata()
+                                    .get("scheduledPaymentId"))
+                            .status(PaymentStatus.SUBMITTED)
+                            .build())));
+            PartitionCoordinator a = coordinator("node-a", clock);
+            PartitionCoordinator b = coordinator("node-b", clock);
+            a.rebalance();
+            b.rebalance();
+            a.rebalance();
+            b.rebalance();
+            ScheduledPaymentEngine engineA = engine(rail, clock, a);
+            ScheduledPaymentEngine engineB = engine(rail, clock, b);
+            for (int i = 0; i < 200; i++) {
+                // both nodes learned about every payment
+                engineA.schedule("SP-" + i, request());
+                engineB.schedule("SP-" + i, request());
+            }
+
+            // When
+            Instant due = Instant.parse("2025-03-20T06:00:00Z");
+            List<PaymentExecutionHistory> firedA = engineA.fireDue(due).collectList().block();
+            List<PaymentExecutionHistory> firedB = engineB.fireDue(due).collectList().block();
+
+            // Then
+            assertThat(firedA).isNotEmpty();
+            assertThat(firedB).isNotEmpty();
+            List<String> fired = new ArrayList<>();
+            firedA.forEach(execution -> fired.add(execution.getScheduledPaymentId()));
+            firedB.forEach(execution -> fired.add(execution.getScheduledPaymentId()));
+            assertThat(fired).hasSize(200).doesNotHaveDuplicates();
+            verify(rail, times(200)).initiatePayment(any());
+        }
+
+        @Test
+        @DisplayName("Should load the pending payments of gained partitions from the adapter")
+        void shouldLoadGainedPartitions() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PartitionCoordinator a = coordinator("node-a", clock);
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .build())));
+            ScheduledPaymentEngine engine = engine(rail, clock, a);
+            ScheduledPaymentPort delegate = mock(ScheduledPaymentPort.class);
+            List<ScheduledPaymentResponse> pending = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                pending.add(ScheduledPaymentResponse.builder()
+                        .scheduledPaymentId("SP-" + i)
+                        .amount(Money.fromCents(5_000, Currency.EUR))
+                        .executionDate(LocalDate.of(2025, 3, 20))
+                        .executionTime(i == 0 ? LocalTime.of(14, 30) : null)
+                        .idempotencyKey(i == 0 ? IdempotencyKey.fromString("client-key-0") : null)
+                        .status(i == 9 ? ScheduledPaymentResponse.ScheduledPaymentStatus.EXECUTED
+                                : ScheduledPaymentResponse.ScheduledPaymentStatus.PENDING)
+                        .build());
+            }
+            when(delegate.listScheduledPayments(any())).thenReturn(Mono.just(ResponseEntity.ok(pending)));
+            SchedulingScheduledPaymentPort port = new SchedulingScheduledPaymentPort(delegate, engine);
+            a.rebalance();
+
+            // When
+            Integer loaded = port.sync().block();
+
+            // Then
+            assertThat(loaded).isEqualTo(9);
+            assertThat(engine.pendingCount()).isEqualTo(9);
+            assertThat(port.sync().block()).isZero();
+            assertThat(engine.dueAt("SP-0")).contains(Instant.parse("2025-03-20T14:30:00Z"));
+            engine.fireDue(Instant.parse("2025-03-20T14:30:00Z")).blockLast();
+            verify(rail).initiatePayment(argThat(initiation ->
+                    initiation.getIdempotencyKey().getKey().equals("client-key-0")));
+        }
+
+        @Test
+        @DisplayName("Should defer due payments while the lease is lapsed instead of dropping them")
+        void shouldDeferWhileLeaseLapsed() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PartitionCoordinator a = coordinator("node-a", clock);
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .build())));
+            ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+                    .paymentRail(rail)
+                    .clock(clock)
+                    .partitions(a)
+                    .writeAheadLog(ScheduledPaymentWriteAheadLog.open(directory.resolve("wal")))
+                    .build();
+            a.rebalance();
+            engine.schedule("SP-1", request());
+
+            // When
+            clock.advance(LEASE.plusSeconds(1));
+            Instant due = Instant.parse("2025-03-20T06:00:00Z");
+            List<PaymentExecutionHistory> lapsed = engine.fireDue(due).collectList().block();
+
+            // Then
+            assertThat(lapsed).isEmpty();
+            assertThat(engine.pendingCount()).isEqualTo(1);
+            verify(rail, never()).initiatePayment(any());
+
+            // When the lease is renewed
+            a.rebalance();
+            List<PaymentExecutionHistory> renewed = engine.fireDue(due.plusSeconds(1)).collectList().block();
+
+            // Then
+            assertThat(renewed).singleElement()
+                    .satisfies(execution -> assertThat(execution.getScheduledPaymentId()).isEqualTo("SP-1"));
+        }
+
+        @Test
+        @DisplayName("Should periodically pick up payments created on other nodes")
+        void shouldSyncPeriodically() throws Exception {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PartitionCoordinator a = coordinator("node-a", clock);
+            ScheduledPaymentEngine engine = engine(mock(PaymentRailPort.class), clock, a);
+            ScheduledPaymentPort delegate = mock(ScheduledPaymentPort.class);
+            CountDownLatch synced = new CountDownLatch(2);
+            when(delegate.listScheduledPayments(any())).thenAnswer(invocation -> {
+                synced.countDown();
+                return Mono.just(ResponseEntity.ok(List.of(ScheduledPaymentResponse.builder()
+                        .scheduledPaymentId("SP-1")
+                        .executionDate(LocalDate.of(2025, 3, 20))
+                        .status(ScheduledPaymentResponse.ScheduledPaymentStatus.PENDING)
+                        .build())));
+            });
+            SchedulingScheduledPaymentPort port = new SchedulingScheduledPaymentPort(delegate, engine);
+            a.rebalance();
+
+            // When
+            Disposable sync = port.syncEvery(Duration.ofMillis(20));
+
+            // Then - the second sync starts once the first one completed
+            try {
+                assertThat(synced.await(5, TimeUnit.SECONDS)).isTrue();
+            } finally {
+                sync.dispose();
+            }
+            assertThat(engine.pendingCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not schedule fired payments again while the adapter still lists them as pending")
+        void shouldNotRescheduleFiredPayments() {
+            // Given
+            MutableClock clock = new MutableClock(START);
+            PartitionCoordinator a = coordinator("node-a", clock);
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .build())));
+            ScheduledPaymentEngine engine = engine(rail, clock, a);
+            ScheduledPaymentPort delegate = mock(ScheduledPaymentPort.class);
+            List<ScheduledPaymentResponse> listed = new ArrayList<>(List.of(ScheduledPaymentResponse.builder()
+                    .scheduledPaymentId("SP-1")
+                    .executionDate(LocalDate.of(2025, 3, 20))
+                    .status(ScheduledPaymentResponse.ScheduledPaymentStatus.PENDING)
+                    .build()));
+            when(delegate.listScheduledPayments(any()))
+                    .thenAnswer(invocation -> Mono.just(ResponseEntity.ok(List.copyOf(listed))));
+            SchedulingScheduledPaymentPort port = new SchedulingScheduledPaymentPort(delegate, engine);
+            a.rebalance();
+            assertThat(port.sync().block()).isEqualTo(1);
+
+            // When
+            Instant due = Instant.parse("2025-03-20T06:00:00Z");
+            assertThat(engine.fireDue(due).collectList().block()).hasSize(1);
+            Integer resynced = port.sync().block();
+
+            // Then
+            assertThat(resynced).isZero();
+            assertThat(engine.pendingCount()).isZero();
+            assertThat(engine.fireDue(due.plusSeconds(1)).collectList().block()).isEmpty();
+            verify(rail, times(1)).initiatePayment(any());
+            listed.clear();
+            port.sync().block();
+            assertThat(engine.hasFired("SP-1")).isFalse();
+        }
+    }
+
+    private PartitionCoordinator coordinator(String nodeId, Clock clock) {
+        return PartitionCoordinator.builder()
+                .leaseStore(new FilePartitionLeaseStore(directory.resolve("leases")))
+                .nodeId(nodeId)
+                .partitions(16)
+                .leaseDuration(LEASE)
+                .clock(clock)
+                .build();
+    }
+
+    private static ScheduledPaymentEngine engine(PaymentRailPort rail, Clock clock, PartitionCoordinator partitions) {
+        return ScheduledPaymentEngine.builder()
+                .paymentRail(rail)
+                .clock(clock)
+                .partitions(partitions)
+                .build();
+    }
+
+    private static CreateScheduledPaymentRequest request() {
+        return CreateScheduledPaymentRequest.builder()
+                .amount(Money.fromCents(5_000, Currency.EUR))
+                .debtorAccount(BankAccount.fromIban("Acme GmbH", "DE89370400440532013000", "COBADEFFXXX"))
+                .creditorAccount(BankAccount.fromIban("Landlord SARL", "FR1420041010050500013M02606", null))
+                .executionDate(LocalDate.of(2025, 3, 20))
+                .executionTime(LocalTime.of(6, 0))
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.calendar.BusinessDayCalendar;
+import com.firefly.rails.calendar.BusinessDayCalendarRegistry;
+import com.firefly.rails.calendar.BusinessDayConvention;
+import com.firefly.rails.domain.RailType;
+import com.firefly.rails.domain.railspecific.UPISpecific;
+import com.firefly.rails.dtos.scheduled.CreateRecurringPaymentRequest;
+import com.firefly.rails.dtos.scheduled.CreateRecurringPaymentRequest.RecurrenceFrequency;
+import com.firefly.rails.dtos.scheduled.RecurringPaymentResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for lazy recurrence expansion.
+ */
+@DisplayName("Recurrence Schedule Tests")
+class RecurrenceScheduleTest {
+
+    private static final BusinessDayCalendar TARGET2 =
+            BusinessDayCalendarRegistry.withDefaults(LocalDate.of(2024, 1, 1), 5).forRail(RailType.SEPA);
+
+    @Nested
+    @DisplayName("Expansion")
+    class ExpansionTests {
+
+        @Test
+        @DisplayName("Should keep month-end schedules on the month end")
+        void shouldKeepMonthEnd() {
+            // Given
+            RecurrenceSchedule schedule = RecurrenceSchedule.of(RecurrenceFrequency.MONTHLY,
+                    LocalDate.of(2025, 1, 31), null, 4);
+
+            // Then
+            assertThat(schedule.stream().toList()).containsExactly(
+                    LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28),
+                    LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 30));
+        }
+
+        @Test
+        @DisplayName("Should stay on the start day unless month-end is requested")
+        void shouldKeepMonthEndOnlyWhenRequested() {
+            // Given
+            CreateRecurringPaymentRequest.CreateRecurringPaymentRequestBuilder request = CreateRecurringPaymentRequest.builder()
+                    .frequency(RecurrenceFrequency.MONTHLY)
+                    .startDate(LocalDate.of(2025, 4, 30))
+                    .numberOfPayments(3);
+
+            // Then
+            assertThat(RecurrenceSchedule.of(request.build()).stream().toList()).containsExactly(
+                    LocalDate.of(2025, 4, 30), LocalDate.of(2025, 5, 30), LocalDate.of(2025, 6, 30));
+            assertThat(RecurrenceSchedule.of(request.endOfMonth(true).build()).stream().toList()).containsExactly(
+                    LocalDate.of(2025, 4, 30), LocalDate.of(2025, 5, 31), LocalDate.of(2025, 6, 30));
+        }
+
+        @Test
+        @DisplayName("Should not drift after a short month")
+        void shouldNotDrift() {
+            // Given
+            RecurrenceSchedule schedule = RecurrenceSchedule.of(RecurrenceFrequency.MONTHLY,
+                    LocalDate.of(2025, 1, 30), LocalDate.of(2025, 4, 30), null);
+
+            // Then
+            assertThat(schedule.stream().toList()).containsExactly(
+                    LocalDate.of(2025, 1, 30), LocalDate.of(2025, 2, 28),
+                    LocalDate.of(2025, 3, 30), LocalDate.of(2025, 4, 30));
+        }
+
+        @Test
+        @DisplayName("Should roll onto business days and merge rolled duplicates")
+        void shouldRollOntoBusinessDays() {
+            // Given - 5 to 7 April 2025 is Saturday to Monday
+            RecurrenceSchedule daily = RecurrenceSchedule.of(RecurrenceFrequency.DAILY,
+                            LocalDate.of(2025, 4, 4), LocalDate.of(2025, 4, 8), null)
+                    .withCalendar(TARGET2, BusinessDayConvention.FOLLOWING);
+            RecurrenceSchedule monthEnd = RecurrenceSchedule.of(RecurrenceFrequency.MONTHLY,
+                            LocalDate.of(2025, 5, 31), null, 1)
+                    .withCalendar(TARGET2, BusinessDayConvention.MODIFIED_FOLLOWING);
+
+            // Then
+            assertThat(daily.stream().toList()).containsExactly(
+                    LocalDate.of(2025, 4, 4), LocalDate.of(2025, 4, 7), LocalDate.of(2025, 4, 8));
+            assertThat(monthEnd.stream().toList()).containsExactly(LocalDate.of(2025, 5, 30));
+        }
+
+        @Test
+        @DisplayName("Should expand UPI AutoPay rules")
+        void shouldExpandUpiRules() {
+            // Given
+            UPISpecific.RecurrenceRule rule = UPISpecific.RecurrenceRule.builder()
+                    .pattern(UPISpecific.RecurrencePattern.QUARTERLY)
+                    .value(15)
+                    .build();
+
+            // When
+            List<LocalDate> dates = RecurrenceSchedule.of(rule, LocalDate.of(2025, 1, 20), LocalDate.of(2025, 12, 31))
+                    .stream().toList();
+
+            // Then
+            assertThat(dates).containsExactly(
+                    LocalDate.of(2025, 2, 15), LocalDate.of(2025, 5, 15),
+                    LocalDate.of(2025, 8, 15), LocalDate.of(2025, 11, 15));
+            assertThatThrownBy(() -> RecurrenceSchedule.of(UPISpecific.RecurrenceRule.builder()
+                    .pattern(UPISpecific.RecurrencePattern.AS_PRESENTED).build(), LocalDate.of(2025, 1, 1), null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should keep the requested day of month of UPI rules starting in February")
+        void shouldKeepUpiDayOfMonth() {
+            // Given
+            UPISpecific.RecurrenceRule day30 = UPISpecific.RecurrenceRule.builder()
+                    .pattern(UPISpecific.RecurrencePattern.MONTHLY)
+                    .value(30)
+                    .build();
+            UPISpecific.RecurrenceRule day29 = UPISpecific.RecurrenceRule.builder()
+                    .pattern(UPISpecific.RecurrencePattern.MONTHLY)
+                    .value(29)
+                    .build();
+
+            // When
+            List<LocalDate> day30Dates = RecurrenceSchedule.of(day30, LocalDate.of(2025, 2, 10), LocalDate.of(2025, 5, 31))
+                    .stream().toList();
+            List<LocalDate> day29Dates = RecurrenceSchedule.of(day29, LocalDate.of(2025, 2, 10), LocalDate.of(2025, 5, 31))
+                    .stream().toList();
+
+            // Then
+            assertThat(day30Dates).containsExactly(
+                    LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 30),
+                    LocalDate.of(2025, 4, 30), LocalDate.of(2025, 5, 30));
+            assertThat(day29Dates).containsExactly(
+                    LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 29),
+                    LocalDate.of(2025, 4, 29), LocalDate.of(2025, 5, 29));
+            assertThat(RecurrenceSchedule.of(day30, LocalDate.of(2025, 2, 10), null)
+                    .nextExecutionDate(LocalDate.of(2025, 3, 1))).contains(LocalDate.of(2025, 3, 30));
+        }
+    }
+
+    @Nested
+    @DisplayName("Next execution date")
+    class NextExecutionDateTests {
+
+        @Test
+        @DisplayName("Should agree with the iterator for any date")
+        void shouldAgreeWithIterator() {
+            // Given
+            Random random = new Random(11);
+            for (RecurrenceFrequency frequency : RecurrenceFrequency.values()) {
+                RecurrenceSchedule schedule = RecurrenceSchedule.of(frequency, LocalDate.of(2024, 1, 31),
+                                LocalDate.of(2028, 6, 30), 40)
+                        .withCalendar(TARGET2, BusinessDayConvention.FOLLOWING);
+                List<LocalDate> dates = schedule.stream().toList();
+
+                for (int i = 0; i < 500; i++) {
+                    // When
+                    LocalDate after = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(1_400));
+
+                    // Then
+                    LocalDate expected = dates.stream().filter(date -> date.isAfter(after)).findFirst().orElse(null);
+                    assertThat(schedule.nextExecutionDate(after).orElse(null))
+                            .as("%s after %s", frequency, after)
+                            .isEqualTo(expected);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should continue a standing order after its executions")
+        void shouldContinueStandingOrder() {
+            // Given
+            RecurringPaymentResponse standingOrder = RecurringPaymentResponse.builder()
+                    .frequency(RecurrenceFrequency.WEEKLY)
+                    .startDate(LocalDate.of(2025, 1, 6))
+                    .numberOfPayments(10)
+                    .executionCount(3)
+                    .active(true)
+                    .build();
+            RecurrenceSchedule schedule = RecurrenceSchedule.of(standingOrder);
+
+            // Then
+            assertThat(schedule.nextExecutionDate(standingOrder)).contains(LocalDate.of(2025, 1, 27));
+            standingOrder.setExecutionCount(10);
+            assertThat(schedule.nextExecutionDate(standingOrder)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should continue after the last execution when rolled dates were merged")
+        void shouldContinueAfterMergedExecutions() {
+            // Given - 5 and 6 April 2025 fall on a weekend and roll onto Monday 7 April
+            RecurringPaymentResponse standingOrder = RecurringPaymentResponse.builder()
+                    .frequency(RecurrenceFrequency.DAILY)
+                    .startDate(LocalDate.of(2025, 4, 4))
+                    .executionCount(2)
+                    .active(true)
+                    .build();
+            RecurrenceSchedule schedule = RecurrenceSchedule.of(standingOrder)
+                    .withCalendar(TARGET2, BusinessDayConvention.FOLLOWING);
+
+            // Then
+            assertThat(schedule.nextExecutionDate(standingOrder)).contains(LocalDate.of(2025, 4, 8));
+            standingOrder.setLastExecutionDate(LocalDate.of(2025, 4, 7));
+            assertThat(schedule.nextExecutionDate(standingOrder)).contains(LocalDate.of(2025, 4, 8));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.dtos.scheduled.CreateScheduledPaymentRequest;
+import com.firefly.rails.dtos.scheduled.PaymentExecutionHistory;
+import com.firefly.rails.dtos.scheduled.UpdateScheduledPaymentRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the timing wheel and the scheduled payment engine.
+ */
+@DisplayName("Scheduled Payment Engine Tests")
+class ScheduledPaymentEngineTest {
+
+    private static final Instant START = Instant.parse("2025-03-14T00:00:00Z");
+
+    @Nested
+    @DisplayName("Timing wheel")
+    class TimingWheelTests {
+
+        @Test
+        @DisplayName("Should fire every timer exactly at its deadline across all levels")
+        void shouldFireAtDeadline() {
+            // Given
+            TimingWheel<Long> wheel = new TimingWheel<>(1_000);
+            Random random = new Random(7);
+            for (int i = 0; i < 20_000; i++) {
+                long deadline = 1_000 + 1 + random.nextInt(i % 2 == 0 ? 600 : 2_000_000);
+                wheel.schedule("t" + i, deadline, deadline);
+            }
+
+            // When
+            List<String> late = new ArrayList<>();
+            int fired = 0;
+            for (long tick = 1_001; tick <= 2_001_000; tick += 997) {
+                long now = tick;
+                fired += wheel.advanceTo(now, (key, deadline) -> {
+                    if (deadline > now || deadline <= now - 997) {
+                        late.add(key);
+                    }
+                });
+            }
+
+            // Then
+            assertThat(late).isEmpty();
+            assertThat(fired).isEqualTo(20_000);
+            assertThat(wheel.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should cancel and reschedule pending timers")
+        void shouldCancelAndReschedule() {
+            // Given
+            TimingWheel<String> wheel = new TimingWheel<>(0);
+            wheel.schedule("a", 10, "a");
+            wheel.schedule("b", 100_000, "b");
+            wheel.schedule("c", 20, "c");
+
+            // When
+            assertThat(wheel.cancel("c")).isEqualTo("c");
+            assertThat(wheel.reschedule("b", 5, null)).isTrue();
+            List<String> fired = new ArrayList<>();
+            wheel.advanceTo(9, (key, payload) -> fired.add(key));
+
+            // Then
+            assertThat(fired).containsExactly("b");
+            assertThat(wheel.cancel("c")).isNull();
+            assertThat(wheel.deadline("a")).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Engine")
+    class EngineTests {
+
+        @Test
+        @DisplayName("Should initiate due payments once with a stable idempotency key")
+        void shouldInitiateDuePayments() {
+            // Given
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenAnswer(invocation -> Mono.just(ResponseEntity.ok(
+                    PaymentResponse.builder()
+                            .paymentId("PAY-" + ((InitiatePaymentRequest) invocation.getArgument(0)).getMetadata()
+                                    .get("scheduledPaymentId"))
+                            .status(PaymentStatus.SUBMITTED)
+                            .build())));
+            ScheduledPaymentEngine engine = engine(rail);
+            engine.schedule("SP-1", request(LocalDate.of(2025, 3, 14), LocalTime.of(6, 0)));
+            engine.schedule("SP-2", request(LocalDate.of(2025, 3, 15), null));
+
+            // When
+            List<PaymentExecutionHistory> early = engine.fireDue(START.plus(Duration.ofHours(5))).collectList().block();
+            List<PaymentExecutionHistory> due = engine.fireDue(START.plus(Duration.ofHours(6))).collectList().block();
+
+            // Then
+            assertThat(early).isEmpty();
+            assertThat(due).singleElement().satisfies(execution -> {
+                assertThat(execution.getScheduledPaymentId()).isEqualTo("SP-1");
+                assertThat(execution.getPaymentId()).isEqualTo("PAY-SP-1");
+                assertThat(execution.getExecutionId()).isEqualTo("scheduled-SP-1");
+                assertThat(execution.getStatus()).isEqualTo(PaymentStatus.SUBMITTED);
+            });
+            assertThat(engine.fireDue(START.plus(Duration.ofHours(7))).collectList().block()).isEmpty();
+            assertThat(engine.pendingCount()).isEqualTo(1);
+            verify(rail, times(1)).initiatePayment(any());
+        }
+
+        @Test
+        @DisplayName("Should move rescheduled payments and report rail failures")
+        void shouldRescheduleAndReportFailures() {
+            // Given
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenReturn(Mono.error(new IllegalStateException("rail down")));
+            ScheduledPaymentEngine engine = engine(rail);
+            engine.schedule("SP-1", request(LocalDate.of(2025, 3, 20), LocalTime.of(9, 0)));
+
+            // When
+            boolean moved = engine.reschedule(UpdateScheduledPaymentRequest.builder()
+                    .scheduledPaymentId("SP-1")
+                    .newExecutionDate(LocalDate.of(2025, 3, 14))
+                    .newAmount(Money.fromCents(2_000, Currency.EUR))
+                    .build());
+            List<PaymentExecutionHistory> due = engine.fireDue(START.plus(Duration.ofHours(10))).collectList().block();
+
+            // Then
+            assertThat(moved).isTrue();
+            assertThat(due).singleElement().satisfies(execution -> {
+                assertThat(execution.getStatus()).isEqualTo(PaymentStatus.FAILED);
+                assertThat(execution.getFailureReason()).isEqualTo("rail down");
+                assertThat(execution.getAmount().toCents()).isEqualTo(2_000);
+            });
+            assertThat(engine.cancel("SP-1")).isFalse();
+        }
+
+        private ScheduledPaymentEngine engine(PaymentRailPort rail) {
+            return ScheduledPaymentEngine.builder()
+                    .paymentRail(rail)
+                    .clock(Clock.fixed(START, ZoneOffset.UTC))
+                    .build();
+        }
+    }
+
+    private static CreateScheduledPaymentRequest request(LocalDate executionDate, LocalTime executionTime) {
+        return CreateScheduledPaymentRequest.builder()
+                .amount(Money.fromCents(1_000, Currency.EUR))
+                .executionDate(executionDate)
+                .executionTime(executionTime)
+                .build();
+    }
+}
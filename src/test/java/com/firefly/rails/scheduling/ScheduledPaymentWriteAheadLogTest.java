@@ -0,0 +1,236 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.scheduling;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.domain.BankAccount;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.IdempotencyKey;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.PaymentStatus;
+import com.firefly.rails.dtos.payments.InitiatePaymentRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import com.firefly.rails.dtos.scheduled.CreateScheduledPaymentRequest;
+import com.firefly.rails.dtos.scheduled.PaymentExecutionHistory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the scheduled payment write-ahead log.
+ */
+@DisplayName("Scheduled Payment Write-Ahead Log Tests")
+class ScheduledPaymentWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Replay")
+    class ReplayTests {
+
+        @Test
+        @DisplayName("Should restore pending and in-flight payments after a restart")
+        void shouldRestoreState() {
+            // Given
+            try (ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(directory)) {
+                wal.created("SP-1", request(1_000)).join();
+                wal.created("SP-2", request(2_000)).join();
+                wal.created("SP-3", request(3_000)).join();
+                wal.created("SP-4", request(4_000)).join();
+                wal.updated("SP-1", request(1_500)).join();
+                wal.fired("SP-2").join();
+                wal.fired("SP-3").join();
+                wal.executed("SP-3", "PAY-3", PaymentStatus.SUBMITTED).join();
+                wal.cancelled("SP-4").join();
+            }
+
+            // When
+            try (ScheduledPaymentWriteAheadLog reopened = ScheduledPaymentWriteAheadLog.open(directory)) {
+
+                // Then
+                assertThat(reopened.pending())
+                        .extracting(ScheduledPaymentWriteAheadLog.PendingPayment::scheduledPaymentId,
+                                ScheduledPaymentWriteAheadLog.PendingPayment::fired)
+                        .containsExactlyInAnyOrder(tuple("SP-1", false), tuple("SP-2", true));
+                CreateScheduledPaymentRequest restored = reopened.get("SP-1").request();
+                assertThat(restored.getAmount().toCents()).isEqualTo(1_500);
+                assertThat(restored.getDebtorAccount()).isEqualTo(request(0).getDebtorAccount());
+                assertThat(restored.getExecutionTime()).isEqualTo(LocalTime.of(6, 0));
+                assertThat(restored.getIdempotencyKey().getKey()).isEqualTo("key-1500");
+            }
+        }
+
+        @Test
+        @DisplayName("Should discard a torn record at the end of the log")
+        void shouldDiscardTornTail() throws Exception {
+            // Given
+            try (ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(directory)) {
+                wal.created("SP-1", request(1_000)).join();
+            }
+            Files.write(directory.resolve("scheduled-payments.wal"), new byte[]{0, 0, 0, 40, 1, 2, 3},
+                    StandardOpenOption.APPEND);
+
+            // When
+            try (ScheduledPaymentWriteAheadLog reopened = ScheduledPaymentWriteAheadLog.open(directory)) {
+                reopened.created("SP-2", request(2_000)).join();
+            }
+
+            // Then
+            try (ScheduledPaymentWriteAheadLog reopened = ScheduledPaymentWriteAheadLog.open(directory)) {
+                assertThat(reopened.pending()).hasSize(2);
+            }
+        }
+
+        @Test
+        @DisplayName("Should snapshot and truncate the log while appending concurrently")
+        void shouldSnapshotUnderConcurrentAppends() throws Exception {
+            // Given
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try (ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(directory, 1_000)) {
+                List<CompletableFuture<Void>> appends = new ArrayList<>();
+                for (int thread = 0; thread < 8; thread++) {
+                    int offset = thread * 1_000;
+                    appends.add(CompletableFuture.runAsync(() -> {
+                        for (int i = offset; i < offset + 1_000; i++) {
+                            wal.created("SP-" + i, request(i)).join();
+                            if (i % 4 == 0) {
+                                wal.cancelled("SP-" + i).join();
+                            }
+                        }
+                    }, executor));
+                }
+                CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+            } finally {
+                executor.shutdown();
+            }
+
+            // When
+            try (ScheduledPaymentWriteAheadLog reopened = ScheduledPaymentWriteAheadLog.open(directory)) {
+
+                // Then
+                assertThat(reopened.pending()).hasSize(6_000);
+                assertThat(Files.exists(directory.resolve("scheduled-payments.snapshot"))).isTrue();
+                assertThat(Files.size(directory.resolve("scheduled-payments.wal"))).isLessThan(200_000);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Engine recovery")
+    class EngineRecoveryTests {
+
+        @Test
+        @DisplayName("Should reschedule pending payments and re-initiate in-flight ones with their key")
+        void shouldRecoverEngine() {
+            // Given
+            Instant now = Instant.parse("2025-03-14T00:00:00Z");
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .build())));
+            try (ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(directory)) {
+                wal.created("SP-1", request(1_000)).join();
+                wal.created("SP-2", request(2_000)).join();
+                wal.fired("SP-1").join();
+            }
+
+            // When
+            List<PaymentExecutionHistory> recovered;
+            try (ScheduledPaymentWriteAheadLog wal = ScheduledPaymentWriteAheadLog.open(directory)) {
+                ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+                        .paymentRail(rail)
+                        .clock(Clock.fixed(now, ZoneOffset.UTC))
+                        .writeAheadLog(wal)
+                        .build();
+                recovered = engine.recover().collectList().block();
+
+                // Then
+                assertThat(engine.pendingCount()).isEqualTo(1);
+                assertThat(engine.dueAt("SP-2")).contains(Instant.parse("2025-03-20T06:00:00Z"));
+                assertThat(wal.pending()).extracting(ScheduledPaymentWriteAheadLog.PendingPayment::scheduledPaymentId)
+                        .containsExactly("SP-2");
+            }
+            assertThat(recovered).singleElement()
+                    .satisfies(execution -> assertThat(execution.getScheduledPaymentId()).isEqualTo("SP-1"));
+            ArgumentCaptor<InitiatePaymentRequest> initiation = ArgumentCaptor.forClass(InitiatePaymentRequest.class);
+            verify(rail).initiatePayment(initiation.capture());
+            assertThat(initiation.getValue().getIdempotencyKey().getKey()).isEqualTo("key-1000");
+        }
+
+        @Test
+        @DisplayName("Should put back payments that could not be logged as fired and keep unrecorded outcomes in doubt")
+        void shouldSurviveLogFailures() {
+            // Given
+            Instant due = Instant.parse("2025-03-20T06:00:00Z");
+            PaymentRailPort rail = mock(PaymentRailPort.class);
+            when(rail.initiatePayment(any())).thenReturn(Mono.just(ResponseEntity.ok(PaymentResponse.builder()
+                    .paymentId("PAY-1")
+                    .status(PaymentStatus.SUBMITTED)
+                    .build())));
+            try (ScheduledPaymentWriteAheadLog wal = spy(ScheduledPaymentWriteAheadLog.open(directory))) {
+                doReturn(CompletableFuture.failedFuture(new IllegalStateException("disk full")))
+                        .doCallRealMethod()
+                        .when(wal).fired("SP-2");
+                doReturn(CompletableFuture.failedFuture(new IllegalStateException("disk full")))
+                        .when(wal).executed(eq("SP-3"), any(), any());
+                ScheduledPaymentEngine engine = ScheduledPaymentEngine.builder()
+                        .paymentRail(rail)
+                        .clock(Clock.fixed(due.minus(Duration.ofDays(1)), ZoneOffset.UTC))
+                        .writeAheadLog(wal)
+                        .build();
+                engine.schedule("SP-1", request(1_000));
+                engine.schedule("SP-2", request(2_000));
+                engine.schedule("SP-3", request(3_000));
+
+                // When
+                List<PaymentExecutionHistory> first = engine.fireDue(due).collectList().block();
+                List<PaymentExecutionHistory> next = engine.fireDue(due.plusSeconds(1)).collectList().block();
+
+                // Then
+                assertThat(first).extracting(PaymentExecutionHistory::getScheduledPaymentId)
+                        .containsExactlyInAnyOrder("SP-1", "SP-3");
+                assertThat(next).extracting(PaymentExecutionHistory::getScheduledPaymentId).containsExactly("SP-2");
+                assertThat(engine.pendingCount()).isZero();
+                assertThat(wal.pending()).singleElement().satisfies(payment -> {
+                    assertThat(payment.scheduledPaymentId()).isEqualTo("SP-3");
+                    assertThat(payment.fired()).isTrue();
+                });
+            }
+        }
+    }
+
+    private static CreateScheduledPaymentRequest request(long minorUnits) {
+        return CreateScheduledPaymentRequest.builder()
+                .amount(Money.fromCents(minorUnits, Currency.EUR))
+                .debtorAccount(BankAccount.fromIban("Acme GmbH", "DE89370400440532013000", "COBADEFFXXX"))
+                .creditorAccount(BankAccount.fromIban("Landlord SARL", "FR1420041010050500013M02606", null))
+                .remittanceInformation("Rent")
+                .executionDate(LocalDate.of(2025, 3, 20))
+                .executionTime(LocalTime.of(6, 0))
+                .idempotencyKey(IdempotencyKey.fromString("key-" + minorUnits))
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.settlement;
+
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.dtos.settlement.NettingCycleResult;
+import com.firefly.rails.dtos.settlement.SettlementInstruction;
+import com.firefly.rails.dtos.settlement.SettlementObligation;
+import com.firefly.rails.dtos.settlement.SettlementTransaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for bilateral and multilateral netting.
+ */
+@DisplayName("Netting Engine Tests")
+class NettingEngineTest {
+
+    @Nested
+    @DisplayName("Multilateral")
+    class MultilateralTests {
+
+        @Test
+        @DisplayName("Should settle a payment cycle with net positions only")
+        void shouldNetCycle() {
+            // Given
+            NettingEngine engine = new NettingEngine(NettingCycleResult.Mode.MULTILATERAL);
+            Flux<SettlementObligation> obligations = Flux.just(
+                    obligation("A", "B", 10_000),
+                    obligation("B", "C", 10_000),
+                    obligation("C", "A", 4_000));
+
+            // When
+            NettingCycleResult result = engine.net(obligations).block();
+
+            // Then
+            assertThat(result.getObligationCount()).isEqualTo(3);
+            assertThat(result.getGrossTotals().get(Currency.USD).toCents()).isEqualTo(24_000);
+            assertThat(result.getNetTotals().get(Currency.USD).toCents()).isEqualTo(6_000);
+            assertThat(result.getInstructions())
+                    .extracting(SettlementInstruction::getParticipant, SettlementInstruction::getDirection,
+                            instruction -> instruction.getAmount().toCents())
+                    .containsExactlyInAnyOrder(
+                            tuple("A", SettlementTransaction.Direction.DEBIT, 6_000L),
+                            tuple("C", SettlementTransaction.Direction.CREDIT, 6_000L));
+            assertThat(engine.getPositionMinorUnits("A", Currency.USD)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should conserve value over many random obligations in several currencies")
+        void shouldConserveValue() {
+            // Given
+            NettingEngine engine = new NettingEngine(NettingCycleResult.Mode.MULTILATERAL);
+            Random random = new Random(42);
+            Currency[] currencies = {Currency.USD, Currency.EUR};
+            for (int i = 0; i < 50_000; i++) {
+                engine.add(SettlementObligation.builder()
+                        .debtorParticipant("P" + random.nextInt(200))
+                        .creditorParticipant("P" + random.nextInt(200))
+                        .amount(Money.fromCents(1 + random.nextInt(1_000_000), currencies[i % 2]))
+                        .build());
+            }
+
+            // When
+            NettingCycleResult result = engine.closeCycle();
+
+            // Then
+            for (Currency currency : currencies) {
+                long debits = result.getInstructions().stream()
+                        .filter(instruction -> instruction.getAmount().getCurrency() == currency)
+                        .filter(instruction -> instruction.getDirection() == SettlementTransaction.Direction.DEBIT)
+                        .mapToLong(instruction -> instruction.getAmount().toCents()).sum();
+                assertThat(debits).isEqualTo(result.getNetTotals().get(currency).toCents());
+                assertThat(debits).isLessThan(result.getGrossTotals().get(currency).toCents());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Bilateral")
+    class BilateralTests {
+
+        @Test
+        @DisplayName("Should net each pair of participants separately")
+        void shouldNetPairs() {
+            // Given
+            NettingEngine engine = new NettingEngine(NettingCycleResult.Mode.BILATERAL);
+            engine.add(obligation("A", "B", 7_000));
+            engine.add(obligation("B", "A", 2_000));
+            engine.add(obligation("B", "C", 1_000));
+            engine.add(obligation("C", "B", 1_000));
+
+            // When
+            NettingCycleResult result = engine.closeCycle();
+
+            // Then
+            assertThat(result.getCycleId()).isEqualTo("BILATERAL-1");
+            assertThat(result.getInstructions()).singleElement().satisfies(instruction -> {
+                assertThat(instruction.getParticipant()).isEqualTo("A");
+                assertThat(instruction.getCounterparty()).isEqualTo("B");
+                assertThat(instruction.getAmount().toCents()).isEqualTo(5_000);
+            });
+            assertThat(engine.closeCycle().getInstructions()).isEmpty();
+        }
+    }
+
+    private static SettlementObligation obligation(String debtor, String creditor, long minorUnits) {
+        return SettlementObligation.builder()
+                .debtorParticipant(debtor)
+                .creditorParticipant(creditor)
+                .amount(Money.fromCents(minorUnits, Currency.USD))
+                .build();
+    }
+}
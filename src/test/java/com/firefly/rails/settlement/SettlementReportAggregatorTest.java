@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.settlement;
+
+import com.firefly.rails.adapter.ports.SettlementPort;
+import com.firefly.rails.domain.Currency;
+import com.firefly.rails.domain.Money;
+import com.firefly.rails.domain.RailType;
+import com.firefly.rails.dtos.settlement.SettlementReport;
+import com.firefly.rails.dtos.settlement.SettlementReportRequest;
+import com.firefly.rails.dtos.settlement.SettlementTransaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for streaming settlement reporting.
+ */
+@DisplayName("Settlement Report Aggregator Tests")
+class SettlementReportAggregatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    @Nested
+    @DisplayName("Aggregation")
+    class AggregationTests {
+
+        @Test
+        @DisplayName("Should emit one report per settlement date and currency")
+        void shouldEmitReportPerDayAndCurrency() {
+            // Given
+            Flux<SettlementTransaction> transactions = Flux.just(
+                    transaction(DAY, 10_000, Currency.EUR, SettlementTransaction.Direction.CREDIT),
+                    transaction(DAY, 2_500, Currency.EUR, SettlementTransaction.Direction.DEBIT),
+                    transaction(DAY, 700, Currency.GBP, SettlementTransaction.Direction.DEBIT),
+                    transaction(DAY.plusDays(1), 300, Currency.EUR, SettlementTransaction.Direction.CREDIT));
+
+            // When / Then
+            StepVerifier.create(SettlementReportAggregator.dailyReports(transactions, RailType.SEPA))
+                    .assertNext(report -> {
+                        assertThat(report.getId()).isEqualTo("SEPA-2025-03-14-EUR");
+                        assertThat(report.getTransactionCount()).isEqualTo(2);
+                        assertThat(report.getTotalCredits().toCents()).isEqualTo(10_000);
+                        assertThat(report.getTotalDebits().toCents()).isEqualTo(2_500);
+                        assertThat(report.getNetAmount().toCents()).isEqualTo(7_500);
+                        assertThat(report.getNetDirection()).isEqualTo(SettlementTransaction.Direction.CREDIT);
+                    })
+                    .assertNext(report -> {
+                        assertThat(report.getCurrency()).isEqualTo(Currency.GBP);
+                        assertThat(report.getNetDirection()).isEqualTo(SettlementTransaction.Direction.DEBIT);
+                    })
+                    .assertNext(report -> assertThat(report.getSettlementDate()).isEqualTo(DAY.plusDays(1)))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Should emit the first report before the input completes")
+        void shouldEmitIncrementally() {
+            // Given
+            Flux<SettlementTransaction> transactions = Flux.concat(
+                    Flux.just(
+                            transaction(DAY, 100, Currency.EUR, SettlementTransaction.Direction.CREDIT),
+                            transaction(DAY.plusDays(1), 100, Currency.EUR, SettlementTransaction.Direction.CREDIT)),
+                    Flux.never());
+
+            // When / Then
+            StepVerifier.create(SettlementReportAggregator.dailyReports(transactions, RailType.SEPA))
+                    .assertNext(report -> assertThat(report.getSettlementDate()).isEqualTo(DAY))
+                    .thenCancel()
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Port default")
+    class PortTests {
+
+        @Test
+        @DisplayName("Should flatten list-returning implementations into a stream")
+        void shouldFlattenReports() {
+            // Given
+            SettlementPort port = mock(SettlementPort.class, CALLS_REAL_METHODS);
+            doReturn(Mono.just(ResponseEntity.ok(List.of(
+                    SettlementReport.builder().id("R-1").build(),
+                    SettlementReport.builder().id("R-2").build()))))
+                    .when(port).getSettlementReports(any());
+
+            // When / Then
+            StepVerifier.create(port.streamSettlementReports(SettlementReportRequest.builder().build()))
+                    .expectNextMatches(report -> report.getId().equals("R-1"))
+                    .expectNextMatches(report -> report.getId().equals("R-2"))
+                    .verifyComplete();
+        }
+    }
+
+    private static SettlementTransaction transaction(LocalDate date, long minorUnits, Currency currency,
+                                                     SettlementTransaction.Direction direction) {
+        return SettlementTransaction.builder()
+                .settlementDate(date)
+                .amount(Money.fromCents(minorUnits, currency))
+                .direction(direction)
+                .build();
+    }
+}
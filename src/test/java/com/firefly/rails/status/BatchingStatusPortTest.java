@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.status;
+
+import com.firefly.rails.adapter.ports.StatusPort;
+import com.firefly.rails.dtos.status.TransactionStatusResponse;
+import com.firefly.rails.exceptions.PaymentNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for micro-batched status lookups.
+ */
+@DisplayName("Batching Status Port Tests")
+class BatchingStatusPortTest {
+
+    @Nested
+    @DisplayName("Batching")
+    class BatchingTests {
+
+        @Test
+        @DisplayName("Should merge concurrent lookups into bulk queries of at most the batch size")
+        void shouldMergeLookups() {
+            // Given
+            StatusPort rail = bulkRail();
+            BatchingStatusPort port = BatchingStatusPort.builder()
+                    .delegate(rail)
+                    .maxBatchSize(50)
+                    .maxWait(Duration.ofMillis(50))
+                    .build();
+
+            // When
+            List<ResponseEntity<TransactionStatusResponse>> responses = Flux.range(0, 120)
+                    .flatMap(i -> port.queryTransactionStatus("PAY-" + (i % 110)), 120)
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            // Then
+            assertThat(responses).hasSize(120)
+                    .allSatisfy(response -> assertThat(response.getBody().getStatus()).isEqualTo("SETTLED"));
+            verify(rail, times(3)).queryTransactionStatuses(anyCollection());
+            verify(rail, never()).queryTransactionStatus(any());
+        }
+
+        @Test
+        @DisplayName("Should answer not found for transactions missing from the bulk result")
+        void shouldAnswerNotFound() {
+            // Given
+            StatusPort rail = bulkRail();
+            BatchingStatusPort port = BatchingStatusPort.builder().delegate(rail).build();
+
+            // When
+            ResponseEntity<TransactionStatusResponse> response = port.queryTransactionStatus("UNKNOWN-1")
+                    .block(Duration.ofSeconds(5));
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("Should fail every lookup of a failed batch")
+        void shouldFailBatch() {
+            // Given
+            StatusPort rail = mock(StatusPort.class);
+            when(rail.queryTransactionStatuses(anyCollection()))
+                    .thenReturn(Mono.error(new IllegalStateException("tracker down")));
+            BatchingStatusPort port = BatchingStatusPort.builder().delegate(rail).build();
+
+            // When / Then
+            assertThatThrownBy(() -> Flux.merge(port.queryTransactionStatus("PAY-1"), port.queryTransactionStatus("PAY-2"))
+                    .collectList()
+                    .block(Duration.ofSeconds(5)))
+                    .hasMessageContaining("tracker down");
+            verify(rail, times(1)).queryTransactionStatuses(anyCollection());
+        }
+    }
+
+    @Nested
+    @DisplayName("Default bulk query")
+    class DefaultBulkQueryTests {
+
+        @Test
+        @DisplayName("Should fall back to one lookup per transaction")
+        void shouldFallBackToSingleLookups() {
+            // Given
+            StatusPort rail = mock(StatusPort.class, CALLS_REAL_METHODS);
+            doAnswer(invocation -> invocation.getArgument(0, String.class).startsWith("UNKNOWN")
+                    ? Mono.just(ResponseEntity.notFound().build())
+                    : Mono.just(ResponseEntity.ok(status(invocation.getArgument(0)))))
+                    .when(rail).queryTransactionStatus(any());
+
+            // When
+            List<TransactionStatusResponse> statuses = rail.queryTransactionStatuses(List.of("PAY-1", "UNKNOWN-1", "PAY-2"))
+                    .block()
+                    .getBody();
+
+            // Then
+            assertThat(statuses).extracting(TransactionStatusResponse::getId).containsExactly("PAY-1", "PAY-2");
+        }
+
+        @Test
+        @DisplayName("Should leave out unknown transactions of a mixed batch behind the batching port")
+        void shouldSkipUnknownInMixedBatch() {
+            // Given
+            StatusPort rail = mock(StatusPort.class, CALLS_REAL_METHODS);
+            doAnswer(invocation -> {
+                String id = invocation.getArgument(0);
+                if (id.startsWith("GONE")) {
+                    return Mono.error(new PaymentNotFoundException("Transaction not found: " + id));
+                }
+                if (id.startsWith("UNKNOWN")) {
+                    return Mono.just(ResponseEntity.notFound().build());
+                }
+                return Mono.just(ResponseEntity.ok(status(id)));
+            }).when(rail).queryTransactionStatus(any());
+            BatchingStatusPort port = BatchingStatusPort.builder()
+                    .delegate(rail)
+                    .maxBatchSize(10)
+                    .maxWait(Duration.ofMillis(20))
+                    .build();
+
+            // When
+            List<ResponseEntity<TransactionStatusResponse>> responses = Flux.just("PAY-1", "GONE-1", "UNKNOWN-1", "PAY-2")
+                    .flatMapSequential(port::queryTransactionStatus)
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            // Then
+            assertThat(responses).extracting(ResponseEntity::getStatusCode).containsExactly(
+                    HttpStatus.OK, HttpStatus.NOT_FOUND, HttpStatus.NOT_FOUND, HttpStatus.OK);
+            assertThat(responses.get(3).getBody().getId()).isEqualTo("PAY-2");
+        }
+    }
+
+    @Nested
+    @DisplayName("Default subscription")
+    class DefaultSubscriptionTests {
+
+        @Test
+        @DisplayName("Should poll every transaction in one bulk query and emit only changes")
+        void shouldPollInBulk() {
+            // Given
+            StatusPort rail = mock(StatusPort.class, CALLS_REAL_METHODS);
+            AtomicInteger polls = new AtomicInteger();
+            doAnswer(invocation -> Mono.just(ResponseEntity.ok(List.of(
+                    TransactionStatusResponse.builder().id("PAY-1")
+                            .status(polls.incrementAndGet() == 1 ? "PENDING" : "SETTLED").build(),
+                    TransactionStatusResponse.builder().id("PAY-2").status("PENDING").build()))))
+                    .when(rail).queryTransactionStatuses(anyCollection());
+
+            // When / Then
+            StepVerifier.withVirtualTime(() -> rail.subscribeToStatus(List.of("PAY-1", "PAY-2", "PAY-1"))
+                            .map(status -> status.getId() + ":" + status.getStatus()))
+                    .expectNext("PAY-1:PENDING", "PAY-2:PENDING")
+                    .thenAwait(Duration.ofSeconds(5))
+                    .expectNext("PAY-1:SETTLED")
+                    .thenAwait(Duration.ofSeconds(5))
+                    .expectNoEvent(Duration.ofSeconds(1))
+                    .thenCancel()
+                    .verify();
+            verify(rail, times(3)).queryTransactionStatuses(argThat(ids -> ids.size() == 2));
+            verify(rail, never()).queryTransactionStatus(any());
+        }
+
+        @Test
+        @DisplayName("Should refuse to watch more transactions than the cap")
+        void shouldCapSubscriptions() {
+            // Given
+            StatusPort rail = mock(StatusPort.class, CALLS_REAL_METHODS);
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i <= StatusPort.MAX_SUBSCRIBED_TRANSACTIONS; i++) {
+                ids.add("PAY-" + i);
+            }
+
+            // When / Then
+            StepVerifier.create(rail.subscribeToStatus(ids))
+                    .expectError(IllegalArgumentException.class)
+                    .verify();
+        }
+    }
+
+    private static StatusPort bulkRail() {
+        StatusPort rail = mock(StatusPort.class);
+        when(rail.queryTransactionStatuses(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            assertThat(ids).hasSizeLessThanOrEqualTo(50);
+            List<TransactionStatusResponse> found = new ArrayList<>();
+            ids.stream().filter(id -> !id.startsWith("UNKNOWN")).forEach(id -> found.add(status(id)));
+            return Mono.just(ResponseEntity.ok(found));
+        });
+        return rail;
+    }
+
+    private static TransactionStatusResponse status(String id) {
+        return TransactionStatusResponse.builder().id(id).status("SETTLED").build();
+    }
+}
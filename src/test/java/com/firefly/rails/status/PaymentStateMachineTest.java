@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.status;
+
+import com.firefly.rails.domain.PaymentStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.firefly.rails.domain.PaymentStatus.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the payment lifecycle state machine.
+ */
+@DisplayName("Payment State Machine Tests")
+class PaymentStateMachineTest {
+
+    @Nested
+    @DisplayName("Transition rules")
+    class RuleTests {
+
+        @Test
+        @DisplayName("Should only allow forward transitions and stop at terminal statuses")
+        void shouldDefineLegalTransitions() {
+            assertThat(PaymentStateMachine.isLegal(SUBMITTED, SETTLED)).isTrue();
+            assertThat(PaymentStateMachine.isLegal(SETTLED, PROCESSING)).isFalse();
+            assertThat(PaymentStateMachine.isReachable(INITIATED, SETTLED)).isTrue();
+            assertThat(PaymentStateMachine.isReachable(SETTLED, FAILED)).isFalse();
+            assertThat(Arrays.stream(PaymentStatus.values()).filter(PaymentStateMachine::isTerminal))
+                    .containsExactlyInAnyOrder(FAILED, REJECTED, RETURNED, CANCELLED, REVERSED);
+        }
+    }
+
+    @Nested
+    @DisplayName("Events")
+    class EventTests {
+
+        @Test
+        @DisplayName("Should reject stale events and duplicates without flapping")
+        void shouldRejectStaleEvents() {
+            // Given
+            PaymentStateMachine machine = new PaymentStateMachine();
+            List<PaymentStateMachine.Transition> transitions = new ArrayList<>();
+            machine.addListener(transitions::add);
+
+            // When / Then
+            assertThat(machine.apply("PAY-1", SUBMITTED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-1", SETTLED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-1", PROCESSING)).isEqualTo(PaymentStateMachine.Outcome.STALE);
+            assertThat(machine.apply("PAY-1", SETTLED)).isEqualTo(PaymentStateMachine.Outcome.DUPLICATE);
+            assertThat(machine.apply("PAY-1", RETURNED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-1", COMPLETED)).isEqualTo(PaymentStateMachine.Outcome.REJECTED);
+            assertThat(machine.status("PAY-1")).contains(RETURNED);
+            assertThat(transitions).extracting(PaymentStateMachine.Transition::from, PaymentStateMachine.Transition::to,
+                            PaymentStateMachine.Transition::version)
+                    .containsExactly(tuple(null, SUBMITTED, 1L), tuple(SUBMITTED, SETTLED, 2L),
+                            tuple(SETTLED, RETURNED, 3L));
+        }
+
+        @Test
+        @DisplayName("Should buffer an early event until it becomes legal")
+        void shouldBufferEarlyEvents() {
+            // Given
+            PaymentStateMachine machine = new PaymentStateMachine();
+            machine.apply("PAY-1", INITIATED);
+
+            // When
+            PaymentStateMachine.Outcome early = machine.apply("PAY-1", RETURNED);
+            PaymentStateMachine.Outcome submitted = machine.apply("PAY-1", SUBMITTED);
+
+            // Then
+            assertThat(early).isEqualTo(PaymentStateMachine.Outcome.BUFFERED);
+            assertThat(submitted).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.status("PAY-1")).contains(RETURNED);
+            assertThat(machine.version("PAY-1")).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should apply an instant rail's settlement straight after initiation")
+        void shouldApplyInstantRailSequence() {
+            // Given
+            PaymentStateMachine machine = new PaymentStateMachine();
+            List<PaymentStateMachine.Transition> transitions = new ArrayList<>();
+            machine.addListener(transitions::add);
+
+            // When / Then
+            assertThat(machine.apply("PAY-1", INITIATED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-1", SETTLED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-1", COMPLETED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-2", INITIATED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-2", PROCESSING)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-3", INITIATED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(machine.apply("PAY-3", COMPLETED)).isEqualTo(PaymentStateMachine.Outcome.APPLIED);
+            assertThat(transitions).extracting(PaymentStateMachine.Transition::paymentId,
+                            PaymentStateMachine.Transition::from, PaymentStateMachine.Transition::to)
+                    .contains(tuple("PAY-1", INITIATED, SETTLED), tuple("PAY-1", SETTLED, COMPLETED),
+                            tuple("PAY-2", INITIATED, PROCESSING), tuple("PAY-3", INITIATED, COMPLETED));
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Should apply concurrent events as one legal chain per payment")
+        void shouldApplyConcurrentEventsAtomically() throws Exception {
+            // Given
+            PaymentStateMachine machine = new PaymentStateMachine();
+            Queue<PaymentStateMachine.Transition> transitions = new ConcurrentLinkedQueue<>();
+            machine.addListener(transitions::add);
+            PaymentStatus[] events = {INITIATED, SUBMITTED, PROCESSING, PENDING_INTERMEDIARY, SETTLED, COMPLETED};
+            int payments = 2_000;
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch start = new CountDownLatch(1);
+
+            // When
+            for (int thread = 0; thread < 8; thread++) {
+                int seed = thread;
+                executor.submit(() -> {
+                    Random random = new Random(seed);
+                    start.await();
+                    for (int i = 0; i < payments * events.length; i++) {
+                        machine.apply("PAY-" + random.nextInt(payments), events[random.nextInt(events.length)]);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+            // Then
+            Map<String, List<PaymentStateMachine.Transition>> byPayment = new HashMap<>();
+            transitions.forEach(t -> byPayment.computeIfAbsent(t.paymentId(), id -> new ArrayList<>()).add(t));
+            assertThat(byPayment).allSatisfy((paymentId, chain) -> {
+                chain.sort(Comparator.comparingLong(PaymentStateMachine.Transition::version));
+                for (int i = 0; i < chain.size(); i++) {
+                    PaymentStateMachine.Transition transition = chain.get(i);
+                    assertThat(transition.version()).isEqualTo(i + 1);
+                    if (i > 0) {
+                        assertThat(transition.from()).isEqualTo(chain.get(i - 1).to());
+                        assertThat(PaymentStateMachine.isLegal(transition.from(), transition.to())).isTrue();
+                    }
+                }
+                assertThat(machine.status(paymentId)).contains(chain.get(chain.size() - 1).to());
+            });
+        }
+    }
+}
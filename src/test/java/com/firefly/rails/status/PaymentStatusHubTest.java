@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.status;
+
+import com.firefly.rails.dtos.status.TransactionStatusResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the payment status fan-out hub.
+ */
+@DisplayName("Payment Status Hub Tests")
+class PaymentStatusHubTest {
+
+    @Nested
+    @DisplayName("Subscriptions")
+    class SubscriptionTests {
+
+        @Test
+        @DisplayName("Should deliver the current status and then changes of watched payments only")
+        void shouldDeliverChanges() {
+            // Given
+            PaymentStatusHub hub = new PaymentStatusHub();
+
+            // When / Then
+            StepVerifier.create(hub.subscribe(List.of("PAY-1", "PAY-2"), id -> Mono.just(status(id, "SUBMITTED"))))
+                    .expectNext(status("PAY-1", "SUBMITTED"), status("PAY-2", "SUBMITTED"))
+                    .then(() -> {
+                        hub.publish(status("PAY-3", "SETTLED"));
+                        hub.publish(status("PAY-2", "SETTLED"));
+                    })
+                    .expectNext(status("PAY-2", "SETTLED"))
+                    .thenCancel()
+                    .verify();
+            assertThat(hub.subscriptionCount()).isZero();
+            assertThat(hub.watchedPaymentCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep only the latest status of each payment for a slow subscriber")
+        void shouldConflateForSlowSubscriber() {
+            // Given
+            PaymentStatusHub hub = new PaymentStatusHub();
+
+            // When / Then
+            StepVerifier.create(hub.subscribe(List.of("PAY-1", "PAY-2")), 0)
+                    .then(() -> {
+                        hub.publish(status("PAY-1", "SUBMITTED"));
+                        hub.publish(status("PAY-2", "SUBMITTED"));
+                        hub.publish(status("PAY-1", "PROCESSING"));
+                        hub.publish(status("PAY-1", "SETTLED"));
+                    })
+                    .thenRequest(10)
+                    .expectNext(status("PAY-1", "SETTLED"), status("PAY-2", "SUBMITTED"))
+                    .thenCancel()
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Should reject subscriptions watching too many payments")
+        void shouldRejectLargeSubscriptions() {
+            // Given
+            PaymentStatusHub hub = new PaymentStatusHub(2);
+
+            // When / Then
+            StepVerifier.create(hub.subscribe(Set.of("PAY-1", "PAY-2", "PAY-3")))
+                    .expectError(IllegalArgumentException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Fan-out")
+    class FanOutTests {
+
+        @Test
+        @DisplayName("Should fan a change out to many concurrent subscribers")
+        void shouldFanOut() {
+            // Given
+            PaymentStatusHub hub = new PaymentStatusHub();
+            AtomicInteger received = new AtomicInteger();
+            List<Disposable> subscriptions = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++) {
+                subscriptions.add(hub.subscribe(List.of("PAY-" + (i % 100), "PAY-SHARED"))
+                        .subscribe(status -> received.incrementAndGet()));
+            }
+
+            // When
+            int delivered = hub.publish(status("PAY-SHARED", "SETTLED")) + hub.publish(status("PAY-7", "SETTLED"));
+
+            // Then
+            assertThat(delivered).isEqualTo(101_000);
+            assertThat(received).hasValue(101_000);
+            subscriptions.forEach(Disposable::dispose);
+            assertThat(hub.watchedPaymentCount()).isZero();
+        }
+    }
+
+    private static TransactionStatusResponse status(String id, String status) {
+        return TransactionStatusResponse.builder().id(id).status(status).build();
+    }
+}
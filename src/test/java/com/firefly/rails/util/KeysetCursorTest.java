@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ * Licensed under the Apache License, Version 2.0
+ */
+package com.firefly.rails.util;
+
+import com.firefly.rails.adapter.ports.PaymentRailPort;
+import com.firefly.rails.dtos.CursorPage;
+import com.firefly.rails.dtos.payments.ListPaymentsRequest;
+import com.firefly.rails.dtos.payments.PaymentResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for keyset cursors and the default cursor pagination of the ports.
+ */
+@DisplayName("Keyset Cursor Tests")
+class KeysetCursorTest {
+
+    private static final Instant T0 = Instant.parse("2025-03-01T10:00:00Z");
+
+    @Nested
+    @DisplayName("Cursors")
+    class CursorTests {
+
+        @Test
+        @DisplayName("Should round-trip through an opaque string and order by timestamp, then id")
+        void shouldRoundTrip() {
+            // Given
+            KeysetCursor cursor = new KeysetCursor(T0.plusNanos(123), "PAY:1/é");
+
+            // When
+            KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+            // Then
+            assertThat(decoded).isEqualTo(cursor);
+            assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+            assertThat(new KeysetCursor(T0, "B")).isGreaterThan(new KeysetCursor(T0, "A"))
+                    .isLessThan(new KeysetCursor(T0.plusMillis(1), "A"));
+            assertThat(new KeysetCursor(null, "A")).isLessThan(new KeysetCursor(Instant.EPOCH, "A"));
+        }
+
+        @Test
+        @DisplayName("Should reject cursors it did not produce")
+        void shouldRejectInvalidCursors() {
+            assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.decode("not a cursor"));
+            assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.decode("YWJj"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Default pagination")
+    class PaginationTests {
+
+        @Test
+        @DisplayName("Should walk every payment exactly once, page by page")
+        void shouldWalkAllPages() {
+            // Given
+            List<PaymentResponse> payments = new ArrayList<>();
+            for (int i = 0; i < 237; i++) {
+                // every third payment shares its creation time with the previous one
+                payments.add(payment("PAY-" + i, T0.plusSeconds(i - i / 3)));
+            }
+            List<PaymentResponse> shuffled = new ArrayList<>(payments);
+            Collections.shuffle(shuffled, new Random(7));
+            PaymentRailPort port = port(shuffled);
+
+            // When
+            List<String> walked = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                CursorPage<PaymentResponse> page = port.listPaymentsPage(ListPaymentsRequest.builder()
+                        .limit(50)
+                        .cursor(cursor)
+                        .build()).block().getBody();
+                page.getItems().forEach(payment -> walked.add(payment.getPaymentId()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            // Then
+            assertThat(pages).isEqualTo(5);
+            assertThat(walked).containsExactlyElementsOf(payments.stream()
+                    .sorted((a, b) -> KeysetCursor.of(a).compareTo(KeysetCursor.of(b)))
+                    .map(PaymentResponse::getPaymentId)
+                    .toList());
+        }
+
+        @Test
+        @DisplayName("Should stream payments after a cursor and answer an invalid cursor with 400")
+        void shouldStreamAfterCursor() {
+            // Given
+            PaymentRailPort port = port(List.of(payment("PAY-2", T0.plusSeconds(2)), payment("PAY-1", T0.plusSeconds(1)),
+                    payment("PAY-3", T0.plusSeconds(3))));
+            String afterFirst = new KeysetCursor(T0.plusSeconds(1), "PAY-1").encode();
+
+            // When / Then
+            StepVerifier.create(port.streamPayments(ListPaymentsRequest.builder().cursor(afterFirst).build())
+                            .map(PaymentResponse::getPaymentId))
+                    .expectNext("PAY-2", "PAY-3")
+                    .verifyComplete();
+            StepVerifier.create(port.listPaymentsPage(ListPaymentsRequest.builder().cursor("bogus!").build()))
+                    .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                    .verifyComplete();
+        }
+    }
+
+    private static PaymentRailPort port(List<PaymentResponse> payments) {
+        PaymentRailPort port = mock(PaymentRailPort.class, CALLS_REAL_METHODS);
+        when(port.listPayments(any())).thenReturn(Mono.just(ResponseEntity.ok(payments)));
+        return port;
+    }
+
+    private static PaymentResponse payment(String paymentId, Instant createdAt) {
+        return PaymentResponse.builder().paymentId(paymentId).createdAt(createdAt).build();
+    }
+}